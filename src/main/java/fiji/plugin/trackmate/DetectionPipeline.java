@@ -0,0 +1,274 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import fiji.plugin.trackmate.features.FeatureFilter;
+import fiji.plugin.trackmate.features.SpotFeatureCalculator;
+import fiji.plugin.trackmate.tracking.jaqaman.StreamingLAPTracker;
+import fiji.plugin.trackmate.util.Threads;
+
+/**
+ * The downstream stages of the pipelined detection: initial filtering and
+ * spot feature calculation, run frame by frame as soon as a frame is
+ * detected.
+ * <p>
+ * Detection threads hand over the spots of each frame with
+ * {@link #submit(int, List)}. Frames are queued in a bounded queue, so that
+ * detection blocks when the downstream stages lag behind, instead of
+ * accumulating results. Worker threads take frames from the queue, remove
+ * the spots below the initial quality filter value, compute the spot
+ * features of the remaining ones, and add them to the target spot
+ * collection. A frame is thus fully processed shortly after its detection,
+ * while its pixels are still in the cache, and is not read again by a later
+ * stage.
+ */
+class DetectionPipeline
+{
+
+	private static final String BASE_ERROR_MESSAGE = "[DetectionPipeline] ";
+
+	/** Marks the end of the frames in the queue. */
+	private static final FrameSpots END = new FrameSpots( -1, null );
+
+	private final SpotFeatureCalculator calculator;
+
+	private final Double minQuality;
+
+	private final int nWorkers;
+
+	private final BlockingQueue< FrameSpots > queue;
+
+	private final List< Future< ? > > workers = new ArrayList<>();
+
+	private ExecutorService executor;
+
+	private StreamingLAPTracker tracker;
+
+	private List< FeatureFilter > spotFilters;
+
+	private volatile String errorMessage;
+
+	/**
+	 * Creates a pipeline.
+	 *
+	 * @param model
+	 *            the model whose feature model will receive the spot feature
+	 *            declarations.
+	 * @param settings
+	 *            the settings, for the initial filter value, the image and
+	 *            the spot analyzers.
+	 * @param nWorkers
+	 *            the number of worker threads.
+	 * @param capacity
+	 *            the maximal number of detected frames waiting to be
+	 *            processed.
+	 */
+	DetectionPipeline( final Model model, final Settings settings, final int nWorkers, final int capacity )
+	{
+		this.calculator = new SpotFeatureCalculator( model, settings, false );
+		this.minQuality = settings.initialSpotFilterValue;
+		this.nWorkers = Math.max( 1, nWorkers );
+		this.queue = new ArrayBlockingQueue<>( Math.max( 1, capacity ) );
+	}
+
+	/**
+	 * Returns the feature calculator used by the pipeline, so that it can be
+	 * canceled.
+	 *
+	 * @return the feature calculator.
+	 */
+	SpotFeatureCalculator getCalculator()
+	{
+		return calculator;
+	}
+
+	/**
+	 * Sets a tracker to pass the spots of each frame to, once their features
+	 * are computed. Only the spots that pass the spot filters are passed, as
+	 * they will be the visible spots after spot filtering.
+	 *
+	 * @param tracker
+	 *            the streaming tracker.
+	 * @param spotFilters
+	 *            the spot filters.
+	 */
+	void setStreamingTracker( final StreamingLAPTracker tracker, final List< FeatureFilter > spotFilters )
+	{
+		this.tracker = tracker;
+		this.spotFilters = new ArrayList<>( spotFilters );
+	}
+
+	/**
+	 * Starts the worker threads.
+	 *
+	 * @param target
+	 *            the collection the processed spots are added to.
+	 */
+	void start( final SpotCollection target )
+	{
+		calculator.declareFeatures();
+		executor = Threads.newFixedThreadPool( nWorkers );
+		for ( int i = 0; i < nWorkers; i++ )
+			workers.add( executor.submit( () -> work( target ) ) );
+		executor.shutdown();
+	}
+
+	/**
+	 * Hands over the spots detected in a frame. Blocks while the queue is
+	 * full.
+	 *
+	 * @param frame
+	 *            the frame.
+	 * @param spots
+	 *            the spots detected in this frame.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for room in the queue.
+	 */
+	void submit( final int frame, final List< Spot > spots ) throws InterruptedException
+	{
+		enqueue( new FrameSpots( frame, spots ) );
+	}
+
+	/**
+	 * Waits for room in the queue, unless the workers failed, in which case
+	 * the item is dropped.
+	 */
+	private void enqueue( final FrameSpots item ) throws InterruptedException
+	{
+		while ( !queue.offer( item, 100, TimeUnit.MILLISECONDS ) )
+			if ( errorMessage != null )
+				return;
+	}
+
+	/**
+	 * Waits for all the frames submitted so far to be processed, and stops
+	 * the worker threads.
+	 *
+	 * @return <code>true</code> if all frames were processed without error.
+	 */
+	boolean finish()
+	{
+		try
+		{
+			for ( int i = 0; i < nWorkers; i++ )
+				enqueue( END );
+			for ( final Future< ? > worker : workers )
+				worker.get();
+		}
+		catch ( final InterruptedException | ExecutionException e )
+		{
+			executor.shutdownNow();
+			errorMessage = BASE_ERROR_MESSAGE + "Problem during spot processing: " + e.getMessage();
+			e.printStackTrace();
+		}
+		return errorMessage == null;
+	}
+
+	String getErrorMessage()
+	{
+		return errorMessage;
+	}
+
+	private void work( final SpotCollection target )
+	{
+		try
+		{
+			while ( true )
+			{
+				final FrameSpots item = queue.take();
+				if ( item == END )
+					return;
+
+				// Initial filtering.
+				final List< Spot > spots = new ArrayList<>( item.spots.size() );
+				for ( final Spot spot : item.spots )
+					if ( minQuality == null || spot.getFeature( Spot.QUALITY ).compareTo( minQuality ) >= 0 )
+						spots.add( spot );
+
+				// Sets the frame of the spots before computing features.
+				target.put( item.frame, spots );
+				// As after the initial filtering.
+				for ( final Spot spot : spots )
+					spot.putFeature( SpotCollection.VISIBILITY, SpotCollection.ONE );
+				calculator.computeSpotFeatures( item.frame, spots, 1 );
+
+				// Link to the frames already received.
+				if ( tracker != null )
+				{
+					final List< Spot > visible = new ArrayList<>( spots.size() );
+					for ( final Spot spot : spots )
+						if ( passes( spot, spotFilters ) )
+							visible.add( spot );
+					tracker.addFrame( item.frame, visible );
+				}
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch ( final RuntimeException e )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Problem during spot processing: " + e.getMessage();
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the spot passes all the filters, as in
+	 * {@link SpotCollection#filter(java.util.Collection)}.
+	 */
+	private static boolean passes( final Spot spot, final List< FeatureFilter > filters )
+	{
+		for ( final FeatureFilter filter : filters )
+		{
+			final Double val = spot.getFeature( filter.feature );
+			final double tval = filter.value;
+			if ( null == val || filter.isAbove && val.compareTo( tval ) < 0 || !filter.isAbove && val.compareTo( tval ) > 0 )
+				return false;
+		}
+		return true;
+	}
+
+	private static final class FrameSpots
+	{
+
+		private final int frame;
+
+		private final List< Spot > spots;
+
+		private FrameSpots( final int frame, final List< Spot > spots )
+		{
+			this.frame = frame;
+			this.spots = spots;
+		}
+	}
+}
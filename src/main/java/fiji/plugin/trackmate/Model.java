@@ -21,10 +21,13 @@
  */
 package fiji.plugin.trackmate;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jgrapht.Graphs;
@@ -106,6 +109,44 @@ public class Model
 	 */
 	private final HashSet< Integer > eventCache = new HashSet< >();
 
+	/**
+	 * Default number of spots and edges modified in a transaction above which
+	 * listeners are signaled a structure reset.
+	 */
+	public static final int DEFAULT_STRUCTURE_RESET_THRESHOLD = 50_000;
+
+	/**
+	 * Number of spots and edges modified in a transaction above which the
+	 * {@link ModelChangeEvent#MODEL_MODIFIED} event is a structure reset.
+	 */
+	private int structureResetThreshold = DEFAULT_STRUCTURE_RESET_THRESHOLD;
+
+	/**
+	 * Whether the current transaction was opened with
+	 * {@link #beginBulkUpdate()}.
+	 */
+	private boolean bulkUpdate = false;
+
+	// SNAPSHOTS
+
+	/**
+	 * The model version, incremented each time listeners are notified of a
+	 * change.
+	 */
+	private long version = 0;
+
+	/** The last snapshot taken, <code>null</code> if none was taken yet. */
+	private volatile ModelSnapshot lastSnapshot;
+
+	/** The frames modified since the last snapshot. */
+	private final HashSet< Integer > dirtyFrames = new HashSet< >();
+
+	/** The tracks modified since the last snapshot. */
+	private final HashSet< Integer > dirtyTracks = new HashSet< >();
+
+	/** If <code>true</code>, the whole model changed since the last snapshot. */
+	private boolean allDirty = false;
+
 	// OTHERS
 
 	/** The logger to append processes messages. */
@@ -251,6 +292,7 @@ public class Model
 	{
 		this.spaceUnits = spaceUnits;
 		this.timeUnits = timeUnits;
+		invalidateAll();
 	}
 
 	/**
@@ -284,6 +326,42 @@ public class Model
 			System.out.println( "[TrackMateModel] #beginUpdate: increasing update level to " + updateLevel + "." );
 	}
 
+	/**
+	 * Opens a bulk-edit transaction. This is a transaction like
+	 * {@link #beginUpdate()}, closed with {@link #endUpdate()}, at the end of
+	 * which the {@link ModelChangeEvent#MODEL_MODIFIED} event is a structure
+	 * reset, whatever its size: listeners are told to rebuild their view of
+	 * the model instead of processing the changes one by one. Use it for edits
+	 * that touch a large part of the model, such as imports or merges.
+	 * <p>
+	 * If called within a transaction, the enclosing transaction becomes a
+	 * bulk-edit transaction.
+	 */
+	public synchronized void beginBulkUpdate()
+	{
+		bulkUpdate = true;
+		beginUpdate();
+	}
+
+	/**
+	 * Sets the number of spots and edges modified in a transaction above
+	 * which the {@link ModelChangeEvent#MODEL_MODIFIED} event fired at the end
+	 * of the transaction is a structure reset.
+	 *
+	 * @param structureResetThreshold
+	 *            the threshold. Use {@link Integer#MAX_VALUE} to never signal
+	 *            structure resets, except for bulk-edit transactions.
+	 */
+	public void setStructureResetThreshold( final int structureResetThreshold )
+	{
+		this.structureResetThreshold = structureResetThreshold;
+	}
+
+	public int getStructureResetThreshold()
+	{
+		return structureResetThreshold;
+	}
+
 	public synchronized void endUpdate()
 	{
 		updateLevel--;
@@ -311,6 +389,7 @@ public class Model
 	public void clearTracks( final boolean doNotify )
 	{
 		trackModel.clear();
+		invalidateAll();
 		if ( doNotify )
 		{
 			final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.TRACKS_COMPUTED );
@@ -346,6 +425,7 @@ public class Model
 	public void setTracks( final SimpleWeightedGraph< Spot, DefaultWeightedEdge > graph, final boolean doNotify )
 	{
 		trackModel.setGraph( graph );
+		invalidateAll();
 		if ( doNotify )
 		{
 			final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.TRACKS_COMPUTED );
@@ -378,6 +458,7 @@ public class Model
 	public void clearSpots( final boolean doNotify )
 	{
 		spots.clear();
+		invalidateAll();
 		if ( doNotify )
 		{
 			final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.SPOTS_COMPUTED );
@@ -398,6 +479,7 @@ public class Model
 	public void setSpots( final SpotCollection spots, final boolean doNotify )
 	{
 		this.spots = spots;
+		invalidateAll();
 		if ( doNotify )
 		{
 			final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.SPOTS_COMPUTED );
@@ -419,6 +501,7 @@ public class Model
 	public void filterSpots( final Collection< FeatureFilter > spotFilters, final boolean doNotify )
 	{
 		spots.filter( spotFilters );
+		invalidateAll();
 		if ( doNotify )
 		{
 			final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.SPOTS_FILTERED );
@@ -435,6 +518,7 @@ public class Model
 	 */
 	public void notifyFeaturesComputed()
 	{
+		invalidateAll();
 		final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.FEATURES_COMPUTED );
 		for ( final ModelChangeListener listener : modelChangeListeners )
 			listener.modelChanged( event );
@@ -518,6 +602,7 @@ public class Model
 			return null;
 		}
 		spots.add( spotToMove, toFrame );
+		dirtyFrames.add( fromFrame );
 		if ( DEBUG )
 		{
 			System.out.println( "[TrackMateModel] Moving " + spotToMove + " from frame " + fromFrame + " to frame " + toFrame );
@@ -662,6 +747,61 @@ public class Model
 		return trackModel.addEdge( source, target, weight );
 	}
 
+	/**
+	 * Adds a copy of a track of another model to this model, as a new track.
+	 * The spots of the track are copied, with new IDs and the same features,
+	 * and added frame by frame. The edges and the track ID are then created in
+	 * one pass, without resolving the track connectivity edge by edge. The
+	 * new track keeps the name and visibility it has in the source model.
+	 * <p>
+	 * This is much faster than adding the spots and edges one by one when
+	 * merging large models. The modification is signaled as if the spots and
+	 * edges were added one by one, so a call to this method must happen within
+	 * a transaction. For large merges, open it with {@link #beginBulkUpdate()}
+	 * so that listeners rebuild once:
+	 *
+	 * <pre>
+	 * model.beginBulkUpdate();
+	 * try {
+	 * 	for ( final Integer trackID : source.getTrackModel().trackIDs( true ) )
+	 * 		model.importTrack( source, trackID );
+	 * } finally {
+	 * 	model.endUpdate();
+	 * }
+	 * </pre>
+	 *
+	 * @param source
+	 *            the model to copy the track from. Is not modified.
+	 * @param trackID
+	 *            the ID of the track in the source model.
+	 * @return the ID of the new track in this model, or <code>null</code> if
+	 *         the source track could not be found or has no edge.
+	 */
+	public synchronized Integer importTrack( final Model source, final Integer trackID )
+	{
+		final Set< Spot > sourceSpots = source.getTrackModel().trackSpots( trackID );
+		if ( null == sourceSpots )
+			return null;
+
+		final Map< Spot, Spot > mapOldToNew = new HashMap<>( sourceSpots.size() * 4 / 3 + 1 );
+		final Map< Integer, List< Spot > > newSpotsByFrame = new HashMap<>();
+		for ( final Spot oldSpot : sourceSpots )
+		{
+			// New spot, new ID: avoids ID conflicts with the spots in this model.
+			final Spot newSpot = new Spot( oldSpot );
+			for ( final String feature : oldSpot.getFeatures().keySet() )
+				newSpot.putFeature( feature, oldSpot.getFeature( feature ) );
+			mapOldToNew.put( oldSpot, newSpot );
+			newSpotsByFrame.computeIfAbsent( oldSpot.getFeature( Spot.FRAME ).intValue(), f -> new ArrayList<>() ).add( newSpot );
+		}
+
+		for ( final Map.Entry< Integer, List< Spot > > entry : newSpotsByFrame.entrySet() )
+			spots.addAll( entry.getKey(), entry.getValue() );
+		spotsAdded.addAll( mapOldToNew.values() ); // TRANSACTION
+
+		return trackModel.addTrack( source.getTrackModel(), trackID, mapOldToNew );
+	}
+
 	/**
 	 * Removes an edge between two spots and returns it. Returns
 	 * <code>null</code> and do nothing to the tracks if the edge did not exist.
@@ -815,6 +955,76 @@ public class Model
 		return copy;
 	}
 
+	/*
+	 * SNAPSHOTS
+	 */
+
+	/**
+	 * Returns an immutable snapshot of the content of this model.
+	 * <p>
+	 * The snapshot reflects the model as of the last notification to the
+	 * listeners. If the model did not change since the last snapshot, the same
+	 * instance is returned. Otherwise, only the frames and tracks that changed
+	 * are copied, the rest is shared with the previous snapshot. If this
+	 * method is called within a transaction, the last snapshot is returned:
+	 * it does not include the changes of the transaction, which are visible
+	 * only when it closes.
+	 * <p>
+	 * The snapshot can then be read from any thread without locking the
+	 * model, for instance to render or export it while edits continue. Values
+	 * written directly in spots or in the feature model, without the
+	 * listeners being notified, are only included after the next change
+	 * notification.
+	 *
+	 * @return the snapshot of this model.
+	 */
+	public synchronized ModelSnapshot snapshot()
+	{
+		final ModelSnapshot previous = lastSnapshot;
+		if ( previous != null && ( previous.version() == version || updateLevel > 0 ) )
+			return previous;
+
+		final ModelSnapshot snapshot = ModelSnapshot.create( this, version, allDirty ? null : previous, dirtyFrames, dirtyTracks );
+		dirtyFrames.clear();
+		dirtyTracks.clear();
+		// Taken within a transaction: the pending changes are not tracked.
+		allDirty = updateLevel > 0;
+		lastSnapshot = snapshot;
+		return snapshot;
+	}
+
+	/**
+	 * Returns the last snapshot taken with {@link #snapshot()}, without
+	 * locking this model. The snapshot might be older than the current model
+	 * content.
+	 *
+	 * @return the last snapshot, or <code>null</code> if no snapshot was taken
+	 *         yet.
+	 */
+	public ModelSnapshot getLatestSnapshot()
+	{
+		return lastSnapshot;
+	}
+
+	/**
+	 * Returns the version of this model, incremented each time the model
+	 * listeners are notified of a change.
+	 *
+	 * @return the model version.
+	 */
+	public synchronized long getVersion()
+	{
+		return version;
+	}
+
+	private synchronized void invalidateAll()
+	{
+		version++;
+		allDirty = true;
+		dirtyFrames.clear();
+		dirtyTracks.clear();
+	}
+
 	/*
 	 * PRIVATE METHODS
 	 */
@@ -839,6 +1049,7 @@ public class Model
 		 * added: they will not result in new tracks made of single spots.
 		 */
 		final int nEdgesToSignal = trackModel.edgesAdded.size() + trackModel.edgesRemoved.size() + trackModel.edgesModified.size();
+		final int nSpotsToSignal = spotsAdded.size() + spotsRemoved.size() + spotsMoved.size() + spotsUpdated.size();
 
 		// Do we have tracks to update?
 		final HashSet< Integer > tracksToUpdate = new HashSet< >( trackModel.tracksUpdated );
@@ -849,70 +1060,34 @@ public class Model
 			tracksToUpdate.add( trackModel.trackIDOf( modifiedEdge ) );
 		}
 
-		// Deal with new or moved spots: we need to update their features.
-		final int nSpotsToUpdate = spotsAdded.size() + spotsMoved.size() + spotsUpdated.size();
-		if ( nSpotsToUpdate > 0 )
-		{
-			final HashSet< Spot > spotsToUpdate = new HashSet< >( nSpotsToUpdate );
-			spotsToUpdate.addAll( spotsAdded );
-			spotsToUpdate.addAll( spotsMoved );
-			spotsToUpdate.addAll( spotsUpdated );
-		}
-
-		// Initialize event
-		final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.MODEL_MODIFIED );
-
-		// Configure it with spots to signal.
-		final int nSpotsToSignal = nSpotsToUpdate + spotsRemoved.size();
-		if ( nSpotsToSignal > 0 )
-		{
-			event.addAllSpots( spotsAdded );
-			event.addAllSpots( spotsRemoved );
-			event.addAllSpots( spotsMoved );
-			event.addAllSpots( spotsUpdated );
-
-			for ( final Spot spot : spotsAdded )
-			{
-				event.putSpotFlag( spot, ModelChangeEvent.FLAG_SPOT_ADDED );
-			}
-			for ( final Spot spot : spotsRemoved )
-			{
-				event.putSpotFlag( spot, ModelChangeEvent.FLAG_SPOT_REMOVED );
-			}
-			for ( final Spot spot : spotsMoved )
-			{
-				event.putSpotFlag( spot, ModelChangeEvent.FLAG_SPOT_FRAME_CHANGED );
-			}
-			for ( final Spot spot : spotsUpdated )
-			{
-				event.putSpotFlag( spot, ModelChangeEvent.FLAG_SPOT_MODIFIED );
-			}
-		}
-
-		// Configure it with edges to signal.
-		if ( nEdgesToSignal > 0 )
+		/*
+		 * Build the content of the event once, in compact form. The sets and
+		 * maps of the event are only built if a listener asks for them.
+		 */
+		final ModelDelta delta = ModelDelta.create(
+				spotsAdded, spotsRemoved, spotsMoved, spotsUpdated,
+				trackModel.edgesAdded, trackModel.edgesRemoved, trackModel.edgesModified,
+				tracksToUpdate,
+				bulkUpdate || nEdgesToSignal + nSpotsToSignal > structureResetThreshold );
+		final ModelChangeEvent event = new ModelChangeEvent( this, delta );
+
+		// Cached branch decompositions of modified tracks are stale.
+		trackModel.invalidateBranchDecompositions( tracksToUpdate );
+
+		// Mark what changed for the next snapshot.
+		final boolean changed = nEdgesToSignal + nSpotsToSignal > 0 || !tracksToUpdate.isEmpty() || !eventCache.isEmpty();
+		final HashSet< Integer > framesChanged = new HashSet< >();
+		if ( changed )
 		{
-			event.addAllEdges( trackModel.edgesAdded );
-			event.addAllEdges( trackModel.edgesRemoved );
-			event.addAllEdges( trackModel.edgesModified );
-
-			for ( final DefaultWeightedEdge edge : trackModel.edgesAdded )
-			{
-				event.putEdgeFlag( edge, ModelChangeEvent.FLAG_EDGE_ADDED );
-			}
-			for ( final DefaultWeightedEdge edge : trackModel.edgesRemoved )
-			{
-				event.putEdgeFlag( edge, ModelChangeEvent.FLAG_EDGE_REMOVED );
-			}
-			for ( final DefaultWeightedEdge edge : trackModel.edgesModified )
-			{
-				event.putEdgeFlag( edge, ModelChangeEvent.FLAG_EDGE_MODIFIED );
-			}
+			version++;
+			addFrames( spotsAdded, framesChanged );
+			addFrames( spotsRemoved, framesChanged );
+			addFrames( spotsMoved, framesChanged );
+			addFrames( spotsUpdated, framesChanged );
+			dirtyFrames.addAll( framesChanged );
+			dirtyTracks.addAll( tracksToUpdate );
 		}
 
-		// Configure it with the tracks we found need updating
-		event.setTracksUpdated( tracksToUpdate );
-
 		try
 		{
 			if ( nEdgesToSignal + nSpotsToSignal > 0 )
@@ -946,6 +1121,17 @@ public class Model
 		}
 		finally
 		{
+			/*
+			 * Listeners might have updated feature values after a snapshot was
+			 * taken during notification: the changes must be taken again.
+			 */
+			final ModelSnapshot snapshot = lastSnapshot;
+			if ( changed && snapshot != null && snapshot.version() == version )
+			{
+				version++;
+				dirtyFrames.addAll( framesChanged );
+				dirtyTracks.addAll( tracksToUpdate );
+			}
 			spotsAdded.clear();
 			spotsRemoved.clear();
 			spotsMoved.clear();
@@ -955,6 +1141,17 @@ public class Model
 			trackModel.edgesModified.clear();
 			trackModel.tracksUpdated.clear();
 			eventCache.clear();
+			bulkUpdate = false;
+		}
+	}
+
+	private static void addFrames( final Collection< Spot > spots, final Set< Integer > frames )
+	{
+		for ( final Spot spot : spots )
+		{
+			final Double frame = spot.getFeature( Spot.FRAME );
+			if ( frame != null )
+				frames.add( frame.intValue() );
 		}
 	}
 
@@ -97,7 +97,8 @@ public class ModelChangeEvent extends EventObject {
 	 * {@link #getSpots()}, {@link #getSpotFlag(Spot)},
 	 * {@link #getFromFrame(Spot)} and {@link #getToFrame(Spot)}, and for the
 	 * tracks: {@link #getEdges()} and {@link #getEdgeFlag(DefaultWeightedEdge)}
-	 * .
+	 * . The same content is available in compact form with
+	 * {@link #getDelta()}.
 	 */
 	public static final int 	MODEL_MODIFIED = 8;
 
@@ -122,6 +123,14 @@ public class ModelChangeEvent extends EventObject {
 	/** The event type for this instance. */
 	private final int eventID;
 	private Set< Integer > trackUpdated = new HashSet<>();
+	/**
+	 * The compact content of this event. If the event was created from a
+	 * delta, the sets and maps above are only filled when first accessed.
+	 */
+	private ModelDelta delta;
+	/** Whether the sets and maps above reflect the content of this event. */
+	private boolean materialized = true;
+	private final boolean structureReset;
 
 	/**
 	 * Create a new event, reflecting a change in a {@link Model}.
@@ -134,6 +143,80 @@ public class ModelChangeEvent extends EventObject {
 	public ModelChangeEvent(final Object source, final int eventID) {
 		super(source);
 		this.eventID = eventID;
+		this.structureReset = false;
+	}
+
+	/**
+	 * Create a new {@link #MODEL_MODIFIED} event, with the content of the
+	 * specified delta. The sets and maps of spots and edges of this event are
+	 * built only if a listener asks for them.
+	 *
+	 * @param source
+	 *            the object source of this event.
+	 * @param delta
+	 *            the content of the modification.
+	 */
+	public ModelChangeEvent(final Object source, final ModelDelta delta) {
+		super(source);
+		this.eventID = MODEL_MODIFIED;
+		this.delta = delta;
+		this.materialized = false;
+		this.structureReset = delta.isStructureReset();
+		this.trackUpdated = new HashSet<>(delta.getTracksUpdated());
+	}
+
+	/**
+	 * Fills the sets and maps of this event from its delta, if this was not
+	 * done yet.
+	 */
+	private synchronized void materialize() {
+		if (materialized)
+			return;
+		for (int i = 0; i < delta.nSpots(); i++) {
+			final Spot spot = delta.getSpot(i);
+			spots.add(spot);
+			spotFlags.put(spot, delta.getSpotFlag(i));
+		}
+		for (int i = 0; i < delta.nEdges(); i++) {
+			final DefaultWeightedEdge edge = delta.getEdge(i);
+			edges.add(edge);
+			edgeFlags.put(edge, delta.getEdgeFlag(i));
+		}
+		materialized = true;
+	}
+
+	/**
+	 * Called before this event is modified: the delta will be rebuilt from
+	 * the sets and maps when next asked for.
+	 */
+	private void mutate() {
+		materialize();
+		delta = null;
+	}
+
+	/**
+	 * Returns the content of this event in compact form. Iterating over the
+	 * delta is cheaper than building the sets and maps of
+	 * {@link #getSpots()} and {@link #getEdges()}, and should be preferred
+	 * for large modifications.
+	 *
+	 * @return the delta of this event.
+	 */
+	public synchronized ModelDelta getDelta() {
+		if (delta == null)
+			delta = ModelDelta.create(spots, spotFlags, edges, edgeFlags, trackUpdated, structureReset);
+		return delta;
+	}
+
+	/**
+	 * Returns <code>true</code> if this event signals a modification large
+	 * enough that listeners should rebuild their view of the model rather
+	 * than process the changes one by one.
+	 *
+	 * @return whether this event is a structure reset.
+	 */
+	public boolean isStructureReset() {
+		return structureReset;
 	}
 
 	public int getEventID() {
@@ -141,33 +224,41 @@ public class ModelChangeEvent extends EventObject {
 	}
 
 	public boolean addAllSpots(final Collection<Spot> lSpots) {
+		mutate();
 		return this.spots.addAll(lSpots);
 	}
 
 	public boolean addSpot(final Spot spot) {
+		mutate();
 		return this.spots.add(spot);
 	}
 
 	public boolean addAllEdges(final Collection<DefaultWeightedEdge> lEdges) {
+		mutate();
 		return this.edges.addAll(lEdges);
 	}
 	public boolean addEdge(final DefaultWeightedEdge edge) {
+		mutate();
 		return edges.add(edge);
 	}
 
 	public Integer putEdgeFlag(final DefaultWeightedEdge edge, final Integer flag) {
+		mutate();
 		return edgeFlags.put(edge, flag);
 	}
 
 	public Integer putSpotFlag(final Spot spot, final Integer flag) {
+		mutate();
 		return spotFlags.put(spot, flag);
 	}
 
 	public Integer putFromFrame(final Spot spot, final Integer lFromFrame) {
+		mutate();
 		return this.fromFrame.put(spot, lFromFrame);
 	}
 
 	public Integer putToFrame(final Spot spot, final Integer lToFrame) {
+		mutate();
 		return this.toFrame.put(spot, lToFrame);
 	}
 
@@ -176,6 +267,7 @@ public class ModelChangeEvent extends EventObject {
 	 * if no spot is affected by this event.
 	 */
 	public Set<Spot> getSpots() {
+		materialize();
 		return spots;
 	}
 
@@ -184,6 +276,7 @@ public class ModelChangeEvent extends EventObject {
 	 * if no edge is affected by this event.
 	 */
 	public Set<DefaultWeightedEdge> getEdges() {
+		materialize();
 		return edges;
 	}
 
@@ -198,6 +291,7 @@ public class ModelChangeEvent extends EventObject {
 	 * @see #FLAG_SPOT_REMOVED
 	 */
 	public Integer getSpotFlag(final Spot spot) {
+		materialize();
 		return spotFlags.get(spot);
 	}
 
@@ -211,6 +305,7 @@ public class ModelChangeEvent extends EventObject {
 	 * @see #FLAG_EDGE_REMOVED
 	 */
 	public Integer getEdgeFlag(final DefaultWeightedEdge edge) {
+		materialize();
 		return edgeFlags.get(edge);
 	}
 
@@ -228,6 +323,7 @@ public class ModelChangeEvent extends EventObject {
 
 	@Override
 	public String toString() {
+		materialize();
 		final StringBuilder str = new StringBuilder("[ModelChangeEvent]:\n");
 		str.append(" - source: "+source.getClass() + "_" + source.hashCode()+"\n");
 		str.append(" - event type: ");
@@ -260,6 +356,7 @@ public class ModelChangeEvent extends EventObject {
 	}
 
 	public void setTracksUpdated(final Set<Integer> tracksToUpdate) {
+		mutate();
 		this.trackUpdated = tracksToUpdate;
 	}
 
@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * The content of a model modification, stored compactly: the spots and edges
+ * affected, in arrays, with one flag per object, as listed in
+ * {@link ModelChangeEvent}.
+ * <p>
+ * A delta is immutable. Each spot and each edge is listed once, with the flag
+ * of its last modification kind in the following order of precedence:
+ * modified, then frame changed, then removed, then added for spots; modified,
+ * then removed, then added for edges.
+ * <p>
+ * When the modification is large, the delta is marked as a structure reset
+ * (see {@link #isStructureReset()}). Views can then rebuild from the model
+ * once instead of processing the changes one by one.
+ */
+public final class ModelDelta
+{
+
+	private final Spot[] spots;
+
+	private final byte[] spotFlags;
+
+	private final DefaultWeightedEdge[] edges;
+
+	private final byte[] edgeFlags;
+
+	private final Set< Integer > tracksUpdated;
+
+	private final boolean structureReset;
+
+	private ModelDelta( final Spot[] spots, final byte[] spotFlags, final DefaultWeightedEdge[] edges, final byte[] edgeFlags, final Set< Integer > tracksUpdated, final boolean structureReset )
+	{
+		this.spots = spots;
+		this.spotFlags = spotFlags;
+		this.edges = edges;
+		this.edgeFlags = edgeFlags;
+		this.tracksUpdated = Collections.unmodifiableSet( tracksUpdated );
+		this.structureReset = structureReset;
+	}
+
+	/**
+	 * Creates a delta from the logs of a transaction.
+	 *
+	 * @param spotsAdded
+	 *            the spots added.
+	 * @param spotsRemoved
+	 *            the spots removed.
+	 * @param spotsMoved
+	 *            the spots that changed frame.
+	 * @param spotsUpdated
+	 *            the spots modified.
+	 * @param edgesAdded
+	 *            the edges added.
+	 * @param edgesRemoved
+	 *            the edges removed.
+	 * @param edgesModified
+	 *            the edges modified.
+	 * @param tracksUpdated
+	 *            the IDs of the tracks updated.
+	 * @param structureReset
+	 *            whether the delta is to be treated as a structure reset.
+	 * @return a new delta.
+	 */
+	static ModelDelta create(
+			final Set< Spot > spotsAdded,
+			final Set< Spot > spotsRemoved,
+			final Set< Spot > spotsMoved,
+			final Set< Spot > spotsUpdated,
+			final Set< DefaultWeightedEdge > edgesAdded,
+			final Set< DefaultWeightedEdge > edgesRemoved,
+			final Set< DefaultWeightedEdge > edgesModified,
+			final Set< Integer > tracksUpdated,
+			final boolean structureReset )
+	{
+		final int nSpots = spotsAdded.size() + spotsRemoved.size() + spotsMoved.size() + spotsUpdated.size();
+		final Spot[] spots = new Spot[ nSpots ];
+		final byte[] spotFlags = new byte[ nSpots ];
+		int n = 0;
+		n = append( spotsUpdated, ModelChangeEvent.FLAG_SPOT_MODIFIED, spots, spotFlags, n );
+		n = append( spotsMoved, ModelChangeEvent.FLAG_SPOT_FRAME_CHANGED, spots, spotFlags, n, spotsUpdated );
+		n = append( spotsRemoved, ModelChangeEvent.FLAG_SPOT_REMOVED, spots, spotFlags, n, spotsUpdated, spotsMoved );
+		n = append( spotsAdded, ModelChangeEvent.FLAG_SPOT_ADDED, spots, spotFlags, n, spotsUpdated, spotsMoved, spotsRemoved );
+
+		final int nEdges = edgesAdded.size() + edgesRemoved.size() + edgesModified.size();
+		final DefaultWeightedEdge[] edges = new DefaultWeightedEdge[ nEdges ];
+		final byte[] edgeFlags = new byte[ nEdges ];
+		int m = 0;
+		m = append( edgesModified, ModelChangeEvent.FLAG_EDGE_MODIFIED, edges, edgeFlags, m );
+		m = append( edgesRemoved, ModelChangeEvent.FLAG_EDGE_REMOVED, edges, edgeFlags, m, edgesModified );
+		m = append( edgesAdded, ModelChangeEvent.FLAG_EDGE_ADDED, edges, edgeFlags, m, edgesModified, edgesRemoved );
+
+		return new ModelDelta(
+				trim( spots, n, Spot[]::new ),
+				trim( spotFlags, n ),
+				trim( edges, m, DefaultWeightedEdge[]::new ),
+				trim( edgeFlags, m ),
+				tracksUpdated,
+				structureReset );
+	}
+
+	/**
+	 * Creates a delta from the content of an event built by adding objects
+	 * and flags one by one.
+	 */
+	static ModelDelta create(
+			final Collection< Spot > spots,
+			final Map< Spot, Integer > spotFlags,
+			final Collection< DefaultWeightedEdge > edges,
+			final Map< DefaultWeightedEdge, Integer > edgeFlags,
+			final Set< Integer > tracksUpdated,
+			final boolean structureReset )
+	{
+		final Spot[] sa = spots.toArray( new Spot[ spots.size() ] );
+		final byte[] sf = new byte[ sa.length ];
+		for ( int i = 0; i < sa.length; i++ )
+			sf[ i ] = flag( spotFlags.get( sa[ i ] ) );
+		final DefaultWeightedEdge[] ea = edges.toArray( new DefaultWeightedEdge[ edges.size() ] );
+		final byte[] ef = new byte[ ea.length ];
+		for ( int i = 0; i < ea.length; i++ )
+			ef[ i ] = flag( edgeFlags.get( ea[ i ] ) );
+		return new ModelDelta( sa, sf, ea, ef, new HashSet<>( tracksUpdated ), structureReset );
+	}
+
+	private static byte flag( final Integer flag )
+	{
+		return ( byte ) ( flag == null ? -1 : flag.intValue() );
+	}
+
+	@SafeVarargs
+	private static < O > int append( final Set< O > objects, final int flag, final O[] target, final byte[] flags, int n, final Set< O >... overriding )
+	{
+		for ( final O o : objects )
+		{
+			boolean overridden = false;
+			for ( final Set< O > set : overriding )
+				overridden |= set.contains( o );
+			if ( overridden )
+				continue;
+			target[ n ] = o;
+			flags[ n ] = ( byte ) flag;
+			n++;
+		}
+		return n;
+	}
+
+	private static < O > O[] trim( final O[] array, final int n, final IntFunction< O[] > generator )
+	{
+		if ( array.length == n )
+			return array;
+		final O[] trimmed = generator.apply( n );
+		System.arraycopy( array, 0, trimmed, 0, n );
+		return trimmed;
+	}
+
+	private static byte[] trim( final byte[] array, final int n )
+	{
+		if ( array.length == n )
+			return array;
+		final byte[] trimmed = new byte[ n ];
+		System.arraycopy( array, 0, trimmed, 0, n );
+		return trimmed;
+	}
+
+	/**
+	 * Returns <code>true</code> if this modification is large enough that
+	 * views should rebuild from the model rather than process the changes one
+	 * by one.
+	 */
+	public boolean isStructureReset()
+	{
+		return structureReset;
+	}
+
+	/**
+	 * Returns the number of spots and edges in this delta.
+	 */
+	public int size()
+	{
+		return spots.length + edges.length;
+	}
+
+	public int nSpots()
+	{
+		return spots.length;
+	}
+
+	public Spot getSpot( final int i )
+	{
+		return spots[ i ];
+	}
+
+	/**
+	 * Returns the flag of the i-th spot, one of the
+	 * <code>ModelChangeEvent.FLAG_SPOT_*</code> constants.
+	 */
+	public int getSpotFlag( final int i )
+	{
+		return spotFlags[ i ];
+	}
+
+	public int nEdges()
+	{
+		return edges.length;
+	}
+
+	public DefaultWeightedEdge getEdge( final int i )
+	{
+		return edges[ i ];
+	}
+
+	/**
+	 * Returns the flag of the i-th edge, one of the
+	 * <code>ModelChangeEvent.FLAG_EDGE_*</code> constants.
+	 */
+	public int getEdgeFlag( final int i )
+	{
+		return edgeFlags[ i ];
+	}
+
+	/**
+	 * Returns the IDs of the tracks updated by this modification.
+	 *
+	 * @return an unmodifiable set.
+	 */
+	public Set< Integer > getTracksUpdated()
+	{
+		return tracksUpdated;
+	}
+
+	/**
+	 * Iterates over the spots of this delta with the specified flag.
+	 *
+	 * @param flag
+	 *            the flag.
+	 * @return a new iterable, that does not copy the spots.
+	 */
+	public Iterable< Spot > spots( final int flag )
+	{
+		return () -> new FlagIterator<>( spots, spotFlags, flag );
+	}
+
+	/**
+	 * Iterates over the spots of this delta that are not removed.
+	 *
+	 * @return a new iterable, that does not copy the spots.
+	 */
+	public Iterable< Spot > spotsNotRemoved()
+	{
+		return () -> new FlagIterator<>( spots, spotFlags, -ModelChangeEvent.FLAG_SPOT_REMOVED - 1 );
+	}
+
+	/**
+	 * Iterates over the edges of this delta with the specified flag.
+	 *
+	 * @param flag
+	 *            the flag.
+	 * @return a new iterable, that does not copy the edges.
+	 */
+	public Iterable< DefaultWeightedEdge > edges( final int flag )
+	{
+		return () -> new FlagIterator<>( edges, edgeFlags, flag );
+	}
+
+	/**
+	 * Iterates over the edges of this delta that are not removed.
+	 *
+	 * @return a new iterable, that does not copy the edges.
+	 */
+	public Iterable< DefaultWeightedEdge > edgesNotRemoved()
+	{
+		return () -> new FlagIterator<>( edges, edgeFlags, -ModelChangeEvent.FLAG_EDGE_REMOVED - 1 );
+	}
+
+	/**
+	 * Iterates over the elements with a given flag. A negative flag
+	 * <code>-f-1</code> selects the elements whose flag is not
+	 * <code>f</code>.
+	 */
+	private static final class FlagIterator< O > implements Iterator< O >
+	{
+
+		private final O[] objects;
+
+		private final byte[] flags;
+
+		private final int flag;
+
+		private int next;
+
+		private FlagIterator( final O[] objects, final byte[] flags, final int flag )
+		{
+			this.objects = objects;
+			this.flags = flags;
+			this.flag = flag;
+			this.next = advance( 0 );
+		}
+
+		private int advance( int i )
+		{
+			while ( i < objects.length && !matches( flags[ i ] ) )
+				i++;
+			return i;
+		}
+
+		private boolean matches( final byte f )
+		{
+			return flag >= 0 ? f == flag : f != -flag - 1;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next < objects.length;
+		}
+
+		@Override
+		public O next()
+		{
+			if ( !hasNext() )
+				throw new NoSuchElementException();
+			final O o = objects[ next ];
+			next = advance( next + 1 );
+			return o;
+		}
+	}
+}
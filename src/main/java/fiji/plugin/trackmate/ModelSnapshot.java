@@ -0,0 +1,732 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fiji.plugin.trackmate.util.AlphanumComparator;
+import fiji.plugin.trackmate.util.TMUtils;
+import fiji.plugin.trackmate.util.Threads;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * An immutable view of the content of a {@link Model} at a given version:
+ * spots and their feature values, tracks, edges and their feature values,
+ * track features and feature declarations.
+ * <p>
+ * Snapshots are obtained with {@link Model#snapshot()}. They can be read from
+ * any thread without locking, while the model is being edited, and are never
+ * torn by a concurrent edit. Successive snapshots share the content of frames
+ * and tracks that did not change between them: only the frames and tracks
+ * modified since the previous snapshot are copied when a new one is built.
+ * <p>
+ * The {@link Spot} and {@link DefaultWeightedEdge} instances are those of the
+ * model and are used as keys; their feature values, names and visibility must
+ * be read through the snapshot.
+ */
+public final class ModelSnapshot
+{
+
+	private final long version;
+
+	private final String spaceUnits;
+
+	private final String timeUnits;
+
+	private final NavigableMap< Integer, FrameSnapshot > frames;
+
+	private final Map< Integer, TrackSnapshot > tracks;
+
+	private final Map< Integer, String > trackNames;
+
+	private final Map< Integer, Boolean > trackVisibility;
+
+	private final FeatureDeclarations spotFeatures;
+
+	private final FeatureDeclarations edgeFeatures;
+
+	private final FeatureDeclarations trackFeatures;
+
+	/** Track ID of each spot, built on first use. */
+	private volatile Map< Spot, Integer > spotTrackIDs;
+
+	private ModelSnapshot(
+			final long version,
+			final String spaceUnits,
+			final String timeUnits,
+			final NavigableMap< Integer, FrameSnapshot > frames,
+			final Map< Integer, TrackSnapshot > tracks,
+			final Map< Integer, String > trackNames,
+			final Map< Integer, Boolean > trackVisibility,
+			final FeatureDeclarations spotFeatures,
+			final FeatureDeclarations edgeFeatures,
+			final FeatureDeclarations trackFeatures )
+	{
+		this.version = version;
+		this.spaceUnits = spaceUnits;
+		this.timeUnits = timeUnits;
+		this.frames = Collections.unmodifiableNavigableMap( frames );
+		this.tracks = Collections.unmodifiableMap( tracks );
+		this.trackNames = Collections.unmodifiableMap( trackNames );
+		this.trackVisibility = Collections.unmodifiableMap( trackVisibility );
+		this.spotFeatures = spotFeatures;
+		this.edgeFeatures = edgeFeatures;
+		this.trackFeatures = trackFeatures;
+	}
+
+	/**
+	 * Returns the version of the model this snapshot was taken at. Versions
+	 * increase with each model change.
+	 *
+	 * @return the model version.
+	 */
+	public long version()
+	{
+		return version;
+	}
+
+	public String getSpaceUnits()
+	{
+		return spaceUnits;
+	}
+
+	public String getTimeUnits()
+	{
+		return timeUnits;
+	}
+
+	/*
+	 * SPOTS.
+	 */
+
+	/**
+	 * Returns the frames that have spots, in ascending order, mapped to their
+	 * content.
+	 *
+	 * @return an unmodifiable map.
+	 */
+	public NavigableMap< Integer, FrameSnapshot > frames()
+	{
+		return frames;
+	}
+
+	/**
+	 * Returns the content of the specified frame.
+	 *
+	 * @param frame
+	 *            the frame.
+	 * @return the frame content, or <code>null</code> if there is no spot in
+	 *         this frame.
+	 */
+	public FrameSnapshot frame( final int frame )
+	{
+		return frames.get( frame );
+	}
+
+	/**
+	 * Returns the number of spots in this snapshot.
+	 *
+	 * @param visibleSpotsOnly
+	 *            if <code>true</code>, only count visible spots.
+	 * @return the number of spots.
+	 */
+	public int getNSpots( final boolean visibleSpotsOnly )
+	{
+		int n = 0;
+		for ( final FrameSnapshot frame : frames.values() )
+			n += visibleSpotsOnly ? frame.nVisible : frame.spots.length;
+		return n;
+	}
+
+	/**
+	 * Returns the value of a spot feature at the time of the snapshot.
+	 *
+	 * @param spot
+	 *            the spot.
+	 * @param feature
+	 *            the feature.
+	 * @return the value, or <code>null</code> if the spot was not in the
+	 *         model or did not have a value for this feature.
+	 */
+	public Double getSpotFeature( final Spot spot, final String feature )
+	{
+		final FrameSnapshot frame = frameOf( spot );
+		return frame == null ? null : frame.getFeature( frame.indexOf( spot ), feature );
+	}
+
+	/**
+	 * Returns the name of a spot at the time of the snapshot.
+	 *
+	 * @param spot
+	 *            the spot.
+	 * @return the name, or <code>null</code> if the spot was not in the
+	 *         model.
+	 */
+	public String getSpotName( final Spot spot )
+	{
+		final FrameSnapshot frame = frameOf( spot );
+		return frame == null ? null : frame.getName( frame.indexOf( spot ) );
+	}
+
+	/**
+	 * Returns the frame the specified spot was in at the time of the
+	 * snapshot.
+	 *
+	 * @param spot
+	 *            the spot.
+	 * @return the frame content, or <code>null</code> if the spot was not in
+	 *         the model.
+	 */
+	public FrameSnapshot frameOf( final Spot spot )
+	{
+		// Try the current frame of the spot first, it did not move in general.
+		final Double current = spot.getFeature( Spot.FRAME );
+		if ( current != null )
+		{
+			final FrameSnapshot frame = frames.get( current.intValue() );
+			if ( frame != null && frame.indexOf( spot ) >= 0 )
+				return frame;
+		}
+		for ( final FrameSnapshot frame : frames.values() )
+			if ( frame.indexOf( spot ) >= 0 )
+				return frame;
+		return null;
+	}
+
+	/*
+	 * TRACKS.
+	 */
+
+	/**
+	 * Returns the track IDs, sorted by track names as in
+	 * {@link TrackModel#trackIDs(boolean)}.
+	 *
+	 * @param visibleOnly
+	 *            if <code>true</code>, only return visible tracks.
+	 * @return a new set of track IDs.
+	 */
+	public Set< Integer > trackIDs( final boolean visibleOnly )
+	{
+		final Set< Integer > ids = TMUtils.sortByValue( trackNames, AlphanumComparator.instance ).keySet();
+		if ( !visibleOnly )
+			return ids;
+		final Set< Integer > vids = new LinkedHashSet<>( ids.size() );
+		for ( final Integer id : ids )
+			if ( trackVisibility.get( id ) )
+				vids.add( id );
+		return vids;
+	}
+
+	/**
+	 * Returns the content of the specified track.
+	 *
+	 * @param trackID
+	 *            the track ID.
+	 * @return the track content, or <code>null</code> if there is no such
+	 *         track.
+	 */
+	public TrackSnapshot track( final Integer trackID )
+	{
+		return tracks.get( trackID );
+	}
+
+	public int nTracks( final boolean visibleOnly )
+	{
+		if ( !visibleOnly )
+			return tracks.size();
+		int n = 0;
+		for ( final Boolean visible : trackVisibility.values() )
+			if ( visible )
+				n++;
+		return n;
+	}
+
+	public String trackName( final Integer trackID )
+	{
+		return trackNames.get( trackID );
+	}
+
+	public boolean isVisible( final Integer trackID )
+	{
+		return trackVisibility.get( trackID );
+	}
+
+	/**
+	 * Returns the ID of the track the specified spot was in.
+	 *
+	 * @param spot
+	 *            the spot.
+	 * @return the track ID, or <code>null</code> if the spot was not in a
+	 *         track.
+	 */
+	public Integer trackIDOf( final Spot spot )
+	{
+		Map< Spot, Integer > map = spotTrackIDs;
+		if ( map == null )
+		{
+			map = new HashMap<>();
+			for ( final TrackSnapshot track : tracks.values() )
+				for ( final Spot s : track.spots )
+					map.put( s, track.id );
+			spotTrackIDs = map;
+		}
+		return map.get( spot );
+	}
+
+	/*
+	 * FEATURE DECLARATIONS.
+	 */
+
+	public FeatureDeclarations getSpotFeatureDeclarations()
+	{
+		return spotFeatures;
+	}
+
+	public FeatureDeclarations getEdgeFeatureDeclarations()
+	{
+		return edgeFeatures;
+	}
+
+	public FeatureDeclarations getTrackFeatureDeclarations()
+	{
+		return trackFeatures;
+	}
+
+	/*
+	 * CREATION.
+	 */
+
+	/**
+	 * Creates a snapshot of the specified model. Must be called while the
+	 * model cannot be edited.
+	 *
+	 * @param model
+	 *            the model.
+	 * @param version
+	 *            the model version.
+	 * @param previous
+	 *            the previous snapshot of this model, whose content is reused
+	 *            for frames and tracks that are not dirty. Can be
+	 *            <code>null</code>, in which case everything is copied.
+	 * @param dirtyFrames
+	 *            the frames modified since the previous snapshot.
+	 * @param dirtyTracks
+	 *            the tracks modified since the previous snapshot.
+	 * @return a new snapshot.
+	 */
+	static ModelSnapshot create( final Model model, final long version, final ModelSnapshot previous, final Set< Integer > dirtyFrames, final Set< Integer > dirtyTracks )
+	{
+		final SpotCollection spots = model.getSpots();
+		final TrackModel trackModel = model.getTrackModel();
+		final FeatureModel fm = model.getFeatureModel();
+
+		// Frames.
+		final NavigableMap< Integer, FrameSnapshot > frames = new TreeMap<>();
+		final List< Integer > framesToCopy = new ArrayList<>();
+		for ( final Integer frame : spots.keySet() )
+		{
+			final FrameSnapshot old = ( previous == null || dirtyFrames.contains( frame ) ) ? null : previous.frames.get( frame );
+			if ( old != null )
+				frames.put( frame, old );
+			else
+				framesToCopy.add( frame );
+		}
+
+		// Tracks.
+		final Map< Integer, TrackSnapshot > tracks = new HashMap<>();
+		final List< Integer > tracksToCopy = new ArrayList<>();
+		for ( final Integer trackID : trackModel.unsortedTrackIDs( false ) )
+		{
+			final TrackSnapshot old = ( previous == null || dirtyTracks.contains( trackID ) ) ? null : previous.tracks.get( trackID );
+			if ( old != null )
+				tracks.put( trackID, old );
+			else
+				tracksToCopy.add( trackID );
+		}
+
+		final Collection< String > edgeFeatureKeys = new ArrayList<>( fm.getEdgeFeatures() );
+		final Collection< String > trackFeatureKeys = new ArrayList<>( fm.getTrackFeatures() );
+		final int nTasks = framesToCopy.size() + tracksToCopy.size();
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.max( 1, Math.min( Runtime.getRuntime().availableProcessors(), nTasks ) ) );
+		try
+		{
+			final List< Future< FrameSnapshot > > frameFutures = new ArrayList<>( framesToCopy.size() );
+			for ( final Integer frame : framesToCopy )
+				frameFutures.add( executor.submit( () -> new FrameSnapshot( frame, spots.iterable( frame, false ) ) ) );
+			final List< Future< TrackSnapshot > > trackFutures = new ArrayList<>( tracksToCopy.size() );
+			for ( final Integer trackID : tracksToCopy )
+				trackFutures.add( executor.submit( () -> new TrackSnapshot( trackID, trackModel, fm, edgeFeatureKeys, trackFeatureKeys ) ) );
+
+			for ( int i = 0; i < framesToCopy.size(); i++ )
+				frames.put( framesToCopy.get( i ), frameFutures.get( i ).get() );
+			for ( int i = 0; i < tracksToCopy.size(); i++ )
+				tracks.put( tracksToCopy.get( i ), trackFutures.get( i ).get() );
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( "Interrupted while creating model snapshot.", e );
+		}
+		catch ( final ExecutionException e )
+		{
+			throw new RuntimeException( "Problem creating model snapshot: " + e.getCause().getMessage(), e.getCause() );
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		final Map< Integer, String > trackNames = new HashMap<>();
+		final Map< Integer, Boolean > trackVisibility = new HashMap<>();
+		for ( final Integer trackID : tracks.keySet() )
+		{
+			trackNames.put( trackID, trackModel.name( trackID ) );
+			trackVisibility.put( trackID, trackModel.isVisible( trackID ) );
+		}
+
+		return new ModelSnapshot(
+				version,
+				model.getSpaceUnits(),
+				model.getTimeUnits(),
+				frames,
+				tracks,
+				trackNames,
+				trackVisibility,
+				new FeatureDeclarations( fm.getSpotFeatures(), fm.getSpotFeatureNames(), fm.getSpotFeatureShortNames(), fm.getSpotFeatureDimensions(), fm.getSpotFeatureIsInt() ),
+				new FeatureDeclarations( fm.getEdgeFeatures(), fm.getEdgeFeatureNames(), fm.getEdgeFeatureShortNames(), fm.getEdgeFeatureDimensions(), fm.getEdgeFeatureIsInt() ),
+				new FeatureDeclarations( fm.getTrackFeatures(), fm.getTrackFeatureNames(), fm.getTrackFeatureShortNames(), fm.getTrackFeatureDimensions(), fm.getTrackFeatureIsInt() ) );
+	}
+
+	/*
+	 * INNER CLASSES.
+	 */
+
+	/**
+	 * The spots of one frame, with their names, visibility and feature
+	 * values, stored in columns.
+	 */
+	public static final class FrameSnapshot
+	{
+
+		private final int frame;
+
+		private final Spot[] spots;
+
+		private final String[] names;
+
+		private final boolean[] visible;
+
+		private final int nVisible;
+
+		private final Map< String, Double[] > features;
+
+		private final TObjectIntHashMap< Spot > index;
+
+		private FrameSnapshot( final int frame, final Iterable< Spot > content )
+		{
+			this.frame = frame;
+			final List< Spot > list = new ArrayList<>();
+			if ( content != null )
+				content.forEach( list::add );
+			final int n = list.size();
+			this.spots = list.toArray( new Spot[ n ] );
+			this.names = new String[ n ];
+			this.visible = new boolean[ n ];
+			this.index = new TObjectIntHashMap<>( Math.max( 10, 2 * n ), 0.5f, -1 );
+			this.features = new HashMap<>();
+			int nv = 0;
+			for ( int i = 0; i < n; i++ )
+			{
+				final Spot spot = spots[ i ];
+				index.put( spot, i );
+				names[ i ] = spot.getName();
+				for ( final Map.Entry< String, Double > entry : spot.getFeatures().entrySet() )
+					features.computeIfAbsent( entry.getKey(), k -> new Double[ n ] )[ i ] = entry.getValue();
+				final Double visibility = spot.getFeature( SpotCollection.VISIBILITY );
+				visible[ i ] = visibility != null && visibility.compareTo( SpotCollection.ZERO ) > 0;
+				if ( visible[ i ] )
+					nv++;
+			}
+			this.nVisible = nv;
+		}
+
+		public int frame()
+		{
+			return frame;
+		}
+
+		/**
+		 * Returns the number of spots in this frame.
+		 */
+		public int size()
+		{
+			return spots.length;
+		}
+
+		public Spot get( final int i )
+		{
+			return spots[ i ];
+		}
+
+		/**
+		 * Returns the index of a spot in this frame, or -1 if it is not in
+		 * this frame.
+		 */
+		public int indexOf( final Spot spot )
+		{
+			return index.get( spot );
+		}
+
+		public String getName( final int i )
+		{
+			return names[ i ];
+		}
+
+		public boolean isVisible( final int i )
+		{
+			return visible[ i ];
+		}
+
+		/**
+		 * Returns the value of a feature for the spot at the specified index,
+		 * or <code>null</code> if the spot had no value for it.
+		 */
+		public Double getFeature( final int i, final String feature )
+		{
+			final Double[] column = features.get( feature );
+			return column == null ? null : column[ i ];
+		}
+
+		/**
+		 * Returns the spots of this frame.
+		 *
+		 * @param visibleSpotsOnly
+		 *            if <code>true</code>, only return the visible spots.
+		 * @return a new list.
+		 */
+		public List< Spot > spots( final boolean visibleSpotsOnly )
+		{
+			if ( !visibleSpotsOnly )
+				return Arrays.asList( spots.clone() );
+			final List< Spot > list = new ArrayList<>( nVisible );
+			for ( int i = 0; i < spots.length; i++ )
+				if ( visible[ i ] )
+					list.add( spots[ i ] );
+			return list;
+		}
+	}
+
+	/**
+	 * The spots and edges of one track, with edge and track feature values.
+	 */
+	public static final class TrackSnapshot
+	{
+
+		private final int id;
+
+		private final Set< Spot > spots;
+
+		private final DefaultWeightedEdge[] edges;
+
+		private final Spot[] sources;
+
+		private final Spot[] targets;
+
+		private final double[] weights;
+
+		private final TObjectIntHashMap< DefaultWeightedEdge > edgeIndex;
+
+		private final Map< String, Double[] > edgeFeatures;
+
+		private final Map< String, Double > features;
+
+		private TrackSnapshot( final Integer id, final TrackModel trackModel, final FeatureModel fm, final Collection< String > edgeFeatureKeys, final Collection< String > trackFeatureKeys )
+		{
+			this.id = id;
+			this.spots = Collections.unmodifiableSet( new HashSet<>( trackModel.trackSpots( id ) ) );
+			final Set< DefaultWeightedEdge > trackEdges = trackModel.trackEdges( id );
+			final int n = trackEdges.size();
+			this.edges = trackEdges.toArray( new DefaultWeightedEdge[ n ] );
+			this.sources = new Spot[ n ];
+			this.targets = new Spot[ n ];
+			this.weights = new double[ n ];
+			this.edgeIndex = new TObjectIntHashMap<>( Math.max( 10, 2 * n ), 0.5f, -1 );
+			this.edgeFeatures = new HashMap<>();
+			for ( final String feature : edgeFeatureKeys )
+				edgeFeatures.put( feature, new Double[ n ] );
+			for ( int i = 0; i < n; i++ )
+			{
+				final DefaultWeightedEdge edge = edges[ i ];
+				edgeIndex.put( edge, i );
+				sources[ i ] = trackModel.getEdgeSource( edge );
+				targets[ i ] = trackModel.getEdgeTarget( edge );
+				weights[ i ] = trackModel.getEdgeWeight( edge );
+				for ( final String feature : edgeFeatureKeys )
+					edgeFeatures.get( feature )[ i ] = fm.getEdgeFeature( edge, feature );
+			}
+			final Map< String, Double > values = new LinkedHashMap<>();
+			for ( final String feature : trackFeatureKeys )
+			{
+				final Double value = fm.getTrackFeature( id, feature );
+				if ( value != null )
+					values.put( feature, value );
+			}
+			this.features = Collections.unmodifiableMap( values );
+		}
+
+		public int getID()
+		{
+			return id;
+		}
+
+		/**
+		 * Returns the spots of this track.
+		 *
+		 * @return an unmodifiable set.
+		 */
+		public Set< Spot > spots()
+		{
+			return spots;
+		}
+
+		/**
+		 * Returns the edges of this track.
+		 *
+		 * @return an unmodifiable list.
+		 */
+		public List< DefaultWeightedEdge > edges()
+		{
+			return Collections.unmodifiableList( Arrays.asList( edges ) );
+		}
+
+		public Spot getEdgeSource( final DefaultWeightedEdge edge )
+		{
+			final int i = edgeIndex.get( edge );
+			return i < 0 ? null : sources[ i ];
+		}
+
+		public Spot getEdgeTarget( final DefaultWeightedEdge edge )
+		{
+			final int i = edgeIndex.get( edge );
+			return i < 0 ? null : targets[ i ];
+		}
+
+		public double getEdgeWeight( final DefaultWeightedEdge edge )
+		{
+			final int i = edgeIndex.get( edge );
+			return i < 0 ? Double.NaN : weights[ i ];
+		}
+
+		/**
+		 * Returns the value of an edge feature, or <code>null</code> if the
+		 * edge is not in this track or had no value for this feature.
+		 */
+		public Double getEdgeFeature( final DefaultWeightedEdge edge, final String feature )
+		{
+			final int i = edgeIndex.get( edge );
+			final Double[] column = edgeFeatures.get( feature );
+			return ( i < 0 || column == null ) ? null : column[ i ];
+		}
+
+		/**
+		 * Returns the value of a track feature, or <code>null</code> if the
+		 * track had no value for this feature.
+		 */
+		public Double getFeature( final String feature )
+		{
+			return features.get( feature );
+		}
+	}
+
+	/**
+	 * The declarations of the spot, edge or track features.
+	 */
+	public static final class FeatureDeclarations
+	{
+
+		private final List< String > features;
+
+		private final Map< String, String > names;
+
+		private final Map< String, String > shortNames;
+
+		private final Map< String, Dimension > dimensions;
+
+		private final Map< String, Boolean > isInt;
+
+		private FeatureDeclarations(
+				final Collection< String > features,
+				final Map< String, String > names,
+				final Map< String, String > shortNames,
+				final Map< String, Dimension > dimensions,
+				final Map< String, Boolean > isInt )
+		{
+			this.features = Collections.unmodifiableList( new ArrayList<>( features ) );
+			this.names = Collections.unmodifiableMap( new HashMap<>( names ) );
+			this.shortNames = Collections.unmodifiableMap( new HashMap<>( shortNames ) );
+			this.dimensions = Collections.unmodifiableMap( new HashMap<>( dimensions ) );
+			this.isInt = Collections.unmodifiableMap( new HashMap<>( isInt ) );
+		}
+
+		public List< String > getFeatures()
+		{
+			return features;
+		}
+
+		public Map< String, String > getNames()
+		{
+			return names;
+		}
+
+		public Map< String, String > getShortNames()
+		{
+			return shortNames;
+		}
+
+		public Map< String, Dimension > getDimensions()
+		{
+			return dimensions;
+		}
+
+		public Map< String, Boolean > getIsInt()
+		{
+			return isInt;
+		}
+	}
+}
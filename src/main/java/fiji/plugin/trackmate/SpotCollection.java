@@ -156,6 +156,34 @@ public class SpotCollection implements MultiThreaded
 		spot.putFeature( VISIBILITY, ONE );
 	}
 
+	/**
+	 * Adds the given spots to this collection, at the specified frame, and
+	 * mark them as visible. This is equivalent to calling
+	 * {@link #add(Spot, Integer)} for each spot, but the frame content is
+	 * looked up only once.
+	 *
+	 * @param frame
+	 *            the frame to add the spots to.
+	 * @param spots
+	 *            the spots to add.
+	 */
+	public void addAll( final Integer frame, final Collection< Spot > spots )
+	{
+		Set< Spot > frameSpots = content.get( frame );
+		if ( null == frameSpots )
+		{
+			frameSpots = new HashSet<>( spots.size() * 4 / 3 + 1 );
+			content.put( frame, frameSpots );
+		}
+		final Double val = Double.valueOf( frame );
+		for ( final Spot spot : spots )
+		{
+			spot.putFeature( Spot.FRAME, val );
+			spot.putFeature( VISIBILITY, ONE );
+			frameSpots.add( spot );
+		}
+	}
+
 	/**
 	 * Removes the given spot from this collection, at the specified frame.
 	 * <p>
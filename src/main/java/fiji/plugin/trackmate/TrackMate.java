@@ -23,7 +23,9 @@ package fiji.plugin.trackmate;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -35,6 +37,10 @@ import org.scijava.Cancelable;
 import org.scijava.Named;
 import org.scijava.util.VersionUtils;
 
+import fiji.plugin.trackmate.detection.BlockDetector;
+import fiji.plugin.trackmate.detection.DetectionUtils;
+import fiji.plugin.trackmate.detection.InitialSpotFilterable;
+import fiji.plugin.trackmate.detection.LogDetectorFactory;
 import fiji.plugin.trackmate.detection.ManualDetectorFactory;
 import fiji.plugin.trackmate.detection.SpotDetector;
 import fiji.plugin.trackmate.detection.SpotDetectorFactory;
@@ -45,8 +51,14 @@ import fiji.plugin.trackmate.features.EdgeFeatureCalculator;
 import fiji.plugin.trackmate.features.FeatureFilter;
 import fiji.plugin.trackmate.features.SpotFeatureCalculator;
 import fiji.plugin.trackmate.features.TrackFeatureCalculator;
+import fiji.plugin.trackmate.metrics.MetricsProbe;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
+import fiji.plugin.trackmate.metrics.TrackMateMetrics;
 import fiji.plugin.trackmate.tracking.SpotImageTrackerFactory;
 import fiji.plugin.trackmate.tracking.SpotTracker;
+import fiji.plugin.trackmate.tracking.jaqaman.SparseLAPTrackerFactory;
+import fiji.plugin.trackmate.tracking.jaqaman.StreamingLAPTracker;
 import fiji.plugin.trackmate.util.TMUtils;
 import fiji.plugin.trackmate.util.Threads;
 import ij.gui.Roi;
@@ -98,6 +110,58 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 
 	private final List< Cancelable > cancelables = Collections.synchronizedList( new ArrayList<>() );
 
+	/**
+	 * The resources used by each processing stage.
+	 */
+	protected final TrackMateMetrics metrics = new TrackMateMetrics();
+
+	/**
+	 * Memory budget for detection, in bytes. If strictly positive, frames
+	 * that do not fit in this budget are processed in blocks.
+	 */
+	protected long detectionMemoryBudget = -1;
+
+	/**
+	 * Halo around detection blocks, in pixels. If negative, it is derived
+	 * from the spot radius in the detector settings.
+	 */
+	protected long detectionBlockHalo = -1;
+
+	/**
+	 * If <code>true</code>, the initial spot filter is applied by the
+	 * detectors that support it, during detection.
+	 */
+	protected boolean initialFilterInDetection = false;
+
+	/**
+	 * Maximal number of spots detected in a frame. Zero or negative for no
+	 * limit.
+	 */
+	protected int maxSpotsPerFrame = -1;
+
+	/**
+	 * If <code>true</code>, {@link #process()} runs detection, initial
+	 * filtering and spot feature calculation as a pipeline.
+	 */
+	protected boolean pipelinedDetection = false;
+
+	/**
+	 * If <code>true</code>, the pipelined detection also links frames as
+	 * they are detected, for the trackers that support it.
+	 */
+	protected boolean streamingTracking = false;
+
+	/**
+	 * The tracker fed by the last pipelined detection, and copies of the
+	 * tracker settings and spot filters it was fed with. <code>null</code> if
+	 * there is none.
+	 */
+	private StreamingLAPTracker streamingTracker;
+
+	private Map< String, Object > streamingTrackerSettings;
+
+	private List< FeatureFilter > streamingSpotFilters;
+
 	/*
 	 * CONSTRUCTORS
 	 */
@@ -142,6 +206,122 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		return settings;
 	}
 
+	/**
+	 * Returns the metrics of the processing stages run so far: elapsed time,
+	 * CPU time, allocated memory, spot and edge counts and number of threads
+	 * of each stage.
+	 *
+	 * @return the metrics collection.
+	 */
+	public TrackMateMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	/**
+	 * Sets the memory budget for frame-by-frame detection. Frames whose
+	 * processing is estimated to exceed this budget are split into
+	 * overlapping blocks, processed in parallel by the detector, and spots
+	 * found twice in the overlaps are removed. Only the image region of the
+	 * blocks being processed is read, so this allows running detection on
+	 * lazily loaded images larger than the memory.
+	 * <p>
+	 * The overlap between blocks is derived from the spot radius in the
+	 * detector settings, or can be set with
+	 * {@link #setDetectionBlockHalo(long)} for detectors that have no radius
+	 * parameter.
+	 *
+	 * @param bytes
+	 *            the memory budget in bytes. Zero or negative values disable
+	 *            block processing, which is the default.
+	 * @see BlockDetector
+	 */
+	public void setDetectionMemoryBudget( final long bytes )
+	{
+		this.detectionMemoryBudget = bytes;
+	}
+
+	/**
+	 * Sets the size of the overlap between detection blocks, used when a
+	 * detection memory budget is set. For detectors based on segmentation, it
+	 * must be larger than the objects to detect.
+	 *
+	 * @param halo
+	 *            the halo size in pixels, or a negative value to derive it
+	 *            from the spot radius.
+	 * @see #setDetectionMemoryBudget(long)
+	 */
+	public void setDetectionBlockHalo( final long halo )
+	{
+		this.detectionBlockHalo = halo;
+	}
+
+	/**
+	 * Sets whether the initial spot filter is applied during detection.
+	 * Detectors that implement {@link InitialSpotFilterable} then skip the
+	 * maxima with a quality below {@link Settings#initialSpotFilterValue}
+	 * before refining their position and creating spots for them. The spots
+	 * kept after the initial filtering step are the same, but detection with
+	 * a low threshold is much faster and uses much less memory.
+	 * <p>
+	 * This is off by default, because the spots below the initial filter
+	 * value are then not available to choose this value after detection.
+	 *
+	 * @param initialFilterInDetection
+	 *            whether to apply the initial filter during detection.
+	 */
+	public void setInitialFilterInDetection( final boolean initialFilterInDetection )
+	{
+		this.initialFilterInDetection = initialFilterInDetection;
+	}
+
+	/**
+	 * Sets the maximal number of spots detected in a frame. Only the spots
+	 * with the highest quality are kept. Detectors that implement
+	 * {@link InitialSpotFilterable} apply this cap before creating spots.
+	 * Only used by frame-by-frame detectors.
+	 *
+	 * @param maxSpotsPerFrame
+	 *            the maximal number of spots per frame. Zero or negative
+	 *            values mean no limit, which is the default.
+	 */
+	public void setMaxSpotsPerFrame( final int maxSpotsPerFrame )
+	{
+		this.maxSpotsPerFrame = maxSpotsPerFrame;
+	}
+
+	/**
+	 * Sets whether {@link #process()} runs detection, initial filtering and
+	 * spot feature calculation as a pipeline, frame by frame, instead of one
+	 * stage after the other over all frames.
+	 *
+	 * @param pipelinedDetection
+	 *            whether to use the pipelined mode.
+	 * @see #execDetectionPipeline()
+	 */
+	public void setPipelinedDetection( final boolean pipelinedDetection )
+	{
+		this.pipelinedDetection = pipelinedDetection;
+	}
+
+	/**
+	 * Sets whether the pipelined detection also links frames as soon as they
+	 * are detected. This is only possible with the LAP trackers: consecutive
+	 * frames are linked while other frames are being detected, and gap
+	 * closing, merging and splitting run once in {@link #execTracking()}. The
+	 * spots linked are the ones that pass the spot filters, so the tracks are
+	 * the same as with the sequential processing.
+	 *
+	 * @param streamingTracking
+	 *            whether to link frames during the pipelined detection.
+	 * @see #setPipelinedDetection(boolean)
+	 * @see StreamingLAPTracker
+	 */
+	public void setStreamingTracking( final boolean streamingTracking )
+	{
+		this.streamingTracking = streamingTracking;
+	}
+
 	/*
 	 * PROCESSES
 	 */
@@ -166,11 +346,14 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		cancelables.clear();
 
 		final Logger logger = model.getLogger();
+		metrics.clear( TrackMateMetrics.SPOT_FEATURES );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.SPOT_FEATURES, numThreads );
 		final SpotFeatureCalculator calculator = new SpotFeatureCalculator( model, settings, doLogIt );
 		cancelables.add( calculator );
 		calculator.setNumThreads( numThreads );
 		if ( calculator.checkInput() && calculator.process() )
 		{
+			metrics.add( probe.stop( model.getSpots().getNSpots( false ), -1 ) );
 			if ( doLogIt )
 			{
 				if ( isCanceled() )
@@ -207,6 +390,8 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		cancelables.clear();
 
 		final Logger logger = model.getLogger();
+		metrics.clear( TrackMateMetrics.EDGE_FEATURES );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.EDGE_FEATURES, numThreads );
 		final EdgeFeatureCalculator calculator = new EdgeFeatureCalculator( model, settings, doLogIt );
 		cancelables.add( calculator );
 		calculator.setNumThreads( numThreads );
@@ -215,6 +400,7 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 			errorMessage = "Edge features calculation failed:\n" + calculator.getErrorMessage();
 			return false;
 		}
+		metrics.add( probe.stop( -1, model.getTrackModel().edgeSet().size() ) );
 		if ( doLogIt )
 		{
 			if ( isCanceled() )
@@ -241,11 +427,14 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		cancelables.clear();
 
 		final Logger logger = model.getLogger();
+		metrics.clear( TrackMateMetrics.TRACK_FEATURES );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.TRACK_FEATURES, numThreads );
 		final TrackFeatureCalculator calculator = new TrackFeatureCalculator( model, settings, doLogIt );
 		cancelables.add( calculator );
 		calculator.setNumThreads( numThreads );
 		if ( calculator.checkInput() && calculator.process() )
 		{
+			metrics.add( probe.stop( -1, model.getTrackModel().edgeSet().size() ) );
 			if ( doLogIt )
 			{
 				if ( isCanceled() )
@@ -284,6 +473,8 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 
 		final Logger logger = model.getLogger();
 		logger.log( "Starting tracking process.\n", Logger.BLUE_COLOR );
+		metrics.clear( TrackMateMetrics.TRACKING );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.TRACKING, numThreads );
 
 		if ( settings.trackerFactory == null )
 		{
@@ -293,7 +484,12 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 
 		// Deal with trackers vs image trackers.
 		final SpotTracker tracker;
-		if ( SpotImageTrackerFactory.class.isInstance( settings.trackerFactory ) )
+		if ( streamingTracker != null && isStreamingTrackerValid() )
+		{
+			// Frames already linked during detection.
+			tracker = streamingTracker;
+		}
+		else if ( SpotImageTrackerFactory.class.isInstance( settings.trackerFactory ) )
 		{
 			final SpotImageTrackerFactory f = ( SpotImageTrackerFactory ) settings.trackerFactory;
 			tracker = f.create( model.getSpots(), settings.trackerSettings, settings.imp );
@@ -309,6 +505,11 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 			return true; // Not an error.
 		}
 
+		// Used once.
+		streamingTracker = null;
+		streamingTrackerSettings = null;
+		streamingSpotFilters = null;
+
 		if ( tracker instanceof Cancelable )
 			cancelables.add( ( Cancelable ) tracker );
 		tracker.setNumThreads( numThreads );
@@ -319,6 +520,10 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 				logger.log( "Tracking canceled. Reason:\n" + getCancelReason() + "\n" );
 
 			model.setTracks( tracker.getResult(), true );
+			metrics.add( probe.stop( model.getSpots().getNSpots( true ), model.getTrackModel().edgeSet().size() ) );
+			if ( tracker instanceof MetricsReporter )
+				for ( final StageMetrics m : ( ( MetricsReporter ) tracker ).getMetrics() )
+					metrics.add( m.withPrefix( TrackMateMetrics.TRACKING ) );
 			return true;
 		}
 
@@ -376,17 +581,26 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		 * type.
 		 */
 
+		metrics.clear( TrackMateMetrics.DETECTION );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.DETECTION, numThreads );
+		final boolean ok;
 		if ( factory instanceof SpotGlobalDetectorFactory )
 		{
-			return processGlobal( ( SpotGlobalDetectorFactory ) factory, img, logger );
+			ok = processGlobal( ( SpotGlobalDetectorFactory ) factory, img, logger );
 		}
 		else if ( factory instanceof SpotDetectorFactory )
 		{
-			return processFrameByFrame( ( SpotDetectorFactory ) factory, img, logger );
+			ok = processFrameByFrame( ( SpotDetectorFactory ) factory, img, logger, null );
+		}
+		else
+		{
+			errorMessage = "Don't know how to handle detector factory of type: " + factory.getClass();
+			return false;
 		}
 
-		errorMessage = "Don't know how to handle detector factory of type: " + factory.getClass();
-		return false;
+		if ( ok )
+			metrics.add( probe.stop( model.getSpots().getNSpots( false ), -1 ) );
+		return ok;
 	}
 
 	@SuppressWarnings( "rawtypes" )
@@ -469,8 +683,13 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		return true;
 	}
 
+	/**
+	 * Runs a frame-by-frame detector over all frames. If a pipeline is
+	 * specified, the spots of each frame are handed over to it instead of
+	 * being stored directly in the spot collection.
+	 */
 	@SuppressWarnings( "rawtypes" )
-	private boolean processFrameByFrame( final SpotDetectorFactory factory, final ImgPlus img, final Logger logger )
+	private boolean processFrameByFrame( final SpotDetectorFactory factory, final ImgPlus img, final Logger logger, final DetectionPipeline pipeline )
 	{
 		final Interval interval = TMUtils.getInterval( img, settings );
 		final int zindex = img.dimensionIndex( Axes.Z );
@@ -478,6 +697,8 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		// Final results holder, for all frames
 		final SpotCollection spots = new SpotCollection();
 		spots.setNumThreads( numThreads );
+		if ( pipeline != null )
+			pipeline.start( spots );
 		// To report progress
 		final AtomicInteger spotFound = new AtomicInteger( 0 );
 		final AtomicInteger progress = new AtomicInteger( 0 );
@@ -490,10 +711,21 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		 * frame. But if we have 10 threads and 2 frames, we process the 2
 		 * frames at once, and allocate 5 threads per frame if we can.
 		 */
-		final int nSimultaneousFrames = ( factory.forbidMultithreading() )
+		final List< Interval > blocks = createDetectionBlocks( interval, calibration, logger );
+		final long[] halo = ( blocks == null ) ? null : detectionBlockHalo( interval, calibration );
+		final int nSimultaneousFrames = ( factory.forbidMultithreading() || blocks != null )
 				? 1
 				: Math.min( numThreads, numFrames );
-		final int threadsPerFrame = Math.max( 1, numThreads / nSimultaneousFrames );
+		// Blocks of a frame are processed in parallel: respect the factory.
+		final int threadsPerFrame = ( blocks != null && factory.forbidMultithreading() )
+				? 1
+				: Math.max( 1, numThreads / nSimultaneousFrames );
+
+		final double minQuality = ( initialFilterInDetection && settings.initialSpotFilterValue != null )
+				? settings.initialSpotFilterValue.doubleValue()
+				: Double.NEGATIVE_INFINITY;
+		// Spots out of the ROI are removed after detection, so no cap then.
+		final int maxSpotsInDetection = ( settings.getRoi() == null ) ? maxSpotsPerFrame : -1;
 
 		logger.log( "Detection processes "
 				+ ( ( nSimultaneousFrames > 1 ) ? ( nSimultaneousFrames + " frames" ) : "1 frame" )
@@ -515,9 +747,13 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 					if ( isCanceled() )
 						return Boolean.TRUE; // ok to be canceled.
 
+					final MetricsProbe frameProbe = MetricsProbe.startThread( TrackMateMetrics.DETECTION_FRAME, threadsPerFrame ).frame( frame );
+
 					// Yield detector for target frame
 					@SuppressWarnings( "unchecked" )
-					final SpotDetector< ? > detector = factory.getDetector( img, settings.detectorSettings, interval, frame );
+					final SpotDetector< ? > detector = ( blocks == null )
+							? factory.getDetector( img, settings.detectorSettings, interval, frame )
+							: new BlockDetector( factory, img, settings.detectorSettings, interval, frame, blocks, halo );
 					if ( detector instanceof MultiThreaded )
 					{
 						final MultiThreaded md = ( MultiThreaded ) detector;
@@ -527,6 +763,9 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 					if ( detector instanceof Cancelable )
 						cancelables.add( ( Cancelable ) detector );
 
+					if ( detector instanceof InitialSpotFilterable )
+						( ( InitialSpotFilterable ) detector ).setInitialSpotFilter( minQuality, maxSpotsInDetection );
+
 					// Execute detection
 					if ( detector.checkInput() && detector.process() )
 					{
@@ -565,6 +804,7 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 						{
 							prunedSpots = spotsThisFrame;
 						}
+						prunedSpots = DetectionUtils.keepBrightest( prunedSpots, maxSpotsPerFrame );
 						// Add detection feature other than position
 						for ( final Spot spot : prunedSpots )
 						{
@@ -573,8 +813,12 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 							spot.putFeature( Spot.POSITION_T, frame * settings.dt );
 						}
 						// Store final results for this frame
-						spots.put( frame, prunedSpots );
+						if ( pipeline == null )
+							spots.put( frame, prunedSpots );
+						else
+							pipeline.submit( frame, prunedSpots );
 						// Report
+						metrics.add( frameProbe.stop( prunedSpots.size(), -1 ) );
 						spotFound.addAndGet( prunedSpots.size() );
 						logger.setProgress( progress.incrementAndGet() / ( double ) numFrames );
 
@@ -614,6 +858,15 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 			reportOk.set( false );
 			e.printStackTrace();
 		}
+		// Do not hold on the FFT buffers once detection is done.
+		if ( factory instanceof LogDetectorFactory )
+			( ( LogDetectorFactory ) factory ).releaseConvolutionContexts();
+
+		if ( pipeline != null && !pipeline.finish() && reportOk.get() )
+		{
+			errorMessage = pipeline.getErrorMessage();
+			reportOk.set( false );
+		}
 
 		model.setSpots( spots, true );
 
@@ -633,6 +886,155 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		return reportOk.get();
 	}
 
+	/**
+	 * Returns the blocks to split frames in for detection, or
+	 * <code>null</code> if frames are to be processed whole.
+	 */
+	private List< Interval > createDetectionBlocks( final Interval interval, final double[] calibration, final Logger logger )
+	{
+		if ( detectionMemoryBudget <= 0 )
+			return null;
+
+		if ( !BlockDetector.supportsBlocks( settings.detectorSettings ) )
+		{
+			logger.log( "The detector normalizes the image, which gives different results in blocks. Frames will be processed whole.\n" );
+			return null;
+		}
+
+		final long[] halo = detectionBlockHalo( interval, calibration );
+		if ( halo == null )
+		{
+			logger.log( "Cannot determine the block overlap from the detector settings. Frames will be processed whole.\n" );
+			return null;
+		}
+		final List< Interval > blocks = BlockDetector.createBlocks( interval, halo, detectionMemoryBudget, numThreads );
+		if ( blocks.size() < 2 )
+			return null;
+
+		logger.log( "Frames do not fit in the memory budget and will be processed in " + blocks.size() + " blocks.\n" );
+		final long needed = BlockDetector.memoryNeeded( blocks, halo, interval, numThreads );
+		if ( needed > detectionMemoryBudget )
+			logger.log( "Warning: the block overlap is too large for the memory budget. Detection will need about "
+					+ ( needed >> 20 ) + " MB, more than the budget of " + ( detectionMemoryBudget >> 20 ) + " MB.\n", Logger.ERROR_COLOR );
+		return blocks;
+	}
+
+	private long[] detectionBlockHalo( final Interval interval, final double[] calibration )
+	{
+		if ( detectionBlockHalo < 0 )
+			return BlockDetector.haloFor( settings.detectorSettings, interval, calibration );
+
+		final long[] halo = new long[ interval.numDimensions() ];
+		for ( int d = 0; d < halo.length; d++ )
+			halo[ d ] = ( interval.dimension( d ) > 1 ) ? detectionBlockHalo : 0;
+		return halo;
+	}
+
+	/**
+	 * Returns <code>true</code> if the streaming tracker was fed with the
+	 * spots that are visible now, with the current tracker settings. The
+	 * settings are compared by value, since they may have been edited in
+	 * place since the detection.
+	 */
+	private boolean isStreamingTrackerValid()
+	{
+		return settings.trackerFactory instanceof SparseLAPTrackerFactory
+				&& copySettings( settings.trackerSettings ).equals( streamingTrackerSettings )
+				&& settings.getSpotFilters().equals( streamingSpotFilters );
+	}
+
+	/**
+	 * Copies a settings map, and the maps it contains, such as the feature
+	 * penalties.
+	 */
+	private static Map< String, Object > copySettings( final Map< String, Object > settings )
+	{
+		if ( null == settings )
+			return null;
+
+		final Map< String, Object > copy = new HashMap<>( settings );
+		for ( final Map.Entry< String, Object > entry : copy.entrySet() )
+			if ( entry.getValue() instanceof Map )
+				entry.setValue( new HashMap<>( ( Map< ?, ? > ) entry.getValue() ) );
+		return copy;
+	}
+
+	/**
+	 * Executes detection, initial spot filtering and spot feature calculation
+	 * as a pipeline.
+	 * <p>
+	 * The results are the same as calling {@link #execDetection()},
+	 * {@link #execInitialSpotFiltering()} and
+	 * {@link #computeSpotFeatures(boolean)} in a row, but each frame goes
+	 * through the three stages as soon as it is detected, while other frames
+	 * are being detected. Frames are handed over between stages through a
+	 * bounded queue, so detection waits when the later stages lag behind.
+	 * Each frame is thus read once while it is hot in the cache, and its
+	 * intermediate images are released as soon as it is detected, which
+	 * reduces the run time and the memory used for long movies read from
+	 * slow storage.
+	 * <p>
+	 * Global and manual detectors are not frame-by-frame: for them, the three
+	 * stages are run one after the other.
+	 *
+	 * @return <code>true</code> if the computation completed without errors.
+	 */
+	@SuppressWarnings( "rawtypes" )
+	public boolean execDetectionPipeline()
+	{
+		final SpotDetectorFactoryBase< ? > factory = settings.detectorFactory;
+		if ( !( factory instanceof SpotDetectorFactory ) || factory instanceof ManualDetectorFactory || null == settings.detectorSettings )
+			return execDetection()
+					&& ( isCanceled() || execInitialSpotFiltering() )
+					&& ( isCanceled() || computeSpotFeatures( true ) );
+
+		isCanceled = false;
+		cancelReason = null;
+		cancelables.clear();
+
+		final Logger logger = model.getLogger();
+		logger.log( "Starting pipelined detection, initial filtering and spot feature calculation using "
+				+ ( ( numThreads > 1 ) ? ( numThreads + " threads" ) : "1 thread" )
+				+ ".\n", Logger.BLUE_COLOR );
+
+		metrics.clear( TrackMateMetrics.DETECTION );
+		metrics.clear( TrackMateMetrics.INITIAL_FILTERING );
+		metrics.clear( TrackMateMetrics.SPOT_FEATURES );
+		metrics.clear( TrackMateMetrics.DETECTION_PIPELINE );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.DETECTION_PIPELINE, numThreads );
+
+		// Feature calculation is usually lighter than detection.
+		final int nWorkers = Math.max( 1, numThreads / 2 );
+		final DetectionPipeline pipeline = new DetectionPipeline( model, settings, nWorkers, 2 * nWorkers );
+		cancelables.add( pipeline.getCalculator() );
+		streamingTracker = null;
+		streamingTrackerSettings = null;
+		streamingSpotFilters = null;
+		if ( streamingTracking && settings.trackerFactory instanceof SparseLAPTrackerFactory )
+		{
+			final StreamingLAPTracker tracker = new StreamingLAPTracker( settings.trackerSettings, nWorkers );
+			if ( tracker.checkInput() )
+			{
+				streamingTracker = tracker;
+				streamingTrackerSettings = copySettings( settings.trackerSettings );
+				streamingSpotFilters = new ArrayList<>( settings.getSpotFilters() );
+				pipeline.setStreamingTracker( streamingTracker, streamingSpotFilters );
+				cancelables.add( streamingTracker );
+			}
+		}
+
+		final ImgPlus img = TMUtils.rawWraps( settings.imp );
+		if ( !processFrameByFrame( ( SpotDetectorFactory ) factory, img, logger, pipeline ) )
+		{
+			streamingTracker = null;
+			return false;
+		}
+
+		metrics.add( probe.stop( model.getSpots().getNSpots( false ), -1 ) );
+		model.notifyFeaturesComputed();
+		return true;
+	}
+
 	/**
 	 * Execute the initial spot filtering part.
 	 * <p>
@@ -663,12 +1065,15 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		final Logger logger = model.getLogger();
 		logger.log( "Starting initial filtering process.\n" );
 
+		metrics.clear( TrackMateMetrics.INITIAL_FILTERING );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.INITIAL_FILTERING, numThreads );
 		final Double initialSpotFilterValue = settings.initialSpotFilterValue;
 		final FeatureFilter featureFilter = new FeatureFilter( Spot.QUALITY, initialSpotFilterValue, true );
 
 		final SpotCollection spots = model.getSpots();
 		spots.filter( featureFilter );
 		spots.crop();
+		metrics.add( probe.stop( spots.getNSpots( false ), -1 ) );
 		return true;
 	}
 
@@ -699,7 +1104,10 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 			final Logger logger = model.getLogger();
 			logger.log( "Starting spot filtering process.\n" );
 		}
+		metrics.clear( TrackMateMetrics.SPOT_FILTERING );
+		final MetricsProbe probe = MetricsProbe.startProcess( TrackMateMetrics.SPOT_FILTERING, numThreads );
 		model.filterSpots( settings.getSpotFilters(), true );
+		metrics.add( probe.stop( model.getSpots().getNSpots( true ), -1 ) );
 		return true;
 	}
 
@@ -713,6 +1121,8 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 			logger.log( "Starting track filtering process.\n" );
 		}
 
+		metrics.clear( TrackMateMetrics.TRACK_FILTERING );
+		final MetricsProbe probe = MetricsProbe.startThread( TrackMateMetrics.TRACK_FILTERING );
 		model.beginUpdate();
 		try
 		{
@@ -750,6 +1160,7 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 		{
 			model.endUpdate();
 		}
+		metrics.add( probe.stop() );
 		return true;
 	}
 
@@ -793,20 +1204,39 @@ public class TrackMate implements Benchmark, MultiThreaded, Algorithm, Named, Ca
 	@Override
 	public boolean process()
 	{
-		if ( !execDetection() )
-			return false;
-		if ( isCanceled() )
-			return true;
+		final long start = System.currentTimeMillis();
+		metrics.clear();
+		final boolean ok = processAll();
+		processingTime = System.currentTimeMillis() - start;
+		return ok;
+	}
 
-		if ( !execInitialSpotFiltering() )
-			return false;
-		if ( isCanceled() )
-			return true;
+	private boolean processAll()
+	{
+		if ( pipelinedDetection )
+		{
+			if ( !execDetectionPipeline() )
+				return false;
+			if ( isCanceled() )
+				return true;
+		}
+		else
+		{
+			if ( !execDetection() )
+				return false;
+			if ( isCanceled() )
+				return true;
 
-		if ( !computeSpotFeatures( true ) )
-			return false;
-		if ( isCanceled() )
-			return true;
+			if ( !execInitialSpotFiltering() )
+				return false;
+			if ( isCanceled() )
+				return true;
+
+			if ( !computeSpotFeatures( true ) )
+				return false;
+			if ( isCanceled() )
+				return true;
+		}
 
 		if ( !execSpotFiltering( true ) )
 			return false;
@@ -47,6 +47,7 @@ import fiji.plugin.trackmate.gui.wizard.WizardSequence;
 import fiji.plugin.trackmate.gui.wizard.descriptors.ConfigureViewsDescriptor;
 import fiji.plugin.trackmate.gui.wizard.descriptors.LogPanelDescriptor2;
 import fiji.plugin.trackmate.io.TmXmlWriter;
+import fiji.plugin.trackmate.metrics.TrackMateMetrics;
 import fiji.plugin.trackmate.tracking.TrackerKeys;
 import fiji.plugin.trackmate.util.LogRecorder;
 import fiji.plugin.trackmate.util.TMUtils;
@@ -163,6 +164,14 @@ public class TrackMateRunner extends TrackMatePlugIn
 	 */
 	private static final String ARG_DISPLAY_RESULTS = "display_results";
 
+	/**
+	 * The macro parameter to set whether the processing metrics should be
+	 * saved next to the TrackMate file, in a <code>.metrics.json</code> file.
+	 * Accept boolean values. Is ignored if the {@link #ARG_SAVE_TO} is not
+	 * set.
+	 */
+	private static final String ARG_SAVE_METRICS = "save_metrics";
+
 	/**
 	 * The macro parameter to set the track filter value on the number of spots
 	 * in tracks. If used, tracks made of less spots than the specified value
@@ -188,6 +197,7 @@ public class TrackMateRunner extends TrackMatePlugIn
 		SUPPORTED_ARGS.add( ARG_MAX_GAP_FRAMES );
 		SUPPORTED_ARGS.add( ARG_MEDIAN );
 		SUPPORTED_ARGS.add( ARG_SAVE_TO );
+		SUPPORTED_ARGS.add( ARG_SAVE_METRICS );
 		SUPPORTED_ARGS.add( ARG_SUBPIXEL );
 		SUPPORTED_ARGS.add( ARG_THRESHOLD );
 		SUPPORTED_ARGS.add( ARG_USE_GUI );
@@ -453,6 +463,22 @@ public class TrackMateRunner extends TrackMatePlugIn
 						return;
 					}
 
+					if ( macroOptions.containsKey( ARG_SAVE_METRICS )
+							&& macroOptions.get( ARG_SAVE_METRICS ).equalsIgnoreCase( "true" )
+							&& !trackmate.getMetrics().isEmpty() )
+					{
+						final File metrics_path = TrackMateMetrics.fileFor( save_path );
+						try
+						{
+							trackmate.getMetrics().write( metrics_path );
+							logger.log( "Metrics saved to: " + metrics_path.toString() + '\n' );
+						}
+						catch ( final IOException e )
+						{
+							logger.log( "Could not save metrics to " + metrics_path + ":\n" + e.getMessage() + '\n', Logger.ERROR_COLOR );
+						}
+					}
+
 				}
 
 				/*
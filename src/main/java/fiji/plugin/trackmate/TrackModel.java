@@ -21,15 +21,23 @@
  */
 package fiji.plugin.trackmate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
@@ -51,6 +59,8 @@ import org.jgrapht.traverse.BreadthFirstIterator;
 import org.jgrapht.traverse.DepthFirstIterator;
 import org.jgrapht.traverse.GraphIterator;
 
+import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
+import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
 import fiji.plugin.trackmate.graph.Function1;
 import fiji.plugin.trackmate.graph.SortedDepthFirstIterator;
 import fiji.plugin.trackmate.graph.TimeDirectedDepthFirstIterator;
@@ -58,6 +68,7 @@ import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
 import fiji.plugin.trackmate.graph.TimeDirectedSortedDepthFirstIterator;
 import fiji.plugin.trackmate.util.AlphanumComparator;
 import fiji.plugin.trackmate.util.TMUtils;
+import fiji.plugin.trackmate.util.Threads;
 
 /**
  * A component of {@link Model} specialized for tracks.
@@ -144,6 +155,17 @@ public class TrackModel
 
 	private final Iterator< String > nameGenerator = new DefaultNameGenerator();
 
+	/**
+	 * The cached convex branch decompositions of tracks, indexed by track ID,
+	 * one map for each combination of decomposition flags (see
+	 * {@link #branchCacheIndex(boolean, boolean)}).
+	 */
+	private final List< Map< Integer, TrackBranchDecomposition > > branchDecompositions = Arrays.asList(
+			new ConcurrentHashMap<>(),
+			new ConcurrentHashMap<>(),
+			new ConcurrentHashMap<>(),
+			new ConcurrentHashMap<>() );
+
 	/*
 	 * Constructors -----------------------------------------------------------
 	 */
@@ -179,6 +201,7 @@ public class TrackModel
 
 		this.graph = new DefaultListenableGraph<>( graph );
 		this.graph.addGraphListener( mgl );
+		branchDecompositions.forEach( Map::clear );
 		init( graph );
 	}
 
@@ -221,6 +244,7 @@ public class TrackModel
 
 		this.graph = new DefaultListenableGraph<>( lGraph );
 		this.graph.addGraphListener( mgl );
+		branchDecompositions.forEach( Map::clear );
 
 		edgesAdded.clear();
 		edgesModified.clear();
@@ -312,6 +336,71 @@ public class TrackModel
 		edgesModified.add( edge );
 	}
 
+	/**
+	 * Adds a copy of a track of another track model as a new track, in bulk.
+	 * The track connectivity is known, so the spots and edges are added
+	 * without going through the graph listener, and the new track ID is
+	 * assigned once. The track keeps its name and visibility.
+	 *
+	 * @param source
+	 *            the track model to copy the track from.
+	 * @param trackID
+	 *            the ID of the track to copy in the source track model.
+	 * @param spotMap
+	 *            the mapping from the spots of the source track to the new
+	 *            spots, that must not be in this model yet.
+	 * @return the ID of the new track, or <code>null</code> if the track has
+	 *         no edge, in which case only its spots are added.
+	 */
+	Integer addTrack( final TrackModel source, final Integer trackID, final Map< Spot, Spot > spotMap )
+	{
+		final Set< DefaultWeightedEdge > sourceEdges = source.trackEdges( trackID );
+		final HashSet< Spot > nvs = new HashSet<>( spotMap.size() * 4 / 3 + 1 );
+		final HashSet< DefaultWeightedEdge > nes = new HashSet<>( sourceEdges.size() * 4 / 3 + 1 );
+
+		graph.removeGraphListener( mgl );
+		try
+		{
+			for ( final Spot spot : spotMap.values() )
+			{
+				graph.addVertex( spot );
+				nvs.add( spot );
+			}
+			for ( final DefaultWeightedEdge sourceEdge : sourceEdges )
+			{
+				final Spot target = spotMap.get( source.getEdgeTarget( sourceEdge ) );
+				final DefaultWeightedEdge edge = graph.addEdge( spotMap.get( source.getEdgeSource( sourceEdge ) ), target );
+				graph.setEdgeWeight( edge, source.getEdgeWeight( sourceEdge ) );
+				nes.add( edge );
+			}
+		}
+		finally
+		{
+			graph.addGraphListener( mgl );
+		}
+
+		if ( nes.isEmpty() )
+			return null;
+
+		final int nid = IDcounter++;
+		connectedVertexSets.put( nid, nvs );
+		connectedEdgeSets.put( nid, nes );
+		for ( final Spot spot : nvs )
+			vertexToID.put( spot, nid );
+		for ( final DefaultWeightedEdge edge : nes )
+			edgeToID.put( edge, nid );
+
+		final Boolean sourceVisibility = source.visibility.get( trackID );
+		visibility.put( nid, null == sourceVisibility ? DEFAULT_VISIBILITY : sourceVisibility );
+		final String sourceName = source.name( trackID );
+		names.put( nid, null == sourceName ? nameGenerator.next() : sourceName );
+
+		// Transaction: as if the edges were added one by one.
+		edgesAdded.addAll( nes );
+		tracksUpdated.add( nid );
+		return nid;
+	}
+
 	Boolean setVisibility( final Integer trackID, final boolean visible )
 	{
 		return visibility.put( trackID, Boolean.valueOf( visible ) );
@@ -648,6 +737,185 @@ public class TrackModel
 		return vertexToID.get( spot );
 	}
 
+	/*
+	 * BRANCH DECOMPOSITIONS
+	 */
+
+	/**
+	 * Returns the convex branch decomposition of the specified track, as
+	 * computed by
+	 * {@link ConvexBranchesDecomposition#processTrack(Integer, TrackModel, TimeDirectedNeighborIndex, boolean, boolean)}.
+	 * <p>
+	 * Decompositions are cached and shared by all callers: they are computed
+	 * once and reused until the track is modified. The branches and links of
+	 * the returned decomposition are unmodifiable, and its branch graph must
+	 * not be modified either.
+	 *
+	 * @param trackID
+	 *            the ID of the track to decompose.
+	 * @param forbidMiddleLinks
+	 *            if <code>true</code>, only the first and last spots of a
+	 *            branch may have more than one predecessor and one successor
+	 *            respectively.
+	 * @param forbidGaps
+	 *            if <code>true</code>, two neighbor spots in a branch are
+	 *            separated by exactly one frame.
+	 * @return the branch decomposition, or <code>null</code> if there is no
+	 *         track with the specified ID.
+	 */
+	public TrackBranchDecomposition getBranchDecomposition( final Integer trackID, final boolean forbidMiddleLinks, final boolean forbidGaps )
+	{
+		return getBranchDecompositions( Collections.singleton( trackID ), forbidMiddleLinks, forbidGaps ).get( trackID );
+	}
+
+	/**
+	 * Returns the convex branch decompositions of the specified tracks. The
+	 * decompositions not in the cache are computed in parallel, one track per
+	 * task, on as many threads as there are available processors.
+	 * <p>
+	 * The model must not be modified while this method runs. Within a
+	 * transaction that has modified tracks, decompositions are computed but
+	 * not cached, since the track IDs are only updated when the transaction
+	 * closes.
+	 *
+	 * @param trackIDs
+	 *            the IDs of the tracks to decompose.
+	 * @param forbidMiddleLinks
+	 *            if <code>true</code>, only the first and last spots of a
+	 *            branch may have more than one predecessor and one successor
+	 *            respectively.
+	 * @param forbidGaps
+	 *            if <code>true</code>, two neighbor spots in a branch are
+	 *            separated by exactly one frame.
+	 * @return a new map from track ID to branch decomposition, iterating in
+	 *         the order of the specified track IDs. Track IDs that do not
+	 *         exist are skipped.
+	 * @see #getBranchDecomposition(Integer, boolean, boolean)
+	 */
+	public Map< Integer, TrackBranchDecomposition > getBranchDecompositions( final Collection< Integer > trackIDs, final boolean forbidMiddleLinks, final boolean forbidGaps )
+	{
+		return getBranchDecompositions( trackIDs, forbidMiddleLinks, forbidGaps, Runtime.getRuntime().availableProcessors() );
+	}
+
+	/**
+	 * Returns the convex branch decompositions of the specified tracks,
+	 * computing the ones not in the cache with the specified number of
+	 * threads.
+	 *
+	 * @param trackIDs
+	 *            the IDs of the tracks to decompose.
+	 * @param forbidMiddleLinks
+	 *            if <code>true</code>, only the first and last spots of a
+	 *            branch may have more than one predecessor and one successor
+	 *            respectively.
+	 * @param forbidGaps
+	 *            if <code>true</code>, two neighbor spots in a branch are
+	 *            separated by exactly one frame.
+	 * @param numThreads
+	 *            the maximal number of threads to use.
+	 * @return a new map from track ID to branch decomposition, iterating in
+	 *         the order of the specified track IDs.
+	 * @see #getBranchDecompositions(Collection, boolean, boolean)
+	 */
+	public Map< Integer, TrackBranchDecomposition > getBranchDecompositions( final Collection< Integer > trackIDs, final boolean forbidMiddleLinks, final boolean forbidGaps, final int numThreads )
+	{
+		final boolean pendingEdits = !edgesAdded.isEmpty() || !edgesRemoved.isEmpty() || !edgesModified.isEmpty();
+		final Map< Integer, TrackBranchDecomposition > cache = pendingEdits
+				? new HashMap<>()
+				: branchDecompositions.get( branchCacheIndex( forbidMiddleLinks, forbidGaps ) );
+
+		final List< Integer > toCompute = new ArrayList<>();
+		for ( final Integer trackID : trackIDs )
+			if ( connectedEdgeSets.containsKey( trackID ) && !cache.containsKey( trackID ) )
+				toCompute.add( trackID );
+
+		final int nThreads = Math.min( toCompute.size(), Math.max( 1, numThreads ) );
+		if ( nThreads == 1 )
+		{
+			for ( final Integer trackID : toCompute )
+				cache.put( trackID, decompose( trackID, forbidMiddleLinks, forbidGaps ) );
+		}
+		else if ( nThreads > 1 )
+		{
+			final ExecutorService executor = Threads.newFixedThreadPool( nThreads );
+			try
+			{
+				final List< Future< TrackBranchDecomposition > > futures = new ArrayList<>( toCompute.size() );
+				for ( final Integer trackID : toCompute )
+					futures.add( executor.submit( () -> decompose( trackID, forbidMiddleLinks, forbidGaps ) ) );
+				for ( int i = 0; i < toCompute.size(); i++ )
+					cache.put( toCompute.get( i ), futures.get( i ).get() );
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+				throw new RuntimeException( e );
+			}
+			catch ( final ExecutionException e )
+			{
+				throw new RuntimeException( e.getCause() );
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		final Map< Integer, TrackBranchDecomposition > decompositions = new LinkedHashMap<>( trackIDs.size() );
+		for ( final Integer trackID : trackIDs )
+		{
+			final TrackBranchDecomposition decomposition = cache.get( trackID );
+			if ( decomposition != null )
+				decompositions.put( trackID, decomposition );
+		}
+		return decompositions;
+	}
+
+	/**
+	 * Removes from the cache the branch decompositions of the specified
+	 * tracks, and of the tracks that do not exist anymore. Called by the
+	 * parent model when a transaction closes.
+	 *
+	 * @param trackIDs
+	 *            the IDs of the tracks modified.
+	 */
+	void invalidateBranchDecompositions( final Collection< Integer > trackIDs )
+	{
+		for ( final Map< Integer, TrackBranchDecomposition > cache : branchDecompositions )
+		{
+			if ( cache.isEmpty() )
+				continue;
+			cache.keySet().removeAll( trackIDs );
+			cache.keySet().retainAll( connectedEdgeSets.keySet() );
+		}
+	}
+
+	/**
+	 * Computes the branch decomposition of a track, with branches and links
+	 * that cannot be modified, so that it can be shared through the cache.
+	 */
+	private TrackBranchDecomposition decompose( final Integer trackID, final boolean forbidMiddleLinks, final boolean forbidGaps )
+	{
+		// Neighbor index per call, not registered: read-only access.
+		final TrackBranchDecomposition decomposition = ConvexBranchesDecomposition.processTrack( trackID, this, new TimeDirectedNeighborIndex( graph ), forbidMiddleLinks, forbidGaps );
+		decomposition.branches = unmodifiable( decomposition.branches );
+		decomposition.links = unmodifiable( decomposition.links );
+		return decomposition;
+	}
+
+	private static Collection< List< Spot > > unmodifiable( final Collection< List< Spot > > lists )
+	{
+		final List< List< Spot > > out = new ArrayList<>( lists.size() );
+		for ( final List< Spot > list : lists )
+			out.add( Collections.unmodifiableList( list ) );
+		return Collections.unmodifiableList( out );
+	}
+
+	private static int branchCacheIndex( final boolean forbidMiddleLinks, final boolean forbidGaps )
+	{
+		return ( forbidMiddleLinks ? 2 : 0 ) + ( forbidGaps ? 1 : 0 );
+	}
+
 	/*
 	 * PRIVATE METHODS
 	 */
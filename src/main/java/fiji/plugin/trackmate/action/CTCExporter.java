@@ -31,8 +31,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,25 +52,15 @@ import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.SpotCollection;
 import fiji.plugin.trackmate.TrackMate;
 import fiji.plugin.trackmate.TrackModel;
-import fiji.plugin.trackmate.action.LabelImgExporter.SpotRoiWriter;
-import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
 import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
 import fiji.plugin.trackmate.graph.GraphUtils;
 import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
 import fiji.plugin.trackmate.io.TmXmlWriter;
-import fiji.plugin.trackmate.util.TMUtils;
+import gnu.trove.list.array.TIntArrayList;
 import ij.IJ;
 import ij.ImagePlus;
 import ij.plugin.Duplicator;
-import net.imagej.ImgPlus;
-import net.imagej.axis.Axes;
-import net.imagej.axis.AxisType;
-import net.imglib2.Dimensions;
-import net.imglib2.FinalDimensions;
-import net.imglib2.img.Img;
-import net.imglib2.img.display.imagej.ImageJFunctions;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
-import net.imglib2.util.Util;
 
 /**
  * An exporter that saves the current TrackMate session as files following the
@@ -307,29 +297,30 @@ public class CTCExporter
 				imp.getCalibration().pixelDepth,
 				imp.getCalibration().frameInterval
 		};
-		final ImgPlus< UnsignedShortType > labelImg = createLabelImg( dims, calibration );
 
-		// Write labels in.
+		// Collect the spots to write and their labels, in frame order.
 		final Model model = trackmate.getModel();
 		final AtomicInteger idGen = new AtomicInteger( 1 );
-		final Set< Integer > framesToWrite = new HashSet<>();
+		final Map< Integer, List< Spot > > spotsToWrite = new HashMap<>();
+		final Map< Integer, int[] > labelsToWrite = new HashMap<>();
 		for ( int frame = 0; frame < dims[ 3 ]; frame++ )
 		{
-			final ImgPlus< UnsignedShortType > imgCT = TMUtils.hyperSlice( labelImg, 0, frame );
-			final SpotRoiWriter< UnsignedShortType > spotWriter = new SpotRoiWriter<>( imgCT );
-
+			final List< Spot > spots = new ArrayList<>();
 			for ( final Spot spot : model.getSpots().iterable( frame, true ) )
-			{
-				if ( spot.getRoi() == null )
-					continue;
-				final int id = idGen.getAndIncrement();
-				spotWriter.write( spot, id );
-				framesToWrite.add( Integer.valueOf( frame ) );
-			}
+				if ( spot.getRoi() != null )
+					spots.add( spot );
+			if ( spots.isEmpty() )
+				continue;
+
+			final int[] labels = new int[ spots.size() ];
+			for ( int i = 0; i < labels.length; i++ )
+				labels[ i ] = idGen.getAndIncrement();
+			spotsToWrite.put( Integer.valueOf( frame ), spots );
+			labelsToWrite.put( Integer.valueOf( frame ), labels );
 		}
 
 		/*
-		 * Now export the label image.
+		 * Now paint and export the label images, frame by frame.
 		 */
 
 		final Path path = Paths.get( exportRootFolder, nameGen.apply( saveId ) + exportType.suffix(), "SEG" );
@@ -342,15 +333,13 @@ public class CTCExporter
 				: i -> String.format( "man_seg%03d.tif", i );
 
 		// Only save frames with spots in.
-		for ( final int frame : framesToWrite )
-		{
-			final ImgPlus< UnsignedShortType > imgCT = TMUtils.hyperSlice( labelImg, 0, frame );
-			final String name = tifNameGen.apply( ( long ) frame );
-			final ImagePlus tp = ImageJFunctions.wrapUnsignedShort( imgCT, name );
-
-			final Path pathTif = Paths.get( exportRootFolder, nameGen.apply( saveId ) + exportType.suffix(), "SEG", name );
-			IJ.saveAsTiff( tp, pathTif.toString() );
-		}
+		final LabelImgFrameWriter< UnsignedShortType > writer = new LabelImgFrameWriter<>( dims, calibration, new UnsignedShortType(), false, trackmate.getNumThreads() );
+		writer.write(
+				spotsToWrite.keySet(),
+				spotsToWrite::get,
+				labelsToWrite::get,
+				frame -> path.resolve( tifNameGen.apply( ( long ) frame ) ),
+				logger );
 		logger.log( ". Done.\n" );
 	}
 
@@ -397,7 +386,10 @@ public class CTCExporter
 				imp.getCalibration().pixelDepth,
 				imp.getCalibration().frameInterval
 		};
-		final ImgPlus< UnsignedShortType > labelImg = createLabelImg( dims, calibration );
+
+		// Spots to paint in each frame and their labels, in painting order.
+		final Map< Integer, List< Spot > > spotsToWrite = new HashMap<>();
+		final Map< Integer, TIntArrayList > labelsToWrite = new HashMap<>();
 
 		// Configure the convex branch decomposition.
 		final boolean forbidMiddleLinks = true;
@@ -415,11 +407,11 @@ public class CTCExporter
 				BufferedWriter bw = new BufferedWriter( new OutputStreamWriter( fos ) ))
 		{
 
-			for ( final Integer trackID : trackModel.trackIDs( true ) )
+			// Decompose the tracks, in parallel.
+			final Map< Integer, TrackBranchDecomposition > decompositions = trackModel.getBranchDecompositions( trackModel.trackIDs( true ), forbidMiddleLinks, forbidGaps, trackmate.getNumThreads() );
+			for ( final Integer trackID : decompositions.keySet() )
 			{
-				// Decompose the track.
-				final TrackBranchDecomposition decomposition = ConvexBranchesDecomposition.processTrack( trackID, trackModel, neighborIndex, forbidMiddleLinks, forbidGaps );
-				final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = ConvexBranchesDecomposition.buildBranchGraph( decomposition );
+				final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = decompositions.get( trackID ).getBranchGraph();
 
 				// Find the first branch (the one with no parent).
 				List< Spot > start = null;
@@ -441,15 +433,14 @@ public class CTCExporter
 					branchID.put( current, Integer.valueOf( currentID ) );
 
 					/*
-					 * Write spot label into output image.
+					 * Store spot label, to write in the output images.
 					 */
 
 					for ( final Spot spot : current )
 					{
-						final long frame = spot.getFeature( Spot.FRAME ).longValue();
-						final ImgPlus< UnsignedShortType > imgCT = TMUtils.hyperSlice( labelImg, 0, frame );
-						final SpotRoiWriter< UnsignedShortType > spotRoiWriter = new SpotRoiWriter<>( imgCT );
-						spotRoiWriter.write( spot, currentID );
+						final Integer frame = Integer.valueOf( spot.getFeature( Spot.FRAME ).intValue() );
+						spotsToWrite.computeIfAbsent( frame, k -> new ArrayList<>() ).add( spot );
+						labelsToWrite.computeIfAbsent( frame, k -> new TIntArrayList() ).add( currentID );
 					}
 
 					/*
@@ -494,14 +485,16 @@ public class CTCExporter
 		final Path pathTif0 = exportType.getTrackTifFilePath( exportRootFolder, saveId, 0, nFrames );
 		logger.log( "Exporting tracking mask files to " + pathTif0.getParent().toString() );
 
-		for ( long frame = 0; frame < dims[ 3 ]; frame++ )
-		{
-			final ImgPlus< UnsignedShortType > imgCT = TMUtils.hyperSlice( labelImg, 0, frame );
-			final Path pathTif = exportType.getTrackTifFilePath( exportRootFolder, saveId, frame, nFrames );
-			final String name = pathTif.getFileName().toString();
-			final ImagePlus tp = ImageJFunctions.wrapUnsignedShort( imgCT, name );
-			IJ.saveAsTiff( tp, pathTif.toString() );
-		}
+		final List< Integer > frames = new ArrayList<>();
+		for ( int frame = 0; frame < dims[ 3 ]; frame++ )
+			frames.add( Integer.valueOf( frame ) );
+		final LabelImgFrameWriter< UnsignedShortType > writer = new LabelImgFrameWriter<>( dims, calibration, new UnsignedShortType(), false, trackmate.getNumThreads() );
+		writer.write(
+				frames,
+				frame -> spotsToWrite.getOrDefault( frame, Collections.emptyList() ),
+				frame -> labelsToWrite.getOrDefault( frame, new TIntArrayList() ).toArray(),
+				frame -> exportType.getTrackTifFilePath( exportRootFolder, saveId, frame, nFrames ),
+				logger );
 		logger.log( ". Done.\n" );
 
 		// Return the results folder.
@@ -631,30 +624,4 @@ public class CTCExporter
 		}
 		return copy;
 	}
-
-	/**
-	 * Creates a new label {@link ImgPlus} suitable to be used to write spot
-	 * labels in. It is initially empty.
-	 *
-	 * @param dimensions
-	 *            the desired dimensions of the output image (width, height,
-	 *            nZSlices, nFrames) as a 4 element int array. Spots outside
-	 *            these dimensions are ignored.
-	 *
-	 * @return a new {@link ImgPlus}.
-	 */
-	private static final ImgPlus< UnsignedShortType > createLabelImg(
-			final long[] dimensions,
-			final double[] calibration )
-	{
-		final Dimensions targetSize = FinalDimensions.wrap( dimensions );
-		final Img< UnsignedShortType > lblImg = Util.getArrayOrCellImgFactory( targetSize, new UnsignedShortType() ).create( targetSize );
-		final AxisType[] axes = new AxisType[] {
-				Axes.X,
-				Axes.Y,
-				Axes.Z,
-				Axes.TIME };
-		final ImgPlus< UnsignedShortType > imgPlus = new ImgPlus<>( lblImg, "LblImg", axes, calibration );
-		return imgPlus;
-	}
 }
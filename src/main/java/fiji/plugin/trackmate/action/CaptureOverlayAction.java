@@ -25,6 +25,7 @@ import static fiji.plugin.trackmate.gui.Icons.CAMERA_ICON;
 import static fiji.plugin.trackmate.gui.Icons.TRACKMATE_ICON;
 
 import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
@@ -40,6 +41,7 @@ import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
 import fiji.plugin.trackmate.util.TMUtils;
 import fiji.plugin.trackmate.visualization.ViewUtils;
 import fiji.plugin.trackmate.visualization.hyperstack.HyperStackDisplayer;
+import fiji.plugin.trackmate.visualization.hyperstack.OffScreenOverlayRenderer;
 import ij.ImagePlus;
 import ij.ImageStack;
 import ij.measure.Calibration;
@@ -109,7 +111,13 @@ public class CaptureOverlayAction extends AbstractTMAction
 			whiteBackground = panel.isWhiteBackground();
 		}
 
-		if ( hideImage )
+		if ( GraphicsEnvironment.isHeadless() || imp.getWindow() == null )
+		{
+			// No window to capture: render off screen.
+			final ImagePlus capture = captureOffScreen( trackmate, selectionModel, displaySettings, firstFrame, lastFrame, hideImage, whiteBackground, logger );
+			capture.show();
+		}
+		else if ( hideImage )
 		{
 			// Make an empty image.
 			final ImagePlus imp2 = ViewUtils.makeEmptyImagePlus(
@@ -218,6 +226,50 @@ public class CaptureOverlayAction extends AbstractTMAction
 		return capture;
 	}
 
+	/**
+	 * Generates a new ImagePlus of type RGB, 2D over time, made by rendering
+	 * the TrackMate overlay of each time frame off screen. This does not need
+	 * the image to be displayed, and can be used headless. Frames are rendered
+	 * in parallel with the number of threads of the TrackMate instance, at
+	 * magnification 1, at the current Z-slice and channel of the image.
+	 *
+	 * @param trackmate
+	 *            the TrackMate instance to use for capture.
+	 * @param selectionModel
+	 *            the selection to highlight. Can be <code>null</code>.
+	 * @param displaySettings
+	 *            the display settings to use.
+	 * @param first
+	 *            the first frame, inclusive, to capture.
+	 * @param last
+	 *            the last frame, inclusive, to capture.
+	 * @param hideImage
+	 *            if <code>true</code>, the image is replaced by a uniform
+	 *            background.
+	 * @param whiteBackground
+	 *            if <code>true</code> and the image is hidden, the background
+	 *            is white.
+	 * @param logger
+	 *            a {@link Logger} to report capture progress.
+	 * @return a new ImagePlus.
+	 * @see OffScreenOverlayRenderer
+	 */
+	public static ImagePlus captureOffScreen(
+			final TrackMate trackmate,
+			final SelectionModel selectionModel,
+			final DisplaySettings displaySettings,
+			final int first,
+			final int last,
+			final boolean hideImage,
+			final boolean whiteBackground,
+			final Logger logger )
+	{
+		final OffScreenOverlayRenderer renderer = new OffScreenOverlayRenderer( trackmate.getModel(), selectionModel, trackmate.getSettings().imp, displaySettings );
+		renderer.setHideImage( hideImage, whiteBackground );
+		renderer.setNumThreads( trackmate.getNumThreads() );
+		return renderer.render( first, last, logger );
+	}
+
 	/**
 	 * Transfers the calibration of an {@link ImagePlus} to another one,
 	 * generated from a capture of the first one. Pixels sizes are adapter
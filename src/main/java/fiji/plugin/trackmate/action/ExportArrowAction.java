@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action;
+
+import static fiji.plugin.trackmate.gui.Icons.TRACK_TABLES_ICON;
+
+import java.awt.Frame;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.ImageIcon;
+
+import org.scijava.plugin.Plugin;
+
+import fiji.plugin.trackmate.SelectionModel;
+import fiji.plugin.trackmate.TrackMate;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+import fiji.plugin.trackmate.io.ArrowExporter;
+import fiji.plugin.trackmate.util.FileChooser;
+import fiji.plugin.trackmate.util.FileChooser.DialogType;
+import fiji.plugin.trackmate.util.FileChooser.SelectionMode;
+import fiji.plugin.trackmate.util.TMUtils;
+
+public class ExportArrowAction extends AbstractTMAction
+{
+
+	public static final String NAME = "Export statistics to Arrow files";
+
+	public static final String KEY = "EXPORT_STATS_ARROW";
+
+	public static final String INFO_TEXT = "<html>"
+			+ "Export the spot, edge and track statistics to 3 files in the "
+			+ "Apache Arrow IPC format (Feather V2). "
+			+ "<p> "
+			+ "These files are typed and columnar, and can be read directly "
+			+ "without parsing by pandas (<code>read_feather</code>), polars "
+			+ "(<code>read_ipc</code>), R arrow or Spark. "
+			+ "They are much smaller and faster to load than CSV files. "
+			+ "<p> "
+			+ "Only the visible tracks and the spots and edges they contain "
+			+ "are exported."
+			+ "</html>";
+
+	@Override
+	public void execute( final TrackMate trackmate, final SelectionModel selectionModel, final DisplaySettings displaySettings, final Frame parent )
+	{
+		final String basePath = TMUtils.getImagePathWithoutExtension( trackmate.getSettings() );
+		final File file = FileChooser.chooseFile(
+				parent,
+				basePath + "_spots" + ArrowExporter.EXTENSION,
+				null,
+				"Export statistics to Arrow files",
+				DialogType.SAVE,
+				SelectionMode.FILES_ONLY );
+		if ( null == file )
+		{
+			logger.log( "Exporting to Arrow files aborted.\n" );
+			return;
+		}
+
+		// Use the chosen file name as a prefix for the 3 tables.
+		String prefix = file.getAbsolutePath();
+		if ( prefix.endsWith( ArrowExporter.EXTENSION ) )
+			prefix = prefix.substring( 0, prefix.length() - ArrowExporter.EXTENSION.length() );
+		if ( prefix.endsWith( "_spots" ) )
+			prefix = prefix.substring( 0, prefix.length() - "_spots".length() );
+
+		logger.log( "Exporting statistics to Arrow files.\n" );
+		try
+		{
+			final File[] files = ArrowExporter.export( prefix, trackmate.getModel(), true );
+			for ( final File f : files )
+				logger.log( " - " + f.getAbsolutePath() + '\n' );
+			logger.log( "Done.\n" );
+		}
+		catch ( final IOException e )
+		{
+			logger.error( "Problem exporting to Arrow files with prefix " + prefix + ":\n" + e.getMessage() + '\n' );
+		}
+	}
+
+	@Plugin( type = TrackMateActionFactory.class )
+	public static class Factory implements TrackMateActionFactory
+	{
+
+		@Override
+		public String getInfoText()
+		{
+			return INFO_TEXT;
+		}
+
+		@Override
+		public String getKey()
+		{
+			return KEY;
+		}
+
+		@Override
+		public TrackMateAction create()
+		{
+			return new ExportArrowAction();
+		}
+
+		@Override
+		public ImageIcon getIcon()
+		{
+			return TRACK_TABLES_ICON;
+		}
+
+		@Override
+		public String getName()
+		{
+			return NAME;
+		}
+	}
+}
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -41,6 +42,8 @@ import org.scijava.plugin.Plugin;
 
 import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.ModelSnapshot;
+import fiji.plugin.trackmate.ModelSnapshot.FrameSnapshot;
 import fiji.plugin.trackmate.SelectionModel;
 import fiji.plugin.trackmate.Settings;
 import fiji.plugin.trackmate.Spot;
@@ -161,33 +164,39 @@ public class ExportTracksToXML extends AbstractTMAction
 		logger.setStatus( "Marshalling..." );
 		final Element content = new Element( CONTENT_KEY );
 
-		content.setAttribute( NTRACKS_ATT, "" + model.getTrackModel().nTracks( true ) );
-		content.setAttribute( PHYSUNIT_ATT, model.getSpaceUnits() );
+		// Read from a snapshot, so that the model can be edited meanwhile.
+		final ModelSnapshot snapshot = model.snapshot();
+		final int nTracks = snapshot.nTracks( true );
+
+		content.setAttribute( NTRACKS_ATT, "" + nTracks );
+		content.setAttribute( PHYSUNIT_ATT, snapshot.getSpaceUnits() );
 		content.setAttribute( FRAMEINTERVAL_ATT, "" + settings.dt );
-		content.setAttribute( FRAMEINTERVALUNIT_ATT, "" + model.getTimeUnits() );
+		content.setAttribute( FRAMEINTERVALUNIT_ATT, "" + snapshot.getTimeUnits() );
 		content.setAttribute( DATE_ATT, TMUtils.getCurrentTimeString() );
 		content.setAttribute( FROM_ATT, TrackMate.PLUGIN_NAME_STR + " v" + TrackMate.PLUGIN_NAME_VERSION );
 
-		final Set< Integer > trackIDs = model.getTrackModel().trackIDs( true );
+		final Set< Integer > trackIDs = snapshot.trackIDs( true );
 		int i = 0;
 		for ( final Integer trackID : trackIDs )
 		{
 
-			final Set< Spot > track = model.getTrackModel().trackSpots( trackID );
+			final Set< Spot > track = snapshot.track( trackID ).spots();
 
 			final Element trackElement = new Element( TRACK_KEY );
 			trackElement.setAttribute( NSPOTS_ATT, "" + track.size() );
 
 			// Sort them by time
-			final TreeSet< Spot > sortedTrack = new TreeSet<>( Spot.timeComparator );
+			final TreeSet< Spot > sortedTrack = new TreeSet<>( Comparator.comparingDouble( s -> snapshot.getSpotFeature( s, Spot.POSITION_T ) ) );
 			sortedTrack.addAll( track );
 
 			for ( final Spot spot : sortedTrack )
 			{
-				final int frame = spot.getFeature( Spot.FRAME ).intValue();
-				final double x = spot.getFeature( Spot.POSITION_X );
-				final double y = spot.getFeature( Spot.POSITION_Y );
-				final double z = spot.getFeature( Spot.POSITION_Z );
+				final FrameSnapshot frameSnapshot = snapshot.frameOf( spot );
+				final int index = frameSnapshot.indexOf( spot );
+				final int frame = frameSnapshot.frame();
+				final double x = frameSnapshot.getFeature( index, Spot.POSITION_X );
+				final double y = frameSnapshot.getFeature( index, Spot.POSITION_Y );
+				final double z = frameSnapshot.getFeature( index, Spot.POSITION_Z );
 
 				final Element spotElement = new Element( SPOT_KEY );
 				spotElement.setAttribute( T_ATT, "" + frame );
@@ -197,7 +206,7 @@ public class ExportTracksToXML extends AbstractTMAction
 				trackElement.addContent( spotElement );
 			}
 			content.addContent( trackElement );
-			logger.setProgress( i++ / ( 0d + model.getTrackModel().nTracks( true ) ) );
+			logger.setProgress( i++ / ( 0d + nTracks ) );
 		}
 
 		logger.setStatus( "" );
@@ -25,6 +25,11 @@ import static fiji.plugin.trackmate.gui.Icons.LABEL_IMG_ICON;
 import static fiji.plugin.trackmate.gui.Icons.TRACKMATE_ICON;
 
 import java.awt.Frame;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -584,6 +589,144 @@ public class LabelImgExporter extends AbstractTMAction
 		return imgPlus;
 	}
 
+	/**
+	 * Writes the label image of the spots of the specified TrackMate instance
+	 * to one TIFF file per frame, without creating the label image of the
+	 * whole movie. The files have the same content as the frames of the image
+	 * returned by
+	 * {@link #createLabelImagePlus(TrackMate, boolean, boolean, LabelIdPainting, Logger)}.
+	 *
+	 * @param trackmate
+	 *            the trackmate instance from which we takes the spots to paint.
+	 *            The label images will have the same calibration and size that
+	 *            the input image stored in the trackmate settings, with 1
+	 *            channel and 1 frame.
+	 * @param exportSpotsAsDots
+	 *            if <code>true</code>, spots will be painted as single dots
+	 *            instead their shape.
+	 * @param exportTracksOnly
+	 *            if <code>true</code>, only the spots belonging to visible
+	 *            tracks will be painted. If <code>false</code>, spots not
+	 *            belonging to a track will be painted with a unique ID,
+	 *            different from the track IDs and different for each spot.
+	 * @param labelIdPainting
+	 *            specifies how to paint the label ID of spots.
+	 * @param folder
+	 *            the folder to write the files in. Created if it does not
+	 *            exist.
+	 * @param logger
+	 *            a {@link Logger} instance, to report progress of the export
+	 *            process.
+	 * @throws IOException
+	 *             if a file cannot be written.
+	 * @see #exportLabelImg(Model, long[], double[], boolean, boolean,
+	 *      LabelIdPainting, Path, int, Logger)
+	 */
+	public static final void exportLabelImg(
+			final TrackMate trackmate,
+			final boolean exportSpotsAsDots,
+			final boolean exportTracksOnly,
+			final LabelIdPainting labelIdPainting,
+			final Path folder,
+			final Logger logger ) throws IOException
+	{
+		final ImagePlus imp = trackmate.getSettings().imp;
+		final int[] dimensions = imp.getDimensions();
+		final long[] dims = new long[] { dimensions[ 0 ], dimensions[ 1 ], dimensions[ 3 ], dimensions[ 4 ] };
+		final double[] calibration = new double[] {
+				imp.getCalibration().pixelWidth,
+				imp.getCalibration().pixelHeight,
+				imp.getCalibration().pixelDepth,
+				imp.getCalibration().frameInterval
+		};
+		exportLabelImg( trackmate.getModel(), dims, calibration, exportSpotsAsDots, exportTracksOnly, labelIdPainting, folder, trackmate.getNumThreads(), logger );
+	}
+
+	/**
+	 * Writes the label image of the spots of the specified model to one TIFF
+	 * file per frame, named <code>LblImg_t000.tif</code>,
+	 * <code>LblImg_t001.tif</code>, etc.
+	 * <p>
+	 * The label image of the whole movie is never created. Frames are painted
+	 * in parallel, each thread in a buffer of the size of one frame, and
+	 * written as soon as they are painted. The labels are the same as in the
+	 * image returned by
+	 * {@link #createLabelImg(Model, long[], double[], boolean, boolean, LabelIdPainting, Logger)}.
+	 *
+	 * @param model
+	 *            the model from which we takes the spots to paint.
+	 * @param dimensions
+	 *            the dimensions of the label image (width, height, nZSlices,
+	 *            nFrames) as a 4 element long array. Spots outside these
+	 *            dimensions are ignored.
+	 * @param calibration
+	 *            the calibration of the label image (pixel width, pixel
+	 *            height, pixel depth, frame interval) as a 4 element double
+	 *            array.
+	 * @param exportSpotsAsDots
+	 *            if <code>true</code>, spots will be painted as single dots
+	 *            instead their shape.
+	 * @param exportTracksOnly
+	 *            if <code>true</code>, only the spots belonging to visible
+	 *            tracks will be painted. If <code>false</code>, spots not
+	 *            belonging to a track will be painted with a unique ID,
+	 *            different from the track IDs and different for each spot.
+	 * @param labelIdPainting
+	 *            specifies how to paint the label ID of spots.
+	 * @param folder
+	 *            the folder to write the files in. Created if it does not
+	 *            exist.
+	 * @param numThreads
+	 *            the number of frames processed in parallel.
+	 * @param logger
+	 *            a {@link Logger} instance, to report progress of the export
+	 *            process.
+	 * @throws IOException
+	 *             if a file cannot be written.
+	 */
+	public static final void exportLabelImg(
+			final Model model,
+			final long[] dimensions,
+			final double[] calibration,
+			final boolean exportSpotsAsDots,
+			final boolean exportTracksOnly,
+			final LabelIdPainting labelIdPainting,
+			final Path folder,
+			final int numThreads,
+			final Logger logger ) throws IOException
+	{
+		Files.createDirectories( folder );
+
+		/*
+		 * Labels are assigned in frame order, as when painting the whole
+		 * image, because the ID generators are stateful.
+		 */
+
+		final IdGenerator idGenerator = labelIdPainting.idGenerator( model.getTrackModel(), exportTracksOnly );
+		final int nFrames = ( int ) dimensions[ 3 ];
+		final List< List< Spot > > spots = new ArrayList<>( nFrames );
+		final int[][] labels = new int[ nFrames ][];
+		final List< Integer > frames = new ArrayList<>( nFrames );
+		for ( int frame = 0; frame < nFrames; frame++ )
+		{
+			idGenerator.nextFrame();
+			final List< Spot > list = new ArrayList<>();
+			model.getSpots().iterable( frame, true ).forEach( list::add );
+			final int[] ids = new int[ list.size() ];
+			for ( int i = 0; i < ids.length; i++ )
+				ids[ i ] = idGenerator.id( list.get( i ) );
+			spots.add( list );
+			labels[ frame ] = ids;
+			frames.add( Integer.valueOf( frame ) );
+		}
+
+		logger.log( "Writing label images to " + folder + ".\n" );
+		final String format = ( nFrames > 999 ) ? "LblImg_t%04d.tif" : "LblImg_t%03d.tif";
+		final LabelImgFrameWriter< FloatType > writer = new LabelImgFrameWriter<>( dimensions, calibration, new FloatType(), exportSpotsAsDots, numThreads );
+		writer.write( frames, spots::get, f -> labels[ f ], f -> folder.resolve( String.format( format, f ) ), logger );
+		logger.log( "Done.\n" );
+	}
+
 	@Plugin( type = TrackMateActionFactory.class )
 	public static class Factory implements TrackMateActionFactory
 	{
@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.action.LabelImgExporter.SpotAsDotWriter;
+import fiji.plugin.trackmate.action.LabelImgExporter.SpotRoiWriter;
+import fiji.plugin.trackmate.action.LabelImgExporter.SpotWriter;
+import fiji.plugin.trackmate.util.Threads;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.measure.Calibration;
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.FinalDimensions;
+import net.imglib2.img.Img;
+import net.imglib2.img.display.imagej.ImageJFunctions;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
+
+/**
+ * Paints spot labels frame by frame and writes each frame to a TIFF file,
+ * without creating the label image of the whole movie.
+ * <p>
+ * Frames are processed in parallel. Each thread paints in its own buffer of
+ * the size of one frame, reused for all the frames it processes, so the
+ * memory needed is one frame per thread. The labels are given by the caller
+ * for each spot, so that they can be computed beforehand in frame order and
+ * the files do not depend on the order in which frames are processed.
+ *
+ * @param <T>
+ *            the pixel type of the label image.
+ */
+public class LabelImgFrameWriter< T extends RealType< T > & NativeType< T > >
+{
+
+	private final long[] frameDimensions;
+
+	private final double[] calibration;
+
+	private final T type;
+
+	private final boolean exportSpotsAsDots;
+
+	private final int numThreads;
+
+	/**
+	 * Creates a frame writer.
+	 *
+	 * @param dimensions
+	 *            the dimensions of one frame (width, height, nZSlices). Extra
+	 *            elements, such as the number of frames, are ignored.
+	 * @param calibration
+	 *            the pixel sizes (pixel width, pixel height, pixel depth).
+	 *            Extra elements are ignored.
+	 * @param type
+	 *            the pixel type of the label image.
+	 * @param exportSpotsAsDots
+	 *            if <code>true</code>, spots will be painted as single dots
+	 *            instead their shape.
+	 * @param numThreads
+	 *            the number of frames processed in parallel.
+	 */
+	public LabelImgFrameWriter( final long[] dimensions, final double[] calibration, final T type, final boolean exportSpotsAsDots, final int numThreads )
+	{
+		// Singleton Z dimension is dropped, as for hyperslices of the image.
+		final int nDims = ( dimensions.length > 2 && dimensions[ 2 ] > 1 ) ? 3 : 2;
+		this.frameDimensions = Arrays.copyOf( dimensions, nDims );
+		this.calibration = Arrays.copyOf( calibration, nDims );
+		this.type = type;
+		this.exportSpotsAsDots = exportSpotsAsDots;
+		this.numThreads = Math.max( 1, numThreads );
+	}
+
+	/**
+	 * Paints and writes the specified frames.
+	 *
+	 * @param frames
+	 *            the frames to write.
+	 * @param spotsInFrame
+	 *            returns the spots to paint in a frame, in painting order.
+	 * @param labelsInFrame
+	 *            returns the labels of the spots to paint in a frame, in the
+	 *            same order.
+	 * @param pathOfFrame
+	 *            returns the path of the file to write a frame to.
+	 * @param logger
+	 *            a logger to report progress.
+	 * @throws IOException
+	 *             if a frame cannot be written.
+	 */
+	public void write(
+			final Collection< Integer > frames,
+			final IntFunction< List< Spot > > spotsInFrame,
+			final IntFunction< int[] > labelsInFrame,
+			final IntFunction< Path > pathOfFrame,
+			final Logger logger ) throws IOException
+	{
+		final ThreadLocal< ImgPlus< T > > buffers = ThreadLocal.withInitial( this::createBuffer );
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.min( numThreads, Math.max( 1, frames.size() ) ) );
+		final List< Future< ? > > futures = new ArrayList<>( frames.size() );
+		for ( final Integer frame : frames )
+			futures.add( executor.submit( () -> {
+				writeFrame( buffers.get(), spotsInFrame.apply( frame ), labelsInFrame.apply( frame ), pathOfFrame.apply( frame ) );
+				return null;
+			} ) );
+		executor.shutdown();
+
+		try
+		{
+			int done = 0;
+			for ( final Future< ? > future : futures )
+			{
+				future.get();
+				logger.setProgress( ( double ) ++done / futures.size() );
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException( "Interrupted while writing label images.", e );
+		}
+		catch ( final ExecutionException e )
+		{
+			executor.shutdownNow();
+			if ( e.getCause() instanceof IOException )
+				throw ( IOException ) e.getCause();
+			throw new IOException( "Problem writing label images: " + e.getCause().getMessage(), e.getCause() );
+		}
+		finally
+		{
+			logger.setProgress( 0. );
+		}
+	}
+
+	private void writeFrame( final ImgPlus< T > buffer, final List< Spot > spots, final int[] labels, final Path path ) throws IOException
+	{
+		for ( final T pixel : buffer )
+			pixel.setZero();
+
+		final SpotWriter spotWriter = exportSpotsAsDots
+				? new SpotAsDotWriter<>( buffer )
+				: new SpotRoiWriter<>( buffer );
+		for ( int i = 0; i < spots.size(); i++ )
+			spotWriter.write( spots.get( i ), labels[ i ] );
+
+		final String name = path.getFileName().toString();
+		final ImagePlus tp = ImageJFunctions.wrap( buffer, name );
+		tp.setDimensions( 1, frameDimensions.length > 2 ? ( int ) frameDimensions[ 2 ] : 1, 1 );
+		final Calibration cal = tp.getCalibration();
+		cal.pixelWidth = calibration[ 0 ];
+		cal.pixelHeight = calibration[ 1 ];
+		if ( calibration.length > 2 )
+			cal.pixelDepth = calibration[ 2 ];
+		if ( !IJ.saveAsTiff( tp, path.toString() ) )
+			throw new IOException( "Could not write label image to " + path );
+	}
+
+	private ImgPlus< T > createBuffer()
+	{
+		final Img< T > img = Util.getArrayOrCellImgFactory( FinalDimensions.wrap( frameDimensions ), type ).create( frameDimensions );
+		final AxisType[] axes = frameDimensions.length > 2
+				? new AxisType[] { Axes.X, Axes.Y, Axes.Z }
+				: new AxisType[] { Axes.X, Axes.Y };
+		return new ImgPlus<>( img, "LblImg", axes, calibration );
+	}
+}
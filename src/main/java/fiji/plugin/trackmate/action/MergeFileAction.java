@@ -28,17 +28,13 @@ import static fiji.plugin.trackmate.gui.Icons.MERGE_ICON;
 
 import java.awt.Frame;
 import java.io.File;
-import java.util.HashMap;
-import java.util.Set;
 
 import javax.swing.ImageIcon;
 
-import org.jgrapht.graph.DefaultWeightedEdge;
 import org.scijava.plugin.Plugin;
 
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.SelectionModel;
-import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.TrackMate;
 import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
 import fiji.plugin.trackmate.io.IOUtils;
@@ -95,60 +91,20 @@ public class MergeFileAction extends AbstractTMAction
 		final int nNewTracks = modelToMerge.getTrackModel().nTracks( true );
 
 		int progress = 0;
-		model.beginUpdate();
+		// Single structural event: views rebuild once after the merge.
+		model.beginBulkUpdate();
 
-		int nNewSpots = 0;
+		// Tracks with no edge get no track ID, but their spots are imported.
+		final int nSpotsBefore = model.getSpots().getNSpots( false );
 		try
 		{
 			for ( final int id : modelToMerge.getTrackModel().trackIDs( true ) )
 			{
-
-				/*
-				 * Add new spots built on the ones in the file.
-				 */
-
-				final Set< Spot > spots = modelToMerge.getTrackModel().trackSpots( id );
-				final HashMap< Spot, Spot > mapOldToNew = new HashMap<>( spots.size() );
-
-				Spot newSpot = null;
-				for ( final Spot oldSpot : spots )
-				{
-					/*
-					 * An awkward way to avoid spot ID conflicts after loading
-					 * two files
-					 */
-					newSpot = new Spot( oldSpot );
-					for ( final String feature : oldSpot.getFeatures().keySet() )
-						newSpot.putFeature( feature, oldSpot.getFeature( feature ) );
-
-					mapOldToNew.put( oldSpot, newSpot );
-					model.addSpotTo( newSpot, oldSpot.getFeature( Spot.FRAME ).intValue() );
-					nNewSpots++;
-				}
-
 				/*
-				 * Link new spots from info in the file.
+				 * Copy spots with new IDs, link them and put back the track
+				 * name, in bulk.
 				 */
-
-				final Set< DefaultWeightedEdge > edges = modelToMerge.getTrackModel().trackEdges( id );
-				for ( final DefaultWeightedEdge edge : edges )
-				{
-					final Spot oldSource = modelToMerge.getTrackModel().getEdgeSource( edge );
-					final Spot oldTarget = modelToMerge.getTrackModel().getEdgeTarget( edge );
-					final Spot newSource = mapOldToNew.get( oldSource );
-					final Spot newTarget = mapOldToNew.get( oldTarget );
-					final double weight = modelToMerge.getTrackModel().getEdgeWeight( edge );
-
-					model.addEdge( newSource, newTarget, weight );
-				}
-
-				/*
-				 * Put back track names
-				 */
-
-				final String trackName = modelToMerge.getTrackModel().name( id );
-				final int newId = model.getTrackModel().trackIDOf( newSpot );
-				model.getTrackModel().setName( newId, trackName );
+				model.importTrack( modelToMerge, id );
 
 				progress++;
 				logger.setProgress( ( double ) progress / nNewTracks );
@@ -159,6 +115,7 @@ public class MergeFileAction extends AbstractTMAction
 		{
 			model.endUpdate();
 			logger.setProgress( 0 );
+			final int nNewSpots = model.getSpots().getNSpots( false ) - nSpotsBefore;
 			logger.log( "Imported " + nNewTracks + " tracks made of " + nNewSpots + " spots.\n" );
 		}
 	}
@@ -24,6 +24,7 @@ package fiji.plugin.trackmate.action.autonaming;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -35,22 +36,16 @@ import org.jgrapht.traverse.DepthFirstIterator;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.TrackModel;
-import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
 import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
-import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
 
 public class AutoNamingPerformer
 {
 
 	public static void autoNameSpots( final Model model, final AutoNamingRule rule )
 	{
-		final TimeDirectedNeighborIndex neighborIndex = model.getTrackModel().getDirectedNeighborIndex();
-		for ( final Integer trackID : model.getTrackModel().unsortedTrackIDs( true ) )
-		{
-			final TrackBranchDecomposition branchDecomposition = ConvexBranchesDecomposition.processTrack( trackID, model.getTrackModel(), neighborIndex, true, false );
-			final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = ConvexBranchesDecomposition.buildBranchGraph( branchDecomposition );
-			processTrack( rule, model.getTrackModel(), branchGraph );
-		}
+		final Map< Integer, TrackBranchDecomposition > decompositions = model.getTrackModel().getBranchDecompositions( model.getTrackModel().unsortedTrackIDs( true ), true, false );
+		for ( final TrackBranchDecomposition branchDecomposition : decompositions.values() )
+			processTrack( rule, model.getTrackModel(), branchDecomposition.getBranchGraph() );
 	}
 
 	private static void processTrack(
@@ -22,9 +22,13 @@
 package fiji.plugin.trackmate.action.closegaps;
 
 import java.io.File;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.jgrapht.graph.DefaultWeightedEdge;
 
@@ -41,6 +45,7 @@ import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
 import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings.TrackMateObject;
 import fiji.plugin.trackmate.gui.displaysettings.DisplaySettingsIO;
 import fiji.plugin.trackmate.io.TmXmlReader;
+import fiji.plugin.trackmate.util.Threads;
 import fiji.plugin.trackmate.visualization.hyperstack.HyperStackDisplayer;
 import fiji.plugin.trackmate.visualization.trackscheme.TrackScheme;
 import ij.ImageJ;
@@ -88,62 +93,68 @@ public class CloseGapsByDetection implements GapClosingMethod
 		return Collections.singletonList( radiusFactor );
 	}
 
+	/**
+	 * Closes the gaps in rounds. In each round, a detection is run around the
+	 * next interpolated position of every gap still open, in parallel, and
+	 * the spots found are added to the model. As in the sequential version,
+	 * a gap is split at the first position where a spot is found and the two
+	 * new gaps are processed in the next round, while the next position is
+	 * tried if nothing is found. All edits happen in a single transaction.
+	 */
 	@Override
 	public void execute( final TrackMate trackmate, final Logger logger )
 	{
 		final Model model = trackmate.getModel();
 		final TrackModel trackModel = model.getTrackModel();
-
-		// Copy settings & make a new TrackMate.
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.max( 1, trackmate.getNumThreads() ) );
 
 		model.beginUpdate();
 		try
 		{
-			final ArrayDeque< DefaultWeightedEdge > gaps = new ArrayDeque<>( GapClosingMethod.getAllGaps( model ) );
-
+			final List< DefaultWeightedEdge > allGaps = GapClosingMethod.getAllGaps( model );
 			int progress = 0;
-			final int nTasks = GapClosingMethod.countMissingSpots( gaps, model );
+			final int nTasks = GapClosingMethod.countMissingSpots( allGaps, model );
 
-			while ( !gaps.isEmpty() )
+			List< GapSearch > searches = new ArrayList<>( allGaps.size() );
+			for ( final DefaultWeightedEdge gap : allGaps )
+				addSearch( searches, gap, model );
+
+			while ( !searches.isEmpty() )
 			{
-				final DefaultWeightedEdge gap = gaps.poll();
+				// Frame order, so that nearby detections read the same planes.
+				searches.sort( Comparator.comparingInt( GapSearch::frame ) );
+				final List< Future< Attempt > > futures = new ArrayList<>( searches.size() );
+				for ( final GapSearch search : searches )
+				{
+					final Spot position = search.position();
+					futures.add( executor.submit( () -> detectAround( position, trackmate ) ) );
+				}
 
-				// Interpolate position.
-				final List< Spot > spots = GapClosingMethod.interpolate( model, gap );
-				final Spot source = trackModel.getEdgeSource( gap );
-				for ( final Spot spot : spots )
+				final List< GapSearch > nextSearches = new ArrayList<>();
+				for ( int i = 0; i < searches.size(); i++ )
 				{
 					logger.setProgress( ( double ) ( progress++ ) / nTasks );
+					final GapSearch search = searches.get( i );
+					final DefaultWeightedEdge gap = search.gap;
+					final Spot source = trackModel.getEdgeSource( gap );
+					final int t = search.frame();
 
-					final int t = spot.getFeature( Spot.FRAME ).intValue();
-
-					// Re-execute detection.
-					final Settings settings = GapClosingMethod.makeSettingsForRoiAround(
-							spot,
-							radiusFactor.value,
-							trackmate.getSettings() );
-					final TrackMate localTM = new TrackMate( settings );
-					localTM.getModel().setLogger( Logger.VOID_LOGGER );
-					localTM.setNumThreads( trackmate.getNumThreads() );
-					if ( !localTM.execDetection() )
-					{
+					final Attempt attempt = get( futures.get( i ) );
+					if ( attempt.errorMessage != null )
 						logger.error( "Error detecting spots around position " + Util.printCoordinates( source )
 								+ " at frame " + t + ":\n"
-								+ localTM.getErrorMessage() );
-						continue;
-					}
+								+ attempt.errorMessage );
+					else if ( attempt.candidate == null )
+						logger.log( "Could not find a suitable spot around position " + Util.printCoordinates( search.position() )
+								+ " at frame " + t + ".\n" );
 
-					// Did we find something?
-					Spot candidate = null;
-					for ( final Spot s : localTM.getModel().getSpots().iterable( t, false ) )
-					{
-						if ( candidate == null || s.diffTo( candidate, Spot.QUALITY ) > 0 )
-							candidate = s;
-					}
+					final Spot candidate = attempt.candidate;
 					if ( candidate == null )
 					{
-						logger.log( "Could not find a suitable spot around position " + Util.printCoordinates( spot )
-								+ " at frame " + t + ".\n" );
+						// Try the next position.
+						search.next++;
+						if ( search.next < search.positions.size() )
+							nextSearches.add( search );
 						continue;
 					}
 
@@ -159,21 +170,116 @@ public class CloseGapsByDetection implements GapClosingMethod
 
 					// Remove old edge.
 					model.removeEdge( gap );
-					
+
 					// Should we re-add the new edges?
 					if ( GapClosingMethod.countMissingSpots( sourceCandidateEdge, model ) > 1 )
-						gaps.push( sourceCandidateEdge );
+						addSearch( nextSearches, sourceCandidateEdge, model );
 					if ( GapClosingMethod.countMissingSpots( candidateTargetEdge, model ) > 1 )
-						gaps.push( candidateTargetEdge );
-
-					// Reiterate.
-					break;
+						addSearch( nextSearches, candidateTargetEdge, model );
 				}
+				searches = nextSearches;
 			}
 		}
 		finally
 		{
 			model.endUpdate();
+			executor.shutdown();
+		}
+	}
+
+	private static void addSearch( final List< GapSearch > searches, final DefaultWeightedEdge gap, final Model model )
+	{
+		final List< Spot > positions = GapClosingMethod.interpolate( model, gap );
+		if ( !positions.isEmpty() )
+			searches.add( new GapSearch( gap, positions ) );
+	}
+
+	/**
+	 * Re-executes detection in a small ROI around the specified position, and
+	 * returns the spot with the highest quality.
+	 */
+	private Attempt detectAround( final Spot position, final TrackMate trackmate )
+	{
+		final int t = position.getFeature( Spot.FRAME ).intValue();
+		final Settings settings = GapClosingMethod.makeSettingsForRoiAround(
+				position,
+				radiusFactor.value,
+				trackmate.getSettings() );
+		final TrackMate localTM = new TrackMate( settings );
+		localTM.getModel().setLogger( Logger.VOID_LOGGER );
+		// Parallelism is over gaps.
+		localTM.setNumThreads( 1 );
+		if ( !localTM.execDetection() )
+			return new Attempt( null, localTM.getErrorMessage() );
+
+		// Did we find something?
+		Spot candidate = null;
+		for ( final Spot s : localTM.getModel().getSpots().iterable( t, false ) )
+		{
+			if ( candidate == null || s.diffTo( candidate, Spot.QUALITY ) > 0 )
+				candidate = s;
+		}
+		return new Attempt( candidate, null );
+	}
+
+	private static Attempt get( final Future< Attempt > future )
+	{
+		try
+		{
+			return future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			return new Attempt( null, "Interrupted." );
+		}
+		catch ( final ExecutionException e )
+		{
+			return new Attempt( null, String.valueOf( e.getCause() ) );
+		}
+	}
+
+	/**
+	 * A gap to close, with the interpolated positions to search and the index
+	 * of the next one to try.
+	 */
+	private static final class GapSearch
+	{
+
+		private final DefaultWeightedEdge gap;
+
+		private final List< Spot > positions;
+
+		private int next = 0;
+
+		private GapSearch( final DefaultWeightedEdge gap, final List< Spot > positions )
+		{
+			this.gap = gap;
+			this.positions = positions;
+		}
+
+		private Spot position()
+		{
+			return positions.get( next );
+		}
+
+		private int frame()
+		{
+			return position().getFeature( Spot.FRAME ).intValue();
+		}
+	}
+
+	private static final class Attempt
+	{
+
+		private final Spot candidate;
+
+		private final String errorMessage;
+
+		private Attempt( final Spot candidate, final String errorMessage )
+		{
+			this.candidate = candidate;
+			this.errorMessage = errorMessage;
 		}
 	}
 
@@ -53,6 +53,9 @@ import net.imglib2.view.Views;
 public abstract class AbstractSpotFitter implements SpotFitter
 {
 
+	/** Number of spots fitted by one task. */
+	private static final int CHUNK_SIZE = 256;
+
 	@SuppressWarnings( "rawtypes" )
 	protected final ImgPlus< RealType > img;
 
@@ -88,19 +91,26 @@ public abstract class AbstractSpotFitter implements SpotFitter
 		logger.log( String.format( "Starting fitting with %d threads.\n", numThreads ) );
 		logger.setStatus( "Spot fitting" );
 		final long start = System.currentTimeMillis();
+		final List< Spot > list = new ArrayList<>();
+		spots.forEach( list::add );
+		final int nspots = list.size();
+
+		// One task per chunk of spots rather than one per spot.
 		final ExecutorService executorService = Threads.newFixedThreadPool( numThreads );
 		final List< Future< ? > > futures = new ArrayList<>();
-		for ( final Spot spot : spots )
-			futures.add( executorService.submit( () -> fit( spot ) ) );
+		for ( int from = 0; from < nspots; from += CHUNK_SIZE )
+		{
+			final List< Spot > chunk = list.subList( from, Math.min( nspots, from + CHUNK_SIZE ) );
+			futures.add( executorService.submit( () -> chunk.forEach( this::fit ) ) );
+		}
 
-		final int nspots = futures.size();
 		try
 		{
 			int i = 0;
 			for ( final Future< ? > future : futures )
 			{
 				future.get();
-				logger.setProgress( ( double ) i++ / nspots );
+				logger.setProgress( ( double ) i++ / futures.size() );
 			}
 		}
 		catch ( InterruptedException | ExecutionException e )
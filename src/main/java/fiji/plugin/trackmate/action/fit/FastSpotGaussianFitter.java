@@ -0,0 +1,514 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action.fit;
+
+import java.util.Arrays;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.detection.DetectionUtils;
+import ij.ImagePlus;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Gaussian spot fitter that does not rely on commons-math.
+ * <p>
+ * Fits the same models as {@link SpotGaussianFitter2D},
+ * {@link SpotGaussianFitter2DFixedRadius}, {@link SpotGaussianFitter3D} and
+ * {@link SpotGaussianFitter3DFixedRadius}, with the same start point, the same
+ * parameter bounds and the same neighborhood, but with a Levenberg-Marquardt
+ * loop written on primitive arrays and analytic Jacobians. Each thread keeps
+ * its own workspace, reused for all the spots it fits, so that fitting a spot
+ * does not allocate memory.
+ */
+public class FastSpotGaussianFitter extends AbstractSpotFitter
+{
+
+	private static final int MAX_EVALUATIONS = 1000;
+
+	private static final double COST_RELATIVE_TOLERANCE = 1e-12;
+
+	private static final double PARAMETER_RELATIVE_TOLERANCE = 1e-12;
+
+	private static final double INITIAL_LAMBDA = 1e-3;
+
+	private static final double MAX_LAMBDA = 1e16;
+
+	private final boolean is2D;
+
+	private final boolean fixedRadius;
+
+	private final ThreadLocal< Workspace > workspaces = ThreadLocal.withInitial( Workspace::new );
+
+	/**
+	 * Creates a fitter.
+	 *
+	 * @param imp
+	 *            the image to fit spots in.
+	 * @param channel
+	 *            the channel to fit spots in, 0-based.
+	 * @param fixedRadius
+	 *            if <code>true</code>, the Gaussian sigma is fixed by the spot
+	 *            radius and the spot radius is not updated.
+	 */
+	public FastSpotGaussianFitter( final ImagePlus imp, final int channel, final boolean fixedRadius )
+	{
+		super( imp, channel );
+		this.is2D = DetectionUtils.is2D( imp );
+		this.fixedRadius = fixedRadius;
+	}
+
+	@Override
+	public void fit( final Spot spot )
+	{
+		final Workspace ws = workspaces.get();
+		final int frame = spot.getFeature( Spot.FRAME ).intValue();
+		final double sigma = spot.getFeature( Spot.RADIUS ) / Math.sqrt( 2. );
+		final double pixelSigmaXY = sigma / calibration[ 0 ];
+		final double pixelSigmaZ = is2D ? 1. : sigma / calibration[ 2 ];
+		final double x0 = spot.getDoublePosition( 0 ) / calibration[ 0 ];
+		final double y0 = spot.getDoublePosition( 1 ) / calibration[ 1 ];
+		final double z0 = is2D ? 0. : spot.getDoublePosition( 2 ) / calibration[ 2 ];
+		final long spanXY = ( long ) Math.ceil( 2. * pixelSigmaXY ) + 1;
+		final long spanZ = is2D ? 0 : ( long ) Math.ceil( 2. * pixelSigmaZ ) + 1;
+
+		gatherObservationData( ws, frame,
+				Math.round( x0 ), Math.round( y0 ), Math.round( z0 ),
+				spanXY, spanZ );
+		if ( ws.n == 0 )
+			return;
+		clipBackground( ws );
+
+		final double bXY = 1. / ( 2. * pixelSigmaXY * pixelSigmaXY );
+		final double bZ = 1. / ( 2. * pixelSigmaZ * pixelSigmaZ );
+		final double maxSigmaXY = 2. * pixelSigmaXY;
+		final double maxSigmaZ = 2. * pixelSigmaZ;
+		ws.minBxy = 1. / ( 2. * maxSigmaXY * maxSigmaXY );
+		ws.minBz = 1. / ( 2. * maxSigmaZ * maxSigmaZ );
+		ws.fixedBxy = bXY;
+		ws.fixedBz = bZ;
+
+		// Same parameter layout as the commons-math fitters.
+		final double[] p = ws.params;
+		p[ 0 ] = x0;
+		p[ 1 ] = y0;
+		int k = 2;
+		if ( !is2D )
+			p[ k++ ] = z0;
+		p[ k++ ] = max( ws.values, ws.n );
+		if ( !fixedRadius )
+		{
+			p[ k++ ] = bXY;
+			if ( !is2D )
+				p[ k++ ] = bZ;
+		}
+		ws.np = k;
+
+		if ( !optimize( ws ) )
+			return;
+
+		spot.putFeature( Spot.POSITION_X, p[ 0 ] * calibration[ 0 ] );
+		spot.putFeature( Spot.POSITION_Y, p[ 1 ] * calibration[ 1 ] );
+		if ( !is2D )
+			spot.putFeature( Spot.POSITION_Z, p[ 2 ] * calibration[ 2 ] );
+		if ( !fixedRadius )
+		{
+			final double fitSigmaXY = 1. / Math.sqrt( 2. * p[ is2D ? 3 : 4 ] );
+			spot.putFeature( Spot.RADIUS, fitSigmaXY * Math.sqrt( 2. ) * calibration[ 0 ] );
+		}
+	}
+
+	/**
+	 * Levenberg-Marquardt minimization of the sum of squared residuals,
+	 * starting from the parameters in the workspace.
+	 *
+	 * @return <code>true</code> if the minimization converged within the
+	 *         maximal number of evaluations. The parameters of the workspace
+	 *         are then set to the minimum found.
+	 */
+	private boolean optimize( final Workspace ws )
+	{
+		final int np = ws.np;
+		final double[] p = ws.params;
+		final double[] trial = ws.trial;
+		final double[] jtj = ws.jtj;
+		final double[] jtr = ws.jtr;
+		final double[] lhs = ws.lhs;
+		final double[] delta = ws.delta;
+
+		validate( ws, p );
+		double cost = evaluate( ws, p, true );
+		int evaluations = 1;
+		double lambda = INITIAL_LAMBDA;
+		while ( evaluations < MAX_EVALUATIONS )
+		{
+			if ( cost == 0. )
+				return true;
+
+			normalEquations( ws );
+			boolean improved = false;
+			while ( !improved )
+			{
+				if ( lambda > MAX_LAMBDA )
+					// No step decreases the cost any more.
+					return true;
+				if ( evaluations >= MAX_EVALUATIONS )
+					return false;
+
+				System.arraycopy( jtj, 0, lhs, 0, np * np );
+				System.arraycopy( jtr, 0, delta, 0, np );
+				for ( int i = 0; i < np; i++ )
+					lhs[ i * np + i ] += lambda * Math.max( jtj[ i * np + i ], Double.MIN_NORMAL );
+				if ( !solve( lhs, delta, np ) )
+				{
+					lambda *= 10.;
+					continue;
+				}
+
+				for ( int i = 0; i < np; i++ )
+					trial[ i ] = p[ i ] + delta[ i ];
+				validate( ws, trial );
+				final double trialCost = evaluate( ws, trial, false );
+				evaluations++;
+				if ( trialCost < cost )
+				{
+					improved = true;
+					double dp = 0.;
+					double pn = 0.;
+					for ( int i = 0; i < np; i++ )
+					{
+						final double d = trial[ i ] - p[ i ];
+						dp += d * d;
+						pn += trial[ i ] * trial[ i ];
+					}
+					final boolean converged = ( cost - trialCost ) <= COST_RELATIVE_TOLERANCE * cost
+							|| dp <= PARAMETER_RELATIVE_TOLERANCE * PARAMETER_RELATIVE_TOLERANCE * pn;
+					System.arraycopy( trial, 0, p, 0, np );
+					if ( converged )
+						return true;
+
+					cost = evaluate( ws, p, true );
+					evaluations++;
+					lambda = Math.max( lambda / 10., Double.MIN_NORMAL );
+				}
+				else
+				{
+					lambda *= 10.;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Same bounds as the parameter validators of the commons-math fitters: the
+	 * amplitude is positive, and the sigmas are at most twice the spot sigma.
+	 */
+	private void validate( final Workspace ws, final double[] p )
+	{
+		final int ia = is2D ? 2 : 3;
+		p[ ia ] = Math.abs( p[ ia ] );
+		if ( fixedRadius )
+			return;
+		p[ ia + 1 ] = Math.max( ws.minBxy, Math.abs( p[ ia + 1 ] ) );
+		if ( !is2D )
+			p[ ia + 2 ] = Math.max( ws.minBz, Math.abs( p[ ia + 2 ] ) );
+	}
+
+	/**
+	 * Computes the residuals, and optionally the Jacobian of the model, for the
+	 * specified parameters.
+	 *
+	 * @return the sum of squared residuals.
+	 */
+	private double evaluate( final Workspace ws, final double[] p, final boolean jacobian )
+	{
+		final int n = ws.n;
+		final int np = ws.np;
+		final double[] xs = ws.xs;
+		final double[] ys = ws.ys;
+		final double[] zs = ws.zs;
+		final double[] values = ws.values;
+		final double[] residuals = ws.residuals;
+		final double[] jac = ws.jacobian;
+
+		final double x0 = p[ 0 ];
+		final double y0 = p[ 1 ];
+		final double z0 = is2D ? 0. : p[ 2 ];
+		final int ia = is2D ? 2 : 3;
+		final double A = p[ ia ];
+		final double bXY = fixedRadius ? ws.fixedBxy : p[ ia + 1 ];
+		final double bZ = is2D ? 0. : ( fixedRadius ? ws.fixedBz : p[ ia + 2 ] );
+
+		double cost = 0.;
+		for ( int i = 0; i < n; i++ )
+		{
+			final double dx = xs[ i ] - x0;
+			final double dy = ys[ i ] - y0;
+			final double dz = zs[ i ] - z0;
+			final double rxy = dx * dx + dy * dy;
+			final double rz = dz * dz;
+			final double E = Math.exp( -bXY * rxy - bZ * rz );
+			final double r = values[ i ] - A * E;
+			residuals[ i ] = r;
+			cost += r * r;
+			if ( !jacobian )
+				continue;
+
+			final int row = i * np;
+			jac[ row ] = A * bXY * E * 2. * dx;
+			jac[ row + 1 ] = A * bXY * E * 2. * dy;
+			if ( !is2D )
+				jac[ row + 2 ] = A * bZ * E * 2. * dz;
+			jac[ row + ia ] = E;
+			if ( !fixedRadius )
+			{
+				jac[ row + ia + 1 ] = -A * E * rxy;
+				if ( !is2D )
+					jac[ row + ia + 2 ] = -A * E * rz;
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Computes JᵀJ and Jᵀr from the Jacobian and residuals of the workspace.
+	 */
+	private static void normalEquations( final Workspace ws )
+	{
+		final int n = ws.n;
+		final int np = ws.np;
+		final double[] jac = ws.jacobian;
+		final double[] residuals = ws.residuals;
+		final double[] jtj = ws.jtj;
+		final double[] jtr = ws.jtr;
+		Arrays.fill( jtj, 0, np * np, 0. );
+		Arrays.fill( jtr, 0, np, 0. );
+		for ( int i = 0; i < n; i++ )
+		{
+			final int row = i * np;
+			final double r = residuals[ i ];
+			for ( int a = 0; a < np; a++ )
+			{
+				final double ja = jac[ row + a ];
+				jtr[ a ] += ja * r;
+				for ( int b = 0; b <= a; b++ )
+					jtj[ a * np + b ] += ja * jac[ row + b ];
+			}
+		}
+		for ( int a = 0; a < np; a++ )
+			for ( int b = 0; b < a; b++ )
+				jtj[ b * np + a ] = jtj[ a * np + b ];
+	}
+
+	/**
+	 * Solves the symmetric system <code>m x = b</code> in place by Cholesky
+	 * decomposition. The solution is written in <code>b</code> and
+	 * <code>m</code> is overwritten.
+	 *
+	 * @return <code>false</code> if the matrix is not positive definite.
+	 */
+	static boolean solve( final double[] m, final double[] b, final int n )
+	{
+		for ( int j = 0; j < n; j++ )
+		{
+			double d = m[ j * n + j ];
+			for ( int k = 0; k < j; k++ )
+				d -= m[ j * n + k ] * m[ j * n + k ];
+			if ( !( d > 0. ) )
+				return false;
+			final double ljj = Math.sqrt( d );
+			m[ j * n + j ] = ljj;
+			for ( int i = j + 1; i < n; i++ )
+			{
+				double s = m[ i * n + j ];
+				for ( int k = 0; k < j; k++ )
+					s -= m[ i * n + k ] * m[ j * n + k ];
+				m[ i * n + j ] = s / ljj;
+			}
+		}
+		// Forward substitution.
+		for ( int i = 0; i < n; i++ )
+		{
+			double s = b[ i ];
+			for ( int k = 0; k < i; k++ )
+				s -= m[ i * n + k ] * b[ k ];
+			b[ i ] = s / m[ i * n + i ];
+		}
+		// Back substitution.
+		for ( int i = n - 1; i >= 0; i-- )
+		{
+			double s = b[ i ];
+			for ( int k = i + 1; k < n; k++ )
+				s -= m[ k * n + i ] * b[ k ];
+			b[ i ] = s / m[ i * n + i ];
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the pixel values and positions of the neighborhood of a point in
+	 * the workspace, clamped to the image bounds.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private void gatherObservationData( final Workspace ws, final int frame, final long x, final long y, final long z, final long spanXY, final long spanZ )
+	{
+		if ( ws.frame != frame || ws.ra == null )
+		{
+			@SuppressWarnings( "rawtypes" )
+			final RandomAccessibleInterval< RealType > slice = getSlice( frame );
+			ws.slice = slice;
+			ws.ra = slice.randomAccess();
+			ws.frame = frame;
+		}
+		@SuppressWarnings( "rawtypes" )
+		final RandomAccessibleInterval< RealType > slice = ws.slice;
+		final long minX = Math.max( x - spanXY, slice.min( 0 ) );
+		final long maxX = Math.min( x + spanXY, slice.max( 0 ) );
+		final long minY = Math.max( y - spanXY, slice.min( 1 ) );
+		final long maxY = Math.min( y + spanXY, slice.max( 1 ) );
+		final long minZ = is2D ? 0 : Math.max( z - spanZ, slice.min( 2 ) );
+		final long maxZ = is2D ? 0 : Math.min( z + spanZ, slice.max( 2 ) );
+		final int n = ( int ) ( Math.max( 0, maxX - minX + 1 ) * Math.max( 0, maxY - minY + 1 ) * Math.max( 0, maxZ - minZ + 1 ) );
+		ws.ensureCapacity( n );
+
+		@SuppressWarnings( "rawtypes" )
+		final RandomAccess< RealType > ra = ws.ra;
+		int i = 0;
+		for ( long iz = minZ; iz <= maxZ; iz++ )
+		{
+			if ( !is2D )
+				ra.setPosition( iz, 2 );
+			for ( long iy = minY; iy <= maxY; iy++ )
+			{
+				ra.setPosition( iy, 1 );
+				for ( long ix = minX; ix <= maxX; ix++ )
+				{
+					ra.setPosition( ix, 0 );
+					ws.values[ i ] = ra.get().getRealDouble();
+					ws.xs[ i ] = ix;
+					ws.ys[ i ] = iy;
+					ws.zs[ i ] = iz;
+					i++;
+				}
+			}
+		}
+		ws.n = n;
+	}
+
+	/**
+	 * Removes the median and clips to 0, as
+	 * {@link AbstractSpotFitter#clipBackground(Observation)} does.
+	 */
+	private static void clipBackground( final Workspace ws )
+	{
+		final int n = ws.n;
+		if ( n == 0 )
+			return;
+		final double[] sorted = ws.scratch;
+		System.arraycopy( ws.values, 0, sorted, 0, n );
+		Arrays.sort( sorted, 0, n );
+		final double bg = ( n % 2 == 1 )
+				? sorted[ n / 2 ]
+				: 0.5 * ( sorted[ n / 2 - 1 ] + sorted[ n / 2 ] );
+		for ( int i = 0; i < n; i++ )
+			ws.values[ i ] = Math.max( 0., ws.values[ i ] - bg );
+	}
+
+	private static double max( final double[] values, final int n )
+	{
+		double max = Double.NEGATIVE_INFINITY;
+		for ( int i = 0; i < n; i++ )
+			max = Math.max( max, values[ i ] );
+		return max;
+	}
+
+	/**
+	 * Per-thread arrays, grown when a neighborhood larger than all the
+	 * previous ones is fitted.
+	 */
+	private static final class Workspace
+	{
+
+		private static final int MAX_PARAMS = 6;
+
+		private int n;
+
+		private int np;
+
+		private int frame = -1;
+
+		@SuppressWarnings( "rawtypes" )
+		private RandomAccessibleInterval< RealType > slice;
+
+		@SuppressWarnings( "rawtypes" )
+		private RandomAccess< RealType > ra;
+
+		private double minBxy;
+
+		private double minBz;
+
+		private double fixedBxy;
+
+		private double fixedBz;
+
+		private double[] values = new double[ 0 ];
+
+		private double[] scratch = new double[ 0 ];
+
+		private double[] xs = new double[ 0 ];
+
+		private double[] ys = new double[ 0 ];
+
+		private double[] zs = new double[ 0 ];
+
+		private double[] residuals = new double[ 0 ];
+
+		private double[] jacobian = new double[ 0 ];
+
+		private final double[] params = new double[ MAX_PARAMS ];
+
+		private final double[] trial = new double[ MAX_PARAMS ];
+
+		private final double[] delta = new double[ MAX_PARAMS ];
+
+		private final double[] jtr = new double[ MAX_PARAMS ];
+
+		private final double[] jtj = new double[ MAX_PARAMS * MAX_PARAMS ];
+
+		private final double[] lhs = new double[ MAX_PARAMS * MAX_PARAMS ];
+
+		private void ensureCapacity( final int n )
+		{
+			if ( values.length >= n )
+				return;
+			values = new double[ n ];
+			scratch = new double[ n ];
+			xs = new double[ n ];
+			ys = new double[ n ];
+			zs = new double[ n ];
+			residuals = new double[ n ];
+			jacobian = new double[ n * MAX_PARAMS ];
+		}
+	}
+}
@@ -129,6 +129,10 @@ public class SpotFitterController
 						fitter = new SpotGaussianFitter2D( imp, channel );
 					else if ( index == 1 )
 						fitter = new SpotGaussianFitter2DFixedRadius( imp, channel );
+					else if ( index == 2 )
+						fitter = new FastSpotGaussianFitter( imp, channel, false );
+					else if ( index == 3 )
+						fitter = new FastSpotGaussianFitter( imp, channel, true );
 					else
 						throw new IllegalArgumentException( "Index points to an unknown fit model: " + index );
 				}
@@ -138,6 +142,10 @@ public class SpotFitterController
 						fitter = new SpotGaussianFitter3D( imp, channel );
 					else if ( index == 1 )
 						fitter = new SpotGaussianFitter3DFixedRadius( imp, channel );
+					else if ( index == 2 )
+						fitter = new FastSpotGaussianFitter( imp, channel, false );
+					else if ( index == 3 )
+						fitter = new FastSpotGaussianFitter( imp, channel, true );
 					else
 						throw new IllegalArgumentException( "Index points to an unknown fit model: " + index );
 				}
@@ -211,6 +219,10 @@ public class SpotFitterController
 			docs.add( "<html>Fit a 2D circular Gaussian on each spot, "
 					+ "but blocking its sigma value. The radius of the spot"
 					+ "is not updated.</html>" );
+			docs.add( "<html>Same model as the Gaussian 2D fit, with a faster "
+					+ "solver suited to large numbers of spots.</html>" );
+			docs.add( "<html>Same model as the Gaussian 2D fit with fixed radius, "
+					+ "with a faster solver suited to large numbers of spots.</html>" );
 		}
 		else
 		{
@@ -221,6 +233,10 @@ public class SpotFitterController
 			docs.add(
 					"<html>Fit a 3D anisotropic Gaussian on each spot. We only allow X, Y, Z and the "
 							+ "amplitude to adjust in the fit. The spot radius is left unchanged.</html>" );
+			docs.add( "<html>Same model as the elliptical orthogonal Gaussian 3D fit, "
+					+ "with a faster solver suited to large numbers of spots.</html>" );
+			docs.add( "<html>Same model as the Gaussian 3D fit with fixed radius, "
+					+ "with a faster solver suited to large numbers of spots.</html>" );
 		}
 		return docs;
 	}
@@ -232,11 +248,15 @@ public class SpotFitterController
 		{
 			fits.add( "Gaussian 2D" );
 			fits.add( "Gaussian 2D with fixed radius" );
+			fits.add( "Gaussian 2D (fast)" );
+			fits.add( "Gaussian 2D with fixed radius (fast)" );
 		}
 		else
 		{
 			fits.add( "Elliptical orthogonal Gaussian 3D" );
 			fits.add( "Gaussian 3D with fixed radius" );
+			fits.add( "Elliptical orthogonal Gaussian 3D (fast)" );
+			fits.add( "Gaussian 3D with fixed radius (fast)" );
 		}
 		return fits;
 	}
@@ -0,0 +1,452 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_NORMALIZE;
+import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_RADIUS;
+import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_RADIUS_Z;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.scijava.Cancelable;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.util.TMUtils;
+import fiji.plugin.trackmate.util.Threads;
+import net.imagej.ImgPlus;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.algorithm.MultiThreaded;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+
+/**
+ * A {@link SpotDetector} that processes a frame in blocks, for frames that are
+ * too large to be processed at once.
+ * <p>
+ * The frame interval is split in non-overlapping core blocks. Each core block
+ * is expanded by a halo, and a detector created by the wrapped factory is run
+ * on the expanded block. The blocks are processed in parallel, and only the
+ * source image region of the block currently processed is read, so this works
+ * on lazily loaded sources such as cached cell images.
+ * <p>
+ * A spot found in the halo of a block is also found in the core of its
+ * neighbor block. Such duplicates are removed by keeping each spot only in
+ * the block whose core contains its position. The halo must be large enough
+ * for the detector to give the same result near the core border as on the
+ * whole frame: for filter-based detectors, a few spot radii. For detectors
+ * based on segmentation, the halo must be larger than the objects.
+ */
+public class BlockDetector< T extends RealType< T > & NativeType< T > > implements SpotDetector< T >, MultiThreaded, Cancelable, InitialSpotFilterable
+{
+
+	private final static String BASE_ERROR_MESSAGE = "BlockDetector: ";
+
+	/**
+	 * Rough estimate of the number of bytes a detector needs per pixel of the
+	 * block it processes: float copy, filtered image and complex FFT buffers.
+	 */
+	public static final long BYTES_PER_PIXEL = 32;
+
+	private final SpotDetectorFactory< T > factory;
+
+	private final ImgPlus< T > img;
+
+	private final Map< String, Object > settings;
+
+	private final Interval interval;
+
+	private final int frame;
+
+	private final List< Interval > cores;
+
+	private final long[] halo;
+
+	private final double[] calibration;
+
+	private List< Spot > spots;
+
+	private String errorMessage;
+
+	private long processingTime;
+
+	private int numThreads;
+
+	private boolean isCanceled;
+
+	private String cancelReason;
+
+	private double minQuality = Double.NEGATIVE_INFINITY;
+
+	private int maxSpots = -1;
+
+	private final List< Cancelable > cancelables = Collections.synchronizedList( new ArrayList<>() );
+
+	/**
+	 * Creates a block detector.
+	 *
+	 * @param factory
+	 *            the factory that creates the detector for each block.
+	 * @param img
+	 *            the source image.
+	 * @param settings
+	 *            the detector settings.
+	 * @param interval
+	 *            the interval of the frame to process.
+	 * @param frame
+	 *            the frame to process.
+	 * @param cores
+	 *            the core blocks, that must not overlap and must cover the
+	 *            interval, for instance created with
+	 *            {@link #createBlocks(Interval, long[], long, int)}.
+	 * @param halo
+	 *            the halo size around each core block, in pixels, for each
+	 *            dimension of the interval.
+	 */
+	public BlockDetector( final SpotDetectorFactory< T > factory, final ImgPlus< T > img, final Map< String, Object > settings, final Interval interval, final int frame, final List< Interval > cores, final long[] halo )
+	{
+		this.factory = factory;
+		this.img = img;
+		this.settings = settings;
+		this.interval = interval;
+		this.frame = frame;
+		this.cores = cores;
+		this.halo = halo;
+		this.calibration = TMUtils.getSpatialCalibration( img );
+		setNumThreads();
+	}
+
+	/**
+	 * Sets the initial spot filter. The minimal quality is passed to the
+	 * detector of each block, the cap on the number of spots is applied to
+	 * the spots of all blocks.
+	 */
+	@Override
+	public void setInitialSpotFilter( final double minQuality, final int maxSpots )
+	{
+		this.minQuality = minQuality;
+		this.maxSpots = maxSpots;
+	}
+
+	@Override
+	public boolean checkInput()
+	{
+		if ( !supportsBlocks( settings ) )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Detectors that normalize the image cannot be run in blocks.";
+			return false;
+		}
+		if ( halo.length != interval.numDimensions() )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Halo has " + halo.length + " dimensions, but interval has " + interval.numDimensions() + ".";
+			return false;
+		}
+		for ( final Interval core : cores )
+		{
+			if ( core.numDimensions() != interval.numDimensions() || !Intervals.contains( interval, core ) )
+			{
+				errorMessage = BASE_ERROR_MESSAGE + "Block " + Util.printInterval( core ) + " is not in interval " + Util.printInterval( interval ) + ".";
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean process()
+	{
+		final long start = System.currentTimeMillis();
+		isCanceled = false;
+		cancelReason = null;
+		cancelables.clear();
+
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.max( 1, Math.min( numThreads, cores.size() ) ) );
+		final List< Future< List< Spot > > > futures = new ArrayList<>( cores.size() );
+		for ( final Interval core : cores )
+			futures.add( executor.submit( () -> processBlock( core ) ) );
+		executor.shutdown();
+
+		final List< Spot > found = new ArrayList<>();
+		try
+		{
+			for ( final Future< List< Spot > > future : futures )
+			{
+				final List< Spot > blockSpots = future.get();
+				if ( blockSpots == null )
+				{
+					executor.shutdownNow();
+					return false;
+				}
+				found.addAll( blockSpots );
+			}
+		}
+		catch ( InterruptedException | ExecutionException e )
+		{
+			executor.shutdownNow();
+			errorMessage = BASE_ERROR_MESSAGE + "Problem during block detection: " + e.getMessage();
+			return false;
+		}
+
+		spots = DetectionUtils.keepBrightest( found, maxSpots );
+		processingTime = System.currentTimeMillis() - start;
+		return true;
+	}
+
+	/**
+	 * Runs the detector on one block and its halo.
+	 *
+	 * @return the spots owned by this block, or <code>null</code> if the
+	 *         detection failed.
+	 */
+	private List< Spot > processBlock( final Interval core )
+	{
+		if ( isCanceled() )
+			return Collections.emptyList();
+
+		final Interval block = Intervals.intersect( Intervals.expand( core, halo ), interval );
+		final SpotDetector< T > detector = factory.getDetector( img, settings, block, frame );
+		if ( detector instanceof MultiThreaded )
+			( ( MultiThreaded ) detector ).setNumThreads( 1 );
+		if ( detector instanceof Cancelable )
+			cancelables.add( ( Cancelable ) detector );
+		// Spots in the halo are discarded below, so no cap per block.
+		if ( detector instanceof InitialSpotFilterable )
+			( ( InitialSpotFilterable ) detector ).setInitialSpotFilter( minQuality, -1 );
+
+		if ( !detector.checkInput() || !detector.process() )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "In block " + Util.printInterval( block ) + ":\n" + detector.getErrorMessage();
+			return null;
+		}
+
+		final List< Spot > owned = new ArrayList<>();
+		for ( final Spot spot : detector.getResult() )
+			if ( isOwnedBy( spot, core, interval, calibration ) )
+				owned.add( spot );
+		return owned;
+	}
+
+	/**
+	 * Returns <code>true</code> if the pixel nearest to the spot position,
+	 * clamped to the frame interval, is in the core block. Singleton
+	 * dimensions are skipped, as detectors do when they process the block.
+	 */
+	static boolean isOwnedBy( final Spot spot, final Interval core, final Interval interval, final double[] calibration )
+	{
+		int k = 0;
+		for ( int d = 0; d < interval.numDimensions(); d++ )
+		{
+			if ( interval.dimension( d ) <= 1 )
+				continue;
+
+			final long p = Math.round( spot.getDoublePosition( k ) / calibration[ k ] );
+			final long clamped = Math.min( interval.max( d ), Math.max( interval.min( d ), p ) );
+			if ( clamped < core.min( d ) || clamped > core.max( d ) )
+				return false;
+			k++;
+		}
+		return true;
+	}
+
+	/**
+	 * Splits an interval in core blocks such that each block, expanded by the
+	 * halo, fits in the specified memory budget when <code>nParallel</code>
+	 * blocks are processed at once.
+	 * <p>
+	 * Core blocks are not made smaller than the halo, nor than 16 pixels, so
+	 * the budget cannot be met if the halo is large compared to it. Use
+	 * {@link #memoryNeeded(List, long[], Interval, int)} to check.
+	 *
+	 * @param interval
+	 *            the frame interval.
+	 * @param halo
+	 *            the halo size, in pixels, for each dimension.
+	 * @param memoryBudget
+	 *            the memory budget, in bytes.
+	 * @param nParallel
+	 *            the number of blocks processed at once.
+	 * @return a new list of core blocks. Has a single element if the whole
+	 *         interval fits in the budget.
+	 */
+	public static List< Interval > createBlocks( final Interval interval, final long[] halo, final long memoryBudget, final int nParallel )
+	{
+		final long maxPixels = Math.max( 1, memoryBudget / BYTES_PER_PIXEL / Math.max( 1, nParallel ) );
+		if ( Intervals.numElements( interval ) <= maxPixels )
+			return Collections.singletonList( new FinalInterval( interval ) );
+
+		// Split only non-singleton dimensions, with the same core size.
+		int nSplit = 0;
+		long maxHalo = 0;
+		for ( int d = 0; d < interval.numDimensions(); d++ )
+		{
+			if ( interval.dimension( d ) > 1 )
+			{
+				nSplit++;
+				maxHalo = Math.max( maxHalo, halo[ d ] );
+			}
+		}
+		final long blockSide = ( long ) Math.floor( Math.pow( maxPixels, 1. / nSplit ) );
+		final long coreSide = Math.max( Math.max( 16, maxHalo ), blockSide - 2 * maxHalo );
+		return DetectionUtils.createTiles( interval, coreSide );
+	}
+
+	/**
+	 * Estimates the memory needed to process the specified blocks, from the
+	 * size of the largest block expanded by its halo.
+	 *
+	 * @param cores
+	 *            the core blocks.
+	 * @param halo
+	 *            the halo size, in pixels, for each dimension.
+	 * @param interval
+	 *            the frame interval.
+	 * @param nParallel
+	 *            the number of blocks processed at once.
+	 * @return the estimated memory, in bytes.
+	 */
+	public static long memoryNeeded( final List< Interval > cores, final long[] halo, final Interval interval, final int nParallel )
+	{
+		long maxPixels = 0;
+		for ( final Interval core : cores )
+			maxPixels = Math.max( maxPixels, Intervals.numElements( Intervals.intersect( Intervals.expand( core, halo ), interval ) ) );
+		return maxPixels * BYTES_PER_PIXEL * Math.max( 1, Math.min( nParallel, cores.size() ) );
+	}
+
+	/**
+	 * Returns <code>true</code> if a detector with the specified settings
+	 * gives the same results when run in blocks as on whole frames. This is
+	 * not the case for detectors that normalize the image they process, since
+	 * each block would be normalized on its own.
+	 *
+	 * @param settings
+	 *            the detector settings.
+	 * @return <code>true</code> if frames can be processed in blocks.
+	 */
+	public static boolean supportsBlocks( final Map< String, Object > settings )
+	{
+		return !Boolean.TRUE.equals( settings.get( KEY_NORMALIZE ) );
+	}
+
+	/**
+	 * Returns a halo suited to the detector settings: 3 spot radii plus 2
+	 * pixels, in each non-singleton dimension of the interval. In Z, the
+	 * largest of the radius and of the Z radius, if the settings specify one,
+	 * is used.
+	 *
+	 * @param settings
+	 *            the detector settings.
+	 * @param interval
+	 *            the frame interval.
+	 * @param calibration
+	 *            the pixel sizes.
+	 * @return the halo size, or <code>null</code> if the settings do not
+	 *         specify a spot radius.
+	 */
+	public static long[] haloFor( final Map< String, Object > settings, final Interval interval, final double[] calibration )
+	{
+		final Object obj = settings.get( KEY_RADIUS );
+		if ( !( obj instanceof Number ) )
+			return null;
+		final double radius = ( ( Number ) obj ).doubleValue();
+		final Object objZ = settings.get( KEY_RADIUS_Z );
+		final double radiusZ = ( objZ instanceof Number )
+				? Math.max( radius, ( ( Number ) objZ ).doubleValue() )
+				: radius;
+		final long[] halo = new long[ interval.numDimensions() ];
+		int k = 0;
+		for ( int d = 0; d < halo.length; d++ )
+		{
+			if ( interval.dimension( d ) <= 1 )
+				continue;
+			final double r = ( d == 2 ) ? radiusZ : radius;
+			halo[ d ] = ( long ) Math.ceil( 3. * r / calibration[ k ] ) + 2;
+			k++;
+		}
+		return halo;
+	}
+
+	@Override
+	public List< Spot > getResult()
+	{
+		return spots;
+	}
+
+	@Override
+	public String getErrorMessage()
+	{
+		return errorMessage;
+	}
+
+	@Override
+	public long getProcessingTime()
+	{
+		return processingTime;
+	}
+
+	@Override
+	public void setNumThreads()
+	{
+		this.numThreads = Runtime.getRuntime().availableProcessors();
+	}
+
+	@Override
+	public void setNumThreads( final int numThreads )
+	{
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	public int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	// --- org.scijava.Cancelable methods ---
+
+	@Override
+	public boolean isCanceled()
+	{
+		return isCanceled;
+	}
+
+	@Override
+	public void cancel( final String reason )
+	{
+		isCanceled = true;
+		cancelReason = reason;
+		cancelables.forEach( c -> c.cancel( reason ) );
+	}
+
+	@Override
+	public String getCancelReason()
+	{
+		return cancelReason;
+	}
+}
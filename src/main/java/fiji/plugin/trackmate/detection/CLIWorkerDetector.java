@@ -0,0 +1,317 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.Cancelable;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.util.TMUtils;
+import fiji.plugin.trackmate.util.cli.CLIConfigurator;
+import fiji.plugin.trackmate.util.cli.CLIUtils;
+import fiji.plugin.trackmate.util.cli.CLIWorker;
+import fiji.plugin.trackmate.util.cli.CommandBuilder;
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.view.Views;
+
+/**
+ * A global detector that segments each time-point of the input image with a
+ * tool running in a persistent {@link CLIWorker}, and creates spots from the
+ * label images it returns.
+ * <p>
+ * CLI-based detectors can use it when their settings specify
+ * {@link DetectorKeys#KEY_USE_PERSISTENT_WORKER}, provided the tool they run
+ * implements the worker protocol.
+ */
+public class CLIWorkerDetector< T extends RealType< T > & NativeType< T > > implements SpotGlobalDetector< T >, Cancelable
+{
+
+	private final static String BASE_ERROR_MESSAGE = "CLIWorkerDetector: ";
+
+	private final List< String > command;
+
+	private final Map< String, String > env;
+
+	private final ImgPlus< T > img;
+
+	private final Interval interval;
+
+	private final int channel;
+
+	private final boolean simplify;
+
+	private final File logFile;
+
+	private SpotCollection spots;
+
+	private String errorMessage;
+
+	private long processingTime;
+
+	private Logger logger = Logger.VOID_LOGGER;
+
+	private CLIWorker worker;
+
+	private String cancelReason;
+
+	/**
+	 * Creates a detector that runs the command specified by the CLI in a
+	 * persistent worker.
+	 *
+	 * @param cli
+	 *            the CLI configurator that specifies the command to run.
+	 * @param img
+	 *            the input image.
+	 * @param interval
+	 *            the interval to process, with time, if any, in the last
+	 *            dimension.
+	 * @param channel
+	 *            the channel to process (0-based). If negative, all channels
+	 *            are sent to the worker.
+	 * @param simplify
+	 *            whether to simplify the contours of the 2D spots.
+	 * @param logFile
+	 *            the file to which the worker log is appended.
+	 */
+	public CLIWorkerDetector(
+			final CLIConfigurator cli,
+			final ImgPlus< T > img,
+			final Interval interval,
+			final int channel,
+			final boolean simplify,
+			final File logFile )
+	{
+		this( CommandBuilder.build( cli ), CLIUtils.getProcessEnv( cli ), img, interval, channel, simplify, logFile );
+	}
+
+	/**
+	 * Creates a detector that runs the specified command in a persistent
+	 * worker.
+	 *
+	 * @param command
+	 *            the command that starts the worker.
+	 * @param env
+	 *            the environment variables to add to the worker process.
+	 * @param img
+	 *            the input image.
+	 * @param interval
+	 *            the interval to process, with time, if any, in the last
+	 *            dimension.
+	 * @param channel
+	 *            the channel to process (0-based). If negative, all channels
+	 *            are sent to the worker.
+	 * @param simplify
+	 *            whether to simplify the contours of the 2D spots.
+	 * @param logFile
+	 *            the file to which the worker log is appended.
+	 */
+	public CLIWorkerDetector(
+			final List< String > command,
+			final Map< String, String > env,
+			final ImgPlus< T > img,
+			final Interval interval,
+			final int channel,
+			final boolean simplify,
+			final File logFile )
+	{
+		this.command = command;
+		this.env = env;
+		this.img = img;
+		this.interval = interval;
+		this.channel = channel;
+		this.simplify = simplify;
+		this.logFile = logFile;
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified detector settings request
+	 * the tool to run in a persistent worker.
+	 *
+	 * @param settings
+	 *            the detector settings map.
+	 * @return whether to use a {@link CLIWorkerDetector}.
+	 */
+	public static boolean usePersistentWorker( final Map< String, Object > settings )
+	{
+		return Boolean.TRUE.equals( settings.get( DetectorKeys.KEY_USE_PERSISTENT_WORKER ) );
+	}
+
+	@Override
+	public boolean checkInput()
+	{
+		if ( img == null )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Image is null.";
+			return false;
+		}
+		if ( command == null || command.isEmpty() )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Command is empty.";
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean process()
+	{
+		final long start = System.currentTimeMillis();
+		cancelReason = null;
+		spots = new SpotCollection();
+
+		try
+		{
+			worker = CLIWorker.get( command, env, logFile );
+		}
+		catch ( final IOException e )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "Could not start the worker:\n" + e.getMessage();
+			return false;
+		}
+
+		final int c = img.dimensionIndex( Axes.CHANNEL ) < 0 ? -1 : channel;
+		final List< RandomAccessibleInterval< T > > views = DetectionUtils.splitSingleTimePointViews( img, interval, c );
+		final long minT = img.dimensionIndex( Axes.TIME ) < 0 ? 0l : interval.min( interval.numDimensions() - 1 );
+		final int nSpatial = img.dimensionIndex( Axes.Z ) < 0 ? 2 : 3;
+		final long[] min = new long[ nSpatial ];
+		final long[] max = new long[ nSpatial ];
+		for ( int d = 0; d < nSpatial; d++ )
+		{
+			min[ d ] = interval.min( d );
+			max[ d ] = interval.max( d );
+		}
+		final Interval spatialInterval = new FinalInterval( min, max );
+		final double[] calibration = TMUtils.getSpatialCalibration( img );
+
+		for ( int i = 0; i < views.size(); i++ )
+		{
+			if ( isCanceled() )
+				break;
+
+			final int frame = ( int ) ( minT + i );
+			logger.setStatus( "Frame " + ( frame + 1 ) );
+			RandomAccessibleInterval< IntType > labels;
+			try
+			{
+				labels = worker.process( views.get( i ) );
+			}
+			catch ( final IOException e )
+			{
+				if ( isCanceled() )
+					break;
+				errorMessage = BASE_ERROR_MESSAGE + "Problem processing frame " + frame + ":\n" + e.getMessage();
+				return false;
+			}
+
+			// Drop the channel dimension the worker may have kept.
+			while ( labels.numDimensions() > nSpatial )
+				labels = Views.hyperSlice( labels, labels.numDimensions() - 1, labels.min( labels.numDimensions() - 1 ) );
+			if ( labels.numDimensions() < nSpatial )
+			{
+				errorMessage = BASE_ERROR_MESSAGE + "The worker returned a " + labels.numDimensions()
+						+ "D label image for a " + nSpatial + "D image.";
+				return false;
+			}
+
+			final LabelImageDetector< IntType > detector = new LabelImageDetector<>(
+					Views.translate( labels, min ),
+					spatialInterval,
+					calibration,
+					simplify );
+			if ( !detector.checkInput() || !detector.process() )
+			{
+				errorMessage = BASE_ERROR_MESSAGE + detector.getErrorMessage();
+				return false;
+			}
+			final List< Spot > frameSpots = detector.getResult();
+			spots.put( frame, frameSpots );
+			logger.setProgress( ( double ) ( i + 1 ) / views.size() );
+		}
+
+		final long end = System.currentTimeMillis();
+		processingTime = end - start;
+		return true;
+	}
+
+	@Override
+	public SpotCollection getResult()
+	{
+		return spots;
+	}
+
+	@Override
+	public String getErrorMessage()
+	{
+		return errorMessage;
+	}
+
+	@Override
+	public long getProcessingTime()
+	{
+		return processingTime;
+	}
+
+	@Override
+	public void setLogger( final Logger logger )
+	{
+		this.logger = logger;
+	}
+
+	// --- org.scijava.Cancelable methods ---
+
+	@Override
+	public boolean isCanceled()
+	{
+		return cancelReason != null;
+	}
+
+	/**
+	 * Cancels the detection. The worker is closed and will be restarted by
+	 * the next detection.
+	 */
+	@Override
+	public void cancel( final String reason )
+	{
+		cancelReason = reason;
+		if ( worker != null )
+			worker.close();
+	}
+
+	@Override
+	public String getCancelReason()
+	{
+		return cancelReason;
+	}
+}
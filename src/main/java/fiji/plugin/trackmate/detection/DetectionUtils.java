@@ -22,6 +22,7 @@
 package fiji.plugin.trackmate.detection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -374,6 +375,95 @@ public class DetectionUtils
 			final double radius,
 			final boolean doSubPixelLocalization,
 			final int nTasks )
+	{
+		return findLocalMaxima( Views.extendMirrorSingle( source ), source, threshold, calibration, radius, doSubPixelLocalization, nTasks );
+	}
+
+	/**
+	 * Finds the local maxima of an image in the specified interval, and
+	 * returns them as spots. Contrary to
+	 * {@link #findLocalMaxima(RandomAccessibleInterval, double, double[], double, boolean, int)},
+	 * the neighborhood of the pixels on the border of the interval is read
+	 * from the source, so that the maxima found in adjacent intervals of the
+	 * same image are exactly the maxima of the whole image.
+	 *
+	 * @param <T>
+	 *            the type of the image.
+	 * @param source
+	 *            the image. Must be defined at least one pixel around the
+	 *            interval, more if sub-pixel localization is requested.
+	 * @param interval
+	 *            the interval in which to search for maxima.
+	 * @param threshold
+	 *            the threshold on the value of the maxima. Maxima must be
+	 *            strictly above it.
+	 * @param calibration
+	 *            the pixel sizes.
+	 * @param radius
+	 *            the radius of the spots to create.
+	 * @param doSubPixelLocalization
+	 *            whether to refine the maxima position.
+	 * @param nTasks
+	 *            the number of tasks to use.
+	 * @return a new list of spots.
+	 */
+	public static final < T extends RealType< T > > List< Spot > findLocalMaxima(
+			final RandomAccessible< T > source,
+			final Interval interval,
+			final double threshold,
+			final double[] calibration,
+			final double radius,
+			final boolean doSubPixelLocalization,
+			final int nTasks )
+	{
+		return findLocalMaxima( source, interval, threshold, calibration, radius, doSubPixelLocalization, -1, nTasks );
+	}
+
+	/**
+	 * Finds the local maxima of an image in the specified interval, keeps at
+	 * most the <code>maxSpots</code> brightest ones, and returns them as
+	 * spots.
+	 * <p>
+	 * The maxima are ranked on the image value at their pixel position, which
+	 * is the quality of the spots created. The sub-pixel localization and the
+	 * creation of the spots are done only for the maxima that are kept. Since
+	 * the threshold is applied on the same value, passing the threshold
+	 * returned by {@link #thresholdForMinQuality(double)} gives the same spots
+	 * as filtering them on their quality after detection, at a fraction of the
+	 * cost when the threshold is low.
+	 *
+	 * @param <T>
+	 *            the type of the image.
+	 * @param source
+	 *            the image. Must be defined at least one pixel around the
+	 *            interval, more if sub-pixel localization is requested.
+	 * @param interval
+	 *            the interval in which to search for maxima.
+	 * @param threshold
+	 *            the threshold on the value of the maxima. Maxima must be
+	 *            strictly above it.
+	 * @param calibration
+	 *            the pixel sizes.
+	 * @param radius
+	 *            the radius of the spots to create.
+	 * @param doSubPixelLocalization
+	 *            whether to refine the maxima position.
+	 * @param maxSpots
+	 *            the maximal number of spots to return. If 0 or negative, all
+	 *            the maxima above the threshold are returned.
+	 * @param nTasks
+	 *            the number of tasks to use.
+	 * @return a new list of spots.
+	 */
+	public static final < T extends RealType< T > > List< Spot > findLocalMaxima(
+			final RandomAccessible< T > source,
+			final Interval interval,
+			final double threshold,
+			final double[] calibration,
+			final double radius,
+			final boolean doSubPixelLocalization,
+			final int maxSpots,
+			final int nTasks )
 	{
 		/*
 		 * Find maxima.
@@ -382,7 +472,7 @@ public class DetectionUtils
 		final T val = source.getType().createVariable();
 		val.setReal( threshold );
 		final LocalNeighborhoodCheck< Point, T > localNeighborhoodCheck = new LocalExtrema.MaximumCheck<>( val );
-		final IntervalView< T > dogWithBorder = Views.interval( Views.extendMirrorSingle( source ), Intervals.expand( source, 1 ) );
+		final IntervalView< T > dogWithBorder = Views.interval( source, Intervals.expand( interval, 1 ) );
 		final ThreadService threadService = TMUtils.getContext().getService( ThreadService.class );
 		final ExecutorService es;
 		if ( threadService == null )
@@ -408,6 +498,13 @@ public class DetectionUtils
 		if ( peaks.isEmpty() )
 			return Collections.emptyList();
 
+		/*
+		 * Keep the brightest ones.
+		 */
+
+		if ( maxSpots > 0 && peaks.size() > maxSpots )
+			peaks = selectBrightest( source, peaks, maxSpots );
+
 		final List< Spot > spots;
 		if ( doSubPixelLocalization )
 		{
@@ -422,7 +519,7 @@ public class DetectionUtils
 			spl.setCanMoveOutside( true );
 			spl.setAllowMaximaTolerance( true );
 			spl.setMaxNumMoves( 10 );
-			final ArrayList< RefinedPeak< Point > > refined = spl.process( peaks, dogWithBorder, source );
+			final ArrayList< RefinedPeak< Point > > refined = spl.process( peaks, dogWithBorder, interval );
 
 			spots = new ArrayList<>( refined.size() );
 			final RandomAccess< T > ra = source.randomAccess();
@@ -524,6 +621,149 @@ public class DetectionUtils
 		return spots;
 	}
 
+	/**
+	 * Returns the threshold to pass to
+	 * {@link #findLocalMaxima(RandomAccessible, Interval, double, double[], double, boolean, int, int)}
+	 * to keep the maxima with a quality larger than or equal to the specified
+	 * value. The threshold of the maxima search is exclusive, while the
+	 * quality filters are inclusive.
+	 * <p>
+	 * The maxima are compared to the threshold in the precision of the image
+	 * searched. This method is exact for images of {@link FloatType}, which
+	 * all the detectors that push down the quality filter use.
+	 *
+	 * @param minQuality
+	 *            the minimal quality of the spots to keep.
+	 * @return the largest float value below <code>minQuality</code>.
+	 */
+	public static final double thresholdForMinQuality( final double minQuality )
+	{
+		if ( Double.isInfinite( minQuality ) || Double.isNaN( minQuality ) )
+			return minQuality;
+		// Smallest float value that passes the quality filter.
+		float fmin = ( float ) minQuality;
+		if ( fmin < minQuality )
+			fmin = Math.nextUp( fmin );
+		return Math.nextDown( fmin );
+	}
+
+	/**
+	 * Returns the <code>maxSpots</code> peaks with the largest image value, in
+	 * their original order.
+	 */
+	private static final < T extends RealType< T > > List< Point > selectBrightest( final RandomAccessible< T > source, final List< Point > peaks, final int maxSpots )
+	{
+		final double[] values = new double[ peaks.size() ];
+		final RandomAccess< T > ra = source.randomAccess();
+		for ( int i = 0; i < values.length; i++ )
+		{
+			ra.setPosition( peaks.get( i ) );
+			values[ i ] = ra.get().getRealDouble();
+		}
+		final List< Point > selected = new ArrayList<>( maxSpots );
+		for ( final int i : largest( values, maxSpots ) )
+			selected.add( peaks.get( i ) );
+		return selected;
+	}
+
+	/**
+	 * Keeps at most the specified number of spots with the highest quality,
+	 * in their original order.
+	 *
+	 * @param spots
+	 *            the spots to prune.
+	 * @param maxSpots
+	 *            the maximal number of spots to keep. If 0 or negative, the
+	 *            list is returned unchanged.
+	 * @return the specified list if it has no more than <code>maxSpots</code>
+	 *         elements, a new list otherwise.
+	 */
+	public static final List< Spot > keepBrightest( final List< Spot > spots, final int maxSpots )
+	{
+		if ( maxSpots <= 0 || spots.size() <= maxSpots )
+			return spots;
+
+		final double[] values = new double[ spots.size() ];
+		for ( int i = 0; i < values.length; i++ )
+			values[ i ] = spots.get( i ).getFeature( Spot.QUALITY ).doubleValue();
+		final List< Spot > selected = new ArrayList<>( maxSpots );
+		for ( final int i : largest( values, maxSpots ) )
+			selected.add( spots.get( i ) );
+		return selected;
+	}
+
+	/**
+	 * Returns the indices of the <code>k</code> largest values, in increasing
+	 * order. Ties at the cut-off value are resolved by index, so the selection
+	 * is deterministic.
+	 */
+	private static final int[] largest( final double[] values, final int k )
+	{
+		final int n = values.length;
+		final double[] sorted = values.clone();
+		Arrays.sort( sorted );
+		final double cutoff = sorted[ n - k ];
+		int nTies = 0;
+		for ( int i = n - k; i < n && sorted[ i ] == cutoff; i++ )
+			nTies++;
+
+		final int[] indices = new int[ k ];
+		int j = 0;
+		for ( int i = 0; i < n && j < k; i++ )
+		{
+			if ( values[ i ] > cutoff )
+			{
+				indices[ j++ ] = i;
+			}
+			else if ( values[ i ] == cutoff && nTies > 0 )
+			{
+				indices[ j++ ] = i;
+				nTies--;
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Splits an interval in non-overlapping tiles that cover it. Tiles have
+	 * the specified size in every dimension, except at the interval border
+	 * where they are cropped.
+	 *
+	 * @param interval
+	 *            the interval to split.
+	 * @param side
+	 *            the tile size, in pixels.
+	 * @return a new list of tiles.
+	 */
+	public static final List< Interval > createTiles( final Interval interval, final long side )
+	{
+		final int n = interval.numDimensions();
+		final long[] nTiles = new long[ n ];
+		long total = 1;
+		for ( int d = 0; d < n; d++ )
+		{
+			nTiles[ d ] = ( interval.dimension( d ) + side - 1 ) / side;
+			total *= nTiles[ d ];
+		}
+
+		final List< Interval > tiles = new ArrayList<>( ( int ) total );
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( long i = 0; i < total; i++ )
+		{
+			long index = i;
+			for ( int d = 0; d < n; d++ )
+			{
+				final long t = index % nTiles[ d ];
+				index /= nTiles[ d ];
+				min[ d ] = interval.min( d ) + t * side;
+				max[ d ] = Math.min( interval.max( d ), min[ d ] + side - 1 );
+			}
+			tiles.add( new FinalInterval( min, max ) );
+		}
+		return tiles;
+	}
+
 	/**
 	 * Return a view of the specified input image, at the specified channel
 	 * (0-based) and the specified frame (0-based too).
@@ -614,10 +854,10 @@ public class DetectionUtils
 	}
 
 	/**
-	 * Splits the input image in a list of {@link ImagePlus}, one per
-	 * time-point, including only one channel (or all channels if <code>c</code>
-	 * is negative). If the input includes several channels, they are all
-	 * included in the new image, and put as the last dimension.
+	 * Splits the input image in a list of views, one per time-point, including
+	 * only one channel (or all channels if <code>c</code> is negative). If the
+	 * input includes several channels, they are all included in the view, and
+	 * put as the last dimension. The pixels are not copied.
 	 *
 	 * @param <T>
 	 *            the type of the pixel in the input image.
@@ -632,11 +872,9 @@ public class DetectionUtils
 	 * @param c
 	 *            the channel to extract (0-based). If negative, all channels
 	 *            are included.
-	 * @param namegen
-	 *            a generator for the name of the output ImagePlus.
-	 * @return a new list of ImagePlus.
+	 * @return a new list of views, in time order.
 	 */
-	public static < T extends RealType< T > & NativeType< T > > List< ImagePlus > splitSingleTimePoints( final ImgPlus< T > img, final Interval interval, final int c, final Function< Long, String > namegen )
+	public static < T extends RealType< T > & NativeType< T > > List< RandomAccessibleInterval< T > > splitSingleTimePointViews( final ImgPlus< T > img, final Interval interval, final int c )
 	{
 		final int zIndex = img.dimensionIndex( Axes.Z );
 		final int cIndex = img.dimensionIndex( Axes.CHANNEL );
@@ -693,14 +931,12 @@ public class DetectionUtils
 			}
 		}
 
-		final List< ImagePlus > imps = new ArrayList<>();
+		final List< RandomAccessibleInterval< T > > views = new ArrayList<>();
 		final int timeIndex = img.dimensionIndex( Axes.TIME );
 		if ( timeIndex < 0 )
 		{
 			// No time.
-			final IntervalView< T > crop = Views.interval( img, cropInterval );
-			final String name = nameGen.apply( 0l ) + ".tif";
-			imps.add( ImageJFunctions.wrap( crop, name ) );
+			views.add( Views.interval( img, cropInterval ) );
 		}
 		else
 		{
@@ -719,11 +955,69 @@ public class DetectionUtils
 					tp = ImgPlusViews.moveAxis( tpTCZ, chanDim, tpTCZ.numDimensions() - 1 );
 				}
 				// possibly 2D or 3D with or without channel.
-				final IntervalView< T > crop = Views.interval( tp, cropInterval );
-				final String name = nameGen.apply( t ) + ".tif";
-				imps.add( ImageJFunctions.wrap( crop, name ) );
+				views.add( Views.interval( tp, cropInterval ) );
 			}
 		}
+		return views;
+	}
+
+	/**
+	 * Splits the input image in a list of {@link ImagePlus}, one per
+	 * time-point, including only one channel (or all channels if <code>c</code>
+	 * is negative). If the input includes several channels, they are all
+	 * included in the new image, and put as the last dimension.
+	 *
+	 * @param <T>
+	 *            the type of the pixel in the input image.
+	 * @param img
+	 *            the input image.
+	 * @param interval
+	 *            the interval to crop the output in the input image. Must not
+	 *            have a dimension for channels. Can be 2D or 3D to accommodate
+	 *            the input image. If the interval contains time (min T and max
+	 *            T to export), it must be in the last dimension of the
+	 *            interval.
+	 * @param c
+	 *            the channel to extract (0-based). If negative, all channels
+	 *            are included.
+	 * @param namegen
+	 *            not used. The output ImagePlus are named with
+	 *            {@link #nameGen}. Use
+	 *            {@link #splitSingleTimePoints(List, long, Function)} to
+	 *            specify the names.
+	 * @return a new list of ImagePlus.
+	 */
+	public static < T extends RealType< T > & NativeType< T > > List< ImagePlus > splitSingleTimePoints( final ImgPlus< T > img, final Interval interval, final int c, final Function< Long, String > namegen )
+	{
+		final List< RandomAccessibleInterval< T > > views = splitSingleTimePointViews( img, interval, c );
+		final long minT = img.dimensionIndex( Axes.TIME ) < 0 ? 0l : interval.min( interval.numDimensions() - 1 );
+		return splitSingleTimePoints( views, minT, nameGen );
+	}
+
+	/**
+	 * Wraps the time-point views returned by
+	 * {@link #splitSingleTimePointViews(ImgPlus, Interval, int)} in a list of
+	 * {@link ImagePlus}, named with the specified generator.
+	 *
+	 * @param <T>
+	 *            the type of the pixel in the views.
+	 * @param views
+	 *            the views, one per time-point, in time order.
+	 * @param minT
+	 *            the time-point of the first view.
+	 * @param namegen
+	 *            a generator for the name of the output ImagePlus, from their
+	 *            time-point.
+	 * @return a new list of ImagePlus.
+	 */
+	public static < T extends RealType< T > & NativeType< T > > List< ImagePlus > splitSingleTimePoints( final List< RandomAccessibleInterval< T > > views, final long minT, final Function< Long, String > namegen )
+	{
+		final List< ImagePlus > imps = new ArrayList<>( views.size() );
+		for ( int i = 0; i < views.size(); i++ )
+		{
+			final String name = namegen.apply( minT + i ) + ".tif";
+			imps.add( ImageJFunctions.wrap( views.get( i ), name ) );
+		}
 		return imps;
 	}
 
@@ -147,4 +147,20 @@ public class DetectorKeys
 	 */
 	public static final boolean DEFAULT_DO_SUBPIXEL_LOCALIZATION = true;
 
+	/**
+	 * The key for the parameter that states whether a CLI-based detector runs
+	 * its tool in a persistent worker, kept alive across frames and detection
+	 * runs, instead of starting it once per detection. Accepted values are
+	 * {@link Boolean}s.
+	 * <p>
+	 * Currently used by:
+	 * <ul>
+	 * <li>{@link CLIWorkerDetector}
+	 * </ul>
+	 */
+	public static final String KEY_USE_PERSISTENT_WORKER = "USE_PERSISTENT_WORKER";
+
+	/** A default value for the {@link #KEY_USE_PERSISTENT_WORKER} parameter. */
+	public static final boolean DEFAULT_USE_PERSISTENT_WORKER = false;
+
 }
@@ -21,20 +21,42 @@
  */
 package fiji.plugin.trackmate.detection;
 
-import net.imglib2.Cursor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.util.Threads;
 import net.imglib2.Interval;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.dog.DifferenceOfGaussian;
 import net.imglib2.algorithm.gauss3.Gauss3;
-import net.imglib2.exception.IncompatibleTypeException;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.loops.LoopBuilder;
 import net.imglib2.parallel.Parallelization;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.real.FloatType;
-import net.imglib2.util.Util;
+import net.imglib2.util.Intervals;
 import net.imglib2.view.Views;
 
+/**
+ * Detector based on the difference of Gaussians (DoG) approximation of the LoG
+ * filter.
+ * <p>
+ * The image is processed in tiles. For each tile, the two Gaussian filters are
+ * computed over the tile expanded by a small margin, the difference is taken
+ * in place, and the local maxima are searched for inside the tile. Because the
+ * Gaussian filters read their input from the whole image, and the margin
+ * covers the neighborhood needed by the maxima search and the sub-pixel
+ * localization, the maxima found in each tile are exactly the maxima of the
+ * whole image that fall in this tile. The memory needed is therefore a small
+ * multiple of the tile size, times the number of tiles processed in parallel,
+ * instead of twice the size of the image.
+ */
 public class DogDetector< T extends RealType< T > & NativeType< T > > extends LogDetector< T >
 {
 
@@ -44,6 +66,24 @@ public class DogDetector< T extends RealType< T > & NativeType< T > > extends Lo
 
 	public final static String BASE_ERROR_MESSAGE = "DogDetector: ";
 
+	/**
+	 * Default number of pixels in a tile: 2M pixels, that is 8 MB per float
+	 * buffer.
+	 */
+	public static final long DEFAULT_TILE_SIZE = 1l << 21;
+
+	/**
+	 * Margin around each tile, in pixels. 1 pixel is needed for the maxima
+	 * search, the rest gives room for the sub-pixel localization.
+	 */
+	private static final int TILE_MARGIN = 3;
+
+	/*
+	 * FIELDS
+	 */
+
+	private long tileSize = DEFAULT_TILE_SIZE;
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -58,6 +98,18 @@ public class DogDetector< T extends RealType< T > & NativeType< T > > extends Lo
 	 * METHODS
 	 */
 
+	/**
+	 * Sets the approximate number of pixels in the tiles the image is
+	 * processed in.
+	 *
+	 * @param tileSize
+	 *            the number of pixels per tile.
+	 */
+	public void setTileSize( final long tileSize )
+	{
+		this.tileSize = tileSize;
+	}
+
 	@Override
 	public boolean process()
 	{
@@ -85,12 +137,6 @@ public class DogDetector< T extends RealType< T > & NativeType< T > > extends Lo
 		 */
 
 		final RandomAccessible< T > extended = Views.extendMirrorSingle( view );
-		// We need to shift coordinates by -min[] to have the correct location.
-		final long[] min = new long[ interval.numDimensions() ];
-		interval.min( min );
-		final FloatType type = new FloatType();
-		final RandomAccessibleInterval< FloatType > dog = Views.translate( Util.getArrayOrCellImgFactory( interval, type ).create( interval ), min );
-		final RandomAccessibleInterval< FloatType > dog2 = Views.translate( Util.getArrayOrCellImgFactory( interval, type ).create( interval ), min );
 
 		final double sigma1 = radius / Math.sqrt( interval.numDimensions() ) * 0.9;
 		final double sigma2 = radius / Math.sqrt( interval.numDimensions() ) * 1.1;
@@ -104,28 +150,70 @@ public class DogDetector< T extends RealType< T > & NativeType< T > > extends Lo
 		for ( int d = 0; d < cal.length; d++ )
 			cal[ d ] = calibration[ d ];
 		final double[][] sigmas = DifferenceOfGaussian.computeSigmas( 0.5, 2, cal, sigma1, sigma2 );
+
+		/*
+		 * Process tiles in parallel. Results are collected in tile order.
+		 */
+
+		final List< Interval > tiles = createTiles( interval, tileSize );
+		final ExecutorService service = Threads.newFixedThreadPool( Math.max( 1, Math.min( numThreads, tiles.size() ) ) );
+		final List< Future< List< Spot > > > futures = new ArrayList<>( tiles.size() );
+		for ( final Interval tile : tiles )
+			futures.add( service.submit( () -> processTile( extended, tile, sigmas ) ) );
+		service.shutdown();
+
+		final List< Spot > found = new ArrayList<>();
 		try
 		{
-			Parallelization.runWithNumThreads( numThreads, () -> {
-				Gauss3.gauss( sigmas[ 1 ], extended, dog2 );
-				Gauss3.gauss( sigmas[ 0 ], extended, dog );
-			} );
+			for ( final Future< List< Spot > > future : futures )
+				found.addAll( future.get() );
 		}
-		catch ( final IncompatibleTypeException e )
+		catch ( InterruptedException | ExecutionException e )
 		{
-			e.printStackTrace();
+			service.shutdownNow();
+			errorMessage = BASE_ERROR_MESSAGE + "Problem during DoG computation: " + e.getMessage();
+			return false;
 		}
-
-		final Cursor< FloatType > dogCursor = dog.cursor();
-		final Cursor< FloatType > tmpCursor = dog2.cursor();
-		while ( dogCursor.hasNext() )
-			dogCursor.next().sub( tmpCursor.next() );
-
-		spots = DetectionUtils.findLocalMaxima( dog, threshold, calibration, radius, doSubPixelLocalization, numThreads );
+		// Each tile returns its own brightest spots; keep the brightest of all.
+		spots = DetectionUtils.keepBrightest( found, maxSpots );
 
 		final long end = System.currentTimeMillis();
 		processingTime = end - start;
 
 		return true;
 	}
+
+	/**
+	 * Computes the DoG over one tile and its margin, and returns the maxima
+	 * found inside the tile.
+	 */
+	private List< Spot > processTile( final RandomAccessible< T > source, final Interval tile, final double[][] sigmas )
+	{
+		final Interval block = Intervals.expand( tile, TILE_MARGIN );
+		final RandomAccessibleInterval< FloatType > dog = Views.translate( ArrayImgs.floats( block.dimensionsAsLongArray() ), block.minAsLongArray() );
+		final RandomAccessibleInterval< FloatType > dog2 = Views.translate( ArrayImgs.floats( block.dimensionsAsLongArray() ), block.minAsLongArray() );
+		// Tiles are already processed in parallel.
+		Parallelization.runSingleThreaded( () -> {
+			Gauss3.gauss( sigmas[ 1 ], source, dog2 );
+			Gauss3.gauss( sigmas[ 0 ], source, dog );
+		} );
+		LoopBuilder.setImages( dog, dog2 ).forEachPixel( ( a, b ) -> a.sub( b ) );
+		return DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( dog ), tile, getEffectiveThreshold(), calibration, radius, doSubPixelLocalization, maxSpots, 1 );
+	}
+
+	/**
+	 * Splits an interval in tiles of approximately the specified number of
+	 * pixels. The tiles do not overlap and cover the whole interval.
+	 *
+	 * @param interval
+	 *            the interval to split.
+	 * @param tileSize
+	 *            the approximate number of pixels per tile.
+	 * @return a new list of tiles.
+	 */
+	static List< Interval > createTiles( final Interval interval, final long tileSize )
+	{
+		final long side = Math.max( 16, ( long ) Math.floor( Math.pow( tileSize, 1. / interval.numDimensions() ) ) );
+		return DetectionUtils.createTiles( interval, side );
+	}
 }
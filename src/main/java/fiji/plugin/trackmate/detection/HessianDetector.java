@@ -59,7 +59,7 @@ import net.imglib2.view.Views;
 import net.imglib2.view.composite.CompositeIntervalView;
 import net.imglib2.view.composite.RealComposite;
 
-public class HessianDetector< T extends RealType< T > & NativeType< T > > implements SpotDetector< T >, MultiThreaded
+public class HessianDetector< T extends RealType< T > & NativeType< T > > implements SpotDetector< T >, MultiThreaded, InitialSpotFilterable
 {
 
 	/*
@@ -94,6 +94,10 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 
 	private final ExecutorService es;
 
+	private double minQuality = Double.NEGATIVE_INFINITY;
+
+	private int maxSpots = -1;
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -129,6 +133,13 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 	 * METHODS
 	 */
 
+	@Override
+	public void setInitialSpotFilter( final double minQuality, final int maxSpots )
+	{
+		this.minQuality = minQuality;
+		this.maxSpots = maxSpots;
+	}
+
 	@Override
 	public boolean checkInput()
 	{
@@ -158,7 +169,7 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 		if ( roiManager == null || roiManager.getCount() == 0 )
 		{
 			// Roi manager not shown or empty -> process all.
-			spots = processInterval( interval );
+			spots = processInterval( interval, maxSpots );
 			if ( spots == null )
 				ok = false;
 		}
@@ -188,7 +199,8 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 					continue;
 
 				// Process interval.
-				final List< Spot > spotsThisRoi = processInterval( intersect );
+				// Spots out of the Roi are removed below, so no cap here.
+				final List< Spot > spotsThisRoi = processInterval( intersect, -1 );
 				if ( spotsThisRoi == null )
 				{
 					ok = false;
@@ -206,6 +218,7 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 				}
 				spots.addAll( prunedSpots );
 			}
+			spots = DetectionUtils.keepBrightest( spots, maxSpots );
 		}
 
 		final long end = System.currentTimeMillis();
@@ -213,7 +226,7 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 		return ok;
 	}
 
-	private final List< Spot > processInterval( final Interval crop )
+	private final List< Spot > processInterval( final Interval crop, final int maxSpotsInCrop )
 	{
 		try
 		{
@@ -230,7 +243,7 @@ public class HessianDetector< T extends RealType< T > & NativeType< T > > implem
 			final IntervalView< FloatType > to = Views.translate( det, minopposite );
 
 			// Find spots.
-			return DetectionUtils.findLocalMaxima( to, threshold, calibration, radiusXY, doSubPixelLocalization, nTasks );
+			return DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( to ), to, Math.max( threshold, DetectionUtils.thresholdForMinQuality( minQuality ) ), calibration, radiusXY, doSubPixelLocalization, maxSpotsInCrop, nTasks );
 		}
 		catch ( final IncompatibleTypeException | InterruptedException | ExecutionException e )
 		{
@@ -0,0 +1,51 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+/**
+ * Interface for detectors that can apply the initial spot filter themselves,
+ * while they detect.
+ * <p>
+ * The initial filter keeps the spots with a quality above a threshold, and
+ * possibly only the brightest ones in each frame. Detectors that implement
+ * this interface skip the maxima that would be discarded, before their
+ * position is refined and before a {@link fiji.plugin.trackmate.Spot} is
+ * created for them. The detection results are the same as if the filter was
+ * applied after detection.
+ */
+public interface InitialSpotFilterable
+{
+
+	/**
+	 * Sets the initial spot filter to apply during detection.
+	 *
+	 * @param minQuality
+	 *            the minimal quality of the spots to keep. Use
+	 *            {@link Double#NEGATIVE_INFINITY} to keep all the spots found
+	 *            above the detector threshold.
+	 * @param maxSpots
+	 *            the maximal number of spots to keep in a frame, the ones
+	 *            with the highest quality. If 0 or negative, all the spots
+	 *            above the minimal quality are kept.
+	 */
+	public void setInitialSpotFilter( double minQuality, int maxSpots );
+}
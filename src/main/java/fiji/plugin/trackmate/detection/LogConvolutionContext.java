@@ -0,0 +1,230 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.fft2.FFTMethods;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Holds what can be reused between the LoG convolutions of all the frames of
+ * a movie: the Fourier transform of the LoG kernel, and the complex buffers
+ * the frames are transformed into.
+ * <p>
+ * A context is only valid for images of the dimensions, spot radius and
+ * calibration it was created with, see
+ * {@link #matches(Dimensions, double, double[])}. It can be used by several
+ * threads at once. The kernel transform is computed on first use. Each thread
+ * borrows a buffer for the duration of a convolution; buffers that are not in
+ * use are only softly referenced, so that they can be reclaimed if memory runs
+ * low.
+ * <p>
+ * The result is identical to that of the
+ * {@link net.imglib2.algorithm.fft2.FFTConvolution} used by
+ * {@link LogDetector} otherwise: the image is extended by mirroring and padded
+ * to a size suited to the FFT.
+ */
+public class LogConvolutionContext
+{
+
+	private final long[] dimensions;
+
+	private final double radius;
+
+	private final double[] calibration;
+
+	private final Img< FloatType > kernel;
+
+	private final long[] paddedDimensions;
+
+	private final long[] fftDimensions;
+
+	private final ImgFactory< ComplexFloatType > fftFactory;
+
+	private final ConcurrentLinkedQueue< SoftReference< Img< ComplexFloatType > > > buffers = new ConcurrentLinkedQueue<>();
+
+	private Img< ComplexFloatType > kernelFFT;
+
+	/**
+	 * Creates a context for the LoG filtering of images.
+	 *
+	 * @param dimensions
+	 *            the dimensions of the images to filter, without singleton
+	 *            dimensions.
+	 * @param radius
+	 *            the radius of the spots to detect, in physical units.
+	 * @param calibration
+	 *            the pixel sizes.
+	 */
+	public LogConvolutionContext( final Dimensions dimensions, final double radius, final double[] calibration )
+	{
+		this.dimensions = dimensions.dimensionsAsLongArray();
+		this.radius = radius;
+		this.calibration = calibration.clone();
+		this.kernel = DetectionUtils.createLoGKernel( radius, this.dimensions.length, calibration );
+
+		/*
+		 * Same padding as FFTConvolution: extend by the kernel size, then pick
+		 * a size the FFT is fast for.
+		 */
+		final int n = this.dimensions.length;
+		final long[] extended = new long[ n ];
+		for ( int d = 0; d < n; d++ )
+			extended[ d ] = this.dimensions[ d ] + kernel.dimension( d ) - 1;
+		this.paddedDimensions = new long[ n ];
+		this.fftDimensions = new long[ n ];
+		FFTMethods.dimensionsRealToComplexFast( FinalDimensions.wrap( extended ), paddedDimensions, fftDimensions );
+		this.fftFactory = Util.getArrayOrCellImgFactory( FinalDimensions.wrap( fftDimensions ), new ComplexFloatType() );
+	}
+
+	/**
+	 * Returns <code>true</code> if this context can be used to filter an image
+	 * with the specified parameters.
+	 *
+	 * @param dims
+	 *            the image dimensions, without singleton dimensions.
+	 * @param radius
+	 *            the spot radius.
+	 * @param calibration
+	 *            the pixel sizes.
+	 * @return <code>true</code> if this context matches the parameters.
+	 */
+	public boolean matches( final Dimensions dims, final double radius, final double[] calibration )
+	{
+		return this.radius == radius
+				&& Arrays.equals( this.calibration, calibration )
+				&& Arrays.equals( dimensions, dims.dimensionsAsLongArray() );
+	}
+
+	/**
+	 * Convolves the specified image in place with the LoG kernel of this
+	 * context.
+	 *
+	 * @param img
+	 *            the image to filter. Its dimensions must match this context.
+	 * @param service
+	 *            the executor service to compute the FFTs with.
+	 */
+	public void convolve( final RandomAccessibleInterval< FloatType > img, final ExecutorService service )
+	{
+		final Img< ComplexFloatType > fftKernel = getKernelFFT( service );
+		final Img< ComplexFloatType > fftImg = borrowBuffer();
+		try
+		{
+			final Interval imgConvolutionInterval = FFTMethods.paddingIntervalCentered( img, FinalDimensions.wrap( paddedDimensions ) );
+			forward( Views.interval( Views.extendMirrorSingle( img ), imgConvolutionInterval ), fftImg, service );
+			LoopBuilder.setImages( fftImg, fftKernel ).forEachPixel( ( a, b ) -> a.mul( b ) );
+			for ( int d = fftImg.numDimensions() - 1; d > 0; --d )
+				FFTMethods.complexToComplex( fftImg, d, false, true, service );
+			FFTMethods.complexToRealUnpad( fftImg, img, 0, true, service );
+		}
+		finally
+		{
+			buffers.add( new SoftReference<>( fftImg ) );
+		}
+	}
+
+	private synchronized Img< ComplexFloatType > getKernelFFT( final ExecutorService service )
+	{
+		if ( kernelFFT == null )
+		{
+			/*
+			 * Wrap the kernel periodically in the padded domain so that its
+			 * center sits at the origin.
+			 */
+			final int n = kernel.numDimensions();
+			final Interval kernelConvolutionInterval = FFTMethods.paddingIntervalCentered( kernel, FinalDimensions.wrap( paddedDimensions ) );
+			final long[] min = new long[ n ];
+			final long[] max = new long[ n ];
+			for ( int d = 0; d < n; d++ )
+			{
+				min[ d ] = kernel.min( d ) + kernel.dimension( d ) / 2;
+				max[ d ] = min[ d ] + kernelConvolutionInterval.dimension( d ) - 1;
+			}
+			final RandomAccessibleInterval< FloatType > kernelInput = Views.interval(
+					Views.extendPeriodic( Views.interval( Views.extendZero( kernel ), kernelConvolutionInterval ) ),
+					new FinalInterval( min, max ) );
+			final Img< ComplexFloatType > fft = fftFactory.create( fftDimensions );
+			forward( kernelInput, fft, service );
+			kernelFFT = fft;
+		}
+		return kernelFFT;
+	}
+
+	private Img< ComplexFloatType > borrowBuffer()
+	{
+		SoftReference< Img< ComplexFloatType > > ref;
+		while ( ( ref = buffers.poll() ) != null )
+		{
+			final Img< ComplexFloatType > buffer = ref.get();
+			if ( buffer != null )
+				return buffer;
+		}
+		return fftFactory.create( fftDimensions );
+	}
+
+	/**
+	 * Forward FFT of a real input into a complex output that may hold data
+	 * from a previous transform: the first pass overwrites the whole output.
+	 */
+	private static void forward( final RandomAccessibleInterval< FloatType > input, final Img< ComplexFloatType > output, final ExecutorService service )
+	{
+		FFTMethods.realToComplex( input, output, 0, false, service );
+		for ( int d = 1; d < input.numDimensions(); ++d )
+			FFTMethods.complexToComplex( output, d, true, false, service );
+	}
+
+	/**
+	 * Returns the dimensions of the complex buffers of this context.
+	 *
+	 * @return a new array.
+	 */
+	public long[] getFFTDimensions()
+	{
+		return fftDimensions.clone();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + " [dims=" + Arrays.toString( dimensions )
+				+ ", radius=" + radius
+				+ ", calibration=" + Arrays.toString( calibration )
+				+ ", fft=" + Arrays.toString( fftDimensions )
+				+ "]";
+	}
+}
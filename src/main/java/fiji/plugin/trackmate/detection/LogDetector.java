@@ -41,7 +41,7 @@ import net.imglib2.util.Util;
 import net.imglib2.view.IntervalView;
 import net.imglib2.view.Views;
 
-public class LogDetector< T extends RealType< T > & NativeType< T > > implements SpotDetector< T >, MultiThreaded
+public class LogDetector< T extends RealType< T > & NativeType< T > > implements SpotDetector< T >, MultiThreaded, InitialSpotFilterable
 {
 
 	/*
@@ -77,6 +77,18 @@ public class LogDetector< T extends RealType< T > & NativeType< T > > implements
 
 	protected final double[] calibration;
 
+	/**
+	 * The convolution context shared with the detectors of other frames. Can
+	 * be <code>null</code>.
+	 */
+	protected LogConvolutionContext convolutionContext;
+
+	/** The minimal quality of the spots to keep. */
+	protected double minQuality = Double.NEGATIVE_INFINITY;
+
+	/** The maximal number of spots to keep. 0 or negative for no limit. */
+	protected int maxSpots = -1;
+
 	/*
 	 * CONSTRUCTORS
 	 */
@@ -98,6 +110,37 @@ public class LogDetector< T extends RealType< T > & NativeType< T > > implements
 	 * METHODS
 	 */
 
+	/**
+	 * Sets the convolution context to use for LoG filtering. The context is
+	 * only used if it matches the interval, radius and calibration of this
+	 * detector. Otherwise, or if it is <code>null</code>, the LoG kernel and
+	 * its transform are created for this detector alone.
+	 *
+	 * @param convolutionContext
+	 *            the convolution context. Can be <code>null</code>.
+	 */
+	public void setConvolutionContext( final LogConvolutionContext convolutionContext )
+	{
+		this.convolutionContext = convolutionContext;
+	}
+
+	@Override
+	public void setInitialSpotFilter( final double minQuality, final int maxSpots )
+	{
+		this.minQuality = minQuality;
+		this.maxSpots = maxSpots;
+	}
+
+	/**
+	 * Returns the threshold to use for the maxima search: the detector
+	 * threshold or the threshold that keeps the spots with the minimal
+	 * quality of the initial filter, whichever is larger.
+	 */
+	protected double getEffectiveThreshold()
+	{
+		return Math.max( threshold, DetectionUtils.thresholdForMinQuality( minQuality ) );
+	}
+
 	@Override
 	public boolean checkInput()
 	{
@@ -146,28 +189,33 @@ public class LogDetector< T extends RealType< T > & NativeType< T > > implements
 			if ( interval.dimension( d ) <= 1 )
 				ndims--;
 
-		final Img< FloatType > kernel = DetectionUtils.createLoGKernel( radius, ndims, calibration );
-		final FFTConvolution< FloatType > fftconv = new FFTConvolution<>( floatImg, kernel );
-
-		/*
-		 * Determine the right img factory for FFT calculation.
-		 */
-		Interval fftinterval = floatImg;
-		for ( int d = 0; d < kernel.numDimensions(); d++ )
-			fftinterval = Intervals.expand( fftinterval, kernel.dimension( d ), d );
-		final ImgFactory< ComplexFloatType > imgFactory = Util.getArrayOrCellImgFactory( fftinterval, new ComplexFloatType() );
-		fftconv.setFFTImgFactory( imgFactory );
-
 		final ExecutorService service = Threads.newFixedThreadPool( numThreads );
-		fftconv.setExecutorService( service );
-
-		fftconv.convolve();
+		if ( convolutionContext != null && convolutionContext.matches( floatImg, radius, calibration ) )
+		{
+			convolutionContext.convolve( floatImg, service );
+		}
+		else
+		{
+			final Img< FloatType > kernel = DetectionUtils.createLoGKernel( radius, ndims, calibration );
+			final FFTConvolution< FloatType > fftconv = new FFTConvolution<>( floatImg, kernel );
+
+			/*
+			 * Determine the right img factory for FFT calculation.
+			 */
+			Interval fftinterval = floatImg;
+			for ( int d = 0; d < kernel.numDimensions(); d++ )
+				fftinterval = Intervals.expand( fftinterval, kernel.dimension( d ), d );
+			final ImgFactory< ComplexFloatType > imgFactory = Util.getArrayOrCellImgFactory( fftinterval, new ComplexFloatType() );
+			fftconv.setFFTImgFactory( imgFactory );
+			fftconv.setExecutorService( service );
+			fftconv.convolve();
+		}
 		service.shutdown();
 
 		final long[] minopposite = new long[ interval.numDimensions() ];
 		interval.min( minopposite );
 		final IntervalView< FloatType > to = Views.translate( floatImg, minopposite );
-		spots = DetectionUtils.findLocalMaxima( to, threshold, calibration, radius, doSubPixelLocalization, numThreads );
+		spots = DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( to ), to, getEffectiveThreshold(), calibration, radius, doSubPixelLocalization, maxSpots, numThreads );
 
 		final long end = System.currentTimeMillis();
 		this.processingTime = end - start;
@@ -32,6 +32,9 @@ import static fiji.plugin.trackmate.util.cli.CommonTrackMateArguments.addSubpixe
 import static fiji.plugin.trackmate.util.cli.CommonTrackMateArguments.addTargetChannel;
 import static fiji.plugin.trackmate.util.cli.CommonTrackMateArguments.addThreshold;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.ImageIcon;
@@ -72,6 +75,13 @@ public class LogDetectorFactory< T extends RealType< T > & NativeType< T > > imp
 
 	public static final ImageIcon ICON = new ImageIcon( Icons.class.getResource( "images/LoG-icon-64px.png" ) );
 
+	/**
+	 * The LoG convolution contexts of the current detection run, shared by
+	 * the detectors of all frames, per image dimensions. Frames processed in
+	 * blocks have blocks of several sizes, each with its context.
+	 */
+	private final Map< List< Long >, LogConvolutionContext > convolutionContexts = new HashMap<>();
+
 	@Override
 	public SpotDetector< T > getDetector( final ImgPlus< T > img, final Map< String, Object > settings, final Interval interval, final int frame )
 	{
@@ -84,10 +94,52 @@ public class LogDetectorFactory< T extends RealType< T > & NativeType< T > > imp
 		final RandomAccessible< T > imFrame = DetectionUtils.prepareFrameImg( img, channel, frame );
 
 		final LogDetector< T > detector = new LogDetector<>( imFrame, interval, calibration, radius, threshold, doSubpixel, doMedian );
+		detector.setConvolutionContext( getConvolutionContext( interval, radius, calibration ) );
 		detector.setNumThreads( 1 );
 		return detector;
 	}
 
+	/**
+	 * Returns a LoG convolution context for the specified parameters. The
+	 * context is cached and reused as long as the parameters do not change,
+	 * so that the kernel transform and the FFT buffers are shared by all the
+	 * frames of a movie. The cache is emptied by
+	 * {@link #releaseConvolutionContexts()}.
+	 *
+	 * @param interval
+	 *            the interval to detect in.
+	 * @param radius
+	 *            the spot radius.
+	 * @param calibration
+	 *            the pixel sizes.
+	 * @return a convolution context.
+	 */
+	protected synchronized LogConvolutionContext getConvolutionContext( final Interval interval, final double radius, final double[] calibration )
+	{
+		final Interval squeezed = DetectionUtils.squeeze( interval );
+		final List< Long > key = new ArrayList<>( squeezed.numDimensions() );
+		for ( int d = 0; d < squeezed.numDimensions(); d++ )
+			key.add( squeezed.dimension( d ) );
+
+		LogConvolutionContext context = convolutionContexts.get( key );
+		if ( context == null || !context.matches( squeezed, radius, calibration ) )
+		{
+			context = new LogConvolutionContext( squeezed, radius, calibration );
+			convolutionContexts.put( key, context );
+		}
+		return context;
+	}
+
+	/**
+	 * Releases the LoG convolution contexts cached by this factory, and the
+	 * memory of their kernel transforms and FFT buffers. Called at the end of
+	 * a detection run.
+	 */
+	public synchronized void releaseConvolutionContexts()
+	{
+		convolutionContexts.clear();
+	}
+
 	@Override
 	public String getKey()
 	{
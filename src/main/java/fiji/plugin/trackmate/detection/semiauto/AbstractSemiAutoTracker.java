@@ -58,7 +58,8 @@ import net.imglib2.type.numeric.RealType;
  * center, then it is added to the model and linked with the first spot.
  * <p>
  * The process is then repeated, taking the newly found spot as a source for the
- * next neighborhood. The model is updated live for every spot found.
+ * next neighborhood. When several spots are selected, they are tracked
+ * together frame by frame, and the model is updated live after each frame.
  * <p>
  * The process halts when:
  * <ul>
@@ -143,6 +144,14 @@ public abstract class AbstractSemiAutoTracker< T extends RealType< T > & NativeT
 		this.nFrames = nFrames;
 	}
 
+	/**
+	 * Tracks all the spots in the selection. Seeds are advanced in lockstep,
+	 * frame by frame: all the seeds whose next frame is the earliest are
+	 * processed together, their neighborhood detections running in parallel,
+	 * then the spots found are added to the model in a single transaction.
+	 * The subclass is given a chance to prepare data shared by all the
+	 * detections of a frame with {@link #prepareFrame(int, int)}.
+	 */
 	@Override
 	public boolean process()
 	{
@@ -155,20 +164,79 @@ public abstract class AbstractSemiAutoTracker< T extends RealType< T > & NativeT
 		selectionModel.clearSelection();
 
 		ok = true;
-		final int nThreads = Math.min( numThreads, spots.size() );
-		final ExecutorService executors = Threads.newFixedThreadPool( nThreads );
-		final List< Future< ? > > futures = new ArrayList<>( spots.size() );
+		final List< Seed > seeds = new ArrayList<>( spots.size() );
 		for ( final Spot spot : spots )
-		{
-			final Future< ? > future = executors.submit( () -> processSpot( spot ) );
-			futures.add( future );
-		}
+			seeds.add( new Seed( spot ) );
+
+		final int nThreads = Math.max( 1, Math.min( numThreads, spots.size() ) );
+		final ExecutorService executors = Threads.newFixedThreadPool( nThreads );
 		try
 		{
-			for ( final Future< ? > future : futures )
-				future.get();
-
-			executors.shutdown();
+			while ( !seeds.isEmpty() )
+			{
+				// Seeds to advance in the earliest frame.
+				int frame = Integer.MAX_VALUE;
+				for ( final Seed seed : seeds )
+					frame = Math.min( frame, seed.nextFrame() );
+				final List< Seed > batch = new ArrayList<>();
+				for ( final Seed seed : seeds )
+					if ( seed.nextFrame() == frame )
+						batch.add( seed );
+
+				prepareFrame( frame, batch.size() );
+				try
+				{
+					final int f = frame;
+					final List< Future< Spot > > futures = new ArrayList<>( batch.size() );
+					for ( final Seed seed : batch )
+						futures.add( executors.submit( () -> findSuccessor( seed.spot, seed.initialSpot, f ) ) );
+
+					final Spot[] targets = new Spot[ batch.size() ];
+					for ( int i = 0; i < batch.size(); i++ )
+						targets[ i ] = futures.get( i ).get();
+
+					// Update model for all the seeds of this frame at once.
+					model.beginUpdate();
+					try
+					{
+						for ( int i = 0; i < batch.size(); i++ )
+						{
+							final Spot target = targets[ i ];
+							if ( target == null )
+								continue;
+							final Spot spot = batch.get( i ).spot;
+							model.addSpotTo( target, frame );
+							model.addEdge( spot, target, spot.squareDistanceTo( target ) );
+						}
+					}
+					finally
+					{
+						model.endUpdate();
+					}
+
+					// Loop.
+					for ( int i = 0; i < batch.size(); i++ )
+					{
+						final Seed seed = batch.get( i );
+						seed.nSpotProcessed++;
+						if ( targets[ i ] == null )
+						{
+							seeds.remove( seed );
+							continue;
+						}
+						seed.spot = targets[ i ];
+						if ( nFrames >= 1 && seed.nSpotProcessed >= nFrames )
+						{
+							logFinished( seed.nSpotProcessed, seed.initialSpot, seed.spot );
+							seeds.remove( seed );
+						}
+					}
+				}
+				finally
+				{
+					releaseFrame( frame );
+				}
+			}
 		}
 		catch ( InterruptedException | ExecutionException e )
 		{
@@ -176,6 +244,10 @@ public abstract class AbstractSemiAutoTracker< T extends RealType< T > & NativeT
 			errorMessage = e.getMessage();
 			e.printStackTrace();
 		}
+		finally
+		{
+			executors.shutdown();
+		}
 		return ok;
 	}
 
@@ -204,138 +276,191 @@ public abstract class AbstractSemiAutoTracker< T extends RealType< T > & NativeT
 
 		while ( nFrames < 1 || nSpotProcessed < nFrames )
 		{
-
 			nSpotProcessed++;
 
-			/*
-			 * Extract spot & features
-			 */
-
 			// We want to segment in the next frame.
 			final int frame = spot.getFeature( Spot.FRAME ).intValue() + 1;
-			final double radius = spot.getFeature( Spot.RADIUS );
-			final double quality = spot.getFeature( Spot.QUALITY );
-
-			/*
-			 * Get neighborhood
-			 */
-
-			final SearchRegion< T > sn = getNeighborhood( spot, frame );
-			if ( null == sn )
+			final Spot target = findSuccessor( spot, initialSpot, frame );
+			if ( target == null )
 				return;
 
-			final RandomAccessible< T > source = sn.source;
-			final Interval interval = sn.interval;
-			final AffineTransform3D transform = sn.transform;
-			final double[] calibration = sn.calibration;
-
 			/*
-			 * Detect spots
+			 * Update model
 			 */
 
-			final SpotDetector< T > detector = createDetector( source, interval, calibration, radius, quality * qualityThreshold );
-
-			if ( !detector.checkInput() || !detector.process() )
+			model.beginUpdate();
+			try
 			{
-				ok = false;
-				errorMessage = detector.getErrorMessage();
-				return;
+				model.addSpotTo( target, frame );
+				model.addEdge( spot, target, spot.squareDistanceTo( target ) );
 			}
-
-			/*
-			 * Get results
-			 */
-
-			final List< Spot > detectedSpots = detector.getResult();
-			if ( detectedSpots.isEmpty() )
+			finally
 			{
-				logger.log( "Spot: " + initialSpot + ": No suitable spot found.\n" );
-				return;
+				model.endUpdate();
 			}
 
 			/*
-			 * Translate spots
+			 * Loop
 			 */
 
-			final String[] features = new String[] { Spot.POSITION_X, Spot.POSITION_Y, Spot.POSITION_Z };
-			for ( final Spot ds : detectedSpots )
-			{
-				final double[] coords = new double[ 3 ];
-				ds.localize( coords );
-				final double[] target = new double[ 3 ];
-				transform.apply( coords, target );
-				for ( int i = 0; i < target.length; i++ )
-				{
-					ds.putFeature( features[ i ], target[ i ] );
-				}
-			}
+			spot = target;
+		}
 
-			// Sort then by ascending quality
-			Collections.sort( detectedSpots, Spot.featureComparator( Spot.QUALITY ) );
-			Collections.reverse( detectedSpots );
+		if ( nSpotProcessed > 0 )
+			logFinished( nSpotProcessed, initialSpot, spot );
+	}
 
-			boolean found = false;
-			Spot target = null;
-			for ( final Iterator< Spot > iterator = detectedSpots.iterator(); iterator.hasNext(); )
-			{
-				final Spot candidate = iterator.next();
-				if ( candidate.squareDistanceTo( spot ) < distanceTolerance * distanceTolerance * radius * radius )
-				{
-					found = true;
-					target = candidate;
-					break;
-				}
-			}
+	private void logFinished( final int nSpotProcessed, final Spot initialSpot, final Spot spot )
+	{
+		logger.log( "Finished semi-auto tracking after processing " + nSpotProcessed + " spots from " + initialSpot + " to " + spot + ".\n" );
+	}
 
-			if ( !found || target == null )
-			{
-				logger.log( "Spot: " + initialSpot + ": Suitable spot found, but outside the tolerance radius.\n" );
-				return;
-			}
+	/**
+	 * Investigates the neighborhood of a spot in the specified frame, and
+	 * returns the most likely successor of the spot, not yet added to the
+	 * model.
+	 *
+	 * @param spot
+	 *            the spot whose successor to find.
+	 * @param initialSpot
+	 *            the spot the tracking started from, for logging.
+	 * @param frame
+	 *            the frame to search in.
+	 * @return the successor, or <code>null</code> if none was found and the
+	 *         tracking of this spot must stop.
+	 */
+	private Spot findSuccessor( final Spot spot, final Spot initialSpot, final int frame )
+	{
+		/*
+		 * Extract spot & features
+		 */
 
-			/*
-			 * Default POSITION_T features. Concrete implementations MUST fix
-			 * this so that this feature represent a physical time.
-			 */
-			target.putFeature( Spot.POSITION_T, Double.valueOf( frame ) );
+		final double radius = spot.getFeature( Spot.RADIUS );
+		final double quality = spot.getFeature( Spot.QUALITY );
 
-			/*
-			 * Expose new spot
-			 */
+		/*
+		 * Get neighborhood
+		 */
 
-			exposeSpot( target, spot );
+		final SearchRegion< T > sn = getNeighborhood( spot, frame );
+		if ( null == sn )
+			return null;
 
-			/*
-			 * Update model
-			 */
+		final RandomAccessible< T > source = sn.source;
+		final Interval interval = sn.interval;
+		final AffineTransform3D transform = sn.transform;
+		final double[] calibration = sn.calibration;
 
-			// spot
-			target.putFeature( Spot.RADIUS, radius );
+		/*
+		 * Detect spots
+		 */
 
-			model.beginUpdate();
-			try
-			{
-				model.addSpotTo( target, frame );
-				model.addEdge( spot, target, spot.squareDistanceTo( target ) );
-			}
-			finally
+		final SpotDetector< T > detector = createDetector( source, interval, calibration, radius, quality * qualityThreshold );
+
+		if ( !detector.checkInput() || !detector.process() )
+		{
+			ok = false;
+			errorMessage = detector.getErrorMessage();
+			return null;
+		}
+
+		/*
+		 * Get results
+		 */
+
+		final List< Spot > detectedSpots = detector.getResult();
+		if ( detectedSpots.isEmpty() )
+		{
+			logger.log( "Spot: " + initialSpot + ": No suitable spot found.\n" );
+			return null;
+		}
+
+		/*
+		 * Translate spots
+		 */
+
+		final String[] features = new String[] { Spot.POSITION_X, Spot.POSITION_Y, Spot.POSITION_Z };
+		for ( final Spot ds : detectedSpots )
+		{
+			final double[] coords = new double[ 3 ];
+			ds.localize( coords );
+			final double[] target = new double[ 3 ];
+			transform.apply( coords, target );
+			for ( int i = 0; i < target.length; i++ )
 			{
-				model.endUpdate();
+				ds.putFeature( features[ i ], target[ i ] );
 			}
+		}
 
-			/*
-			 * Loop
-			 */
+		// Sort then by ascending quality
+		Collections.sort( detectedSpots, Spot.featureComparator( Spot.QUALITY ) );
+		Collections.reverse( detectedSpots );
 
-			spot = target;
+		boolean found = false;
+		Spot target = null;
+		for ( final Iterator< Spot > iterator = detectedSpots.iterator(); iterator.hasNext(); )
+		{
+			final Spot candidate = iterator.next();
+			if ( candidate.squareDistanceTo( spot ) < distanceTolerance * distanceTolerance * radius * radius )
+			{
+				found = true;
+				target = candidate;
+				break;
+			}
 		}
 
-		if ( nSpotProcessed > 0 )
+		if ( !found || target == null )
 		{
-			logger.log( "Finished semi-auto tracking after processing " + nSpotProcessed + " spots from " + initialSpot + " to " + spot + ".\n" );
+			logger.log( "Spot: " + initialSpot + ": Suitable spot found, but outside the tolerance radius.\n" );
+			return null;
 		}
+
+		/*
+		 * Default POSITION_T features. Concrete implementations MUST fix
+		 * this so that this feature represent a physical time.
+		 */
+		target.putFeature( Spot.POSITION_T, Double.valueOf( frame ) );
+
+		/*
+		 * Expose new spot
+		 */
+
+		exposeSpot( target, spot );
+
+		// spot
+		target.putFeature( Spot.RADIUS, radius );
+		return target;
 	}
 
+	/**
+	 * This method is a hook for subclassers. It is called by
+	 * {@link #process()} before the neighborhoods of the specified number of
+	 * spots are extracted in the specified frame, in parallel. Implementations
+	 * can use it to load the frame data once and share it between the
+	 * neighborhoods returned by {@link #getNeighborhood(Spot, int)}. Does
+	 * nothing by default.
+	 *
+	 * @param frame
+	 *            the frame about to be processed.
+	 * @param nSpots
+	 *            the number of spots whose neighborhood will be extracted in
+	 *            this frame.
+	 */
+	protected void prepareFrame( final int frame, final int nSpots )
+	{}
+
+	/**
+	 * This method is a hook for subclassers. It is called by
+	 * {@link #process()} when all the spots have been processed in the
+	 * specified frame, to release the data prepared by
+	 * {@link #prepareFrame(int, int)}. Does nothing by default.
+	 *
+	 * @param frame
+	 *            the frame just processed.
+	 */
+	protected void releaseFrame( final int frame )
+	{}
+
 	/**
 	 * This method is a hook for subclassers. It exposes the newly found spot
 	 * just before it is added to the {@link Model}. This method allows concrete
@@ -436,6 +561,30 @@ public abstract class AbstractSemiAutoTracker< T extends RealType< T > & NativeT
 		return numThreads;
 	}
 
+	/**
+	 * The state of the tracking started from one selected spot.
+	 */
+	private static final class Seed
+	{
+
+		private final Spot initialSpot;
+
+		private Spot spot;
+
+		private int nSpotProcessed = 0;
+
+		private Seed( final Spot initialSpot )
+		{
+			this.initialSpot = initialSpot;
+			this.spot = initialSpot;
+		}
+
+		private int nextFrame()
+		{
+			return spot.getFeature( Spot.FRAME ).intValue() + 1;
+		}
+	}
+
 	/**
 	 * A utility class made to return the information on a neighborhood
 	 * generated from a source around a {@link Spot}.
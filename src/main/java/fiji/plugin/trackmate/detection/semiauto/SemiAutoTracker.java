@@ -21,6 +21,9 @@
  */
 package fiji.plugin.trackmate.detection.semiauto;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.SelectionModel;
@@ -29,11 +32,15 @@ import fiji.plugin.trackmate.util.TMUtils;
 import ij.ImagePlus;
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
+import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
 import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
 import net.imglib2.view.Views;
 
 public class SemiAutoTracker< T extends RealType< T > & NativeType< T > > extends AbstractSemiAutoTracker< T >
@@ -45,6 +52,12 @@ public class SemiAutoTracker< T extends RealType< T > & NativeType< T > > extend
 
 	private final ImagePlus imp;
 
+	/**
+	 * Copies of the target channel of frames read from a virtual stack,
+	 * shared by the neighborhoods extracted in these frames.
+	 */
+	private final Map< Integer, RandomAccessibleInterval< T > > frameBuffers = new ConcurrentHashMap<>();
+
 	@SuppressWarnings( "unchecked" )
 	public SemiAutoTracker( final Model model, final SelectionModel selectionModel, final ImagePlus imp, final Logger logger )
 	{
@@ -72,7 +85,6 @@ public class SemiAutoTracker< T extends RealType< T > & NativeType< T > > extend
 		 */
 
 		final int tindex = img.dimensionIndex( Axes.TIME );
-		final int cindex = img.dimensionIndex( Axes.CHANNEL );
 		if ( frame >= img.dimension( tindex ) )
 		{
 			logger.log( "Spot: " + spot + ": No more time-points.\n" );
@@ -111,8 +123,6 @@ public class SemiAutoTracker< T extends RealType< T > & NativeType< T > > extend
 		 * Extract crop cube
 		 */
 
-		final int targetChannel = imp.getC() - 1;
-
 		final long width = img.dimension( 0 );
 		final long height = img.dimension( 1 );
 		final long x0 = Math.max( 0, x - r );
@@ -147,19 +157,57 @@ public class SemiAutoTracker< T extends RealType< T > & NativeType< T > > extend
 		final AffineTransform3D transform = new AffineTransform3D();
 
 		final SearchRegion< T > sn = new SearchRegion<>();
-		RandomAccessible< T > source = img;
+		final RandomAccessible< T > buffer = frameBuffers.get( frame );
+		sn.source = ( buffer != null ) ? buffer : frameSource( frame );
+		sn.transform = transform;
+		sn.interval = interval;
+		sn.calibration = cal;
+
+		return sn;
+	}
+
+	/**
+	 * Returns a view on the target channel of the specified frame.
+	 */
+	private RandomAccessibleInterval< T > frameSource( final int frame )
+	{
+		final int tindex = img.dimensionIndex( Axes.TIME );
+		final int cindex = img.dimensionIndex( Axes.CHANNEL );
+		final int targetChannel = imp.getC() - 1;
+		RandomAccessibleInterval< T > source = img;
 		if ( tindex >= 0 )
 			source = Views.hyperSlice( source, tindex, frame );
 
 		if ( cindex >= 0 )
 			source = Views.hyperSlice( source, cindex, targetChannel );
+		return source;
+	}
 
-		sn.source = source;
-		sn.transform = transform;
-		sn.interval = interval;
-		sn.calibration = cal;
+	/**
+	 * Reads the target channel of the frame once when it is in a virtual
+	 * stack and several neighborhoods are taken in it, so that the planes are
+	 * not read again for each of them.
+	 */
+	@Override
+	protected void prepareFrame( final int frame, final int nSpots )
+	{
+		final int tindex = img.dimensionIndex( Axes.TIME );
+		if ( nSpots < 2 || !imp.getStack().isVirtual() || frame < 0 || ( tindex >= 0 && frame >= img.dimension( tindex ) ) )
+			return;
+
+		final RandomAccessibleInterval< T > source = frameSource( frame );
+		final Img< T > copy = Util.getArrayOrCellImgFactory( source, img.firstElement() ).create( source );
+		final Cursor< T > in = Views.flatIterable( source ).cursor();
+		final Cursor< T > out = Views.flatIterable( copy ).cursor();
+		while ( in.hasNext() )
+			out.next().set( in.next() );
+		frameBuffers.put( frame, copy );
+	}
 
-		return sn;
+	@Override
+	protected void releaseFrame( final int frame )
+	{
+		frameBuffers.remove( frame );
 	}
 
 	@Override
@@ -28,6 +28,7 @@ import org.jgrapht.graph.DefaultWeightedEdge;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.ModelChangeEvent;
 import fiji.plugin.trackmate.ModelChangeListener;
+import fiji.plugin.trackmate.ModelDelta;
 import fiji.plugin.trackmate.Settings;
 import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.SpotCollection;
@@ -85,22 +86,18 @@ public class ModelFeatureUpdater implements ModelChangeListener, MultiThreaded
 		if ( event.getEventID() != ModelChangeEvent.MODEL_MODIFIED )
 			return;
 
+		final ModelDelta delta = event.getDelta();
+
 		// Build spot list
-		final ArrayList< Spot > spots = new ArrayList<>( event.getSpots().size() );
-		for ( final Spot spot : event.getSpots() )
-		{
-			if ( event.getSpotFlag( spot ) != ModelChangeEvent.FLAG_SPOT_REMOVED )
-				spots.add( spot );
-		}
+		final ArrayList< Spot > spots = new ArrayList<>( delta.nSpots() );
+		for ( final Spot spot : delta.spotsNotRemoved() )
+			spots.add( spot );
 		final SpotCollection sc = SpotCollection.fromCollection( spots );
 
 		// Build edge list
-		final ArrayList< DefaultWeightedEdge > edges = new ArrayList<>( event.getEdges().size() );
-		for ( final DefaultWeightedEdge edge : event.getEdges() )
-		{
-			if ( event.getEdgeFlag( edge ) != ModelChangeEvent.FLAG_EDGE_REMOVED )
-				edges.add( edge );
-		}
+		final ArrayList< DefaultWeightedEdge > edges = new ArrayList<>( delta.nEdges() );
+		for ( final DefaultWeightedEdge edge : delta.edgesNotRemoved() )
+			edges.add( edge );
 
 		// Update spot features
 		spotFeatureCalculator.computeSpotFeatures( sc, false );
@@ -109,7 +106,7 @@ public class ModelFeatureUpdater implements ModelChangeListener, MultiThreaded
 		edgeFeatureCalculator.computeEdgesFeatures( edges, false );
 
 		// Update track features
-		trackFeatureCalculator.computeTrackFeatures( event.getTrackUpdated(), false );
+		trackFeatureCalculator.computeTrackFeatures( delta.getTracksUpdated(), false );
 	}
 
 	/**
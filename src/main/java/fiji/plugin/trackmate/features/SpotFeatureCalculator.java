@@ -37,6 +37,7 @@ import fiji.plugin.trackmate.Dimension;
 import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.Settings;
+import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.SpotCollection;
 import fiji.plugin.trackmate.features.spot.SpotAnalyzer;
 import fiji.plugin.trackmate.features.spot.SpotAnalyzerFactoryBase;
@@ -106,8 +107,20 @@ public class SpotFeatureCalculator extends MultiThreadedBenchmarkAlgorithm imple
 	@Override
 	public boolean process()
 	{
-
 		// Declare what you do.
+		declareFeatures();
+
+		// Do it.
+		computeSpotFeaturesAgent( model.getSpots(), settings.getSpotAnalyzerFactories(), doLogIt );
+		return true;
+	}
+
+	/**
+	 * Declares the spot features configured in the {@link Settings} to the
+	 * feature model.
+	 */
+	public void declareFeatures()
+	{
 		for ( final SpotAnalyzerFactoryBase< ? > factory : settings.getSpotAnalyzerFactories() )
 		{
 			final Collection< String > features = factory.getFeatures();
@@ -117,10 +130,52 @@ public class SpotFeatureCalculator extends MultiThreadedBenchmarkAlgorithm imple
 			final Map< String, Boolean > isIntFeature = factory.getIsIntFeature();
 			model.getFeatureModel().declareSpotFeatures( features, featureNames, featureShortNames, featureDimensions, isIntFeature );
 		}
+	}
 
-		// Do it.
-		computeSpotFeaturesAgent( model.getSpots(), settings.getSpotAnalyzerFactories(), doLogIt );
-		return true;
+	/**
+	 * Calculates all the spot features configured in the {@link Settings}
+	 * object for the specified spots of a single frame, on the calling
+	 * thread. Features must have been declared with {@link #declareFeatures()}.
+	 *
+	 * @param frame
+	 *            the frame the spots belong to.
+	 * @param spots
+	 *            the spots to compute features for.
+	 * @param threadsPerFrame
+	 *            the number of threads analyzers can use.
+	 */
+	public void computeSpotFeatures( final int frame, final Iterable< Spot > spots, final int threadsPerFrame )
+	{
+		if ( settings.imp == null )
+			return;
+
+		@SuppressWarnings( "rawtypes" )
+		final ImgPlus img = TMUtils.rawWraps( settings.imp );
+		computeFrame( img, frame, spots, settings.getSpotAnalyzerFactories(), threadsPerFrame, () -> {} );
+	}
+
+	/**
+	 * Runs all the analyzers, for all channels, over the spots of a frame.
+	 */
+	@SuppressWarnings( { "rawtypes", "unchecked" } )
+	private void computeFrame( final ImgPlus img, final int frame, final Iterable< Spot > spots, final List< SpotAnalyzerFactoryBase< ? > > analyzerFactories, final int threadsPerFrame, final Runnable onAnalyzerDone )
+	{
+		for ( int channel = 0; channel < settings.imp.getNChannels(); channel++ )
+		{
+			for ( final SpotAnalyzerFactoryBase< ? > factory : analyzerFactories )
+			{
+				if ( isCanceled() )
+					return;
+
+				final SpotAnalyzer< ? > analyzer = factory.getAnalyzer( img, frame, channel );
+				// Fine-tune multithreading if we can.
+				if ( analyzer instanceof MultiThreaded )
+					( ( MultiThreaded ) analyzer ).setNumThreads( threadsPerFrame );
+
+				analyzer.process( spots );
+				onAnalyzerDone.run();
+			} // Finished looping over analyzers
+		} // Finished looping over channels
 	}
 
 	/**
@@ -201,27 +256,8 @@ public class SpotFeatureCalculator extends MultiThreadedBenchmarkAlgorithm imple
 				public Void call() throws Exception
 				{
 					final int frame = frameSet.get( index );
-
-					for ( int channel = 0; channel < settings.imp.getNChannels(); channel++ )
-					{
-						for ( final SpotAnalyzerFactoryBase< ? > factory : analyzerFactories )
-						{
-							if ( isCanceled() )
-								return null;
-
-
-							@SuppressWarnings( "unchecked" )
-							final SpotAnalyzer< ? > analyzer = factory.getAnalyzer( img, frame, channel );
-							// Fine-tune multithreading if we can.
-							if ( analyzer instanceof MultiThreaded )
-								( ( MultiThreaded ) analyzer ).setNumThreads( threadsPerFrame );
-
-							analyzer.process( toCompute.iterable( frame, false ) );
-
-							logger.setProgress( progress.incrementAndGet() / ( double ) workToDo );
-						} // Finished looping over analyzers
-					} // Finished looping over channels
-
+					computeFrame( img, frame, toCompute.iterable( frame, false ), analyzerFactories, threadsPerFrame,
+							() -> logger.setProgress( progress.incrementAndGet() / ( double ) workToDo ) );
 					return null;
 				}
 			};
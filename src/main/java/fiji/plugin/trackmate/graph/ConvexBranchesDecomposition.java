@@ -182,8 +182,6 @@ public class ConvexBranchesDecomposition implements Algorithm, Benchmark
 
 	private final TrackModel tm;
 
-	private final TimeDirectedNeighborIndex neighborIndex;
-
 	private final boolean forbidMiddleLinks;
 
 	private final boolean forbidGaps;
@@ -211,7 +209,6 @@ public class ConvexBranchesDecomposition implements Algorithm, Benchmark
 		this.forbidMiddleLinks = forbidMiddleLinks;
 		this.forbidGaps = forbidGaps;
 		this.tm = model.getTrackModel();
-		this.neighborIndex = tm.getDirectedNeighborIndex();
 	}
 
 	/**
@@ -263,9 +260,10 @@ public class ConvexBranchesDecomposition implements Algorithm, Benchmark
 		branchesPerTrack = new HashMap<>();
 		links = new ArrayList<>();
 		linksPerTrack = new HashMap<>();
+		final Map< Integer, TrackBranchDecomposition > decompositions = tm.getBranchDecompositions( trackIDs, forbidMiddleLinks, forbidGaps );
 		for ( final Integer trackID : trackIDs )
 		{
-			final TrackBranchDecomposition branchDecomposition = processTrack( trackID, tm, neighborIndex, forbidMiddleLinks, forbidGaps );
+			final TrackBranchDecomposition branchDecomposition = decompositions.get( trackID );
 
 			branchesPerTrack.put( trackID, branchDecomposition.branches );
 			linksPerTrack.put( trackID, branchDecomposition.links );
@@ -684,6 +682,24 @@ public class ConvexBranchesDecomposition implements Algorithm, Benchmark
 		 */
 		public Collection< List< Spot > > links;
 
+		private SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph;
+
+		/**
+		 * Returns the graph of the branches of this decomposition. It is built
+		 * with {@link ConvexBranchesDecomposition#buildBranchGraph(TrackBranchDecomposition)}
+		 * on the first call, and returned by subsequent calls. The graph must
+		 * therefore not be modified, and the branches and links of this
+		 * decomposition must not be changed after this call.
+		 *
+		 * @return the branch graph of this decomposition.
+		 */
+		public synchronized SimpleDirectedGraph< List< Spot >, DefaultEdge > getBranchGraph()
+		{
+			if ( branchGraph == null )
+				branchGraph = buildBranchGraph( this );
+			return branchGraph;
+		}
+
 		@Override
 		public String toString()
 		{
@@ -21,8 +21,10 @@
  */
 package fiji.plugin.trackmate.graph;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -414,6 +416,64 @@ public class GraphUtils
 		return widths;
 	}
 
+	/**
+	 * Computes the cumulative branch width of the spots of a single track, as
+	 * {@link #cumulativeBranchWidth(TrackModel)} does for all the tracks of a
+	 * model, but without copying the graph.
+	 *
+	 * @param model
+	 *            the track model.
+	 * @param trackID
+	 *            the ID of the track.
+	 * @param cache
+	 *            the neighbor index of the model.
+	 * @return a new map of the spots of the track to their cumulative branch
+	 *         width.
+	 */
+	public static final Map< Spot, Integer > cumulativeBranchWidth( final TrackModel model, final Integer trackID, final TimeDirectedNeighborIndex cache )
+	{
+		final Set< Spot > track = model.trackSpots( trackID );
+		final Map< Spot, Integer > widths = new HashMap<>( track.size() * 4 / 3 + 1 );
+		Spot first = null;
+		for ( final Spot spot : track )
+		{
+			widths.put( spot, cache.successorsOf( spot ).isEmpty() ? 1 : 0 );
+			if ( first == null && cache.predecessorsOf( spot ).isEmpty() )
+				first = spot;
+		}
+		if ( first == null )
+			return widths;
+
+		/*
+		 * Post-order traversal following edges from source to target, from the
+		 * first root, without recursion so that long tracks do not overflow
+		 * the stack.
+		 */
+		final Deque< Spot > stack = new ArrayDeque<>();
+		final Set< Spot > visited = new HashSet<>( widths.size() * 4 / 3 + 1 );
+		final Set< Spot > done = new HashSet<>( widths.size() * 4 / 3 + 1 );
+		stack.push( first );
+		while ( !stack.isEmpty() )
+		{
+			final Spot spot = stack.peek();
+			if ( visited.add( spot ) )
+			{
+				for ( final DefaultWeightedEdge edge : model.edgesOf( spot ) )
+					if ( model.getEdgeSource( edge ) == spot && !visited.contains( model.getEdgeTarget( edge ) ) )
+						stack.push( model.getEdgeTarget( edge ) );
+			}
+			else if ( done.add( stack.pop() ) )
+			{
+				int width = widths.get( spot );
+				for ( final DefaultWeightedEdge edge : model.edgesOf( spot ) )
+					if ( model.getEdgeSource( edge ) == spot )
+						width += widths.get( model.getEdgeTarget( edge ) );
+				widths.put( spot, width );
+			}
+		}
+		return widths;
+	}
+
 	private static char[] makeSpaces( final int width )
 	{
 		return makeChars( width, ' ' );
@@ -37,6 +37,7 @@ import fiji.plugin.trackmate.gui.wizard.WizardPanelDescriptor;
 import fiji.plugin.trackmate.gui.wizard.WizardSequence;
 import fiji.plugin.trackmate.io.IOUtils;
 import fiji.plugin.trackmate.io.TmXmlWriter;
+import fiji.plugin.trackmate.metrics.TrackMateMetrics;
 import fiji.plugin.trackmate.util.TMUtils;
 
 public class SaveDescriptor extends WizardPanelDescriptor
@@ -117,5 +118,18 @@ public class SaveDescriptor extends WizardPanelDescriptor
 			logger.error( "Input/Output error:\n" + e.getMessage() + '\n' );
 			return;
 		}
+
+		if ( !trackmate.getMetrics().isEmpty() )
+		{
+			final File metricsFile = TrackMateMetrics.fileFor( file );
+			try
+			{
+				trackmate.getMetrics().write( metricsFile );
+			}
+			catch ( final IOException e )
+			{
+				logger.log( "Could not save metrics to " + metricsFile + ":\n" + e.getMessage() + '\n', Logger.ERROR_COLOR );
+			}
+		}
 	}
 }
@@ -0,0 +1,422 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fiji.plugin.trackmate.Dimension;
+import fiji.plugin.trackmate.FeatureModel;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
+import fiji.plugin.trackmate.io.ArrowFileWriter.Column;
+import fiji.plugin.trackmate.io.ArrowFileWriter.Type;
+import fiji.plugin.trackmate.util.TMUtils;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Exports the spot, edge and track feature tables of a model to Apache Arrow
+ * IPC files (Feather V2).
+ * <p>
+ * Contrary to CSV files, these files are typed and columnar, and can be
+ * memory-mapped by pandas, polars, pyarrow or Spark without parsing. Features
+ * declared as integers in the {@link FeatureModel} are stored as 32-bit
+ * integers, the others as 64-bit floats. Missing feature values are stored as
+ * nulls. Track names are dictionary-encoded. The feature name, short name,
+ * dimension and units are stored as metadata of each feature column.
+ * <p>
+ * The spot table has the columns <code>ID</code>, <code>LABEL</code>,
+ * <code>TRACK_ID</code>, <code>TRACK_NAME</code>, <code>TRACK_VISIBLE</code>,
+ * then one column per spot feature. The edge table has the columns
+ * <code>LABEL</code>, <code>TRACK_ID</code>, <code>TRACK_NAME</code> and the
+ * edge features. The track table has the columns <code>TRACK_NAME</code> and
+ * the track features.
+ */
+public class ArrowExporter
+{
+
+	/**
+	 * File extension used for the files written by this exporter.
+	 */
+	public static final String EXTENSION = ".arrow";
+
+	/**
+	 * Number of rows per record batch.
+	 */
+	private static final int BATCH_SIZE = 1 << 16;
+
+	/**
+	 * Exports the spot, edge and track tables of the specified model to 3
+	 * files named <code>basePath_spots.arrow</code>,
+	 * <code>basePath_edges.arrow</code> and <code>basePath_tracks.arrow</code>.
+	 *
+	 * @param basePath
+	 *            the path to use as prefix for the 3 files.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the visible tracks and the spots
+	 *            and edges they contain are exported.
+	 * @return the 3 files written.
+	 * @throws IOException
+	 *             if something wrong happens while writing the files.
+	 */
+	public static File[] export( final String basePath, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		final File spotFile = new File( basePath + "_spots" + EXTENSION );
+		final File edgeFile = new File( basePath + "_edges" + EXTENSION );
+		final File trackFile = new File( basePath + "_tracks" + EXTENSION );
+		exportSpots( spotFile, model, visibleOnly );
+		exportEdges( edgeFile, model, visibleOnly );
+		exportTracks( trackFile, model, visibleOnly );
+		return new File[] { spotFile, edgeFile, trackFile };
+	}
+
+	/**
+	 * Exports the spots of the specified model. Spots in tracks come first,
+	 * track by track and sorted by frame, followed by the spots not in any
+	 * track if <code>visibleOnly</code> is <code>false</code>.
+	 *
+	 * @param file
+	 *            the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the spots in visible tracks will be
+	 *            exported. Otherwise all spots are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing the file.
+	 */
+	public static void exportSpots( final File file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		final TrackModel tm = model.getTrackModel();
+		final FeatureModel fm = model.getFeatureModel();
+
+		final Tracks tracks = new Tracks( tm, visibleOnly );
+		final List< Spot > spots = new ArrayList<>();
+		final TIntArrayList spotTracks = new TIntArrayList();
+		for ( int t = 0; t < tracks.ids.length; t++ )
+		{
+			final List< Spot > trackSpots = new ArrayList<>( tm.trackSpots( tracks.ids[ t ] ) );
+			trackSpots.sort( Spot.frameComparator );
+			spots.addAll( trackSpots );
+			for ( int i = 0; i < trackSpots.size(); i++ )
+				spotTracks.add( t );
+		}
+		if ( !visibleOnly )
+		{
+			for ( final Spot spot : model.getSpots().iterable( false ) )
+			{
+				if ( tm.trackIDOf( spot ) != null )
+					continue; // Already done above.
+				spots.add( spot );
+				spotTracks.add( -1 );
+			}
+		}
+
+		final List< Column > columns = new ArrayList<>();
+		columns.add( Column.of( "ID", Type.INT32, null ) );
+		columns.add( Column.of( "LABEL", Type.UTF8, null ) );
+		columns.add( Column.of( "TRACK_ID", Type.INT32, null ) );
+		columns.add( Column.dictionary( "TRACK_NAME", tracks.names, null ) );
+		columns.add( Column.of( "TRACK_VISIBLE", Type.BOOL, null ) );
+		final int nExtra = columns.size();
+		final Features features = new Features( model, fm.getSpotFeatures(), fm.getSpotFeatureNames(), fm.getSpotFeatureShortNames(),
+				fm.getSpotFeatureDimensions(), fm.getSpotFeatureIsInt() );
+		features.addColumns( columns );
+
+		try (final ArrowFileWriter writer = new ArrowFileWriter( file.toPath(), columns ))
+		{
+			final Batch batch = new Batch( columns, Math.min( spots.size(), BATCH_SIZE ) );
+			final int[] ids = ( int[] ) batch.values[ 0 ];
+			final String[] labels = ( String[] ) batch.values[ 1 ];
+			final int[] trackIDs = ( int[] ) batch.values[ 2 ];
+			final int[] trackNames = ( int[] ) batch.values[ 3 ];
+			final boolean[] trackVisible = ( boolean[] ) batch.values[ 4 ];
+
+			for ( int start = 0; start < spots.size(); start += BATCH_SIZE )
+			{
+				final int length = Math.min( BATCH_SIZE, spots.size() - start );
+				for ( int i = 0; i < length; i++ )
+				{
+					final Spot spot = spots.get( start + i );
+					final int t = spotTracks.get( start + i );
+					ids[ i ] = spot.ID();
+					labels[ i ] = spot.getName();
+					final boolean inTrack = t >= 0;
+					batch.validity[ 2 ][ i ] = inTrack;
+					batch.validity[ 3 ][ i ] = inTrack;
+					trackIDs[ i ] = inTrack ? tracks.ids[ t ] : 0;
+					trackNames[ i ] = inTrack ? t : 0;
+					trackVisible[ i ] = inTrack && tracks.visible[ t ];
+					features.fill( batch, nExtra, i, spot, Spot::getFeature );
+				}
+				writer.writeBatch( length, batch.values, batch.validity );
+			}
+		}
+	}
+
+	/**
+	 * Exports the edges of the specified model, track by track.
+	 *
+	 * @param file
+	 *            the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the edges in visible tracks will be
+	 *            exported. Otherwise all edges are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing the file.
+	 */
+	public static void exportEdges( final File file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		final TrackModel tm = model.getTrackModel();
+		final FeatureModel fm = model.getFeatureModel();
+
+		final Tracks tracks = new Tracks( tm, visibleOnly );
+		final List< DefaultWeightedEdge > edges = new ArrayList<>();
+		final TIntArrayList edgeTracks = new TIntArrayList();
+		for ( int t = 0; t < tracks.ids.length; t++ )
+		{
+			final Collection< DefaultWeightedEdge > trackEdges = tm.trackEdges( tracks.ids[ t ] );
+			edges.addAll( trackEdges );
+			for ( int i = 0; i < trackEdges.size(); i++ )
+				edgeTracks.add( t );
+		}
+
+		final List< Column > columns = new ArrayList<>();
+		columns.add( Column.of( "LABEL", Type.UTF8, null ) );
+		columns.add( Column.of( "TRACK_ID", Type.INT32, null ) );
+		columns.add( Column.dictionary( "TRACK_NAME", tracks.names, null ) );
+		final int nExtra = columns.size();
+		final Features features = new Features( model, fm.getEdgeFeatures(), fm.getEdgeFeatureNames(), fm.getEdgeFeatureShortNames(),
+				fm.getEdgeFeatureDimensions(), fm.getEdgeFeatureIsInt() );
+		features.addColumns( columns );
+
+		try (final ArrowFileWriter writer = new ArrowFileWriter( file.toPath(), columns ))
+		{
+			final Batch batch = new Batch( columns, Math.min( edges.size(), BATCH_SIZE ) );
+			final String[] labels = ( String[] ) batch.values[ 0 ];
+			final int[] trackIDs = ( int[] ) batch.values[ 1 ];
+			final int[] trackNames = ( int[] ) batch.values[ 2 ];
+
+			for ( int start = 0; start < edges.size(); start += BATCH_SIZE )
+			{
+				final int length = Math.min( BATCH_SIZE, edges.size() - start );
+				for ( int i = 0; i < length; i++ )
+				{
+					final DefaultWeightedEdge edge = edges.get( start + i );
+					final int t = edgeTracks.get( start + i );
+					labels[ i ] = tm.getEdgeSource( edge ).getName() + " → " + tm.getEdgeTarget( edge ).getName();
+					trackIDs[ i ] = tracks.ids[ t ];
+					trackNames[ i ] = t;
+					features.fill( batch, nExtra, i, edge, fm::getEdgeFeature );
+				}
+				writer.writeBatch( length, batch.values, batch.validity );
+			}
+		}
+	}
+
+	/**
+	 * Exports the tracks of the specified model.
+	 *
+	 * @param file
+	 *            the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the visible tracks will be
+	 *            exported. Otherwise all tracks are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing the file.
+	 */
+	public static void exportTracks( final File file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		final FeatureModel fm = model.getFeatureModel();
+		final Tracks tracks = new Tracks( model.getTrackModel(), visibleOnly );
+
+		final List< Column > columns = new ArrayList<>();
+		columns.add( Column.dictionary( "TRACK_NAME", tracks.names, null ) );
+		final int nExtra = columns.size();
+		final Features features = new Features( model, fm.getTrackFeatures(), fm.getTrackFeatureNames(), fm.getTrackFeatureShortNames(),
+				fm.getTrackFeatureDimensions(), fm.getTrackFeatureIsInt() );
+		features.addColumns( columns );
+
+		try (final ArrowFileWriter writer = new ArrowFileWriter( file.toPath(), columns ))
+		{
+			final int nTracks = tracks.ids.length;
+			final Batch batch = new Batch( columns, Math.min( nTracks, BATCH_SIZE ) );
+			final int[] trackNames = ( int[] ) batch.values[ 0 ];
+
+			for ( int start = 0; start < nTracks; start += BATCH_SIZE )
+			{
+				final int length = Math.min( BATCH_SIZE, nTracks - start );
+				for ( int i = 0; i < length; i++ )
+				{
+					trackNames[ i ] = start + i;
+					features.fill( batch, nExtra, i, Integer.valueOf( tracks.ids[ start + i ] ), fm::getTrackFeature );
+				}
+				writer.writeBatch( length, batch.values, batch.validity );
+			}
+		}
+	}
+
+	/**
+	 * Reusable arrays holding the values of one record batch.
+	 */
+	private static final class Batch
+	{
+
+		private final Object[] values;
+
+		private final boolean[][] validity;
+
+		private Batch( final List< Column > columns, final int size )
+		{
+			this.values = new Object[ columns.size() ];
+			this.validity = new boolean[ columns.size() ][];
+			for ( int c = 0; c < columns.size(); c++ )
+			{
+				validity[ c ] = new boolean[ size ];
+				switch ( columns.get( c ).type() )
+				{
+				case INT32:
+				case DICTIONARY_UTF8:
+					values[ c ] = new int[ size ];
+					break;
+				case FLOAT64:
+					values[ c ] = new double[ size ];
+					break;
+				case BOOL:
+					values[ c ] = new boolean[ size ];
+					break;
+				case UTF8:
+					values[ c ] = new String[ size ];
+					break;
+				default:
+					throw new IllegalArgumentException( "Unsupported column type: " + columns.get( c ).type() );
+				}
+				Arrays.fill( validity[ c ], true );
+			}
+		}
+	}
+
+	/**
+	 * The feature columns of a table.
+	 */
+	private static final class Features
+	{
+
+		private final String[] keys;
+
+		private final boolean[] isInt;
+
+		private final List< Map< String, String > > metadata;
+
+		private Features(
+				final Model model,
+				final Collection< String > features,
+				final Map< String, String > names,
+				final Map< String, String > shortNames,
+				final Map< String, Dimension > dimensions,
+				final Map< String, Boolean > isInts )
+		{
+			this.keys = features.toArray( new String[ 0 ] );
+			this.isInt = new boolean[ keys.length ];
+			this.metadata = new ArrayList<>( keys.length );
+			for ( int i = 0; i < keys.length; i++ )
+			{
+				final String key = keys[ i ];
+				isInt[ i ] = isInts.getOrDefault( key, Boolean.FALSE );
+				final Dimension dimension = dimensions.get( key );
+				final Map< String, String > md = new LinkedHashMap<>();
+				md.put( "name", names.get( key ) );
+				md.put( "shortName", shortNames.get( key ) );
+				md.put( "dimension", dimension == null ? "" : dimension.name() );
+				md.put( "units", TMUtils.getUnitsFor( dimension, model.getSpaceUnits(), model.getTimeUnits() ) );
+				metadata.add( md );
+			}
+		}
+
+		private void addColumns( final List< Column > columns )
+		{
+			for ( int i = 0; i < keys.length; i++ )
+				columns.add( Column.of( keys[ i ], isInt[ i ] ? Type.INT32 : Type.FLOAT64, metadata.get( i ) ) );
+		}
+
+		private < O > void fill( final Batch batch, final int offset, final int row, final O obj, final BiFunction< O, String, Double > featureFun )
+		{
+			for ( int f = 0; f < keys.length; f++ )
+			{
+				final int c = offset + f;
+				final Double val = featureFun.apply( obj, keys[ f ] );
+				batch.validity[ c ][ row ] = val != null;
+				if ( isInt[ f ] )
+					( ( int[] ) batch.values[ c ] )[ row ] = val == null ? 0 : val.intValue();
+				else
+					( ( double[] ) batch.values[ c ] )[ row ] = val == null ? Double.NaN : val.doubleValue();
+			}
+		}
+	}
+
+	/**
+	 * Track IDs, names and visibility, stored by track index. The track names
+	 * are the dictionary of the track name columns.
+	 */
+	private static final class Tracks
+	{
+
+		private final int[] ids;
+
+		private final String[] names;
+
+		private final boolean[] visible;
+
+		private Tracks( final TrackModel tm, final boolean visibleOnly )
+		{
+			final Collection< Integer > trackIDs = tm.trackIDs( visibleOnly );
+			this.ids = new int[ trackIDs.size() ];
+			this.names = new String[ trackIDs.size() ];
+			this.visible = new boolean[ trackIDs.size() ];
+			int t = 0;
+			for ( final Integer trackID : trackIDs )
+			{
+				ids[ t ] = trackID.intValue();
+				final String name = tm.name( trackID );
+				names[ t ] = name == null ? "" : name;
+				visible[ t ] = tm.isVisible( trackID );
+				t++;
+			}
+		}
+	}
+}
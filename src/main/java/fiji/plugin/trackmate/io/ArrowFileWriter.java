@@ -0,0 +1,824 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for the Apache Arrow IPC file format (also known as Feather
+ * V2), supporting the column types needed to export TrackMate feature tables.
+ * <p>
+ * Files written by this class can be memory-mapped and read without parsing
+ * by pyarrow, pandas (<code>read_feather</code>), polars
+ * (<code>read_ipc</code>) and Spark. The writer supports:
+ * <ul>
+ * <li>nullable 32-bit signed integer, 64-bit float, boolean and UTF-8 string
+ * columns;
+ * <li>dictionary-encoded UTF-8 columns, with 32-bit indices;
+ * <li>per-column key-value metadata.
+ * </ul>
+ * Rows are appended in record batches with {@link #writeBatch(int, Object[],
+ * boolean[][])}. Compression is not supported.
+ * <p>
+ * The Arrow metadata are FlatBuffers. They are serialized by a small
+ * forward-writing serializer nested in this class, so that we do not depend
+ * on the Arrow Java library and its transitive dependencies.
+ *
+ * @see <a href="https://arrow.apache.org/docs/format/Columnar.html">Arrow
+ *      columnar format</a>
+ */
+class ArrowFileWriter implements Closeable
+{
+
+	/**
+	 * The column types supported by this writer.
+	 */
+	enum Type
+	{
+		/**
+		 * Values are given as <code>int[]</code>.
+		 */
+		INT32,
+		/**
+		 * Values are given as <code>double[]</code>.
+		 */
+		FLOAT64,
+		/**
+		 * Values are given as <code>boolean[]</code>.
+		 */
+		BOOL,
+		/**
+		 * Values are given as <code>String[]</code>, <code>null</code> for
+		 * missing values.
+		 */
+		UTF8,
+		/**
+		 * Values are given as <code>int[]</code>, indices in the dictionary of
+		 * the column.
+		 */
+		DICTIONARY_UTF8;
+	}
+
+	/**
+	 * Description of a column in the table written.
+	 */
+	static final class Column
+	{
+
+		private final String name;
+
+		private final Type type;
+
+		private final String[] dictionary;
+
+		private final Map< String, String > metadata;
+
+		private Column( final String name, final Type type, final String[] dictionary, final Map< String, String > metadata )
+		{
+			this.name = name;
+			this.type = type;
+			this.dictionary = dictionary;
+			this.metadata = metadata;
+		}
+
+		Type type()
+		{
+			return type;
+		}
+
+		static Column of( final String name, final Type type, final Map< String, String > metadata )
+		{
+			if ( type == Type.DICTIONARY_UTF8 )
+				throw new IllegalArgumentException( "Dictionary columns must be created with a dictionary." );
+			return new Column( name, type, null, metadata );
+		}
+
+		static Column dictionary( final String name, final String[] dictionary, final Map< String, String > metadata )
+		{
+			return new Column( name, Type.DICTIONARY_UTF8, dictionary, metadata );
+		}
+	}
+
+	private static final byte[] MAGIC = "ARROW1".getBytes( UTF_8 );
+
+	private static final int CONTINUATION = 0xFFFFFFFF;
+
+	/*
+	 * FlatBuffers enum and union values from the Arrow schema files.
+	 */
+
+	private static final short METADATA_V5 = 4;
+
+	private static final byte HEADER_SCHEMA = 1;
+
+	private static final byte HEADER_DICTIONARY_BATCH = 2;
+
+	private static final byte HEADER_RECORD_BATCH = 3;
+
+	private static final byte TYPE_INT = 2;
+
+	private static final byte TYPE_FLOATING_POINT = 3;
+
+	private static final byte TYPE_UTF8 = 5;
+
+	private static final byte TYPE_BOOL = 6;
+
+	private static final short PRECISION_DOUBLE = 2;
+
+	private final FileChannel channel;
+
+	private final List< Column > columns;
+
+	private final List< long[] > dictionaryBlocks = new ArrayList<>();
+
+	private final List< long[] > recordBatchBlocks = new ArrayList<>();
+
+	private long position;
+
+	/**
+	 * Creates a new file and writes the schema and the dictionaries of the
+	 * specified columns to it.
+	 *
+	 * @param path
+	 *            the file to write to. Overwritten if it exists.
+	 * @param columns
+	 *            the columns of the table.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	ArrowFileWriter( final Path path, final List< Column > columns ) throws IOException
+	{
+		this.columns = columns;
+		this.channel = FileChannel.open( path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE );
+		this.position = 0;
+
+		// Magic, padded to 8 bytes.
+		final ByteBuffer magic = ByteBuffer.allocate( 8 );
+		magic.put( MAGIC );
+		magic.rewind();
+		write( magic );
+
+		writeMessage( HEADER_SCHEMA, schema(), Collections.emptyList() );
+
+		for ( int c = 0; c < columns.size(); c++ )
+		{
+			final Column column = columns.get( c );
+			if ( column.type != Type.DICTIONARY_UTF8 )
+				continue;
+
+			final BatchBuilder batch = new BatchBuilder( column.dictionary.length );
+			batch.addColumn( Type.UTF8, column.dictionary, null );
+			final FbTable dictionaryBatch = new FbTable()
+					.addLong( 0, c )
+					.addRef( 1, batch.recordBatch() )
+					.addBool( 2, false );
+			dictionaryBlocks.add( writeMessage( HEADER_DICTIONARY_BATCH, dictionaryBatch, batch.buffers ) );
+		}
+	}
+
+	/**
+	 * Appends a record batch to the file.
+	 *
+	 * @param length
+	 *            the number of rows in the batch.
+	 * @param values
+	 *            the values of each column, as arrays whose type depends on the
+	 *            column type (see {@link Type}). Only the first
+	 *            <code>length</code> elements are written.
+	 * @param validity
+	 *            for each column, an array specifying whether each value is
+	 *            present (<code>true</code>) or missing. Can be
+	 *            <code>null</code> or contain <code>null</code> elements if
+	 *            all values are present.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	void writeBatch( final int length, final Object[] values, final boolean[][] validity ) throws IOException
+	{
+		final BatchBuilder batch = new BatchBuilder( length );
+		for ( int c = 0; c < columns.size(); c++ )
+			batch.addColumn( columns.get( c ).type, values[ c ], validity == null ? null : validity[ c ] );
+		recordBatchBlocks.add( writeMessage( HEADER_RECORD_BATCH, batch.recordBatch(), batch.buffers ) );
+	}
+
+	/**
+	 * Writes the footer and closes the file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			// End-of-stream marker.
+			final ByteBuffer eos = ByteBuffer.allocate( 8 ).order( ByteOrder.LITTLE_ENDIAN );
+			eos.putInt( CONTINUATION ).putInt( 0 );
+			eos.rewind();
+			write( eos );
+
+			final FbTable footer = new FbTable()
+					.addShort( 0, METADATA_V5 )
+					.addRef( 1, schema() )
+					.addRef( 2, blocks( dictionaryBlocks ) )
+					.addRef( 3, blocks( recordBatchBlocks ) );
+			final byte[] footerBytes = FbSerializer.serialize( footer );
+			write( ByteBuffer.wrap( footerBytes ) );
+
+			final ByteBuffer tail = ByteBuffer.allocate( 4 + MAGIC.length ).order( ByteOrder.LITTLE_ENDIAN );
+			tail.putInt( footerBytes.length ).put( MAGIC );
+			tail.rewind();
+			write( tail );
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/*
+	 * METADATA.
+	 */
+
+	private FbTable schema()
+	{
+		final List< FbTable > fields = new ArrayList<>( columns.size() );
+		for ( int c = 0; c < columns.size(); c++ )
+			fields.add( field( columns.get( c ), c ) );
+
+		return new FbTable()
+				.addShort( 0, ( short ) 0 ) // Little endian.
+				.addRef( 1, new FbTableVector( fields ) );
+	}
+
+	private static FbTable field( final Column column, final long dictionaryId )
+	{
+		final FbTable field = new FbTable()
+				.addRef( 0, new FbString( column.name ) )
+				.addBool( 1, true )
+				// Children are mandatory, even if empty.
+				.addRef( 5, new FbTableVector( Collections.emptyList() ) );
+
+		switch ( column.type )
+		{
+		case INT32:
+			field.addByte( 2, TYPE_INT ).addRef( 3, int32() );
+			break;
+		case FLOAT64:
+			field.addByte( 2, TYPE_FLOATING_POINT ).addRef( 3, new FbTable().addShort( 0, PRECISION_DOUBLE ) );
+			break;
+		case BOOL:
+			field.addByte( 2, TYPE_BOOL ).addRef( 3, new FbTable() );
+			break;
+		case UTF8:
+			field.addByte( 2, TYPE_UTF8 ).addRef( 3, new FbTable() );
+			break;
+		case DICTIONARY_UTF8:
+			// The field type is the type of the dictionary values.
+			field.addByte( 2, TYPE_UTF8 ).addRef( 3, new FbTable() );
+			final FbTable encoding = new FbTable()
+					.addLong( 0, dictionaryId )
+					.addRef( 1, int32() )
+					.addBool( 2, false );
+			field.addRef( 4, encoding );
+			break;
+		default:
+			throw new IllegalArgumentException( "Unsupported column type: " + column.type );
+		}
+
+		if ( column.metadata != null && !column.metadata.isEmpty() )
+		{
+			final List< FbTable > kvs = new ArrayList<>( column.metadata.size() );
+			for ( final Map.Entry< String, String > entry : column.metadata.entrySet() )
+				kvs.add( new FbTable()
+						.addRef( 0, new FbString( entry.getKey() ) )
+						.addRef( 1, new FbString( entry.getValue() == null ? "" : entry.getValue() ) ) );
+			field.addRef( 6, new FbTableVector( kvs ) );
+		}
+		return field;
+	}
+
+	private static FbTable int32()
+	{
+		return new FbTable()
+				.addInt( 0, 32 )
+				.addBool( 1, true );
+	}
+
+	/**
+	 * Vector of <code>Block</code> structs: offset (long), metadata length
+	 * (int), padding, body length (long).
+	 */
+	private static FbStructVector blocks( final List< long[] > blocks )
+	{
+		final ByteBuffer bb = ByteBuffer.allocate( 24 * blocks.size() ).order( ByteOrder.LITTLE_ENDIAN );
+		for ( final long[] block : blocks )
+		{
+			bb.putLong( block[ 0 ] );
+			bb.putInt( ( int ) block[ 1 ] );
+			bb.putInt( 0 );
+			bb.putLong( block[ 2 ] );
+		}
+		return new FbStructVector( bb.array(), blocks.size(), 8 );
+	}
+
+	/*
+	 * MESSAGES.
+	 */
+
+	/**
+	 * Writes an encapsulated message and returns its block: position in the
+	 * file, metadata length and body length.
+	 */
+	private long[] writeMessage( final byte headerType, final FbTable header, final List< ByteBuffer > body ) throws IOException
+	{
+		long bodyLength = 0;
+		for ( final ByteBuffer buffer : body )
+			bodyLength += padded( buffer.remaining() );
+
+		final FbTable message = new FbTable()
+				.addShort( 0, METADATA_V5 )
+				.addByte( 1, headerType )
+				.addRef( 2, header )
+				.addLong( 3, bodyLength );
+		final byte[] metadata = FbSerializer.serialize( message );
+
+		final long offset = position;
+		final ByteBuffer prefix = ByteBuffer.allocate( 8 ).order( ByteOrder.LITTLE_ENDIAN );
+		prefix.putInt( CONTINUATION ).putInt( metadata.length );
+		prefix.rewind();
+		write( prefix );
+		write( ByteBuffer.wrap( metadata ) );
+
+		final ByteBuffer padding = ByteBuffer.allocate( 8 );
+		for ( final ByteBuffer buffer : body )
+		{
+			final int length = buffer.remaining();
+			write( buffer );
+			padding.clear().limit( padded( length ) - length );
+			write( padding );
+		}
+		return new long[] { offset, 8 + metadata.length, bodyLength };
+	}
+
+	private void write( final ByteBuffer buffer ) throws IOException
+	{
+		while ( buffer.hasRemaining() )
+			position += channel.write( buffer );
+	}
+
+	private static int padded( final int length )
+	{
+		return ( length + 7 ) & ~7;
+	}
+
+	/**
+	 * Accumulates the field nodes and buffers of a record batch.
+	 */
+	private static final class BatchBuilder
+	{
+
+		private final int length;
+
+		private final List< ByteBuffer > buffers = new ArrayList<>();
+
+		/**
+		 * Length and null count of each column.
+		 */
+		private final List< long[] > nodes = new ArrayList<>();
+
+		private BatchBuilder( final int length )
+		{
+			this.length = length;
+		}
+
+		private void addColumn( final Type type, final Object values, final boolean[] validity )
+		{
+			// Validity bitmap, omitted if there are no missing values.
+			int nullCount = 0;
+			if ( validity != null )
+				for ( int i = 0; i < length; i++ )
+					if ( !validity[ i ] )
+						nullCount++;
+			if ( type == Type.UTF8 )
+			{
+				final String[] strs = ( String[] ) values;
+				for ( int i = 0; i < length; i++ )
+					if ( strs[ i ] == null && ( validity == null || validity[ i ] ) )
+						nullCount++;
+			}
+			nodes.add( new long[] { length, nullCount } );
+
+			if ( nullCount == 0 )
+			{
+				buffers.add( ByteBuffer.allocate( 0 ) );
+			}
+			else if ( type == Type.UTF8 )
+			{
+				final String[] strs = ( String[] ) values;
+				final boolean[] valid = new boolean[ length ];
+				for ( int i = 0; i < length; i++ )
+					valid[ i ] = strs[ i ] != null && ( validity == null || validity[ i ] );
+				buffers.add( bitmap( valid, length ) );
+			}
+			else
+			{
+				buffers.add( bitmap( validity, length ) );
+			}
+
+			switch ( type )
+			{
+			case INT32:
+			case DICTIONARY_UTF8:
+			{
+				final int[] ints = ( int[] ) values;
+				final ByteBuffer bb = ByteBuffer.allocate( 4 * length ).order( ByteOrder.LITTLE_ENDIAN );
+				bb.asIntBuffer().put( ints, 0, length );
+				buffers.add( bb );
+				break;
+			}
+			case FLOAT64:
+			{
+				final double[] doubles = ( double[] ) values;
+				final ByteBuffer bb = ByteBuffer.allocate( 8 * length ).order( ByteOrder.LITTLE_ENDIAN );
+				bb.asDoubleBuffer().put( doubles, 0, length );
+				buffers.add( bb );
+				break;
+			}
+			case BOOL:
+				buffers.add( bitmap( ( boolean[] ) values, length ) );
+				break;
+			case UTF8:
+			{
+				final String[] strs = ( String[] ) values;
+				final byte[][] bytes = new byte[ length ][];
+				int total = 0;
+				for ( int i = 0; i < length; i++ )
+				{
+					bytes[ i ] = strs[ i ] == null ? new byte[ 0 ] : strs[ i ].getBytes( UTF_8 );
+					total += bytes[ i ].length;
+				}
+				final ByteBuffer offsets = ByteBuffer.allocate( 4 * ( length + 1 ) ).order( ByteOrder.LITTLE_ENDIAN );
+				final ByteBuffer data = ByteBuffer.allocate( total );
+				int offset = 0;
+				offsets.putInt( offset );
+				for ( int i = 0; i < length; i++ )
+				{
+					data.put( bytes[ i ] );
+					offset += bytes[ i ].length;
+					offsets.putInt( offset );
+				}
+				offsets.rewind();
+				data.rewind();
+				buffers.add( offsets );
+				buffers.add( data );
+				break;
+			}
+			default:
+				throw new IllegalArgumentException( "Unsupported column type: " + type );
+			}
+		}
+
+		private FbTable recordBatch()
+		{
+			final ByteBuffer nodeBytes = ByteBuffer.allocate( 16 * nodes.size() ).order( ByteOrder.LITTLE_ENDIAN );
+			for ( final long[] node : nodes )
+				nodeBytes.putLong( node[ 0 ] ).putLong( node[ 1 ] );
+
+			final ByteBuffer bufferBytes = ByteBuffer.allocate( 16 * buffers.size() ).order( ByteOrder.LITTLE_ENDIAN );
+			long offset = 0;
+			for ( final ByteBuffer buffer : buffers )
+			{
+				bufferBytes.putLong( offset ).putLong( buffer.remaining() );
+				offset += padded( buffer.remaining() );
+			}
+
+			return new FbTable()
+					.addLong( 0, length )
+					.addRef( 1, new FbStructVector( nodeBytes.array(), nodes.size(), 8 ) )
+					.addRef( 2, new FbStructVector( bufferBytes.array(), buffers.size(), 8 ) );
+		}
+
+		private static ByteBuffer bitmap( final boolean[] bits, final int length )
+		{
+			final byte[] bytes = new byte[ ( length + 7 ) / 8 ];
+			for ( int i = 0; i < length; i++ )
+				if ( bits[ i ] )
+					bytes[ i >> 3 ] |= 1 << ( i & 7 );
+			return ByteBuffer.wrap( bytes );
+		}
+	}
+
+	/*
+	 * FLATBUFFERS.
+	 */
+
+	private static abstract class FbObject
+	{}
+
+	/**
+	 * A FlatBuffers table. Fields are identified by their slot index, in the
+	 * order of declaration in the schema. Union fields use 2 slots: the type
+	 * and the value.
+	 */
+	private static final class FbTable extends FbObject
+	{
+
+		private final List< Object > values = new ArrayList<>();
+
+		private final List< Integer > sizes = new ArrayList<>();
+
+		private FbTable set( final int slot, final Object value, final int size )
+		{
+			while ( values.size() <= slot )
+			{
+				values.add( null );
+				sizes.add( 0 );
+			}
+			values.set( slot, value );
+			sizes.set( slot, size );
+			return this;
+		}
+
+		private FbTable addBool( final int slot, final boolean value )
+		{
+			return set( slot, Long.valueOf( value ? 1 : 0 ), 1 );
+		}
+
+		private FbTable addByte( final int slot, final byte value )
+		{
+			return set( slot, Long.valueOf( value ), 1 );
+		}
+
+		private FbTable addShort( final int slot, final short value )
+		{
+			return set( slot, Long.valueOf( value ), 2 );
+		}
+
+		private FbTable addInt( final int slot, final int value )
+		{
+			return set( slot, Long.valueOf( value ), 4 );
+		}
+
+		private FbTable addLong( final int slot, final long value )
+		{
+			return set( slot, Long.valueOf( value ), 8 );
+		}
+
+		private FbTable addRef( final int slot, final FbObject value )
+		{
+			return set( slot, value, 4 );
+		}
+	}
+
+	private static final class FbString extends FbObject
+	{
+		private final byte[] bytes;
+
+		private FbString( final String str )
+		{
+			this.bytes = str.getBytes( UTF_8 );
+		}
+	}
+
+	private static final class FbTableVector extends FbObject
+	{
+		private final List< FbTable > tables;
+
+		private FbTableVector( final List< FbTable > tables )
+		{
+			this.tables = tables;
+		}
+	}
+
+	private static final class FbStructVector extends FbObject
+	{
+		private final byte[] bytes;
+
+		private final int count;
+
+		private final int alignment;
+
+		private FbStructVector( final byte[] bytes, final int count, final int alignment )
+		{
+			this.bytes = bytes;
+			this.count = count;
+			this.alignment = alignment;
+		}
+	}
+
+	/**
+	 * Serializes FlatBuffers objects front to back. Each object is written
+	 * before the objects it references, so that all the references (unsigned
+	 * offsets) point forward, as required by the format. The vtable of each
+	 * table is written just before the table.
+	 */
+	private static final class FbSerializer
+	{
+
+		private byte[] buf = new byte[ 256 ];
+
+		private int pos = 0;
+
+		static byte[] serialize( final FbTable root )
+		{
+			final FbSerializer s = new FbSerializer();
+			s.putInt( 0 ); // Root offset placeholder.
+			final int rootPos = s.writeTable( root );
+			s.setInt( 0, rootPos );
+			s.align( 8 );
+			return Arrays.copyOf( s.buf, s.pos );
+		}
+
+		private int writeObject( final FbObject obj )
+		{
+			if ( obj instanceof FbTable )
+				return writeTable( ( FbTable ) obj );
+			if ( obj instanceof FbString )
+				return writeString( ( FbString ) obj );
+			if ( obj instanceof FbTableVector )
+				return writeTableVector( ( FbTableVector ) obj );
+			if ( obj instanceof FbStructVector )
+				return writeStructVector( ( FbStructVector ) obj );
+			throw new IllegalArgumentException( "Unknown FlatBuffers object: " + obj );
+		}
+
+		private int writeTable( final FbTable table )
+		{
+			final int nSlots = table.values.size();
+
+			// Inline layout: soffset to vtable first, then largest fields.
+			final int[] offsets = new int[ nSlots ];
+			int cursor = 4;
+			int maxAlign = 4;
+			for ( int size = 8; size >= 1; size /= 2 )
+			{
+				for ( int i = 0; i < nSlots; i++ )
+				{
+					if ( table.values.get( i ) == null || table.sizes.get( i ) != size )
+						continue;
+					cursor = ( cursor + size - 1 ) & ~( size - 1 );
+					offsets[ i ] = cursor;
+					cursor += size;
+					maxAlign = Math.max( maxAlign, size );
+				}
+			}
+			final int inlineSize = ( cursor + maxAlign - 1 ) & ~( maxAlign - 1 );
+
+			// Vtable.
+			align( 2 );
+			final int vtablePos = pos;
+			putShort( 4 + 2 * nSlots );
+			putShort( inlineSize );
+			for ( int i = 0; i < nSlots; i++ )
+				putShort( offsets[ i ] );
+
+			// Table.
+			align( maxAlign );
+			final int tablePos = pos;
+			putInt( tablePos - vtablePos );
+			ensure( tablePos + inlineSize );
+			pos = tablePos + inlineSize;
+			for ( int i = 0; i < nSlots; i++ )
+			{
+				final Object value = table.values.get( i );
+				if ( value instanceof Long )
+					set( tablePos + offsets[ i ], ( ( Long ) value ).longValue(), table.sizes.get( i ) );
+			}
+
+			// Referenced objects, after the table.
+			for ( int i = 0; i < nSlots; i++ )
+			{
+				final Object value = table.values.get( i );
+				if ( value instanceof FbObject )
+				{
+					final int fieldPos = tablePos + offsets[ i ];
+					final int childPos = writeObject( ( FbObject ) value );
+					setInt( fieldPos, childPos - fieldPos );
+				}
+			}
+			return tablePos;
+		}
+
+		private int writeString( final FbString str )
+		{
+			align( 4 );
+			final int start = pos;
+			putInt( str.bytes.length );
+			putBytes( str.bytes );
+			putBytes( new byte[] { 0 } );
+			return start;
+		}
+
+		private int writeTableVector( final FbTableVector vector )
+		{
+			align( 4 );
+			final int start = pos;
+			final int n = vector.tables.size();
+			putInt( n );
+			final int elementsPos = pos;
+			for ( int i = 0; i < n; i++ )
+				putInt( 0 );
+			for ( int i = 0; i < n; i++ )
+			{
+				final int elementPos = elementsPos + 4 * i;
+				final int childPos = writeTable( vector.tables.get( i ) );
+				setInt( elementPos, childPos - elementPos );
+			}
+			return start;
+		}
+
+		private int writeStructVector( final FbStructVector vector )
+		{
+			// The elements, after the length, must be aligned.
+			align( 4 );
+			while ( ( pos + 4 ) % vector.alignment != 0 )
+				putBytes( new byte[ 4 ] );
+			final int start = pos;
+			putInt( vector.count );
+			putBytes( vector.bytes );
+			return start;
+		}
+
+		private void ensure( final int capacity )
+		{
+			if ( capacity > buf.length )
+				buf = Arrays.copyOf( buf, Math.max( capacity, 2 * buf.length ) );
+		}
+
+		private void align( final int alignment )
+		{
+			final int aligned = ( pos + alignment - 1 ) & ~( alignment - 1 );
+			ensure( aligned );
+			pos = aligned;
+		}
+
+		private void putBytes( final byte[] bytes )
+		{
+			ensure( pos + bytes.length );
+			System.arraycopy( bytes, 0, buf, pos, bytes.length );
+			pos += bytes.length;
+		}
+
+		private void putShort( final int value )
+		{
+			ensure( pos + 2 );
+			set( pos, value, 2 );
+			pos += 2;
+		}
+
+		private void putInt( final int value )
+		{
+			ensure( pos + 4 );
+			set( pos, value, 4 );
+			pos += 4;
+		}
+
+		private void setInt( final int at, final int value )
+		{
+			set( at, value, 4 );
+		}
+
+		/**
+		 * Little-endian write.
+		 */
+		private void set( final int at, final long value, final int size )
+		{
+			for ( int b = 0; b < size; b++ )
+				buf[ at + b ] = ( byte ) ( value >>> ( 8 * b ) );
+		}
+	}
+}
@@ -0,0 +1,705 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fiji.plugin.trackmate.Dimension;
+import fiji.plugin.trackmate.FeatureModel;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
+import fiji.plugin.trackmate.util.TMUtils;
+import fiji.plugin.trackmate.util.Threads;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Exports the spot, edge and track feature tables of a model to delimited
+ * text files (CSV or TSV, optionally gzipped), for large models.
+ * <p>
+ * Rows are formatted in parallel, in chunks, and the chunks are written in
+ * order to a file channel. The track each row belongs to is resolved once,
+ * when the rows are collected, and feature values are formatted without going
+ * through boxed intermediates or {@link String#format(String, Object...)}.
+ * <p>
+ * The table layout is the same as for the {@link CSVExporter}: a header of up
+ * to 4 lines (feature keys, names, short names and units), then one object per
+ * line. Missing values are written as {@link CSVExporter#MISSING_STR}. Text
+ * fields that contain the separator, quotes or line breaks are quoted.
+ */
+public class StreamingTableExporter
+{
+
+	/**
+	 * Number of rows formatted together by a single task.
+	 */
+	private static final int CHUNK_SIZE = 4096;
+
+	private static final String MISSING_STR = CSVExporter.MISSING_STR;
+
+	/**
+	 * Exports the spots of the specified model. The separator and compression
+	 * are determined from the file name: files ending in <code>.tsv</code> or
+	 * <code>.tsv.gz</code> are tab-separated, the others comma-separated, and
+	 * files ending in <code>.gz</code> are gzipped.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the spots in visible tracks will be
+	 *            exported. Otherwise all spots are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 * @see #exportSpots(String, Model, boolean, char, boolean, int)
+	 */
+	public static void exportSpots( final String file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		exportSpots( file, model, visibleOnly, separatorFor( file ), isGzip( file ), defaultNumThreads() );
+	}
+
+	/**
+	 * Exports the spots of the specified model.
+	 * <p>
+	 * The table contains one spot per line. Spots in tracks come first, track
+	 * by track and sorted by frame, followed by the spots not in any track if
+	 * <code>visibleOnly</code> is <code>false</code>. The first 5 columns
+	 * contain the spot ID, the spot name, the ID, name and visibility of the
+	 * track it belongs to. Then all the declared spot features follow, one
+	 * feature per column.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the spots in visible tracks will be
+	 *            exported. Otherwise all spots are exported.
+	 * @param separator
+	 *            the column separator.
+	 * @param gzip
+	 *            whether to compress the output with gzip.
+	 * @param numThreads
+	 *            how many threads to use to format the rows.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 */
+	public static void exportSpots(
+			final String file,
+			final Model model,
+			final boolean visibleOnly,
+			final char separator,
+			final boolean gzip,
+			final int numThreads ) throws IOException
+	{
+		final TrackModel tm = model.getTrackModel();
+		final FeatureModel fm = model.getFeatureModel();
+
+		/*
+		 * Collect rows, resolving the track of each spot once.
+		 */
+
+		final TrackColumns tracks = new TrackColumns( tm, visibleOnly, separator );
+		final List< Spot > spots = new ArrayList<>();
+		final TIntArrayList spotTracks = new TIntArrayList();
+		for ( int t = 0; t < tracks.ids.length; t++ )
+		{
+			final List< Spot > trackSpots = new ArrayList<>( tm.trackSpots( tracks.ids[ t ] ) );
+			trackSpots.sort( Spot.frameComparator );
+			spots.addAll( trackSpots );
+			for ( int i = 0; i < trackSpots.size(); i++ )
+				spotTracks.add( t );
+		}
+		if ( !visibleOnly )
+		{
+			for ( final Spot spot : model.getSpots().iterable( false ) )
+			{
+				if ( tm.trackIDOf( spot ) != null )
+					continue; // Already done above.
+				spots.add( spot );
+				spotTracks.add( -1 );
+			}
+		}
+
+		/*
+		 * Header.
+		 */
+
+		final String[] features = fm.getSpotFeatures().toArray( new String[ 0 ] );
+		final boolean[] isInt = isInt( features, fm.getSpotFeatureIsInt() );
+		final String[][] extraHeaders = new String[][] {
+				{ "ID", "ID", "ID", "" },
+				{ "LABEL", "Label", "Label", "" },
+				{ "TRACK_ID", "Track ID", "Track ID", "" },
+				{ "TRACK_NAME", "Track name", "Track name", "" },
+				{ "TRACK_VISIBLE", "Track visibility", "Track visibility", "" }
+		};
+		final String header = header( separator, features, fm.getSpotFeatureNames(), fm.getSpotFeatureShortNames(),
+				units( model, features, fm.getSpotFeatureDimensions() ), extraHeaders );
+
+		/*
+		 * Rows.
+		 */
+
+		final RowFormatter formatter = ( row, sb ) -> {
+			final Spot spot = spots.get( row );
+			final int t = spotTracks.get( row );
+			sb.append( spot.ID() ).append( separator );
+			appendText( sb, spot.getName(), separator );
+			sb.append( separator );
+			if ( t < 0 )
+			{
+				sb.append( MISSING_STR ).append( separator )
+						.append( MISSING_STR ).append( separator )
+						.append( '0' );
+			}
+			else
+			{
+				sb.append( tracks.ids[ t ] ).append( separator )
+						.append( tracks.names[ t ] ).append( separator )
+						.append( tracks.visible[ t ] ? '1' : '0' );
+			}
+			for ( int i = 0; i < features.length; i++ )
+			{
+				sb.append( separator );
+				appendValue( sb, spot.getFeature( features[ i ] ), isInt[ i ] );
+			}
+		};
+
+		write( Paths.get( file ), header, spots.size(), formatter, gzip, numThreads );
+	}
+
+	/**
+	 * Exports the edges of the specified model. The separator and compression
+	 * are determined from the file name, as for
+	 * {@link #exportSpots(String, Model, boolean)}.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the edges in visible tracks will be
+	 *            exported. Otherwise all edges are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 */
+	public static void exportEdges( final String file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		exportEdges( file, model, visibleOnly, separatorFor( file ), isGzip( file ), defaultNumThreads() );
+	}
+
+	/**
+	 * Exports the edges of the specified model.
+	 * <p>
+	 * The table contains one edge per line, track by track. The first 2
+	 * columns contain the edge label (source and target spot names) and the
+	 * ID of the track it belongs to. Then all the declared edge features
+	 * follow, one feature per column.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the edges in visible tracks will be
+	 *            exported. Otherwise all edges are exported.
+	 * @param separator
+	 *            the column separator.
+	 * @param gzip
+	 *            whether to compress the output with gzip.
+	 * @param numThreads
+	 *            how many threads to use to format the rows.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 */
+	public static void exportEdges(
+			final String file,
+			final Model model,
+			final boolean visibleOnly,
+			final char separator,
+			final boolean gzip,
+			final int numThreads ) throws IOException
+	{
+		final TrackModel tm = model.getTrackModel();
+		final FeatureModel fm = model.getFeatureModel();
+
+		final TrackColumns tracks = new TrackColumns( tm, visibleOnly, separator );
+		final List< DefaultWeightedEdge > edges = new ArrayList<>();
+		final TIntArrayList edgeTracks = new TIntArrayList();
+		for ( int t = 0; t < tracks.ids.length; t++ )
+		{
+			final Collection< DefaultWeightedEdge > trackEdges = tm.trackEdges( tracks.ids[ t ] );
+			edges.addAll( trackEdges );
+			for ( int i = 0; i < trackEdges.size(); i++ )
+				edgeTracks.add( t );
+		}
+
+		final String[] features = fm.getEdgeFeatures().toArray( new String[ 0 ] );
+		final boolean[] isInt = isInt( features, fm.getEdgeFeatureIsInt() );
+		final String[][] extraHeaders = new String[][] {
+				{ "LABEL", "Label", "Label", "" },
+				{ "TRACK_ID", "Track ID", "Track ID", "" }
+		};
+		final String header = header( separator, features, fm.getEdgeFeatureNames(), fm.getEdgeFeatureShortNames(),
+				units( model, features, fm.getEdgeFeatureDimensions() ), extraHeaders );
+
+		final RowFormatter formatter = ( row, sb ) -> {
+			final DefaultWeightedEdge edge = edges.get( row );
+			appendText( sb, tm.getEdgeSource( edge ).getName() + " → " + tm.getEdgeTarget( edge ).getName(), separator );
+			sb.append( separator ).append( tracks.ids[ edgeTracks.get( row ) ] );
+			for ( int i = 0; i < features.length; i++ )
+			{
+				sb.append( separator );
+				appendValue( sb, fm.getEdgeFeature( edge, features[ i ] ), isInt[ i ] );
+			}
+		};
+
+		write( Paths.get( file ), header, edges.size(), formatter, gzip, numThreads );
+	}
+
+	/**
+	 * Exports the tracks of the specified model. The separator and compression
+	 * are determined from the file name, as for
+	 * {@link #exportSpots(String, Model, boolean)}.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the visible tracks will be
+	 *            exported. Otherwise all tracks are exported.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 */
+	public static void exportTracks( final String file, final Model model, final boolean visibleOnly ) throws IOException
+	{
+		exportTracks( file, model, visibleOnly, separatorFor( file ), isGzip( file ), defaultNumThreads() );
+	}
+
+	/**
+	 * Exports the tracks of the specified model.
+	 * <p>
+	 * The table contains one track per line. The first column contains the
+	 * track name. Then all the declared track features follow, one feature per
+	 * column.
+	 *
+	 * @param file
+	 *            the path of the file to export to.
+	 * @param model
+	 *            the model to export.
+	 * @param visibleOnly
+	 *            if <code>true</code>, only the visible tracks will be
+	 *            exported. Otherwise all tracks are exported.
+	 * @param separator
+	 *            the column separator.
+	 * @param gzip
+	 *            whether to compress the output with gzip.
+	 * @param numThreads
+	 *            how many threads to use to format the rows.
+	 * @throws IOException
+	 *             if something wrong happens while writing to the file.
+	 */
+	public static void exportTracks(
+			final String file,
+			final Model model,
+			final boolean visibleOnly,
+			final char separator,
+			final boolean gzip,
+			final int numThreads ) throws IOException
+	{
+		final FeatureModel fm = model.getFeatureModel();
+		final TrackColumns tracks = new TrackColumns( model.getTrackModel(), visibleOnly, separator );
+
+		final String[] features = fm.getTrackFeatures().toArray( new String[ 0 ] );
+		final boolean[] isInt = isInt( features, fm.getTrackFeatureIsInt() );
+		final String[][] extraHeaders = new String[][] {
+				{ "LABEL", "Label", "Label", "" }
+		};
+		final String header = header( separator, features, fm.getTrackFeatureNames(), fm.getTrackFeatureShortNames(),
+				units( model, features, fm.getTrackFeatureDimensions() ), extraHeaders );
+
+		final RowFormatter formatter = ( row, sb ) -> {
+			final Integer trackID = Integer.valueOf( tracks.ids[ row ] );
+			sb.append( tracks.names[ row ] );
+			for ( int i = 0; i < features.length; i++ )
+			{
+				sb.append( separator );
+				appendValue( sb, fm.getTrackFeature( trackID, features[ i ] ), isInt[ i ] );
+			}
+		};
+
+		write( Paths.get( file ), header, tracks.ids.length, formatter, gzip, numThreads );
+	}
+
+	/*
+	 * WRITING.
+	 */
+
+	/**
+	 * Formats one row of a table, without the line end.
+	 */
+	@FunctionalInterface
+	private interface RowFormatter
+	{
+		void format( int row, StringBuilder sb );
+	}
+
+	private static void write(
+			final Path path,
+			final String header,
+			final int nRows,
+			final RowFormatter formatter,
+			final boolean gzip,
+			final int numThreads ) throws IOException
+	{
+		final int nThreads = Math.max( 1, numThreads );
+		final int nChunks = ( nRows + CHUNK_SIZE - 1 ) / CHUNK_SIZE;
+		// Bound the number of formatted chunks held in memory.
+		final int maxInFlight = 2 * nThreads;
+
+		final ExecutorService executor = Threads.newFixedThreadPool( nThreads );
+		try (final FileChannel channel = FileChannel.open( path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE );
+				final OutputStream out = gzip
+						? new GZIPOutputStream( Channels.newOutputStream( channel ), 1 << 16 )
+						: Channels.newOutputStream( channel ))
+		{
+			out.write( header.getBytes( UTF_8 ) );
+
+			final Deque< Future< byte[] > > inFlight = new ArrayDeque<>( maxInFlight );
+			int next = 0;
+			while ( next < nChunks || !inFlight.isEmpty() )
+			{
+				while ( next < nChunks && inFlight.size() < maxInFlight )
+				{
+					final int start = next * CHUNK_SIZE;
+					final int end = Math.min( nRows, start + CHUNK_SIZE );
+					inFlight.add( executor.submit( () -> formatChunk( formatter, start, end ) ) );
+					next++;
+				}
+				// Write chunks in order.
+				out.write( inFlight.poll().get() );
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException( "Export to " + path + " was interrupted.", e );
+		}
+		catch ( final ExecutionException e )
+		{
+			throw new IOException( "Problem formatting rows for " + path + ": " + e.getCause().getMessage(), e.getCause() );
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static byte[] formatChunk( final RowFormatter formatter, final int start, final int end )
+	{
+		final StringBuilder sb = new StringBuilder( 256 * ( end - start ) );
+		for ( int row = start; row < end; row++ )
+		{
+			formatter.format( row, sb );
+			sb.append( '\n' );
+		}
+		return sb.toString().getBytes( UTF_8 );
+	}
+
+	private static String header(
+			final char separator,
+			final String[] features,
+			final Map< String, String > featureNames,
+			final Map< String, String > featureShortNames,
+			final Map< String, String > featureUnits,
+			final String[][] extra )
+	{
+		/*
+		 * Determine whether we can skip 2nd or 3d line, if it's identical to
+		 * the 2nd one (happens when the names are repeated).
+		 */
+
+		boolean skipThirdLine = true;
+		boolean skipSecondLine = true;
+		for ( final String feature : features )
+		{
+			final String name = featureNames.get( feature );
+			final String shortName = featureShortNames.get( feature );
+			if ( !feature.equals( name ) )
+				skipSecondLine = false;
+			if ( name == null || !name.equals( shortName ) )
+				skipThirdLine = false;
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		headerLine( sb, separator, extra, 0, features, f -> f );
+		if ( !skipSecondLine )
+			headerLine( sb, separator, extra, 1, features, featureNames::get );
+		if ( !skipThirdLine )
+			headerLine( sb, separator, extra, 2, features, featureShortNames::get );
+		headerLine( sb, separator, extra, 3, features, f -> {
+			final String units = featureUnits.get( f );
+			return ( units == null || units.isEmpty() ) ? "" : "(" + units + ")";
+		} );
+		return sb.toString();
+	}
+
+	private static void headerLine(
+			final StringBuilder sb,
+			final char separator,
+			final String[][] extra,
+			final int line,
+			final String[] features,
+			final Function< String, String > fun )
+	{
+		for ( int i = 0; i < extra.length; i++ )
+		{
+			if ( i > 0 )
+				sb.append( separator );
+			appendText( sb, extra[ i ][ line ], separator );
+		}
+		for ( final String feature : features )
+		{
+			sb.append( separator );
+			appendText( sb, fun.apply( feature ), separator );
+		}
+		sb.append( '\n' );
+	}
+
+	private static Map< String, String > units( final Model model, final String[] features, final Map< String, Dimension > dimensions )
+	{
+		final Map< String, String > featureUnits = new HashMap<>();
+		for ( final String feature : features )
+			featureUnits.put( feature, TMUtils.getUnitsFor( dimensions.get( feature ), model.getSpaceUnits(), model.getTimeUnits() ) );
+		return featureUnits;
+	}
+
+	private static boolean[] isInt( final String[] features, final Map< String, Boolean > isIntMap )
+	{
+		final boolean[] isInt = new boolean[ features.length ];
+		for ( int i = 0; i < features.length; i++ )
+			isInt[ i ] = isIntMap.getOrDefault( features[ i ], Boolean.FALSE );
+		return isInt;
+	}
+
+	/**
+	 * Track IDs, names and visibility, stored by track index so that rows
+	 * only keep an int to their track.
+	 */
+	private static final class TrackColumns
+	{
+
+		private final int[] ids;
+
+		/**
+		 * Names, already escaped for the separator.
+		 */
+		private final String[] names;
+
+		private final boolean[] visible;
+
+		private TrackColumns( final TrackModel tm, final boolean visibleOnly, final char separator )
+		{
+			final Collection< Integer > trackIDs = tm.trackIDs( visibleOnly );
+			this.ids = new int[ trackIDs.size() ];
+			this.names = new String[ trackIDs.size() ];
+			this.visible = new boolean[ trackIDs.size() ];
+			int t = 0;
+			final StringBuilder sb = new StringBuilder();
+			for ( final Integer trackID : trackIDs )
+			{
+				ids[ t ] = trackID.intValue();
+				sb.setLength( 0 );
+				appendText( sb, tm.name( trackID ), separator );
+				names[ t ] = sb.toString();
+				visible[ t ] = tm.isVisible( trackID );
+				t++;
+			}
+		}
+	}
+
+	/*
+	 * FORMATTING.
+	 */
+
+	private static final double[] POW10 = new double[ 19 ];
+
+	private static final long[] LONG_POW10 = new long[ 19 ];
+	static
+	{
+		long p = 1L;
+		for ( int i = 0; i < POW10.length; i++ )
+		{
+			LONG_POW10[ i ] = p;
+			POW10[ i ] = p;
+			p *= 10L;
+		}
+	}
+
+	/**
+	 * Doubles up to this value are exactly representable as longs.
+	 */
+	private static final double MAX_EXACT = 9007199254740992.; // 2^53
+
+	static void appendValue( final StringBuilder sb, final Double val, final boolean isInt )
+	{
+		if ( val == null )
+			sb.append( MISSING_STR );
+		else if ( isInt )
+			sb.append( val.intValue() );
+		else
+			appendDouble( sb, val.doubleValue() );
+	}
+
+	/**
+	 * Appends a decimal representation of the specified double that parses
+	 * back to the exact same double.
+	 * <p>
+	 * For values in the range where plain decimal notation is used, we look
+	 * for the smallest number of fractional digits <code>k</code> such that
+	 * <code>round(v × 10^k) / 10^k == v</code>. Because both the mantissa and
+	 * the power of ten are exact doubles, and the division is correctly
+	 * rounded, this decimal is guaranteed to parse back to <code>v</code>.
+	 * Other values are delegated to {@link Double#toString(double)}.
+	 */
+	static void appendDouble( final StringBuilder sb, final double v )
+	{
+		final double a = Math.abs( v );
+		if ( a >= 1e-3 && a < 1e15 )
+		{
+			for ( int k = 0; k < POW10.length; k++ )
+			{
+				final double scaled = a * POW10[ k ];
+				if ( scaled >= MAX_EXACT )
+					break;
+
+				final long m = Math.round( scaled );
+				if ( m / POW10[ k ] == a )
+				{
+					if ( v < 0. )
+						sb.append( '-' );
+					appendDecimal( sb, m, k );
+					return;
+				}
+			}
+		}
+		// NaN, infinities, zero, very small or very large values.
+		sb.append( v );
+	}
+
+	private static void appendDecimal( final StringBuilder sb, final long m, final int k )
+	{
+		final long intPart = m / LONG_POW10[ k ];
+		final long fracPart = m - intPart * LONG_POW10[ k ];
+		sb.append( intPart ).append( '.' );
+		if ( k == 0 )
+		{
+			sb.append( '0' );
+			return;
+		}
+		// Leading zeros of the fractional part.
+		for ( int d = k - 1; d > 0 && fracPart < LONG_POW10[ d ]; d-- )
+			sb.append( '0' );
+		sb.append( fracPart );
+	}
+
+	/**
+	 * Appends a text field, quoting it if it contains the separator, a quote
+	 * or a line break.
+	 */
+	static void appendText( final StringBuilder sb, final String str, final char separator )
+	{
+		if ( str == null )
+		{
+			sb.append( MISSING_STR );
+			return;
+		}
+		boolean quote = false;
+		for ( int i = 0; i < str.length(); i++ )
+		{
+			final char c = str.charAt( i );
+			if ( c == separator || c == '"' || c == '\n' || c == '\r' )
+			{
+				quote = true;
+				break;
+			}
+		}
+		if ( !quote )
+		{
+			sb.append( str );
+			return;
+		}
+		sb.append( '"' );
+		for ( int i = 0; i < str.length(); i++ )
+		{
+			final char c = str.charAt( i );
+			if ( c == '"' )
+				sb.append( '"' );
+			sb.append( c );
+		}
+		sb.append( '"' );
+	}
+
+	private static char separatorFor( final String file )
+	{
+		final String lc = file.toLowerCase();
+		return ( lc.endsWith( ".tsv" ) || lc.endsWith( ".tsv.gz" ) ) ? '\t' : ',';
+	}
+
+	private static boolean isGzip( final String file )
+	{
+		return file.toLowerCase().endsWith( ".gz" );
+	}
+
+	private static int defaultNumThreads()
+	{
+		return Runtime.getRuntime().availableProcessors();
+	}
+}
@@ -0,0 +1,200 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the resources used by a stage, between its creation and the call
+ * to {@link #stop(int, int)}.
+ * <p>
+ * A probe can measure either the current thread only, or the whole JVM.
+ * Thread probes are exact even when several stages run concurrently, but miss
+ * the work done by other threads on behalf of the stage. Process probes see
+ * all the threads, but also count any unrelated activity happening in the
+ * JVM at the same time. {@link #start(String, int)} picks the thread scope
+ * for single-threaded stages and the process scope otherwise.
+ * <p>
+ * CPU time and allocated bytes rely on the HotSpot extensions of the
+ * management beans, and are reported as <code>-1</code> on JVMs that do not
+ * provide them.
+ */
+public class MetricsProbe
+{
+
+	private static final java.lang.management.ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	private static final java.lang.management.OperatingSystemMXBean OS_BEAN = ManagementFactory.getOperatingSystemMXBean();
+
+	private final String stage;
+
+	private final int nThreads;
+
+	private final boolean processWide;
+
+	private final long wallStart;
+
+	private final long cpuStart;
+
+	private final long allocStart;
+
+	private int frame = -1;
+
+	private MetricsProbe( final String stage, final int nThreads, final boolean processWide )
+	{
+		this.stage = stage;
+		this.nThreads = nThreads;
+		this.processWide = processWide;
+		this.cpuStart = cpuTime( processWide );
+		this.allocStart = allocatedBytes( processWide );
+		this.wallStart = System.nanoTime();
+	}
+
+	/**
+	 * Starts a probe measuring the current thread only.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @return a new probe.
+	 */
+	public static MetricsProbe startThread( final String stage )
+	{
+		return startThread( stage, 1 );
+	}
+
+	/**
+	 * Starts a probe measuring the current thread only, for a stage that may
+	 * itself use several threads. Only the work done on the current thread is
+	 * measured.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @param nThreads
+	 *            the number of threads the stage is allowed to use.
+	 * @return a new probe.
+	 */
+	public static MetricsProbe startThread( final String stage, final int nThreads )
+	{
+		return new MetricsProbe( stage, nThreads, false );
+	}
+
+	/**
+	 * Starts a probe measuring all the threads of the JVM.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @param nThreads
+	 *            the number of threads the stage is allowed to use.
+	 * @return a new probe.
+	 */
+	public static MetricsProbe startProcess( final String stage, final int nThreads )
+	{
+		return new MetricsProbe( stage, nThreads, true );
+	}
+
+	/**
+	 * Starts a thread probe if the stage uses 1 thread, a process probe
+	 * otherwise.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @param nThreads
+	 *            the number of threads the stage is allowed to use.
+	 * @return a new probe.
+	 */
+	public static MetricsProbe start( final String stage, final int nThreads )
+	{
+		return new MetricsProbe( stage, nThreads, nThreads > 1 );
+	}
+
+	/**
+	 * Sets the frame this stage operates on.
+	 *
+	 * @param frame
+	 *            the frame.
+	 * @return this probe.
+	 */
+	public MetricsProbe frame( final int frame )
+	{
+		this.frame = frame;
+		return this;
+	}
+
+	/**
+	 * Stops measuring, without spot or edge counts.
+	 *
+	 * @return the measured metrics.
+	 */
+	public StageMetrics stop()
+	{
+		return stop( -1, -1 );
+	}
+
+	/**
+	 * Stops measuring.
+	 *
+	 * @param nSpots
+	 *            the number of spots at the end of the stage, or
+	 *            <code>-1</code>.
+	 * @param nEdges
+	 *            the number of edges at the end of the stage, or
+	 *            <code>-1</code>.
+	 * @return the measured metrics.
+	 */
+	public StageMetrics stop( final int nSpots, final int nEdges )
+	{
+		final long wallTime = System.nanoTime() - wallStart;
+		final long cpuTime = delta( cpuStart, cpuTime( processWide ) );
+		final long allocatedBytes = delta( allocStart, allocatedBytes( processWide ) );
+		return new StageMetrics( stage, frame, wallTime, cpuTime, allocatedBytes, nSpots, nEdges, nThreads );
+	}
+
+	private static long delta( final long start, final long end )
+	{
+		return ( start < 0 || end < 0 ) ? -1 : Math.max( 0, end - start );
+	}
+
+	private static long cpuTime( final boolean processWide )
+	{
+		if ( processWide )
+		{
+			if ( OS_BEAN instanceof com.sun.management.OperatingSystemMXBean )
+				return ( ( com.sun.management.OperatingSystemMXBean ) OS_BEAN ).getProcessCpuTime();
+			return -1;
+		}
+		if ( !THREAD_BEAN.isCurrentThreadCpuTimeSupported() )
+			return -1;
+		return THREAD_BEAN.getCurrentThreadCpuTime();
+	}
+
+	private static long allocatedBytes( final boolean processWide )
+	{
+		if ( !( THREAD_BEAN instanceof com.sun.management.ThreadMXBean ) )
+			return -1;
+		final com.sun.management.ThreadMXBean bean = ( com.sun.management.ThreadMXBean ) THREAD_BEAN;
+		if ( !bean.isThreadAllocatedMemoryEnabled() )
+			return -1;
+		return processWide
+				? bean.getTotalThreadAllocatedMemoryBytes()
+				: bean.getCurrentThreadAllocatedBytes();
+	}
+}
@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.metrics;
+
+import java.util.List;
+
+/**
+ * Interface for algorithms that can report the metrics of their sub-phases
+ * after they ran, for instance the frame-to-frame linking and gap-closing
+ * steps of a tracker.
+ * <p>
+ * {@link fiji.plugin.trackmate.TrackMate} collects these metrics and prefixes
+ * their stage names with the name of the stage that ran the algorithm.
+ */
+public interface MetricsReporter
+{
+
+	/**
+	 * Returns the metrics of the sub-phases of the last run of this algorithm.
+	 * Stage names are relative to the algorithm.
+	 *
+	 * @return a list of metrics, possibly empty.
+	 */
+	public List< StageMetrics > getMetrics();
+}
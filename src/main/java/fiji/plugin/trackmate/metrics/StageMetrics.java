@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.metrics;
+
+import java.util.Collection;
+
+/**
+ * Immutable record of the resources used by one stage of a TrackMate run.
+ * <p>
+ * Stage names are hierarchical, with levels separated by a '/', for instance
+ * <code>tracking/frame-to-frame/lap-solve</code>. Values that could not be
+ * measured or that do not apply to a stage are set to <code>-1</code>.
+ */
+public final class StageMetrics
+{
+
+	private final String stage;
+
+	private final int frame;
+
+	private final long wallTime;
+
+	private final long cpuTime;
+
+	private final long allocatedBytes;
+
+	private final int nSpots;
+
+	private final int nEdges;
+
+	private final int nThreads;
+
+	/**
+	 * Creates a new stage record.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @param frame
+	 *            the frame the stage operated on, or <code>-1</code> if it
+	 *            operated on all frames.
+	 * @param wallTime
+	 *            the elapsed time, in nanoseconds.
+	 * @param cpuTime
+	 *            the CPU time, in nanoseconds.
+	 * @param allocatedBytes
+	 *            the number of bytes allocated on the heap.
+	 * @param nSpots
+	 *            the number of spots at the end of the stage.
+	 * @param nEdges
+	 *            the number of edges at the end of the stage.
+	 * @param nThreads
+	 *            the number of threads the stage was allowed to use.
+	 */
+	public StageMetrics( final String stage, final int frame, final long wallTime, final long cpuTime, final long allocatedBytes, final int nSpots, final int nEdges, final int nThreads )
+	{
+		this.stage = stage;
+		this.frame = frame;
+		this.wallTime = wallTime;
+		this.cpuTime = cpuTime;
+		this.allocatedBytes = allocatedBytes;
+		this.nSpots = nSpots;
+		this.nEdges = nEdges;
+		this.nThreads = nThreads;
+	}
+
+	public String getStage()
+	{
+		return stage;
+	}
+
+	public int getFrame()
+	{
+		return frame;
+	}
+
+	/**
+	 * Returns the elapsed time of this stage, in nanoseconds. For cumulated
+	 * stages (see {@link #cumulate(String, int, Collection)}) this is the sum
+	 * of the elapsed times of the parts, which can exceed the elapsed time of
+	 * the parent stage when the parts ran in parallel.
+	 *
+	 * @return the elapsed time in ns.
+	 */
+	public long getWallTime()
+	{
+		return wallTime;
+	}
+
+	/**
+	 * Returns the CPU time used by this stage, in nanoseconds, or
+	 * <code>-1</code> if the JVM cannot measure it.
+	 *
+	 * @return the CPU time in ns.
+	 */
+	public long getCpuTime()
+	{
+		return cpuTime;
+	}
+
+	/**
+	 * Returns the number of bytes allocated on the heap during this stage, or
+	 * <code>-1</code> if the JVM cannot measure it.
+	 *
+	 * @return the allocated bytes.
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes;
+	}
+
+	public int getNSpots()
+	{
+		return nSpots;
+	}
+
+	public int getNEdges()
+	{
+		return nEdges;
+	}
+
+	public int getNThreads()
+	{
+		return nThreads;
+	}
+
+	/**
+	 * Returns a copy of this record, with the specified prefix prepended to the
+	 * stage name.
+	 *
+	 * @param prefix
+	 *            the prefix, without the trailing '/'.
+	 * @return a new record.
+	 */
+	public StageMetrics withPrefix( final String prefix )
+	{
+		return new StageMetrics( prefix + '/' + stage, frame, wallTime, cpuTime, allocatedBytes, nSpots, nEdges, nThreads );
+	}
+
+	/**
+	 * Sums several records into one. Times and allocations are summed, as are
+	 * spot and edge counts. A value that is unavailable in one of the records
+	 * is unavailable in the sum.
+	 *
+	 * @param stage
+	 *            the name of the cumulated stage.
+	 * @param nThreads
+	 *            the number of threads the parts were distributed over.
+	 * @param parts
+	 *            the records to sum.
+	 * @return a new record.
+	 */
+	public static StageMetrics cumulate( final String stage, final int nThreads, final Collection< StageMetrics > parts )
+	{
+		long wallTime = 0;
+		long cpuTime = 0;
+		long allocatedBytes = 0;
+		long nSpots = 0;
+		long nEdges = 0;
+		for ( final StageMetrics part : parts )
+		{
+			wallTime += part.wallTime;
+			cpuTime = sum( cpuTime, part.cpuTime );
+			allocatedBytes = sum( allocatedBytes, part.allocatedBytes );
+			nSpots = sum( nSpots, part.nSpots );
+			nEdges = sum( nEdges, part.nEdges );
+		}
+		return new StageMetrics( stage, -1, wallTime, cpuTime, allocatedBytes, ( int ) nSpots, ( int ) nEdges, nThreads );
+	}
+
+	private static long sum( final long a, final long b )
+	{
+		return ( a < 0 || b < 0 ) ? -1 : a + b;
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder str = new StringBuilder( stage );
+		if ( frame >= 0 )
+			str.append( " [frame " ).append( frame ).append( ']' );
+		str.append( String.format( ": %.1f ms", wallTime / 1e6 ) );
+		if ( cpuTime >= 0 )
+			str.append( String.format( ", CPU %.1f ms", cpuTime / 1e6 ) );
+		if ( allocatedBytes >= 0 )
+			str.append( String.format( ", %.1f MB allocated", allocatedBytes / 1e6 ) );
+		if ( nSpots >= 0 )
+			str.append( ", " ).append( nSpots ).append( " spots" );
+		if ( nEdges >= 0 )
+			str.append( ", " ).append( nEdges ).append( " edges" );
+		if ( nThreads > 0 )
+			str.append( ", " ).append( nThreads ).append( nThreads > 1 ? " threads" : " thread" );
+		return str.toString();
+	}
+}
@@ -0,0 +1,279 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import fiji.plugin.trackmate.TrackMate;
+
+/**
+ * Collects the metrics of the stages of a TrackMate run.
+ * <p>
+ * Each stage of {@link TrackMate} adds one or more {@link StageMetrics} to
+ * this collection when it completes, with the stage names defined as
+ * constants in this class. Running a stage again replaces its previous
+ * metrics. The metrics can be read programmatically, or saved as a JSON file
+ * next to the TrackMate XML file, with {@link #fileFor(File)}.
+ * <p>
+ * This class is thread-safe.
+ */
+public class TrackMateMetrics
+{
+
+	public static final String DETECTION = "detection";
+
+	/** Per-frame detection, measured on the thread that ran the detector. */
+	public static final String DETECTION_FRAME = DETECTION + "/frame";
+
+	public static final String INITIAL_FILTERING = "initial-filtering";
+
+	public static final String SPOT_FEATURES = "spot-features";
+
+	/**
+	 * Detection, initial filtering and spot features run as a pipeline, frame
+	 * by frame.
+	 */
+	public static final String DETECTION_PIPELINE = "detection-pipeline";
+
+	public static final String SPOT_FILTERING = "spot-filtering";
+
+	public static final String TRACKING = "tracking";
+
+	public static final String EDGE_FEATURES = "edge-features";
+
+	public static final String TRACK_FEATURES = "track-features";
+
+	public static final String TRACK_FILTERING = "track-filtering";
+
+	/** Suffix of the metrics file saved next to a TrackMate XML file. */
+	public static final String FILE_SUFFIX = ".metrics.json";
+
+	private final List< StageMetrics > stages = new ArrayList<>();
+
+	/**
+	 * Adds a stage record.
+	 *
+	 * @param metrics
+	 *            the record to add.
+	 */
+	public synchronized void add( final StageMetrics metrics )
+	{
+		stages.add( metrics );
+	}
+
+	/**
+	 * Removes the records of the specified stage and of its sub-stages.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 */
+	public synchronized void clear( final String stage )
+	{
+		stages.removeIf( m -> isIn( m, stage ) );
+	}
+
+	/**
+	 * Removes all the records.
+	 */
+	public synchronized void clear()
+	{
+		stages.clear();
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return stages.isEmpty();
+	}
+
+	/**
+	 * Returns a copy of all the records, in the order they were added.
+	 *
+	 * @return a new list.
+	 */
+	public synchronized List< StageMetrics > getStages()
+	{
+		return new ArrayList<>( stages );
+	}
+
+	/**
+	 * Returns the records of the specified stage and of its sub-stages.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @return a new list.
+	 */
+	public synchronized List< StageMetrics > getStages( final String stage )
+	{
+		final List< StageMetrics > list = new ArrayList<>();
+		for ( final StageMetrics m : stages )
+			if ( isIn( m, stage ) )
+				list.add( m );
+		return list;
+	}
+
+	/**
+	 * Returns the record of the specified stage, that is the last one added
+	 * with exactly this name.
+	 *
+	 * @param stage
+	 *            the stage name.
+	 * @return the record, or <code>null</code> if there is none.
+	 */
+	public synchronized StageMetrics get( final String stage )
+	{
+		for ( int i = stages.size() - 1; i >= 0; i-- )
+			if ( stages.get( i ).getStage().equals( stage ) )
+				return stages.get( i );
+		return null;
+	}
+
+	private static boolean isIn( final StageMetrics m, final String stage )
+	{
+		final String name = m.getStage();
+		return name.equals( stage ) || name.startsWith( stage + '/' );
+	}
+
+	/**
+	 * Serializes the records to JSON. Times are in nanoseconds. Unavailable
+	 * values are written as <code>null</code>.
+	 *
+	 * @return a JSON string.
+	 */
+	public String toJson()
+	{
+		final StringBuilder str = new StringBuilder();
+		str.append( "{\n" );
+		str.append( "  \"version\": " );
+		appendString( str, TrackMate.PLUGIN_NAME_VERSION );
+		str.append( ",\n  \"stages\": [" );
+		final List< StageMetrics > list = getStages();
+		for ( int i = 0; i < list.size(); i++ )
+		{
+			final StageMetrics m = list.get( i );
+			str.append( i == 0 ? "\n" : ",\n" );
+			str.append( "    { \"stage\": " );
+			appendString( str, m.getStage() );
+			appendField( str, "frame", m.getFrame() );
+			appendField( str, "wallTime", m.getWallTime() );
+			appendField( str, "cpuTime", m.getCpuTime() );
+			appendField( str, "allocatedBytes", m.getAllocatedBytes() );
+			appendField( str, "nSpots", m.getNSpots() );
+			appendField( str, "nEdges", m.getNEdges() );
+			appendField( str, "nThreads", m.getNThreads() );
+			str.append( " }" );
+		}
+		str.append( list.isEmpty() ? "]\n}\n" : "\n  ]\n}\n" );
+		return str.toString();
+	}
+
+	private static void appendField( final StringBuilder str, final String name, final long value )
+	{
+		str.append( ", \"" ).append( name ).append( "\": " );
+		if ( value < 0 )
+			str.append( "null" );
+		else
+			str.append( value );
+	}
+
+	private static void appendString( final StringBuilder str, final String value )
+	{
+		if ( value == null )
+		{
+			str.append( "null" );
+			return;
+		}
+		str.append( '"' );
+		for ( int i = 0; i < value.length(); i++ )
+		{
+			final char c = value.charAt( i );
+			switch ( c )
+			{
+			case '"':
+				str.append( "\\\"" );
+				break;
+			case '\\':
+				str.append( "\\\\" );
+				break;
+			case '\n':
+				str.append( "\\n" );
+				break;
+			case '\t':
+				str.append( "\\t" );
+				break;
+			default:
+				if ( c < 0x20 )
+					str.append( String.format( "\\u%04x", ( int ) c ) );
+				else
+					str.append( c );
+			}
+		}
+		str.append( '"' );
+	}
+
+	/**
+	 * Writes the records as JSON to the specified file.
+	 *
+	 * @param file
+	 *            the file to write to.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public void write( final File file ) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter( file.toPath(), StandardCharsets.UTF_8 ))
+		{
+			writer.write( toJson() );
+		}
+	}
+
+	/**
+	 * Returns the file in which to save the metrics of a TrackMate session
+	 * saved in the specified XML file: <code>foo.xml</code> gives
+	 * <code>foo.metrics.json</code>.
+	 *
+	 * @param xmlFile
+	 *            the TrackMate XML file.
+	 * @return the metrics file.
+	 */
+	public static File fileFor( final File xmlFile )
+	{
+		final String name = xmlFile.getName();
+		final int dot = name.lastIndexOf( '.' );
+		final String base = dot > 0 ? name.substring( 0, dot ) : name;
+		return new File( xmlFile.getAbsoluteFile().getParentFile(), base + FILE_SUFFIX );
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder str = new StringBuilder();
+		for ( final StageMetrics m : getStages() )
+			str.append( m ).append( '\n' );
+		return str.toString();
+	}
+}
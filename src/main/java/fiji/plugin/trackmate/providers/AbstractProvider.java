@@ -22,72 +22,59 @@
 package fiji.plugin.trackmate.providers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import org.scijava.Context;
-import org.scijava.InstantiableException;
-import org.scijava.log.LogService;
-import org.scijava.plugin.PluginInfo;
-import org.scijava.plugin.PluginService;
+import java.util.concurrent.ConcurrentHashMap;
 
 import fiji.plugin.trackmate.TrackMateModule;
 import fiji.plugin.trackmate.util.TMUtils;
 
+/**
+ * Base class for the providers of TrackMate modules.
+ * <p>
+ * Plugin discovery is cached process-wide, so creating a provider is cheap.
+ * The module instances themselves are created lazily, the first time they are
+ * requested via {@link #getFactory(String)}, and are then kept by this
+ * provider instance.
+ *
+ * @param <K>
+ *            the type of modules provided.
+ */
 public abstract class AbstractProvider< K extends TrackMateModule >
 {
 	private final Class< K > cl;
 
+	private final ModuleRegistry.Modules< K > modules;
+
 	public AbstractProvider( final Class< K > cl )
 	{
 		this.cl = cl;
-		registerModules();
+		this.modules = ModuleRegistry.get( cl, TMUtils.getContext() );
+		this.keys = modules.keys;
+		this.visibleKeys = modules.visibleKeys;
+		this.disabled = modules.disabled;
+		this.implementations = new ConcurrentHashMap<>();
 	}
 
-	protected List< String > keys;
+	protected final List< String > keys;
 
-	protected List< String > visibleKeys;
+	protected final List< String > visibleKeys;
 
-	protected List< String > disabled;
+	protected final List< String > disabled;
 
-	protected Map< String, K > implementations;
+	/**
+	 * The module instances created so far by this provider.
+	 */
+	protected final Map< String, K > implementations;
 
-	private void registerModules()
+	/**
+	 * Discards the process-wide cache of discovered modules. Providers created
+	 * after this call will re-scan the available plugins. Useful when plugins
+	 * are added or removed at runtime.
+	 */
+	public static void clearCache()
 	{
-		final Context context = TMUtils.getContext();
-		final LogService log = context.getService( LogService.class );
-		final PluginService pluginService = context.getService( PluginService.class );
-		final List< PluginInfo< K > > infos = pluginService.getPluginsOfType( cl );
-
-		keys = new ArrayList<>( infos.size() );
-		visibleKeys = new ArrayList<>( infos.size() );
-		disabled = new ArrayList<>( infos.size() );
-		implementations = new HashMap<>();
-
-		for ( final PluginInfo< K > info : infos )
-		{
-			if ( !info.isEnabled() )
-			{
-				disabled.add( info.getClassName() );
-				continue;
-			}
-			try
-			{
-				final K implementation = info.createInstance();
-				final String key = implementation.getKey();
-
-				implementations.put( key, implementation );
-				keys.add( key );
-				if ( info.isVisible() )
-					visibleKeys.add( key );
-
-			}
-			catch ( final InstantiableException e )
-			{
-				log.error( "Could not instantiate " + info.getClassName(), e );
-			}
-		}
+		ModuleRegistry.clear();
 	}
 
 	public List< String > getKeys()
@@ -107,7 +94,9 @@ public abstract class AbstractProvider< K extends TrackMateModule >
 
 	public K getFactory( final String key )
 	{
-		return implementations.get( key );
+		if ( key == null )
+			return null;
+		return implementations.computeIfAbsent( key, modules::createInstance );
 	}
 
 	public String echo()
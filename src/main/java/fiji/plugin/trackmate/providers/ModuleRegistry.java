@@ -0,0 +1,183 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.providers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.scijava.Context;
+import org.scijava.InstantiableException;
+import org.scijava.log.LogService;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugin.PluginService;
+
+import fiji.plugin.trackmate.TrackMateModule;
+
+/**
+ * Process-wide cache of the TrackMate modules discovered by the
+ * {@link PluginService}.
+ * <p>
+ * The key of a module is only known once it has been instantiated, so the
+ * first discovery of a module type instantiates each plugin once to read its
+ * key. After that, only the {@link PluginInfo} metadata is retained, and
+ * providers create their own instances lazily on demand. Discovery results are
+ * kept per context and per module type, so re-creating providers (in the GUI,
+ * when reading files, in batch runs...) does not re-scan and re-instantiate
+ * every plugin.
+ */
+final class ModuleRegistry
+{
+
+	private static final Map< Class< ? >, Modules< ? > > CACHE = new ConcurrentHashMap<>();
+
+	private ModuleRegistry()
+	{}
+
+	/**
+	 * Returns the modules of the specified type discovered in the specified
+	 * context. Discovery is performed only the first time this method is
+	 * called for a type, or if the context changed since.
+	 */
+	@SuppressWarnings( "unchecked" )
+	static < K extends TrackMateModule > Modules< K > get( final Class< K > cl, final Context context )
+	{
+		final Modules< K > cached = ( Modules< K > ) CACHE.get( cl );
+		if ( cached != null && cached.context == context )
+			return cached;
+
+		synchronized ( CACHE )
+		{
+			final Modules< K > current = ( Modules< K > ) CACHE.get( cl );
+			if ( current != null && current.context == context )
+				return current;
+
+			final Modules< K > modules = discover( cl, context );
+			CACHE.put( cl, modules );
+			return modules;
+		}
+	}
+
+	/**
+	 * Discards all cached discovery results. The next provider created will
+	 * re-scan the plugins.
+	 */
+	static void clear()
+	{
+		CACHE.clear();
+	}
+
+	private static < K extends TrackMateModule > Modules< K > discover( final Class< K > cl, final Context context )
+	{
+		final LogService log = context.getService( LogService.class );
+		final PluginService pluginService = context.getService( PluginService.class );
+		final List< PluginInfo< K > > infos = pluginService.getPluginsOfType( cl );
+
+		final List< String > keys = new ArrayList<>( infos.size() );
+		final List< String > visibleKeys = new ArrayList<>( infos.size() );
+		final List< String > disabled = new ArrayList<>( infos.size() );
+		final Map< String, PluginInfo< K > > infoMap = new HashMap<>();
+
+		for ( final PluginInfo< K > info : infos )
+		{
+			if ( !info.isEnabled() )
+			{
+				disabled.add( info.getClassName() );
+				continue;
+			}
+			try
+			{
+				final K implementation = info.createInstance();
+				final String key = implementation.getKey();
+
+				infoMap.put( key, info );
+				keys.add( key );
+				if ( info.isVisible() )
+					visibleKeys.add( key );
+			}
+			catch ( final InstantiableException e )
+			{
+				log.error( "Could not instantiate " + info.getClassName(), e );
+			}
+		}
+		return new Modules<>( context, log, keys, visibleKeys, disabled, infoMap );
+	}
+
+	/**
+	 * Immutable discovery result for one module type.
+	 */
+	static final class Modules< K extends TrackMateModule >
+	{
+
+		private final Context context;
+
+		private final LogService log;
+
+		final List< String > keys;
+
+		final List< String > visibleKeys;
+
+		final List< String > disabled;
+
+		private final Map< String, PluginInfo< K > > infos;
+
+		private Modules(
+				final Context context,
+				final LogService log,
+				final List< String > keys,
+				final List< String > visibleKeys,
+				final List< String > disabled,
+				final Map< String, PluginInfo< K > > infos )
+		{
+			this.context = context;
+			this.log = log;
+			this.keys = Collections.unmodifiableList( keys );
+			this.visibleKeys = Collections.unmodifiableList( visibleKeys );
+			this.disabled = Collections.unmodifiableList( disabled );
+			this.infos = infos;
+		}
+
+		/**
+		 * Creates a new instance of the module with the specified key, or
+		 * returns <code>null</code> if there is no such module or if it could
+		 * not be instantiated.
+		 */
+		K createInstance( final String key )
+		{
+			final PluginInfo< K > info = infos.get( key );
+			if ( info == null )
+				return null;
+			try
+			{
+				return info.createInstance();
+			}
+			catch ( final InstantiableException e )
+			{
+				log.error( "Could not instantiate " + info.getClassName(), e );
+				return null;
+			}
+		}
+	}
+}
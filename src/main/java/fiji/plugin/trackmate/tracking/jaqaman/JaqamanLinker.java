@@ -21,6 +21,7 @@
  */
 package fiji.plugin.trackmate.tracking.jaqaman;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,9 +30,13 @@ import java.util.List;
 import java.util.Map;
 
 import net.imglib2.algorithm.BenchmarkAlgorithm;
+import net.imglib2.algorithm.MultiThreaded;
 import net.imglib2.algorithm.OutputAlgorithm;
 import net.imglib2.util.Util;
 import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.metrics.MetricsProbe;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
 import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.CostMatrixCreator;
 import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.LAPJV;
 import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.SparseCostMatrix;
@@ -47,10 +52,18 @@ import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.SparseCostMatrix;
  * @param <J>
  *            the type of the target objects to link.
  */
-public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J > > extends BenchmarkAlgorithm implements OutputAlgorithm< Map< K, J > >
+public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J > > extends BenchmarkAlgorithm implements OutputAlgorithm< Map< K, J > >, MetricsReporter
 {
+	/** Name of the cost matrix creation phase in {@link #getMetrics()}. */
+	public static final String COST_MATRIX_STAGE = "cost-matrix";
+
+	/** Name of the LAP solving phase in {@link #getMetrics()}. */
+	public static final String LAP_SOLVE_STAGE = "lap-solve";
+
 	private Map< K, J > assignments;
 
+	private final List< StageMetrics > metrics = new ArrayList<>( 2 );
+
 	private Map< K, Double > costs;
 
 	private final CostMatrixCreator< K, J > costMatrixCreator;
@@ -116,6 +129,11 @@ public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J >
 	public boolean process()
 	{
 		final long start = System.currentTimeMillis();
+		metrics.clear();
+		final int creatorThreads = ( costMatrixCreator instanceof MultiThreaded )
+				? ( ( MultiThreaded ) costMatrixCreator ).getNumThreads()
+				: 1;
+		final MetricsProbe costMatrixProbe = MetricsProbe.start( COST_MATRIX_STAGE, creatorThreads );
 
 		/*
 		 * Generate the cost matrix
@@ -135,6 +153,7 @@ public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J >
 
 		if ( matrixCols.isEmpty() || matrixRows.isEmpty() )
 		{
+			metrics.add( costMatrixProbe.stop() );
 			assignments = Collections.emptyMap();
 			costs = Collections.emptyMap();
 			final long end = System.currentTimeMillis();
@@ -199,13 +218,16 @@ public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J >
 		/*
 		 * Solve the full cost matrix.
 		 */
+		metrics.add( costMatrixProbe.stop() );
 		logger.setStatus( "Solving the cost matrix..." );
+		final MetricsProbe solveProbe = MetricsProbe.startThread( LAP_SOLVE_STAGE );
 		final LAPJV solver = new LAPJV( full );
 		if ( !solver.checkInput() || !solver.process() )
 		{
 			errorMessage = solver.getErrorMessage();
 			return false;
 		}
+		metrics.add( solveProbe.stop() );
 
 		final int[] assgn = solver.getResult();
 		assignments = new HashMap<>();
@@ -232,6 +254,18 @@ public class JaqamanLinker< K extends Comparable< K >, J extends Comparable< J >
 		return true;
 	}
 
+	/**
+	 * Returns the metrics of the cost matrix creation and of the LAP solving
+	 * phases of the last call to {@link #process()}.
+	 *
+	 * @return a new list.
+	 */
+	@Override
+	public List< StageMetrics > getMetrics()
+	{
+		return new ArrayList<>( metrics );
+	}
+
 	public String resultToString()
 	{
 		if ( null == assignments )
@@ -39,6 +39,7 @@ import static fiji.plugin.trackmate.util.TMUtils.checkMapKeys;
 import static fiji.plugin.trackmate.util.TMUtils.checkParameter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,8 @@ import org.jgrapht.graph.SimpleWeightedGraph;
 import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Logger.SlaveLogger;
 import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
 import fiji.plugin.trackmate.tracking.SpotTracker;
 import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.JaqamanSegmentCostMatrixCreator;
 import net.imglib2.algorithm.Benchmark;
@@ -86,7 +89,7 @@ import net.imglib2.algorithm.Benchmark;
  * The class itself uses a sparse version of the cost matrix and a solver that
  * can exploit it. Therefore it is optimized for memory usage rather than speed.
  */
-public class SegmentTracker implements SpotTracker, Benchmark
+public class SegmentTracker implements SpotTracker, Benchmark, MetricsReporter
 {
 
 	private static final String BASE_ERROR_MESSAGE = "[SegmentTracker] ";
@@ -103,6 +106,8 @@ public class SegmentTracker implements SpotTracker, Benchmark
 
 	private int numThreads;
 
+	private List< StageMetrics > metrics = Collections.emptyList();
+
 	public SegmentTracker( final SimpleWeightedGraph< Spot, DefaultWeightedEdge > graph, final Map< String, Object > settings )
 	{
 		this.graph = graph;
@@ -193,6 +198,7 @@ public class SegmentTracker implements SpotTracker, Benchmark
 			errorMessage = linker.getErrorMessage();
 			return false;
 		}
+		metrics = linker.getMetrics();
 
 		/*
 		 * Create links in graph.
@@ -232,6 +238,12 @@ public class SegmentTracker implements SpotTracker, Benchmark
 		return processingTime;
 	}
 
+	@Override
+	public List< StageMetrics > getMetrics()
+	{
+		return metrics;
+	}
+
 	@Override
 	public void setLogger( final Logger logger )
 	{
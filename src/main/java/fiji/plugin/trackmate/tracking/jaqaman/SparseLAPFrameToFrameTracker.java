@@ -29,10 +29,12 @@ import static fiji.plugin.trackmate.util.TMUtils.checkMapKeys;
 import static fiji.plugin.trackmate.util.TMUtils.checkParameter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -46,6 +48,8 @@ import org.scijava.Cancelable;
 import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
 import fiji.plugin.trackmate.tracking.SpotTracker;
 import fiji.plugin.trackmate.tracking.jaqaman.costfunction.CostFunction;
 import fiji.plugin.trackmate.tracking.jaqaman.costfunction.FeaturePenaltyCostFunction;
@@ -54,7 +58,7 @@ import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.JaqamanLinkingCostMatri
 import fiji.plugin.trackmate.util.Threads;
 import net.imglib2.algorithm.MultiThreadedBenchmarkAlgorithm;
 
-public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorithm implements SpotTracker, Cancelable
+public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorithm implements SpotTracker, Cancelable, MetricsReporter
 {
 	private final static String BASE_ERROR_MESSAGE = "[SparseLAPFrameToFrameTracker] ";
 
@@ -70,6 +74,10 @@ public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorith
 
 	private String cancelReason;
 
+	private final ConcurrentLinkedQueue< StageMetrics > costMatrixMetrics = new ConcurrentLinkedQueue<>();
+
+	private final ConcurrentLinkedQueue< StageMetrics > solveMetrics = new ConcurrentLinkedQueue<>();
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -101,6 +109,8 @@ public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorith
 	{
 		isCanceled = false;
 		cancelReason = null;
+		costMatrixMetrics.clear();
+		solveMetrics.clear();
 
 		/*
 		 * Check input now.
@@ -217,6 +227,13 @@ public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorith
 						ok.set( false );
 						return null;
 					}
+					for ( final StageMetrics m : linker.getMetrics() )
+					{
+						if ( JaqamanLinker.COST_MATRIX_STAGE.equals( m.getStage() ) )
+							costMatrixMetrics.add( m );
+						else
+							solveMetrics.add( m );
+					}
 
 					/*
 					 * Update graph.
@@ -267,6 +284,20 @@ public class SparseLAPFrameToFrameTracker extends MultiThreadedBenchmarkAlgorith
 		return ok.get();
 	}
 
+	/**
+	 * Returns the cost matrix creation and LAP solving times, cumulated over
+	 * all the frame pairs of the last run.
+	 *
+	 * @return a new list.
+	 */
+	@Override
+	public List< StageMetrics > getMetrics()
+	{
+		return Arrays.asList(
+				StageMetrics.cumulate( JaqamanLinker.COST_MATRIX_STAGE, numThreads, costMatrixMetrics ),
+				StageMetrics.cumulate( JaqamanLinker.LAP_SOLVE_STAGE, numThreads, solveMetrics ) );
+	}
+
 	/**
 	 * Creates a suitable cost function.
 	 *
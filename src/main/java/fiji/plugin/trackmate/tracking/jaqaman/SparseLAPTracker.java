@@ -25,7 +25,9 @@ import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_ALTERNATIVE_LINKING
 import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_LINKING_FEATURE_PENALTIES;
 import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_LINKING_MAX_DISTANCE;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.jgrapht.graph.DefaultWeightedEdge;
@@ -36,10 +38,13 @@ import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Logger.SlaveLogger;
 import fiji.plugin.trackmate.Spot;
 import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.metrics.MetricsProbe;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
 import fiji.plugin.trackmate.tracking.SpotTracker;
 import net.imglib2.algorithm.MultiThreadedBenchmarkAlgorithm;
 
-public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements SpotTracker, Cancelable
+public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements SpotTracker, Cancelable, MetricsReporter
 {
 	private final static String BASE_ERROR_MESSAGE = "[SparseLAPTracker] ";
 
@@ -57,6 +62,8 @@ public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements
 
 	private Cancelable cancelable;
 
+	private final List< StageMetrics > metrics = new ArrayList<>();
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -89,6 +96,7 @@ public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements
 		isCanceled = false;
 		cancelReason = null;
 		cancelable = null;
+		metrics.clear();
 
 		/*
 		 * Check input now.
@@ -129,6 +137,7 @@ public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements
 		 */
 
 		final long start = System.currentTimeMillis();
+		final MetricsProbe ftfProbe = MetricsProbe.startProcess( "frame-to-frame", numThreads );
 
 		// Prepare settings object
 		final Map< String, Object > ftfSettings = new HashMap<>();
@@ -150,16 +159,23 @@ public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements
 
 		graph = frameToFrameLinker.getResult();
 		cancelable = null;
+		metrics.add( ftfProbe.stop( graph.vertexSet().size(), graph.edgeSet().size() ) );
+		for ( final StageMetrics m : frameToFrameLinker.getMetrics() )
+			metrics.add( m.withPrefix( "frame-to-frame" ) );
 
 		/*
 		 * 2. Gap-closing, merging and splitting.
 		 */
 		final SegmentTracker segmentLinker = new SegmentTracker( graph, settings, logger );
+		final MetricsProbe gcProbe = MetricsProbe.startProcess( "gap-closing", segmentLinker.getNumThreads() );
 		if ( !segmentLinker.checkInput() || !segmentLinker.process() )
 		{
 			errorMessage = segmentLinker.getErrorMessage();
 			return false;
 		}
+		metrics.add( gcProbe.stop( graph.vertexSet().size(), graph.edgeSet().size() ) );
+		for ( final StageMetrics m : segmentLinker.getMetrics() )
+			metrics.add( m.withPrefix( "gap-closing" ) );
 		// graph = segmentLinker.getResult();
 
 		logger.setStatus( "" );
@@ -170,6 +186,19 @@ public class SparseLAPTracker extends MultiThreadedBenchmarkAlgorithm implements
 		return true;
 	}
 
+	/**
+	 * Returns the metrics of the frame-to-frame linking and of the
+	 * gap-closing steps of the last run, each with their cost matrix creation
+	 * and LAP solving sub-phases.
+	 *
+	 * @return a new list.
+	 */
+	@Override
+	public List< StageMetrics > getMetrics()
+	{
+		return new ArrayList<>( metrics );
+	}
+
 	@Override
 	public void setLogger( final Logger logger )
 	{
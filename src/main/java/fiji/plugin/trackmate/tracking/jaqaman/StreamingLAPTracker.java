@@ -0,0 +1,373 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.tracking.jaqaman;
+
+import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_ALTERNATIVE_LINKING_COST_FACTOR;
+import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_LINKING_FEATURE_PENALTIES;
+import static fiji.plugin.trackmate.tracking.TrackerKeys.KEY_LINKING_MAX_DISTANCE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.scijava.Cancelable;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.metrics.MetricsProbe;
+import fiji.plugin.trackmate.metrics.MetricsReporter;
+import fiji.plugin.trackmate.metrics.StageMetrics;
+import fiji.plugin.trackmate.tracking.SpotTracker;
+import fiji.plugin.trackmate.tracking.jaqaman.costfunction.CostFunction;
+import fiji.plugin.trackmate.tracking.jaqaman.costfunction.FeaturePenaltyCostFunction;
+import fiji.plugin.trackmate.tracking.jaqaman.costfunction.SquareDistCostFunction;
+import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.JaqamanLinkingCostMatrixCreator;
+import fiji.plugin.trackmate.util.Threads;
+import net.imglib2.algorithm.MultiThreadedBenchmarkAlgorithm;
+
+/**
+ * A LAP tracker that links frames as they are produced, for instance by a
+ * detection running at the same time, or during a live acquisition.
+ * <p>
+ * Frames are passed with {@link #addFrame(int, Collection)}, in any order.
+ * As soon as two consecutive frames <code>t</code> and <code>t+1</code> have
+ * been received, they are linked in the background, with the same
+ * frame-to-frame linking as {@link SparseLAPFrameToFrameTracker}. Calling
+ * {@link #process()} signals that all the frames have been received: it
+ * links the remaining pairs of successive frames that are not separated by
+ * 1, waits for all the links, and then runs gap-closing, merging and
+ * splitting once with a {@link SegmentTracker}. The result is the same as
+ * the one of {@link SparseLAPTracker} run on all the frames, but most of the
+ * linking is done by the time the last frame is received.
+ * <p>
+ * The spots of a frame are released as soon as the frame is linked to both
+ * its neighbors.
+ */
+public class StreamingLAPTracker extends MultiThreadedBenchmarkAlgorithm implements SpotTracker, Cancelable, MetricsReporter
+{
+
+	private final static String BASE_ERROR_MESSAGE = "[StreamingLAPTracker] ";
+
+	private final Map< String, Object > settings;
+
+	private final SimpleWeightedGraph< Spot, DefaultWeightedEdge > graph = new SimpleWeightedGraph<>( DefaultWeightedEdge.class );
+
+	/**
+	 * The frames received so far. The spots are set to <code>null</code> when
+	 * the frame is linked to both its neighbors.
+	 */
+	private final TreeMap< Integer, List< Spot > > frames = new TreeMap<>();
+
+	/** The frames already linked to the next frame received. */
+	private final Set< Integer > linkedForward = new HashSet<>();
+
+	private final List< Future< ? > > futures = new ArrayList<>();
+
+	private final ConcurrentLinkedQueue< StageMetrics > costMatrixMetrics = new ConcurrentLinkedQueue<>();
+
+	private final ConcurrentLinkedQueue< StageMetrics > solveMetrics = new ConcurrentLinkedQueue<>();
+
+	private final List< StageMetrics > metrics = new ArrayList<>();
+
+	private final CostFunction< Spot, Spot > costFunction;
+
+	private final double costThreshold;
+
+	private final double alternativeCostFactor;
+
+	private ExecutorService executor;
+
+	private Logger logger = Logger.VOID_LOGGER;
+
+	private boolean isCanceled;
+
+	private String cancelReason;
+
+	/**
+	 * Creates a streaming tracker.
+	 *
+	 * @param settings
+	 *            the LAP tracker settings, as for {@link SparseLAPTracker}.
+	 * @param numThreads
+	 *            the number of threads used to link frame pairs.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public StreamingLAPTracker( final Map< String, Object > settings, final int numThreads )
+	{
+		this.settings = settings;
+		setNumThreads( numThreads );
+		// Same checks as the frame-to-frame step of the SparseLAPTracker.
+		final StringBuilder str = new StringBuilder();
+		final Map< String, Object > ftfSettings = linkingSettings( settings );
+		if ( !new SparseLAPFrameToFrameTracker( null, ftfSettings ).checkSettingsValidity( ftfSettings, str ) )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + str.toString();
+			costFunction = null;
+			costThreshold = Double.NaN;
+			alternativeCostFactor = Double.NaN;
+			return;
+		}
+		final Map< String, Double > featurePenalties = ( Map< String, Double > ) settings.get( KEY_LINKING_FEATURE_PENALTIES );
+		costFunction = ( null == featurePenalties || featurePenalties.isEmpty() )
+				? new SquareDistCostFunction()
+				: new FeaturePenaltyCostFunction( featurePenalties );
+		final double maxDist = ( Double ) settings.get( KEY_LINKING_MAX_DISTANCE );
+		costThreshold = maxDist * maxDist;
+		alternativeCostFactor = ( Double ) settings.get( KEY_ALTERNATIVE_LINKING_COST_FACTOR );
+	}
+
+	private static Map< String, Object > linkingSettings( final Map< String, Object > settings )
+	{
+		final Map< String, Object > ftfSettings = new HashMap<>();
+		if ( settings == null )
+			return ftfSettings;
+		ftfSettings.put( KEY_LINKING_MAX_DISTANCE, settings.get( KEY_LINKING_MAX_DISTANCE ) );
+		ftfSettings.put( KEY_ALTERNATIVE_LINKING_COST_FACTOR, settings.get( KEY_ALTERNATIVE_LINKING_COST_FACTOR ) );
+		ftfSettings.put( KEY_LINKING_FEATURE_PENALTIES, settings.get( KEY_LINKING_FEATURE_PENALTIES ) );
+		return ftfSettings;
+	}
+
+	/**
+	 * Returns the settings map this tracker was created with.
+	 *
+	 * @return the settings map.
+	 */
+	public Map< String, Object > getSettings()
+	{
+		return settings;
+	}
+
+	/**
+	 * Adds the spots of a frame. Links this frame to the previous and next
+	 * frames if they were already received.
+	 *
+	 * @param frame
+	 *            the frame.
+	 * @param spots
+	 *            the spots of this frame to link. Each frame must be added
+	 *            only once.
+	 */
+	public synchronized void addFrame( final int frame, final Collection< Spot > spots )
+	{
+		if ( errorMessage != null || isCanceled() )
+			return;
+		if ( executor == null )
+			executor = Threads.newFixedThreadPool( numThreads );
+
+		frames.put( frame, new ArrayList<>( spots ) );
+		if ( frames.containsKey( frame - 1 ) )
+			submit( frame - 1, frame );
+		if ( frames.containsKey( frame + 1 ) )
+			submit( frame, frame + 1 );
+	}
+
+	/**
+	 * Submits the linking of two frames and releases the spots that are not
+	 * needed anymore.
+	 */
+	private void submit( final int frame0, final int frame1 )
+	{
+		final List< Spot > sources = frames.get( frame0 );
+		final List< Spot > targets = frames.get( frame1 );
+		linkedForward.add( frame0 );
+		futures.add( executor.submit( () -> link( frame0, frame1, sources, targets ) ) );
+		release( frame0 );
+		release( frame1 );
+	}
+
+	private void release( final int frame )
+	{
+		final Integer previous = frames.lowerKey( frame );
+		final boolean linkedBefore = previous != null && linkedForward.contains( previous ) && previous == frame - 1;
+		if ( linkedBefore && linkedForward.contains( frame ) )
+			frames.put( frame, null );
+	}
+
+	private void link( final int frame0, final int frame1, final List< Spot > sources, final List< Spot > targets )
+	{
+		if ( errorMessage != null || isCanceled() || sources.isEmpty() || targets.isEmpty() )
+			return;
+
+		final JaqamanLinkingCostMatrixCreator< Spot, Spot > creator = new JaqamanLinkingCostMatrixCreator<>( sources, targets, costFunction, costThreshold, alternativeCostFactor, 1d );
+		final JaqamanLinker< Spot, Spot > linker = new JaqamanLinker<>( creator );
+		if ( !linker.checkInput() || !linker.process() )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + "At frame " + frame0 + " to " + frame1 + ": " + linker.getErrorMessage();
+			return;
+		}
+		for ( final StageMetrics m : linker.getMetrics() )
+		{
+			if ( JaqamanLinker.COST_MATRIX_STAGE.equals( m.getStage() ) )
+				costMatrixMetrics.add( m );
+			else
+				solveMetrics.add( m );
+		}
+
+		synchronized ( graph )
+		{
+			final Map< Spot, Double > costs = linker.getAssignmentCosts();
+			final Map< Spot, Spot > assignment = linker.getResult();
+			for ( final Spot source : assignment.keySet() )
+			{
+				final double cost = costs.get( source );
+				final Spot target = assignment.get( source );
+				graph.addVertex( source );
+				graph.addVertex( target );
+				final DefaultWeightedEdge edge = graph.addEdge( source, target );
+				graph.setEdgeWeight( edge, cost );
+			}
+		}
+	}
+
+	@Override
+	public SimpleWeightedGraph< Spot, DefaultWeightedEdge > getResult()
+	{
+		return graph;
+	}
+
+	@Override
+	public boolean checkInput()
+	{
+		return errorMessage == null;
+	}
+
+	/**
+	 * Signals that all the frames have been received. Links the frames that
+	 * were not linked yet, waits for all the links, and runs gap-closing,
+	 * merging and splitting.
+	 */
+	@Override
+	public boolean process()
+	{
+		if ( errorMessage != null )
+			return false;
+
+		final long start = System.currentTimeMillis();
+		final MetricsProbe ftfProbe = MetricsProbe.startProcess( "frame-to-frame", numThreads );
+		logger.setStatus( "Frame to frame linking..." );
+		synchronized ( this )
+		{
+			if ( executor == null )
+				executor = Threads.newFixedThreadPool( numThreads );
+
+			// Successive frames not separated by 1.
+			final Iterator< Integer > it = frames.keySet().iterator();
+			if ( it.hasNext() )
+			{
+				int frame0 = it.next();
+				while ( it.hasNext() )
+				{
+					final int frame1 = it.next();
+					if ( !linkedForward.contains( frame0 ) )
+						submit( frame0, frame1 );
+					frame0 = frame1;
+				}
+			}
+			executor.shutdown();
+		}
+
+		try
+		{
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		catch ( InterruptedException | ExecutionException e )
+		{
+			errorMessage = BASE_ERROR_MESSAGE + e.getMessage();
+			e.printStackTrace();
+		}
+		frames.clear();
+		if ( errorMessage != null )
+			return false;
+
+		metrics.clear();
+		metrics.add( ftfProbe.stop( graph.vertexSet().size(), graph.edgeSet().size() ) );
+		metrics.add( StageMetrics.cumulate( JaqamanLinker.COST_MATRIX_STAGE, numThreads, costMatrixMetrics ).withPrefix( "frame-to-frame" ) );
+		metrics.add( StageMetrics.cumulate( JaqamanLinker.LAP_SOLVE_STAGE, numThreads, solveMetrics ).withPrefix( "frame-to-frame" ) );
+		if ( isCanceled() )
+			return true;
+
+		/*
+		 * Gap-closing, merging and splitting.
+		 */
+		final SegmentTracker segmentLinker = new SegmentTracker( graph, settings, logger );
+		final MetricsProbe gcProbe = MetricsProbe.startProcess( "gap-closing", segmentLinker.getNumThreads() );
+		if ( !segmentLinker.checkInput() || !segmentLinker.process() )
+		{
+			errorMessage = segmentLinker.getErrorMessage();
+			return false;
+		}
+		metrics.add( gcProbe.stop( graph.vertexSet().size(), graph.edgeSet().size() ) );
+		for ( final StageMetrics m : segmentLinker.getMetrics() )
+			metrics.add( m.withPrefix( "gap-closing" ) );
+
+		logger.setStatus( "" );
+		logger.setProgress( 1d );
+		processingTime = System.currentTimeMillis() - start;
+		return true;
+	}
+
+	@Override
+	public List< StageMetrics > getMetrics()
+	{
+		return new ArrayList<>( metrics );
+	}
+
+	@Override
+	public void setLogger( final Logger logger )
+	{
+		this.logger = logger;
+	}
+
+	// --- org.scijava.Cancelable methods ---
+
+	@Override
+	public boolean isCanceled()
+	{
+		return isCanceled;
+	}
+
+	@Override
+	public void cancel( final String reason )
+	{
+		isCanceled = true;
+		cancelReason = reason;
+	}
+
+	@Override
+	public String getCancelReason()
+	{
+		return cancelReason;
+	}
+}
@@ -23,6 +23,7 @@ package fiji.plugin.trackmate.util;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.DoubleConsumer;
 import java.util.function.Supplier;
@@ -50,6 +51,9 @@ public class DetectionPreview
 
 	private TrackMate trackmate;
 
+	/** The candidate spots of the last previews. */
+	private final DetectionPreviewCache cache = new DetectionPreviewCache();
+
 	protected DetectionPreview(
 			final Model model,
 			final Settings settings,
@@ -69,7 +73,11 @@ public class DetectionPreview
 				currentFrameSupplier.get(),
 				thresholdKey ) );
 		panel.btnCancel.addActionListener( l -> cancel() );
-		panel.btnClear.addActionListener( l -> clearModelAndHistogram( model, currentFrameSupplier.get(), () -> settings.imp.repaintWindow() ) );
+		panel.btnClear.addActionListener( l -> {
+			// Also forget previous results, e.g. if the image was edited.
+			cache.clear();
+			clearModelAndHistogram( model, currentFrameSupplier.get(), () -> settings.imp.repaintWindow() );
+		} );
 	}
 
 	public DetectionPreviewPanel getPanel()
@@ -191,14 +199,30 @@ public class DetectionPreview
 				threshold = Double.NaN;
 			}
 
-			// Execute preview.
 			trackmate.getModel().setLogger( panel.logger );
 
-			final boolean detectionOk = trackmate.execDetection();
-			if ( !detectionOk )
+			// Reuse the candidate spots if only the threshold changed.
+			final DetectionPreviewCache.Key key = DetectionPreviewCache.key( settings.imp, lSettings.getRoi(), frame, detectorFactory, lSettings.detectorSettings );
+			final List< Spot > cached = cache.get( key );
+			if ( cached != null )
+			{
+				trackmate.getModel().getSpots().put( frame, cached );
+			}
+			else
 			{
-				panel.logger.error( trackmate.getErrorMessage() );
-				return null;
+				// Execute preview.
+				final boolean detectionOk = trackmate.execDetection();
+				if ( !detectionOk )
+				{
+					panel.logger.error( trackmate.getErrorMessage() );
+					return null;
+				}
+				if ( !trackmate.isCanceled() )
+				{
+					final List< Spot > candidates = new ArrayList<>( trackmate.getModel().getSpots().getNSpots( frame, false ) );
+					trackmate.getModel().getSpots().iterable( frame, false ).forEach( candidates::add );
+					cache.put( key, candidates );
+				}
 			}
 
 			if ( hasThreshold )
@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util;
+
+import java.awt.Polygon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.detection.SpotDetectorFactoryBase;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.gui.Roi;
+import ij.measure.Calibration;
+
+/**
+ * A bounded cache of the candidate spots found by the detection preview.
+ * <p>
+ * The preview runs the detector with its quality threshold set to 0, and
+ * then filters the spots with the threshold set by the user. Since the
+ * quality of a spot is the value of the filter response at its position,
+ * filtering the candidate spots again gives the same result as running the
+ * detector with a new threshold. This cache stores the candidate spots of
+ * the last previews, keyed by everything that determines the filter response:
+ * the image, its calibration and the content of the frame, the ROI, the
+ * detector and its settings other than the threshold (radius, median
+ * filtering, target channel, ...). Changing only the threshold then updates
+ * the preview without running the detector again. The content of the frame is
+ * summarized by a checksum of its pixels, so that editing the image
+ * invalidates the previews of the frames edited.
+ * <p>
+ * The spots are copied when they are stored and when they are returned, so
+ * that filtering or editing the spots of a preview does not change the
+ * cached ones.
+ * <p>
+ * The least recently used entries are discarded when the cache is full.
+ */
+class DetectionPreviewCache
+{
+
+	/** Default number of previews kept in the cache. */
+	static final int DEFAULT_MAX_ENTRIES = 8;
+
+	private final Map< Key, List< Spot > > cache;
+
+	DetectionPreviewCache()
+	{
+		this( DEFAULT_MAX_ENTRIES );
+	}
+
+	DetectionPreviewCache( final int maxEntries )
+	{
+		this.cache = new LinkedHashMap< Key, List< Spot > >( 16, 0.75f, true )
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( final Map.Entry< Key, List< Spot > > eldest )
+			{
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Creates the cache key for a preview.
+	 *
+	 * @param imp
+	 *            the image the preview runs on.
+	 * @param roi
+	 *            the ROI the preview is restricted to. Can be
+	 *            <code>null</code>.
+	 * @param frame
+	 *            the frame the preview runs on.
+	 * @param factory
+	 *            the detector factory.
+	 * @param detectorSettings
+	 *            the detector settings, with the threshold parameter
+	 *            neutralized or removed.
+	 * @return a new key.
+	 */
+	static Key key( final ImagePlus imp, final Roi roi, final int frame, final SpotDetectorFactoryBase< ? > factory, final Map< String, Object > detectorSettings )
+	{
+		return new Key( imp, roi, frame, factory, detectorSettings );
+	}
+
+	/**
+	 * Returns the candidate spots stored for the specified key.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return a new list with copies of the spots, or <code>null</code> if the
+	 *         key is not in the cache.
+	 */
+	synchronized List< Spot > get( final Key key )
+	{
+		final List< Spot > spots = cache.get( key );
+		return ( spots == null ) ? null : copy( spots );
+	}
+
+	/**
+	 * Stores copies of the specified spots.
+	 *
+	 * @param key
+	 *            the key.
+	 * @param spots
+	 *            the candidate spots found by the preview.
+	 */
+	synchronized void put( final Key key, final List< Spot > spots )
+	{
+		cache.put( key, copy( spots ) );
+	}
+
+	synchronized void clear()
+	{
+		cache.clear();
+	}
+
+	synchronized int size()
+	{
+		return cache.size();
+	}
+
+	private static List< Spot > copy( final List< Spot > spots )
+	{
+		final List< Spot > copies = new ArrayList<>( spots.size() );
+		for ( final Spot spot : spots )
+		{
+			final Spot copy = new Spot( spot );
+			for ( final Map.Entry< String, Double > entry : spot.getFeatures().entrySet() )
+				copy.putFeature( entry.getKey(), entry.getValue() );
+			if ( spot.getRoi() != null )
+				copy.setRoi( spot.getRoi().copy() );
+			copies.add( copy );
+		}
+		return copies;
+	}
+
+	static final class Key
+	{
+
+		private final ImagePlus imp;
+
+		private final int impID;
+
+		private final double[] calibration;
+
+		private final long checksum;
+
+		private final int[] roi;
+
+		private final int frame;
+
+		private final Class< ? > factoryClass;
+
+		private final Map< String, Object > detectorSettings;
+
+		private final int hash;
+
+		private Key( final ImagePlus imp, final Roi roi, final int frame, final SpotDetectorFactoryBase< ? > factory, final Map< String, Object > detectorSettings )
+		{
+			this.imp = imp;
+			this.impID = ( imp == null ) ? 0 : imp.getID();
+			this.calibration = calibration( imp );
+			this.checksum = checksum( imp, frame );
+			this.roi = encode( roi );
+			this.frame = frame;
+			this.factoryClass = factory.getClass();
+			this.detectorSettings = new HashMap<>( detectorSettings );
+			this.hash = Objects.hash( impID, checksum, Arrays.hashCode( this.roi ), frame, factoryClass, this.detectorSettings );
+		}
+
+		private static double[] calibration( final ImagePlus imp )
+		{
+			if ( imp == null )
+				return new double[ 0 ];
+			final Calibration cal = imp.getCalibration();
+			return new double[] { cal.pixelWidth, cal.pixelHeight, cal.pixelDepth, cal.frameInterval };
+		}
+
+		/**
+		 * Returns a checksum of the pixels of all the channels and Z-slices
+		 * of the specified frame.
+		 */
+		private static long checksum( final ImagePlus imp, final int frame )
+		{
+			if ( imp == null )
+				return 0l;
+			final ImageStack stack = imp.getStack();
+			final int t = Math.max( 1, Math.min( frame + 1, imp.getNFrames() ) );
+			long checksum = 17l;
+			for ( int c = 1; c <= imp.getNChannels(); c++ )
+			{
+				for ( int z = 1; z <= imp.getNSlices(); z++ )
+				{
+					final Object pixels = stack.getPixels( imp.getStackIndex( c, z, t ) );
+					final int h;
+					if ( pixels instanceof byte[] )
+						h = Arrays.hashCode( ( byte[] ) pixels );
+					else if ( pixels instanceof short[] )
+						h = Arrays.hashCode( ( short[] ) pixels );
+					else if ( pixels instanceof float[] )
+						h = Arrays.hashCode( ( float[] ) pixels );
+					else if ( pixels instanceof int[] )
+						h = Arrays.hashCode( ( int[] ) pixels );
+					else
+						h = Objects.hashCode( pixels );
+					checksum = 31l * checksum + h;
+				}
+			}
+			return checksum;
+		}
+
+		private static int[] encode( final Roi roi )
+		{
+			if ( roi == null )
+				return new int[ 0 ];
+			final Polygon polygon = roi.getPolygon();
+			final int[] encoded = new int[ 1 + 2 * polygon.npoints ];
+			encoded[ 0 ] = roi.getType();
+			for ( int i = 0; i < polygon.npoints; i++ )
+			{
+				encoded[ 1 + 2 * i ] = polygon.xpoints[ i ];
+				encoded[ 2 + 2 * i ] = polygon.ypoints[ i ];
+			}
+			return encoded;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			if ( this == obj )
+				return true;
+			if ( !( obj instanceof Key ) )
+				return false;
+			final Key other = ( Key ) obj;
+			return imp == other.imp
+					&& impID == other.impID
+					&& checksum == other.checksum
+					&& Arrays.equals( calibration, other.calibration )
+					&& frame == other.frame
+					&& factoryClass.equals( other.factoryClass )
+					&& Arrays.equals( roi, other.roi )
+					&& detectorSettings.equals( other.detectorSettings );
+		}
+	}
+}
@@ -75,18 +75,46 @@ public class CLIUtils
 	{
 		final List< String > cmd = CommandBuilder.build( cli );
 		final ProcessBuilder pb = new ProcessBuilder( cmd );
+		pb.environment().putAll( getProcessEnv( cli ) );
+		pb.redirectOutput( ProcessBuilder.Redirect.appendTo( logFile ) );
+		pb.redirectError( ProcessBuilder.Redirect.appendTo( logFile ) );
+		return pb.start();
+	}
+
+	/**
+	 * Returns a persistent worker that runs the command specified in the CLI,
+	 * starting it if needed. The command must start a tool that speaks the
+	 * protocol described in {@link CLIWorker}. A live worker started with the
+	 * same command and environment is reused, so the arguments of the CLI must
+	 * not depend on the image processed.
+	 *
+	 * @param cli
+	 *            the CLI configurator that specifies the command to run.
+	 * @param logFile
+	 *            the file to which the worker log is appended.
+	 * @return a live worker.
+	 * @throws IOException
+	 *             if the worker cannot be started.
+	 */
+	public static final CLIWorker getWorker( final CLIConfigurator cli, final File logFile ) throws IOException
+	{
+		return CLIWorker.get( CommandBuilder.build( cli ), getProcessEnv( cli ), logFile );
+	}
+
+	/**
+	 * Returns the environment variables to add to the process that runs the
+	 * command specified in the CLI.
+	 */
+	public static Map< String, String > getProcessEnv( final CLIConfigurator cli )
+	{
+		final Map< String, String > env = new HashMap<>();
 		if ( cli instanceof CondaCLIConfigurator )
 		{
-			// Env variables.
-			final Map< String, String > env = new HashMap<>();
 			final String condaRootPrefix = getCondaRootPrefix();
 			env.put( "MAMBA_ROOT_PREFIX", condaRootPrefix );
 			env.put( "CONDA_ROOT_PREFIX", condaRootPrefix );
-			pb.environment().putAll( env );
 		}
-		pb.redirectOutput( ProcessBuilder.Redirect.appendTo( logFile ) );
-		pb.redirectError( ProcessBuilder.Redirect.appendTo( logFile ) );
-		return pb.start();
+		return env;
 	}
 
 	/**
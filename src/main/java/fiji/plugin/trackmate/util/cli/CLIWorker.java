@@ -0,0 +1,300 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+
+/**
+ * A persistent external process that segments images, kept alive across
+ * frames and detection runs so that the tool startup (Python interpreter,
+ * deep-learning model loading, etc.) happens only once.
+ * <p>
+ * TrackMate and the worker talk through a line-based protocol, with fields
+ * separated by tabs so that paths can contain spaces. The standard
+ * input and output of the worker are reserved for it; the worker must write
+ * its log to the standard error, which is appended to the log file. Lines
+ * written by the worker on its standard output that are not part of the
+ * protocol are ignored.
+ * <ol>
+ * <li>When the worker is ready to process images, it writes
+ * <code>READY</code>.</li>
+ * <li>For each image, TrackMate writes
+ * <code>PROCESS &lt;input&gt; &lt;d0,d1,...&gt; &lt;output&gt;</code>. The
+ * input file contains the image as raw 32-bit floats, with the specified
+ * dimensions (see {@link RawImageIO}). The worker writes the label image in
+ * the output file as raw 32-bit integers, then writes
+ * <code>OK &lt;d0,d1,...&gt;</code> with the dimensions of the label image,
+ * or <code>ERROR &lt;message&gt;</code> if it failed.</li>
+ * <li>When TrackMate writes <code>QUIT</code>, the worker exits.</li>
+ * </ol>
+ * The input and output files are memory-mapped and reused from one image to
+ * the next, so no image file is encoded or decoded. Images are processed one
+ * at a time.
+ * <p>
+ * Workers are obtained with {@link #get(List, Map, File)}, which reuses a
+ * live worker started with the same command and environment. They are closed
+ * when Fiji quits.
+ */
+public class CLIWorker implements Closeable
+{
+
+	public static final String READY = "READY";
+
+	public static final String PROCESS = "PROCESS";
+
+	public static final String OK = "OK";
+
+	public static final String ERROR = "ERROR";
+
+	public static final String QUIT = "QUIT";
+
+	/** Live workers, by command and environment. */
+	private static final Map< List< Object >, CLIWorker > WORKERS = new HashMap<>();
+
+	static
+	{
+		Runtime.getRuntime().addShutdownHook( new Thread( CLIWorker::closeAll, "TrackMate CLI workers shutdown" ) );
+	}
+
+	private final List< Object > key;
+
+	private final Process process;
+
+	private final BufferedReader reader;
+
+	private final PrintWriter writer;
+
+	private final Path folder;
+
+	private final Path input;
+
+	private final Path output;
+
+	private CLIWorker( final List< String > command, final Map< String, String > env, final File logFile ) throws IOException
+	{
+		this.key = key( command, env );
+		final ProcessBuilder pb = new ProcessBuilder( command );
+		pb.environment().putAll( env );
+		pb.redirectError( ProcessBuilder.Redirect.appendTo( logFile ) );
+		this.process = pb.start();
+		this.reader = new BufferedReader( new InputStreamReader( process.getInputStream(), StandardCharsets.UTF_8 ) );
+		this.writer = new PrintWriter( new OutputStreamWriter( process.getOutputStream(), StandardCharsets.UTF_8 ), true );
+		this.folder = Files.createTempDirectory( "TrackMate-worker-" );
+		this.input = folder.resolve( "input.raw" );
+		this.output = folder.resolve( "output.raw" );
+		try
+		{
+			final String line = readResponse();
+			if ( !line.startsWith( READY ) )
+				throw new IOException( "Worker did not start properly: " + line );
+		}
+		catch ( final IOException e )
+		{
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a live worker running the specified command, starting it if
+	 * needed. A worker is reused only if it was started with the same command
+	 * and the same environment variables. The log file of a reused worker is
+	 * the one it was started with.
+	 *
+	 * @param command
+	 *            the command that starts the worker.
+	 * @param env
+	 *            the environment variables to add to the worker process.
+	 * @param logFile
+	 *            the file to which the worker log is appended.
+	 * @return a live worker.
+	 * @throws IOException
+	 *             if the worker cannot be started or does not signal it is
+	 *             ready.
+	 */
+	public static synchronized CLIWorker get( final List< String > command, final Map< String, String > env, final File logFile ) throws IOException
+	{
+		final CLIWorker worker = WORKERS.get( key( command, env ) );
+		if ( worker != null && worker.isAlive() )
+			return worker;
+
+		final CLIWorker newWorker = new CLIWorker( command, env, logFile );
+		WORKERS.put( newWorker.key, newWorker );
+		return newWorker;
+	}
+
+	/**
+	 * Closes all the live workers.
+	 */
+	public static synchronized void closeAll()
+	{
+		for ( final CLIWorker worker : new ArrayList<>( WORKERS.values() ) )
+			worker.close();
+		WORKERS.clear();
+	}
+
+	/**
+	 * Sends an image to the worker and returns the label image it computed.
+	 *
+	 * @param img
+	 *            the image to process. Can be a view, for instance a
+	 *            time-point of a larger image.
+	 * @return a new label image.
+	 * @throws IOException
+	 *             if the image cannot be handed to the worker, or if the
+	 *             worker reports an error or dies.
+	 */
+	public synchronized < T extends RealType< T > > ArrayImg< IntType, IntArray > process( final RandomAccessibleInterval< T > img ) throws IOException
+	{
+		if ( !isAlive() )
+			throw new IOException( "Worker is not running." );
+
+		RawImageIO.writeFloats( img, input );
+		writer.println( PROCESS + '\t' + input + '\t' + formatDimensions( Intervals.dimensionsAsLongArray( img ) ) + '\t' + output );
+		if ( writer.checkError() )
+			throw new IOException( "Could not send request to worker." );
+
+		final String line = readResponse();
+		if ( line.startsWith( ERROR ) )
+			throw new IOException( "Worker reported an error: " + line.substring( ERROR.length() ).trim() );
+		if ( !line.startsWith( OK ) )
+			throw new IOException( "Unexpected response from worker: " + line );
+
+		final long[] dims = parseDimensions( line.substring( OK.length() ).trim() );
+		return RawImageIO.readInts( output, dims );
+	}
+
+	/**
+	 * Returns <code>true</code> if the worker process is running.
+	 */
+	public boolean isAlive()
+	{
+		return process.isAlive();
+	}
+
+	/**
+	 * Returns the ID of the worker process.
+	 */
+	public long pid()
+	{
+		return process.pid();
+	}
+
+	/**
+	 * Asks the worker to quit and kills it if it does not within a few
+	 * seconds. Can be called from another thread to cancel a running request.
+	 */
+	@Override
+	public void close()
+	{
+		if ( process.isAlive() )
+		{
+			writer.println( QUIT );
+			try
+			{
+				if ( !process.waitFor( 5, TimeUnit.SECONDS ) )
+					process.destroyForcibly();
+			}
+			catch ( final InterruptedException e )
+			{
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+		try
+		{
+			Files.deleteIfExists( input );
+			Files.deleteIfExists( output );
+			Files.deleteIfExists( folder );
+		}
+		catch ( final IOException e )
+		{
+			// Left in the temp folder.
+		}
+	}
+
+	/**
+	 * Reads lines from the worker until one is a protocol response.
+	 */
+	private String readResponse() throws IOException
+	{
+		String line;
+		while ( ( line = reader.readLine() ) != null )
+		{
+			line = line.trim();
+			if ( line.startsWith( READY ) || line.startsWith( OK ) || line.startsWith( ERROR ) )
+				return line;
+		}
+		throw new IOException( "Worker exited unexpectedly." );
+	}
+
+	private static List< Object > key( final List< String > command, final Map< String, String > env )
+	{
+		return Arrays.asList( new ArrayList<>( command ), new HashMap<>( env ) );
+	}
+
+	static String formatDimensions( final long[] dims )
+	{
+		final StringBuilder str = new StringBuilder();
+		for ( int d = 0; d < dims.length; d++ )
+		{
+			if ( d > 0 )
+				str.append( ',' );
+			str.append( dims[ d ] );
+		}
+		return str.toString();
+	}
+
+	static long[] parseDimensions( final String str ) throws IOException
+	{
+		try
+		{
+			return Arrays.stream( str.split( "," ) ).mapToLong( s -> Long.parseLong( s.trim() ) ).toArray();
+		}
+		catch ( final NumberFormatException e )
+		{
+			throw new IOException( "Invalid dimensions: " + str );
+		}
+	}
+}
@@ -26,11 +26,13 @@ import static fiji.plugin.trackmate.detection.DetectorKeys.DEFAULT_DO_SUBPIXEL_L
 import static fiji.plugin.trackmate.detection.DetectorKeys.DEFAULT_RADIUS;
 import static fiji.plugin.trackmate.detection.DetectorKeys.DEFAULT_TARGET_CHANNEL;
 import static fiji.plugin.trackmate.detection.DetectorKeys.DEFAULT_THRESHOLD;
+import static fiji.plugin.trackmate.detection.DetectorKeys.DEFAULT_USE_PERSISTENT_WORKER;
 import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_DO_MEDIAN_FILTERING;
 import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_DO_SUBPIXEL_LOCALIZATION;
 import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_RADIUS;
 import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_TARGET_CHANNEL;
 import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_THRESHOLD;
+import static fiji.plugin.trackmate.detection.DetectorKeys.KEY_USE_PERSISTENT_WORKER;
 import static fiji.plugin.trackmate.detection.ThresholdDetectorFactory.KEY_SIMPLIFY_CONTOURS;
 
 import fiji.plugin.trackmate.util.cli.Configurator.DoubleArgument;
@@ -169,4 +171,26 @@ public class CommonTrackMateArguments
 		flag.set( DEFAULT_DO_MEDIAN_FILTERING );
 		return flag;
 	}
+
+	/**
+	 * Adds a flag that states whether the tool is run in a persistent worker
+	 * (see {@link CLIWorker}). The tool must implement the worker protocol.
+	 *
+	 * @param config
+	 *            the config to which to add the argument.
+	 * @return the created argument.
+	 */
+	public static Flag addUsePersistentWorker( final Configurator config )
+	{
+		final Flag flag = config.addFlag()
+				.key( KEY_USE_PERSISTENT_WORKER )
+				.defaultValue( DEFAULT_USE_PERSISTENT_WORKER )
+				.name( "Use persistent worker" )
+				.help( "If true, the tool is started once and kept running between frames and detections." )
+				.inCLI( false )
+				.visible( true )
+				.get();
+		flag.set( DEFAULT_USE_PERSISTENT_WORKER );
+		return flag;
+	}
 }
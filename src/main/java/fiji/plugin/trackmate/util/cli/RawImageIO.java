@@ -0,0 +1,132 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util.cli;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Reads and writes images as raw files through memory-mapped buffers, to hand
+ * pixel data to external tools without encoding and decoding image files.
+ * <p>
+ * Raw files have no header: pixels are stored in little-endian order, the
+ * first dimension varying fastest. Images are written as 32-bit floats, and
+ * label images are read as 32-bit signed integers. The dimensions are passed
+ * separately, for instance through the protocol of a {@link CLIWorker}.
+ * Files are not truncated, so that they can be reused from one frame to the
+ * next and stay mapped by the reader; the pixel data is at the beginning of
+ * the file.
+ */
+public class RawImageIO
+{
+
+	/** Largest region mapped at once, in bytes, multiple of 4. */
+	private static final long MAX_MAPPED_BYTES = 1L << 30;
+
+	private RawImageIO()
+	{}
+
+	/**
+	 * Writes the specified image in a raw file as 32-bit floats.
+	 *
+	 * @param img
+	 *            the image to write. Can be a view, it is iterated in flat
+	 *            order.
+	 * @param path
+	 *            the path of the file to write. Created if it does not exist.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public static < T extends RealType< T > > void writeFloats( final RandomAccessibleInterval< T > img, final Path path ) throws IOException
+	{
+		final long nBytes = Intervals.numElements( img ) * Float.BYTES;
+		final Cursor< T > cursor = Views.flatIterable( img ).cursor();
+		try (final FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE ))
+		{
+			for ( long offset = 0; offset < nBytes; offset += MAX_MAPPED_BYTES )
+			{
+				final long size = Math.min( MAX_MAPPED_BYTES, nBytes - offset );
+				final MappedByteBuffer mapped = channel.map( MapMode.READ_WRITE, offset, size );
+				final FloatBuffer buffer = mapped.order( ByteOrder.LITTLE_ENDIAN ).asFloatBuffer();
+				while ( buffer.hasRemaining() )
+					buffer.put( cursor.next().getRealFloat() );
+				mapped.force();
+			}
+		}
+	}
+
+	/**
+	 * Reads a label image from a raw file of 32-bit integers.
+	 *
+	 * @param path
+	 *            the path of the file to read.
+	 * @param dimensions
+	 *            the dimensions of the image.
+	 * @return a new image.
+	 * @throws IOException
+	 *             if the file cannot be read or is too small for the
+	 *             specified dimensions.
+	 */
+	public static ArrayImg< IntType, IntArray > readInts( final Path path, final long[] dimensions ) throws IOException
+	{
+		final long nPixels = Intervals.numElements( dimensions );
+		if ( nPixels > Integer.MAX_VALUE )
+			throw new IOException( "Image of dimensions " + Arrays.toString( dimensions ) + " is too large to be read in a single array." );
+
+		final int[] pixels = new int[ ( int ) nPixels ];
+		try (final FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ))
+		{
+			final long nBytes = nPixels * Integer.BYTES;
+			if ( channel.size() < nBytes )
+				throw new IOException( "File " + path + " has " + channel.size() + " bytes, expected at least " + nBytes + "." );
+
+			int pos = 0;
+			for ( long offset = 0; offset < nBytes; offset += MAX_MAPPED_BYTES )
+			{
+				final long size = Math.min( MAX_MAPPED_BYTES, nBytes - offset );
+				final IntBuffer buffer = channel.map( MapMode.READ_ONLY, offset, size ).order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer();
+				final int n = buffer.remaining();
+				buffer.get( pixels, pos, n );
+				pos += n;
+			}
+		}
+		return ArrayImgs.ints( pixels, dimensions );
+	}
+}
@@ -0,0 +1,356 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.hyperstack;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.SelectionModel;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+import fiji.plugin.trackmate.util.Threads;
+import ij.CompositeImage;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.measure.Calibration;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+import ij.process.LUT;
+
+/**
+ * Renders the TrackMate overlay of an image, frame by frame, without an image
+ * window.
+ * <p>
+ * Each frame is drawn in a {@link BufferedImage}: the image plane at the
+ * specified channel and Z-slice, scaled to the magnification, then the spots
+ * and the tracks drawn by a {@link SpotOverlay} and a {@link TrackOverlay}
+ * with the specified {@link DisplaySettings}, as in the
+ * {@link HyperStackDisplayer}. Frames are rendered in parallel, each with its
+ * own overlays. This does not need a display and can be used headless.
+ */
+public class OffScreenOverlayRenderer
+{
+
+	private final Model model;
+
+	private final SelectionModel selectionModel;
+
+	private final ImagePlus imp;
+
+	private final DisplaySettings displaySettings;
+
+	private int channel;
+
+	private int slice;
+
+	private double magnification = 1.;
+
+	private boolean hideImage = false;
+
+	private boolean whiteBackground = false;
+
+	private int numThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a renderer.
+	 *
+	 * @param model
+	 *            the model to render.
+	 * @param selectionModel
+	 *            the selection to highlight. Can be <code>null</code>.
+	 * @param imp
+	 *            the image to render the overlay on.
+	 * @param displaySettings
+	 *            the display settings to use.
+	 */
+	public OffScreenOverlayRenderer( final Model model, final SelectionModel selectionModel, final ImagePlus imp, final DisplaySettings displaySettings )
+	{
+		this.model = model;
+		this.selectionModel = selectionModel;
+		this.imp = imp;
+		this.displaySettings = displaySettings;
+		this.channel = imp.getChannel();
+		this.slice = imp.getSlice();
+	}
+
+	/**
+	 * Sets the channel of the image to render, 1-based. By default, the
+	 * current channel of the image.
+	 */
+	public void setChannel( final int channel )
+	{
+		this.channel = channel;
+	}
+
+	/**
+	 * Sets the Z-slice to render, 1-based. By default, the current Z-slice of
+	 * the image.
+	 */
+	public void setSlice( final int slice )
+	{
+		this.slice = slice;
+	}
+
+	/**
+	 * Sets the magnification of the rendering. By default, 1.
+	 */
+	public void setMagnification( final double magnification )
+	{
+		this.magnification = magnification;
+	}
+
+	/**
+	 * Sets whether the image is replaced by a uniform background.
+	 *
+	 * @param hideImage
+	 *            if <code>true</code>, only the overlay is rendered.
+	 * @param whiteBackground
+	 *            if <code>true</code> and the image is hidden, the
+	 *            background is white. Otherwise it is black.
+	 */
+	public void setHideImage( final boolean hideImage, final boolean whiteBackground )
+	{
+		this.hideImage = hideImage;
+		this.whiteBackground = whiteBackground;
+	}
+
+	public void setNumThreads( final int numThreads )
+	{
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Renders the specified frames in a new RGB {@link ImagePlus}.
+	 *
+	 * @param first
+	 *            the first frame, 1-based, inclusive.
+	 * @param last
+	 *            the last frame, 1-based, inclusive.
+	 * @param logger
+	 *            a {@link Logger} to report progress.
+	 * @return a new ImagePlus.
+	 */
+	public ImagePlus render( final int first, final int last, final Logger logger )
+	{
+		final int firstFrame = Math.max( 1, Math.min( last, first ) );
+		final int lastFrame = Math.min( imp.getNFrames(), Math.max( last, first ) );
+		final ImageStack stack = new ImageStack( getWidth(), getHeight() );
+		final List< ColorProcessor > frames = run( firstFrame, lastFrame, frame -> new ColorProcessor( renderFrame( frame ) ), logger );
+		for ( int i = 0; i < frames.size(); i++ )
+		{
+			final int index = imp.getStackIndex( channel, slice, firstFrame + i );
+			stack.addSlice( imp.getImageStack().getSliceLabel( index ), frames.get( i ) );
+		}
+
+		final ImagePlus capture = new ImagePlus( "TrackMate capture of " + imp.getShortTitle(), stack );
+		final Calibration fc = imp.getCalibration();
+		final Calibration tc = capture.getCalibration();
+		tc.setUnit( fc.getUnit() );
+		tc.setTimeUnit( fc.getTimeUnit() );
+		tc.frameInterval = fc.frameInterval;
+		tc.pixelWidth = fc.pixelWidth / magnification;
+		tc.pixelHeight = fc.pixelHeight / magnification;
+		tc.pixelDepth = fc.pixelDepth;
+		return capture;
+	}
+
+	/**
+	 * Renders the specified frames and writes them as an image sequence of PNG
+	 * files, named <code>capture_t0001.png</code>, etc. with the 1-based frame
+	 * number. Frames are written as soon as they are rendered, so that only a
+	 * few of them are in memory at once.
+	 *
+	 * @param first
+	 *            the first frame, 1-based, inclusive.
+	 * @param last
+	 *            the last frame, 1-based, inclusive.
+	 * @param folder
+	 *            the folder to write the files in. Created if it does not
+	 *            exist.
+	 * @param logger
+	 *            a {@link Logger} to report progress.
+	 * @throws IOException
+	 *             if a file cannot be written.
+	 */
+	public void render( final int first, final int last, final Path folder, final Logger logger ) throws IOException
+	{
+		Files.createDirectories( folder );
+		final int firstFrame = Math.max( 1, Math.min( last, first ) );
+		final int lastFrame = Math.min( imp.getNFrames(), Math.max( last, first ) );
+		try
+		{
+			run( firstFrame, lastFrame, frame -> {
+				final Path path = folder.resolve( String.format( "capture_t%04d.png", frame ) );
+				if ( !ImageIO.write( renderFrame( frame ), "png", path.toFile() ) )
+					throw new IOException( "No PNG writer available to write " + path );
+				return null;
+			}, logger );
+		}
+		catch ( final RuntimeException e )
+		{
+			if ( e.getCause() instanceof IOException )
+				throw ( IOException ) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Renders one frame.
+	 *
+	 * @param frame
+	 *            the frame, 1-based.
+	 * @return a new RGB image.
+	 */
+	public BufferedImage renderFrame( final int frame )
+	{
+		final int width = getWidth();
+		final int height = getHeight();
+		final BufferedImage bi;
+		if ( hideImage )
+		{
+			bi = new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB );
+			final Graphics2D g = bi.createGraphics();
+			g.setColor( whiteBackground ? Color.WHITE : Color.BLACK );
+			g.fillRect( 0, 0, width, height );
+			g.dispose();
+		}
+		else
+		{
+			bi = renderImagePlane( frame, width, height );
+		}
+
+		// Same order as in the HyperStackDisplayer.
+		final Graphics2D g = bi.createGraphics();
+		final SpotOverlay spotOverlay = new SpotOverlay( model, imp, displaySettings );
+		final TrackOverlay trackOverlay = new TrackOverlay( model, imp, displaySettings );
+		if ( selectionModel != null )
+		{
+			spotOverlay.setSpotSelection( selectionModel.getSpotSelection() );
+			trackOverlay.setHighlight( selectionModel.getEdgeSelection() );
+		}
+		spotOverlay.drawOverlay( g, frame - 1, slice - 1, 0, 0, magnification, width );
+		trackOverlay.drawOverlay( g, frame - 1, slice - 1, 0, 0, magnification, width, height );
+		g.dispose();
+		return bi;
+	}
+
+	private BufferedImage renderImagePlane( final int frame, final int width, final int height )
+	{
+		final int index = imp.getStackIndex( channel, slice, frame );
+		final ImageStack stack = imp.getImageStack();
+		final ImageProcessor ip;
+		if ( stack.isVirtual() )
+		{
+			// Virtual stacks may not support concurrent reads.
+			synchronized ( stack )
+			{
+				ip = stack.getProcessor( index );
+			}
+		}
+		else
+		{
+			ip = stack.getProcessor( index );
+		}
+		final LUT lut = imp.isComposite()
+				? ( ( CompositeImage ) imp ).getChannelLut( channel )
+				: imp.getProcessor().getLut();
+		ip.setLut( lut );
+		ip.setMinAndMax( lut.min, lut.max );
+		ImageProcessor rgb = ip.convertToRGB();
+		if ( rgb.getWidth() != width || rgb.getHeight() != height )
+		{
+			rgb.setInterpolationMethod( ImageProcessor.NONE );
+			rgb = rgb.resize( width, height );
+		}
+		return ( ( ColorProcessor ) rgb ).getBufferedImage();
+	}
+
+	private int getWidth()
+	{
+		return ( int ) Math.round( imp.getWidth() * magnification );
+	}
+
+	private int getHeight()
+	{
+		return ( int ) Math.round( imp.getHeight() * magnification );
+	}
+
+	private < R > List< R > run( final int firstFrame, final int lastFrame, final FrameTask< R > task, final Logger logger )
+	{
+		logger.log( "Rendering TrackMate overlay from frame " + firstFrame + " to " + lastFrame + ".\n" );
+		final int nFrames = Math.max( 0, lastFrame - firstFrame + 1 );
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.max( 1, Math.min( numThreads, nFrames ) ) );
+		final List< Future< R > > futures = new ArrayList<>( nFrames );
+		for ( int frame = firstFrame; frame <= lastFrame; frame++ )
+		{
+			final int f = frame;
+			futures.add( executor.submit( ( Callable< R > ) () -> task.render( f ) ) );
+		}
+		executor.shutdown();
+
+		final List< R > results = new ArrayList<>( nFrames );
+		try
+		{
+			for ( final Future< R > future : futures )
+			{
+				results.add( future.get() );
+				logger.setProgress( ( double ) results.size() / nFrames );
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			executor.shutdownNow();
+			throw new RuntimeException( e.getCause() );
+		}
+		finally
+		{
+			logger.setProgress( 0. );
+		}
+		logger.log( "Done.\n" );
+		return results;
+	}
+
+	@FunctionalInterface
+	private static interface FrameTask< R >
+	{
+		R render( int frame ) throws Exception;
+	}
+}
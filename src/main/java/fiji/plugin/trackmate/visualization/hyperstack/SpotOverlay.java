@@ -73,6 +73,9 @@ public class SpotOverlay extends Roi
 
 	protected final Model model;
 
+	/** Width of the view drawn in, used to position spot names. */
+	protected int viewWidth;
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -95,8 +98,36 @@ public class SpotOverlay extends Roi
 	{
 		final int xcorner = ic.offScreenX( 0 );
 		final int ycorner = ic.offScreenY( 0 );
-		final double magnification = getMagnification();
+		final int width = ( imp.getWindow() != null ) ? imp.getWindow().getWidth() : ic.getWidth();
+		drawOverlay( g, imp.getFrame() - 1, imp.getSlice() - 1, xcorner, ycorner, getMagnification(), width );
+	}
+
+	/**
+	 * Draws the spots of the specified frame and Z-slice, independently of the
+	 * state of the image window. This can be used to draw the overlay off
+	 * screen.
+	 *
+	 * @param g
+	 *            the graphics device.
+	 * @param frame
+	 *            the frame to draw, 0-based.
+	 * @param slice
+	 *            the Z-slice to draw, 0-based.
+	 * @param xcorner
+	 *            the X position of the top-left corner of the view, in
+	 *            pixels.
+	 * @param ycorner
+	 *            the Y position of the top-left corner of the view, in
+	 *            pixels.
+	 * @param magnification
+	 *            the magnification of the view.
+	 * @param width
+	 *            the width of the view on the graphics device.
+	 */
+	public void drawOverlay( final Graphics g, final int frame, final int slice, final int xcorner, final int ycorner, final double magnification, final int width )
+	{
 		final SpotCollection spots = model.getSpots();
+		this.viewWidth = width;
 
 		if ( !displaySettings.isSpotVisible() )
 			return;
@@ -123,9 +154,8 @@ public class SpotOverlay extends Roi
 				displaySettings.getUseAntialiasing() ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF );
 		fm = g2d.getFontMetrics();
 
-		final double zslice = ( imp.getSlice() - 1 ) * calibration[ 2 ];
+		final double zslice = slice * calibration[ 2 ];
 		final double lMag = magnification;
-		final int frame = imp.getFrame() - 1;
 
 		// Deal with normal spots.
 		final FeatureColorGenerator< Spot > colorGenerator = FeatureUtils.createSpotColorGenerator( model, displaySettings );
@@ -323,7 +353,7 @@ public class SpotOverlay extends Roi
 		final String str = spot.toString();
 		final int xindent = fm.stringWidth( str );
 		int xtext = ( int ) ( xs + textPos + 5 );
-		if ( xtext + xindent > imp.getWindow().getWidth() )
+		if ( xtext + xindent > viewWidth )
 			xtext = ( int ) ( xs - textPos - 5 - xindent );
 
 		final int yindent = fm.getAscent() / 2;
@@ -88,24 +88,51 @@ public class TrackOverlay extends Roi
 	@Override
 	public final synchronized void drawOverlay( final Graphics g )
 	{
-		final Graphics2D g2d = ( Graphics2D ) g;
+		final int xcorner = ic.offScreenX( 0 );
+		final int ycorner = ic.offScreenY( 0 );
+		drawOverlay( g, imp.getFrame() - 1, imp.getSlice() - 1, xcorner, ycorner, getMagnification(), ic.getWidth(), ic.getHeight() );
+	}
 
-		final double magnification = getMagnification();
+	/**
+	 * Draws the tracks for the specified frame and Z-slice, independently of
+	 * the state of the image window. This can be used to draw the overlay off
+	 * screen.
+	 *
+	 * @param g
+	 *            the graphics device.
+	 * @param currentFrame
+	 *            the frame to draw, 0-based.
+	 * @param slice
+	 *            the Z-slice to draw, 0-based.
+	 * @param xcorner
+	 *            the X position of the top-left corner of the view, in
+	 *            pixels.
+	 * @param ycorner
+	 *            the Y position of the top-left corner of the view, in
+	 *            pixels.
+	 * @param magnification
+	 *            the magnification of the view.
+	 * @param width
+	 *            the width of the view on the graphics device.
+	 * @param height
+	 *            the height of the view on the graphics device.
+	 */
+	public synchronized void drawOverlay( final Graphics g, final int currentFrame, final int slice, final int xcorner, final int ycorner, final double magnification, final int width, final int height )
+	{
+		final Graphics2D g2d = ( Graphics2D ) g;
 
 		// Painted clip in window coordinates.
-		final int xcorner = ic.offScreenX( 0 );
-		final int ycorner = ic.offScreenY( 0 );
 		final double minx = xcorner;
 		final double miny = ycorner;
-		final double maxx = minx + ic.getWidth() / magnification;
-		final double maxy = miny + ic.getHeight() / magnification;
+		final double maxx = minx + width / magnification;
+		final double maxy = miny + height / magnification;
 
 		if ( !displaySettings.isTrackVisible() || model.getTrackModel().nTracks( true ) == 0 )
 			return;
 
 		final boolean doLimitDrawingDepth = displaySettings.isZDrawingDepthLimited();
 		final double drawingDepth = displaySettings.getZDrawingDepth();
-		final double zslice = ( imp.getSlice() - 1 ) * calibration[ 2 ];
+		final double zslice = slice * calibration[ 2 ];
 
 		// Save graphic device original settings
 		final AffineTransform originalTransform = g2d.getTransform();
@@ -114,7 +141,6 @@ public class TrackOverlay extends Roi
 		final Color originalColor = g2d.getColor();
 
 		// Normal edges
-		final int currentFrame = imp.getFrame() - 1;
 		final TrackDisplayMode trackDisplayMode = displaySettings.getTrackDisplayMode();
 		final int trackDisplayDepth = displaySettings.isFadeTracks() ? displaySettings.getFadeTrackRange() : 1_000_000_000;
 		final Set< Integer > filteredTrackKeys = model.getTrackModel().unsortedTrackIDs( true );
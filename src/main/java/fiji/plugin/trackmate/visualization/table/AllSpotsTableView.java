@@ -280,11 +280,31 @@ public class AllSpotsTableView extends JFrame implements TrackMateModelView, Mod
 			return;
 		}
 
-		final List< Spot > spots = new ArrayList<>();
-		for ( final Spot spot : model.getSpots().iterable( true ) )
-			spots.add( spot );
-		spotTable.setObjects( spots );
+		ignoreSelectionChange.set( true );
+		try
+		{
+			if ( event.getEventID() == ModelChangeEvent.MODEL_MODIFIED && !event.isStructureReset() )
+			{
+				// Only update the rows of the spots affected by the event.
+				spotTable.updateObjects(
+						TableUtils.affectedSpots( event, model.getTrackModel() ),
+						spot -> TableUtils.isVisible( spot, event ) );
+			}
+			else
+			{
+				final List< Spot > spots = new ArrayList<>();
+				for ( final Spot spot : model.getSpots().iterable( true ) )
+					spots.add( spot );
+				spotTable.setObjects( spots );
+			}
 
+			// Row events may have moved the table selection.
+			copySelectionToTable();
+		}
+		finally
+		{
+			ignoreSelectionChange.set( false );
+		}
 		refresh();
 	}
 
@@ -298,15 +318,7 @@ public class AllSpotsTableView extends JFrame implements TrackMateModelView, Mod
 			return;
 		ignoreSelectionChange.set( true );
 
-		// Vertices table.
-		final Set< Spot > selectedVertices = selectionModel.getSpotSelection();
-		final JTable vt = spotTable.getTable();
-		vt.getSelectionModel().clearSelection();
-		for ( final Spot spot : selectedVertices )
-		{
-			final int row = spotTable.getViewRowForObject( spot );
-			vt.getSelectionModel().addSelectionInterval( row, row );
-		}
+		copySelectionToTable();
 
 		// Center on selection if we added one spot exactly
 		final Map< Spot, Boolean > spotsAdded = event.getSpots();
@@ -324,6 +336,18 @@ public class AllSpotsTableView extends JFrame implements TrackMateModelView, Mod
 		ignoreSelectionChange.set( false );
 	}
 
+	private void copySelectionToTable()
+	{
+		final Set< Spot > selectedVertices = selectionModel.getSpotSelection();
+		final JTable vt = spotTable.getTable();
+		vt.getSelectionModel().clearSelection();
+		for ( final Spot spot : selectedVertices )
+		{
+			final int row = spotTable.getViewRowForObject( spot );
+			vt.getSelectionModel().addSelectionInterval( row, row );
+		}
+	}
+
 	@Override
 	public void centerViewOn( final Spot spot )
 	{
@@ -60,9 +60,7 @@ import fiji.plugin.trackmate.Logger;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.SelectionModel;
 import fiji.plugin.trackmate.Spot;
-import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
 import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
-import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
 import fiji.plugin.trackmate.util.FileChooser;
 import fiji.plugin.trackmate.util.FileChooser.DialogType;
 import fiji.plugin.trackmate.util.FileChooser.SelectionMode;
@@ -159,13 +157,13 @@ public class BranchTableView extends JFrame implements TrackMateModelView
 		if ( ntracks == 0 )
 			logger.log( "No visible track found. Aborting.\n" );
 
-		final TimeDirectedNeighborIndex neighborIndex = model.getTrackModel().getDirectedNeighborIndex();
+		// Shared with other branch analyses, computed in parallel.
+		final Map< Integer, TrackBranchDecomposition > decompositions = model.getTrackModel().getBranchDecompositions( model.getTrackModel().unsortedTrackIDs( true ), true, false );
 
 		final List< Branch > brs = new ArrayList<>();
-		for ( final Integer trackID : model.getTrackModel().unsortedTrackIDs( true ) )
+		for ( final Integer trackID : decompositions.keySet() )
 		{
-			final TrackBranchDecomposition branchDecomposition = ConvexBranchesDecomposition.processTrack( trackID, model.getTrackModel(), neighborIndex, true, false );
-			final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = ConvexBranchesDecomposition.buildBranchGraph( branchDecomposition );
+			final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = decompositions.get( trackID ).getBranchGraph();
 
 			final Map< Branch, Set< List< Spot > > > successorMap = new HashMap<>();
 			final Map< Branch, Set< List< Spot > > > predecessorMap = new HashMap<>();
@@ -0,0 +1,725 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+
+import fiji.plugin.trackmate.util.Threads;
+
+/**
+ * A {@link RowSorter} for the {@link TablePanel} that sorts and filters rows
+ * on a background thread.
+ * <p>
+ * The values of the column sorted on are read once, in parallel, into a
+ * primitive column in model order. Numerical values are converted to
+ * <code>long</code> keys that have the same order, and the rows passing the
+ * filter are sorted on these keys with a stable radix sort into an
+ * <code>int[]</code> permutation. The label column is sorted
+ * alphabetically. While a sort runs, the table keeps showing the previous
+ * permutation and stays responsive; the new one replaces it when ready.
+ * <p>
+ * Rows inserted, updated or deleted in the model, in small numbers, are moved
+ * in the permutation on the spot, with a binary search on the cached column.
+ * Larger changes trigger a new background sort.
+ * <p>
+ * The methods of this class are synchronized, so that the model can be
+ * edited from another thread than the EDT, as the TrackMate model is.
+ *
+ * @param <O>
+ *            the type of objects listed in the table.
+ */
+class ColumnSorter< O > extends RowSorter< TableModel >
+{
+
+	/**
+	 * Above this fraction of the rows, changed rows are not moved in the
+	 * permutation one by one, and a background sort is triggered instead.
+	 */
+	private static final int INCREMENTAL_FRACTION = 10;
+
+	/** Number of rows read per task when loading a column. */
+	private static final int CHUNK_SIZE = 65536;
+
+	private static final int RADIX_BITS = 11;
+
+	private static final int RADIX = 1 << RADIX_BITS;
+
+	private final TableModel model;
+
+	private final List< O > objects;
+
+	private final Function< O, String > labelGenerator;
+
+	private final List< String > features;
+
+	private final BiFunction< O, String, Double > featureFun;
+
+	private List< SortKey > sortKeys = Collections.emptyList();
+
+	private Predicate< O > filter;
+
+	/**
+	 * The model rows in view order. Only the first {@link #viewRowCount}
+	 * elements are used.
+	 */
+	private int[] viewToModel = new int[ 0 ];
+
+	private int viewRowCount;
+
+	/**
+	 * The view row of each model row, or -1 if filtered out. Rebuilt when
+	 * needed, <code>null</code> if not up to date.
+	 */
+	private int[] modelToView;
+
+	private int modelRowCount;
+
+	/**
+	 * Sort keys of the model rows, for a numerical sort column, in model
+	 * order. <code>null</code> if not loaded.
+	 */
+	private long[] keys;
+
+	/**
+	 * Labels of the model rows, if the label column is sorted on, in model
+	 * order. <code>null</code> if not loaded.
+	 */
+	private String[] labels;
+
+	/**
+	 * Incremented at every change that makes a running background sort
+	 * obsolete.
+	 */
+	private long version;
+
+	private volatile boolean sorting;
+
+	private final int numThreads;
+
+	/**
+	 * Creates a sorter.
+	 *
+	 * @param model
+	 *            the table model.
+	 * @param objects
+	 *            the objects listed in the model, in model order. The list
+	 *            is read, not copied.
+	 * @param labelGenerator
+	 *            the label of objects, displayed in the first column. If
+	 *            <code>null</code>, there is no label column.
+	 * @param features
+	 *            the features displayed in the other columns.
+	 * @param featureFun
+	 *            the value of a feature for an object.
+	 */
+	ColumnSorter(
+			final TableModel model,
+			final List< O > objects,
+			final Function< O, String > labelGenerator,
+			final List< String > features,
+			final BiFunction< O, String, Double > featureFun )
+	{
+		this.model = model;
+		this.objects = objects;
+		this.labelGenerator = labelGenerator;
+		this.features = features;
+		this.featureFun = featureFun;
+		this.numThreads = Runtime.getRuntime().availableProcessors();
+		resetToModelOrder();
+	}
+
+	/**
+	 * Sets the filter that rows must pass to be displayed, and filters the
+	 * rows again on a background thread.
+	 *
+	 * @param filter
+	 *            the filter. If <code>null</code>, all rows are displayed.
+	 */
+	public synchronized void setRowFilter( final Predicate< O > filter )
+	{
+		this.filter = filter;
+		scheduleSort();
+	}
+
+	/**
+	 * Returns <code>true</code> while a background sort is running. The
+	 * displayed permutation is then the one of the previous sort.
+	 *
+	 * @return whether a sort is running.
+	 */
+	public boolean isSorting()
+	{
+		return sorting;
+	}
+
+	@Override
+	public TableModel getModel()
+	{
+		return model;
+	}
+
+	@Override
+	public synchronized void toggleSortOrder( final int column )
+	{
+		final SortOrder order;
+		if ( !sortKeys.isEmpty() && sortKeys.get( 0 ).getColumn() == column && sortKeys.get( 0 ).getSortOrder() == SortOrder.ASCENDING )
+			order = SortOrder.DESCENDING;
+		else
+			order = SortOrder.ASCENDING;
+		setSortKeys( Collections.singletonList( new SortKey( column, order ) ) );
+	}
+
+	@Override
+	public synchronized List< ? extends SortKey > getSortKeys()
+	{
+		return sortKeys;
+	}
+
+	/**
+	 * Sets the sort keys. Only the first key is used. Rows are sorted again on
+	 * a background thread.
+	 */
+	@Override
+	public synchronized void setSortKeys( final List< ? extends SortKey > keys )
+	{
+		final List< SortKey > newKeys = new ArrayList<>();
+		if ( keys != null && !keys.isEmpty() && keys.get( 0 ).getSortOrder() != SortOrder.UNSORTED )
+			newKeys.add( keys.get( 0 ) );
+		if ( newKeys.equals( sortKeys ) )
+			return;
+
+		sortKeys = Collections.unmodifiableList( newKeys );
+		this.keys = null;
+		this.labels = null;
+		fireSortOrderChanged();
+		scheduleSort();
+	}
+
+	@Override
+	public synchronized int convertRowIndexToModel( final int index )
+	{
+		if ( index < 0 || index >= viewRowCount )
+			throw new IndexOutOfBoundsException( "Invalid view row index: " + index );
+		return viewToModel[ index ];
+	}
+
+	@Override
+	public synchronized int convertRowIndexToView( final int index )
+	{
+		if ( index < 0 || index >= modelRowCount )
+			throw new IndexOutOfBoundsException( "Invalid model row index: " + index );
+		if ( modelToView == null )
+		{
+			modelToView = new int[ modelRowCount ];
+			Arrays.fill( modelToView, -1 );
+			for ( int v = 0; v < viewRowCount; v++ )
+				modelToView[ viewToModel[ v ] ] = v;
+		}
+		return modelToView[ index ];
+	}
+
+	@Override
+	public synchronized int getViewRowCount()
+	{
+		return viewRowCount;
+	}
+
+	@Override
+	public synchronized int getModelRowCount()
+	{
+		return modelRowCount;
+	}
+
+	@Override
+	public synchronized void modelStructureChanged()
+	{
+		allRowsChanged();
+	}
+
+	@Override
+	public synchronized void allRowsChanged()
+	{
+		keys = null;
+		labels = null;
+		resetToModelOrder();
+		if ( !sortKeys.isEmpty() || filter != null )
+			scheduleSort();
+	}
+
+	@Override
+	public synchronized void rowsInserted( final int firstRow, final int endRow )
+	{
+		checkRange( firstRow, endRow, firstRow <= modelRowCount );
+		final int count = endRow - firstRow + 1;
+		modelRowCount += count;
+		modelToView = null;
+
+		// Shift model indices and cached values after the insertion.
+		for ( int v = 0; v < viewRowCount; v++ )
+			if ( viewToModel[ v ] >= firstRow )
+				viewToModel[ v ] += count;
+		if ( keys != null )
+			keys = insert( keys, firstRow, count, modelRowCount );
+		if ( labels != null )
+			labels = insert( labels, firstRow, count, modelRowCount );
+
+		final boolean incremental = isIncremental( count );
+		for ( int row = firstRow; row <= endRow; row++ )
+		{
+			if ( incremental )
+			{
+				loadKey( row );
+				insertInView( row );
+			}
+			else
+			{
+				addToView( viewRowCount, row );
+			}
+		}
+		if ( !incremental )
+			scheduleSort();
+	}
+
+	@Override
+	public synchronized void rowsDeleted( final int firstRow, final int endRow )
+	{
+		checkRange( firstRow, endRow, endRow < modelRowCount );
+		final int count = endRow - firstRow + 1;
+		modelRowCount -= count;
+		modelToView = null;
+
+		int w = 0;
+		for ( int v = 0; v < viewRowCount; v++ )
+		{
+			final int row = viewToModel[ v ];
+			if ( row < firstRow )
+				viewToModel[ w++ ] = row;
+			else if ( row > endRow )
+				viewToModel[ w++ ] = row - count;
+		}
+		viewRowCount = w;
+		if ( keys != null )
+			keys = remove( keys, firstRow, count );
+		if ( labels != null )
+			labels = remove( labels, firstRow, count );
+
+		// A running sort works on the rows before deletion.
+		if ( sorting )
+			scheduleSort();
+	}
+
+	@Override
+	public synchronized void rowsUpdated( final int firstRow, final int endRow )
+	{
+		checkRange( firstRow, endRow, endRow < modelRowCount );
+		// Order and filtering do not depend on values.
+		if ( sortKeys.isEmpty() && filter == null && !sorting )
+			return;
+
+		final int count = endRow - firstRow + 1;
+		if ( !isIncremental( count ) )
+		{
+			scheduleSort();
+			return;
+		}
+
+		for ( int row = firstRow; row <= endRow; row++ )
+		{
+			final int viewRow = convertRowIndexToView( row );
+			if ( viewRow >= 0 )
+				removeFromView( viewRow );
+			loadKey( row );
+			insertInView( row );
+		}
+	}
+
+	@Override
+	public synchronized void rowsUpdated( final int firstRow, final int endRow, final int column )
+	{
+		rowsUpdated( firstRow, endRow );
+	}
+
+	/*
+	 * PRIVATE METHODS.
+	 */
+
+	/**
+	 * Returns <code>true</code> if the specified number of changed rows can
+	 * be moved in the permutation one by one.
+	 */
+	private boolean isIncremental( final int count )
+	{
+		if ( sorting )
+			return false;
+		if ( sortKeys.isEmpty() && filter == null )
+			return true;
+		if ( !sortKeys.isEmpty() && keys == null && labels == null )
+			return false;
+		return count <= Math.max( 1, modelRowCount / INCREMENTAL_FRACTION );
+	}
+
+	private void resetToModelOrder()
+	{
+		modelRowCount = model.getRowCount();
+		viewToModel = new int[ modelRowCount ];
+		for ( int i = 0; i < modelRowCount; i++ )
+			viewToModel[ i ] = i;
+		viewRowCount = modelRowCount;
+		modelToView = null;
+	}
+
+	/**
+	 * Reads the sort key of a model row in the cached column.
+	 */
+	private void loadKey( final int row )
+	{
+		if ( keys != null )
+			keys[ row ] = numericKey( featureFun.apply( objects.get( row ), sortFeature() ), isDescending() );
+		else if ( labels != null )
+			labels[ row ] = labelGenerator.apply( objects.get( row ) );
+	}
+
+	/**
+	 * Inserts a model row in the view at its sorted position, if it passes
+	 * the filter.
+	 */
+	private void insertInView( final int row )
+	{
+		if ( filter != null && !filter.test( objects.get( row ) ) )
+			return;
+
+		int lo = 0;
+		int hi = viewRowCount;
+		while ( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
+			if ( compareRows( viewToModel[ mid ], row ) < 0 )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		addToView( lo, row );
+	}
+
+	private void addToView( final int viewRow, final int row )
+	{
+		if ( viewRowCount == viewToModel.length )
+			viewToModel = Arrays.copyOf( viewToModel, Math.max( 16, viewRowCount + ( viewRowCount >> 1 ) ) );
+		System.arraycopy( viewToModel, viewRow, viewToModel, viewRow + 1, viewRowCount - viewRow );
+		viewToModel[ viewRow ] = row;
+		viewRowCount++;
+		modelToView = null;
+	}
+
+	private void removeFromView( final int viewRow )
+	{
+		System.arraycopy( viewToModel, viewRow + 1, viewToModel, viewRow, viewRowCount - viewRow - 1 );
+		viewRowCount--;
+		modelToView = null;
+	}
+
+	/**
+	 * Compares two model rows as the background sort does: on their key,
+	 * then on their model index.
+	 */
+	private int compareRows( final int r1, final int r2 )
+	{
+		int c = 0;
+		if ( keys != null )
+			c = Long.compareUnsigned( keys[ r1 ], keys[ r2 ] );
+		else if ( labels != null )
+			c = labelComparator( isDescending() ).compare( labels[ r1 ], labels[ r2 ] );
+		return c != 0 ? c : Integer.compare( r1, r2 );
+	}
+
+	private boolean isDescending()
+	{
+		return !sortKeys.isEmpty() && sortKeys.get( 0 ).getSortOrder() == SortOrder.DESCENDING;
+	}
+
+	private boolean isLabelColumn( final int column )
+	{
+		return labelGenerator != null && column == 0;
+	}
+
+	/**
+	 * The feature of the sort column, or <code>null</code> if there is no
+	 * sort column or if it is the label column.
+	 */
+	private String sortFeature()
+	{
+		if ( sortKeys.isEmpty() )
+			return null;
+		final int column = sortKeys.get( 0 ).getColumn();
+		if ( isLabelColumn( column ) )
+			return null;
+		return features.get( labelGenerator == null ? column : column - 1 );
+	}
+
+	/**
+	 * Starts sorting and filtering a copy of the current model rows on a
+	 * background thread. The result replaces the current permutation on the
+	 * EDT, unless the model changed in between, in which case another sort is
+	 * started.
+	 */
+	private void scheduleSort()
+	{
+		final long jobVersion = ++version;
+		sorting = true;
+
+		final List< O > snapshot = new ArrayList<>( objects );
+		final SortKey sortKey = sortKeys.isEmpty() ? null : sortKeys.get( 0 );
+		final boolean sortOnLabels = sortKey != null && isLabelColumn( sortKey.getColumn() );
+		final String feature = sortFeature();
+		final boolean descending = isDescending();
+		final Predicate< O > f = filter;
+
+		Threads.run( "TrackMate table sorter", () -> {
+			final SortResult result = sort( snapshot, sortKey == null ? null : feature, sortOnLabels, descending, f );
+			SwingUtilities.invokeLater( () -> install( jobVersion, result ) );
+		} );
+	}
+
+	private synchronized void install( final long jobVersion, final SortResult result )
+	{
+		if ( jobVersion != version )
+			return; // Superseded by a later sort.
+
+		final int[] lastViewToModel = Arrays.copyOf( viewToModel, viewRowCount );
+		viewToModel = result.viewToModel;
+		viewRowCount = result.viewToModel.length;
+		keys = result.keys;
+		labels = result.labels;
+		modelToView = null;
+		sorting = false;
+		fireRowSorterChanged( lastViewToModel );
+	}
+
+	private SortResult sort( final List< O > snapshot, final String feature, final boolean sortOnLabels, final boolean descending, final Predicate< O > f )
+	{
+		final int n = snapshot.size();
+
+		// Filter.
+		int[] rows = new int[ n ];
+		int nRows = 0;
+		for ( int i = 0; i < n; i++ )
+			if ( f == null || f.test( snapshot.get( i ) ) )
+				rows[ nRows++ ] = i;
+		rows = Arrays.copyOf( rows, nRows );
+
+		if ( sortOnLabels )
+		{
+			final String[] columnLabels = new String[ n ];
+			for ( int i = 0; i < n; i++ )
+				columnLabels[ i ] = labelGenerator.apply( snapshot.get( i ) );
+			final Comparator< String > comparator = labelComparator( descending );
+			final Integer[] boxed = new Integer[ nRows ];
+			for ( int i = 0; i < nRows; i++ )
+				boxed[ i ] = rows[ i ];
+			// Stable, ties stay in model order.
+			Arrays.sort( boxed, ( r1, r2 ) -> comparator.compare( columnLabels[ r1 ], columnLabels[ r2 ] ) );
+			for ( int i = 0; i < nRows; i++ )
+				rows[ i ] = boxed[ i ];
+			return new SortResult( rows, null, columnLabels );
+		}
+
+		if ( feature == null )
+			return new SortResult( rows, null, null );
+
+		final long[] columnKeys = loadColumn( snapshot, feature, descending );
+		final long[] rowKeys = new long[ nRows ];
+		for ( int i = 0; i < nRows; i++ )
+			rowKeys[ i ] = columnKeys[ rows[ i ] ];
+		radixSort( rowKeys, rows );
+		return new SortResult( rows, columnKeys, null );
+	}
+
+	/**
+	 * Reads the sort keys of a feature for all the objects, in parallel.
+	 */
+	private long[] loadColumn( final List< O > snapshot, final String feature, final boolean descending )
+	{
+		final int n = snapshot.size();
+		final long[] column = new long[ n ];
+		final ExecutorService executor = Threads.newFixedThreadPool( Math.max( 1, Math.min( numThreads, n / CHUNK_SIZE + 1 ) ) );
+		final List< Future< ? > > futures = new ArrayList<>();
+		for ( int start = 0; start < n; start += CHUNK_SIZE )
+		{
+			final int from = start;
+			final int to = Math.min( n, start + CHUNK_SIZE );
+			futures.add( executor.submit( () -> {
+				for ( int i = from; i < to; i++ )
+					column[ i ] = numericKey( featureFun.apply( snapshot.get( i ), feature ), descending );
+			} ) );
+		}
+		executor.shutdown();
+		try
+		{
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		catch ( final ExecutionException e )
+		{
+			executor.shutdownNow();
+			throw new RuntimeException( e.getCause() );
+		}
+		return column;
+	}
+
+	/**
+	 * Returns a key for the specified value, such that unsigned comparison of
+	 * keys gives the order of {@link Double#compare(double, double)}, or the
+	 * reverse order if <code>descending</code> is <code>true</code>. Missing
+	 * values are considered as NaN, and come last in ascending order.
+	 */
+	static long numericKey( final Double value, final boolean descending )
+	{
+		final double v = value == null ? Double.NaN : value.doubleValue();
+		final long bits = Double.doubleToLongBits( v );
+		final long key = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+		return descending ? ~key : key;
+	}
+
+	/**
+	 * Sorts the specified keys in unsigned order, and permutes the rows
+	 * along. LSD radix sort on 11-bit digits, stable. Passes on digits that
+	 * are the same for all keys are skipped.
+	 */
+	static void radixSort( final long[] keys, final int[] rows )
+	{
+		final int n = keys.length;
+		long[] srcKeys = keys;
+		int[] srcRows = rows;
+		long[] dstKeys = new long[ n ];
+		int[] dstRows = new int[ n ];
+		final int[] counts = new int[ RADIX ];
+		for ( int shift = 0; shift < Long.SIZE; shift += RADIX_BITS )
+		{
+			Arrays.fill( counts, 0 );
+			for ( int i = 0; i < n; i++ )
+				counts[ ( int ) ( srcKeys[ i ] >>> shift ) & ( RADIX - 1 ) ]++;
+			if ( n == 0 || counts[ ( int ) ( srcKeys[ 0 ] >>> shift ) & ( RADIX - 1 ) ] == n )
+				continue;
+
+			int sum = 0;
+			for ( int d = 0; d < RADIX; d++ )
+			{
+				final int c = counts[ d ];
+				counts[ d ] = sum;
+				sum += c;
+			}
+			for ( int i = 0; i < n; i++ )
+			{
+				final int pos = counts[ ( int ) ( srcKeys[ i ] >>> shift ) & ( RADIX - 1 ) ]++;
+				dstKeys[ pos ] = srcKeys[ i ];
+				dstRows[ pos ] = srcRows[ i ];
+			}
+			final long[] tk = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = tk;
+			final int[] tr = srcRows;
+			srcRows = dstRows;
+			dstRows = tr;
+		}
+		if ( srcKeys != keys )
+		{
+			System.arraycopy( srcKeys, 0, keys, 0, n );
+			System.arraycopy( srcRows, 0, rows, 0, n );
+		}
+	}
+
+	private static Comparator< String > labelComparator( final boolean descending )
+	{
+		final Comparator< String > comparator = Comparator.nullsLast( Comparator.naturalOrder() );
+		return descending ? comparator.reversed() : comparator;
+	}
+
+	private static void checkRange( final int firstRow, final int endRow, final boolean inModel )
+	{
+		if ( firstRow < 0 || endRow < firstRow || !inModel )
+			throw new IndexOutOfBoundsException( "Invalid row range: " + firstRow + " - " + endRow );
+	}
+
+	private static long[] insert( final long[] array, final int index, final int count, final int newSize )
+	{
+		final long[] out = array.length >= newSize ? array : Arrays.copyOf( array, Math.max( newSize, array.length + ( array.length >> 1 ) ) );
+		System.arraycopy( out, index, out, index + count, newSize - count - index );
+		return out;
+	}
+
+	private static String[] insert( final String[] array, final int index, final int count, final int newSize )
+	{
+		final String[] out = array.length >= newSize ? array : Arrays.copyOf( array, Math.max( newSize, array.length + ( array.length >> 1 ) ) );
+		System.arraycopy( out, index, out, index + count, newSize - count - index );
+		return out;
+	}
+
+	private long[] remove( final long[] array, final int index, final int count )
+	{
+		System.arraycopy( array, index + count, array, index, modelRowCount - index );
+		return array;
+	}
+
+	private String[] remove( final String[] array, final int index, final int count )
+	{
+		System.arraycopy( array, index + count, array, index, modelRowCount - index );
+		Arrays.fill( array, modelRowCount, modelRowCount + count, null );
+		return array;
+	}
+
+	private static final class SortResult
+	{
+
+		private final int[] viewToModel;
+
+		private final long[] keys;
+
+		private final String[] labels;
+
+		private SortResult( final int[] viewToModel, final long[] keys, final String[] labels )
+		{
+			this.viewToModel = viewToModel;
+			this.keys = keys;
+			this.labels = labels;
+		}
+	}
+}
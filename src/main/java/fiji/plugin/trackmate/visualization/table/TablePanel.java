@@ -36,12 +36,13 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import javax.swing.AbstractCellEditor;
@@ -66,7 +67,6 @@ import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
 
 import com.opencsv.CSVWriter;
 
@@ -80,6 +80,14 @@ public class TablePanel< O >
 
 	private static final int ROW_HEIGHT = 26;
 
+	/**
+	 * Above this number of rows to delete or update in one call to
+	 * {@link #updateObjects(Iterable, Predicate)}, the table is refreshed as a
+	 * whole. Each row event costs the row sorter a pass on its permutation,
+	 * so past this number sorting again is cheaper.
+	 */
+	private static final int MAX_ROW_EVENTS = 1000;
+
 	private final JTable table;
 
 	private final List< Class< ? > > columnClasses;
@@ -104,6 +112,8 @@ public class TablePanel< O >
 
 	private final TObjectIntHashMap< O > map;
 
+	private final ColumnSorter< O > sorter;
+
 	private final Supplier< FeatureColorGenerator< O > > colorSupplier;
 
 	private final String manualColorFeature;
@@ -249,20 +259,9 @@ public class TablePanel< O >
 			tableColumnModel.addColumn( new TableColumn( colIndex++ ) );
 		}
 
-		// Sorting.
-		final TableRowSorter< MyTableModel > sorter = new TableRowSorter<>( tableModel );
+		// Sorting, on a background thread.
+		this.sorter = new ColumnSorter<>( tableModel, this.objects, labelGenerator, features, featureFun );
 		table.setRowSorter( sorter );
-		for ( int c = 0; c < columnClasses.size(); c++ )
-		{
-			if ( columnClasses.get( c ).equals( Integer.class ) )
-				sorter.setComparator( c, ( i1, i2 ) -> Integer.compare( ( int ) i1, ( int ) i2 ) );
-			else if ( columnClasses.get( c ).equals( Double.class ) )
-				sorter.setComparator( c, ( d1, d2 ) -> Double.compare( ( double ) d1, ( double ) d2 ) );
-			else if ( columnClasses.get( c ).equals( Color.class ) )
-				sorter.setComparator( c, ( c1, c2 ) -> c1.toString().compareTo( c2.toString() ) );
-			else
-				sorter.setComparator( c, Comparator.naturalOrder() );
-		}
 
 		// Pass last line to column headers and set cell renderer.
 		final MyTableCellRenderer cellRenderer = new MyTableCellRenderer();
@@ -304,6 +303,140 @@ public class TablePanel< O >
 		( ( MyTableModel ) table.getModel() ).fireTableDataChanged();
 	}
 
+	/**
+	 * Updates the table for the specified objects only, without rebuilding it.
+	 * Each candidate that passes the specified filter is added to the table if
+	 * it is not listed yet, or has its row updated otherwise. Listed
+	 * candidates that do not pass the filter are removed from the table.
+	 * Objects that are not candidates are left untouched.
+	 * <p>
+	 * Rows are inserted, updated and deleted with fine-grained table events,
+	 * so that the row sorter maintains its index instead of sorting the whole
+	 * table again. The order of the rows in the model is not preserved: a
+	 * deleted row is replaced by the last one. If there are many rows to
+	 * delete or update, the table is refreshed as a whole instead.
+	 *
+	 * @param candidates
+	 *            the objects that might have changed.
+	 * @param isListed
+	 *            whether an object should be listed in the table.
+	 */
+	public void updateObjects( final Iterable< O > candidates, final Predicate< O > isListed )
+	{
+		final List< O > toAdd = new ArrayList<>();
+		final List< O > toRemove = new ArrayList<>();
+		final List< O > toUpdate = new ArrayList<>();
+		for ( final O o : candidates )
+		{
+			final boolean listed = map.containsKey( o );
+			if ( isListed.test( o ) )
+			{
+				if ( listed )
+					toUpdate.add( o );
+				else
+					toAdd.add( o );
+			}
+			else if ( listed )
+			{
+				toRemove.add( o );
+			}
+		}
+
+		final MyTableModel tableModel = ( MyTableModel ) table.getModel();
+		final boolean fireRowEvents = toRemove.size() + toUpdate.size() <= MAX_ROW_EVENTS;
+
+		for ( final O o : toRemove )
+		{
+			final int row = map.remove( o );
+			if ( row < 0 )
+				continue;
+			final int last = objects.size() - 1;
+			final O moved = objects.remove( last );
+			if ( row != last )
+			{
+				objects.set( row, moved );
+				map.put( moved, row );
+			}
+			if ( fireRowEvents )
+			{
+				tableModel.fireTableRowsDeleted( last, last );
+				if ( row != last )
+					tableModel.fireTableRowsUpdated( row, row );
+			}
+		}
+
+		if ( fireRowEvents )
+		{
+			for ( final O o : toUpdate )
+			{
+				final int row = map.get( o );
+				tableModel.fireTableRowsUpdated( row, row );
+			}
+		}
+
+		final int first = objects.size();
+		for ( final O o : toAdd )
+		{
+			if ( map.containsKey( o ) )
+				continue;
+			map.put( o, objects.size() );
+			objects.add( o );
+		}
+
+		if ( !fireRowEvents )
+			tableModel.fireTableDataChanged();
+		else if ( objects.size() > first )
+			tableModel.fireTableRowsInserted( first, objects.size() - 1 );
+	}
+
+	/**
+	 * Sets a filter on the objects displayed in the table. Objects are
+	 * filtered on a background thread, and the table keeps displaying the
+	 * previous rows until done.
+	 *
+	 * @param filter
+	 *            the filter objects must pass to be displayed. If
+	 *            <code>null</code>, all objects are displayed.
+	 */
+	public void setRowFilter( final Predicate< O > filter )
+	{
+		sorter.setRowFilter( filter );
+	}
+
+	/**
+	 * Returns <code>true</code> while the rows are being sorted or filtered on
+	 * a background thread.
+	 *
+	 * @return whether the rows are being sorted.
+	 */
+	public boolean isSorting()
+	{
+		return sorter.isSorting();
+	}
+
+	/**
+	 * Returns the objects listed in this table, in model order.
+	 *
+	 * @return an unmodifiable view of the objects.
+	 */
+	public List< O > getObjects()
+	{
+		return Collections.unmodifiableList( objects );
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified object is listed in this
+	 * table.
+	 *
+	 * @param o
+	 *            the object.
+	 * @return whether the object is listed.
+	 */
+	public boolean contains( final O o )
+	{
+		return map.containsKey( o );
+	}
+
 	/**
 	 * The panel in which the table is displayed. This is the component to add
 	 * to client UI.
@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.table;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fiji.plugin.trackmate.ModelChangeEvent;
+import fiji.plugin.trackmate.ModelDelta;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.TrackModel;
+
+/**
+ * Static utilities to update the tables from the content of a
+ * {@link ModelChangeEvent}.
+ */
+class TableUtils
+{
+
+	private TableUtils()
+	{}
+
+	/**
+	 * Returns the spots whose row in a table might have changed after the
+	 * specified event: the spots of the event, the source and target of its
+	 * edges, and the spots of the tracks to update. This covers spots that
+	 * changed track, and spots that left a track when their last edge was
+	 * removed.
+	 *
+	 * @param event
+	 *            the {@link ModelChangeEvent#MODEL_MODIFIED} event.
+	 * @param trackModel
+	 *            the track model the event was fired for.
+	 * @return a new set of spots.
+	 */
+	static Set< Spot > affectedSpots( final ModelChangeEvent event, final TrackModel trackModel )
+	{
+		final ModelDelta delta = event.getDelta();
+		final Set< Spot > spots = new HashSet<>( delta.nSpots() );
+		for ( int i = 0; i < delta.nSpots(); i++ )
+			spots.add( delta.getSpot( i ) );
+		for ( int i = 0; i < delta.nEdges(); i++ )
+		{
+			final DefaultWeightedEdge edge = delta.getEdge( i );
+			// Removed edges still know their source and target.
+			final Spot source = trackModel.getEdgeSource( edge );
+			if ( source != null )
+				spots.add( source );
+			final Spot target = trackModel.getEdgeTarget( edge );
+			if ( target != null )
+				spots.add( target );
+		}
+		for ( final Integer trackID : delta.getTracksUpdated() )
+		{
+			final Set< Spot > trackSpots = trackModel.trackSpots( trackID );
+			if ( trackSpots != null )
+				spots.addAll( trackSpots );
+		}
+		return spots;
+	}
+
+	/**
+	 * Returns the edges whose row in a table might have changed after the
+	 * specified event: the edges of the event and the edges of the tracks to
+	 * update.
+	 *
+	 * @param event
+	 *            the {@link ModelChangeEvent#MODEL_MODIFIED} event.
+	 * @param trackModel
+	 *            the track model the event was fired for.
+	 * @return a new set of edges.
+	 */
+	static Set< DefaultWeightedEdge > affectedEdges( final ModelChangeEvent event, final TrackModel trackModel )
+	{
+		final ModelDelta delta = event.getDelta();
+		final Set< DefaultWeightedEdge > edges = new HashSet<>( delta.nEdges() );
+		for ( int i = 0; i < delta.nEdges(); i++ )
+			edges.add( delta.getEdge( i ) );
+		for ( final Integer trackID : delta.getTracksUpdated() )
+		{
+			final Set< DefaultWeightedEdge > trackEdges = trackModel.trackEdges( trackID );
+			if ( trackEdges != null )
+				edges.addAll( trackEdges );
+		}
+		return edges;
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified spot is still in the model
+	 * after the specified event, and is visible.
+	 */
+	static boolean isVisible( final Spot spot, final ModelChangeEvent event )
+	{
+		final Integer flag = event.getSpotFlag( spot );
+		if ( flag != null && flag.intValue() == ModelChangeEvent.FLAG_SPOT_REMOVED )
+			return false;
+		final Double visibility = spot.getFeature( SpotCollection.VISIBILITY );
+		return visibility != null && visibility.compareTo( SpotCollection.ZERO ) > 0;
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified spot is in a visible track.
+	 */
+	static boolean isInVisibleTrack( final Spot spot, final TrackModel trackModel )
+	{
+		final Integer trackID = trackModel.trackIDOf( spot );
+		return trackID != null && trackModel.isVisible( trackID );
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified edge is in a visible track.
+	 */
+	static boolean isInVisibleTrack( final DefaultWeightedEdge edge, final TrackModel trackModel )
+	{
+		final Integer trackID = trackModel.trackIDOf( edge );
+		return trackID != null && trackModel.isVisible( trackID );
+	}
+}
@@ -63,6 +63,7 @@ import fiji.plugin.trackmate.SelectionChangeEvent;
 import fiji.plugin.trackmate.SelectionChangeListener;
 import fiji.plugin.trackmate.SelectionModel;
 import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
 import fiji.plugin.trackmate.features.FeatureUtils;
 import fiji.plugin.trackmate.features.manual.ManualEdgeColorAnalyzer;
 import fiji.plugin.trackmate.features.manual.ManualSpotColorAnalyzerFactory;
@@ -430,6 +431,48 @@ public class TrackTableView extends JFrame implements TrackMateModelView, ModelC
 			return;
 		}
 
+		ignoreSelectionChange.set( true );
+		try
+		{
+			if ( event.getEventID() == ModelChangeEvent.MODEL_MODIFIED && !event.isStructureReset() )
+				updateTables( event );
+			else
+				rebuildTables();
+
+			// Row events may have moved the table selection.
+			copySelectionToTables();
+		}
+		finally
+		{
+			ignoreSelectionChange.set( false );
+		}
+		refresh();
+	}
+
+	/**
+	 * Only updates the rows of the objects affected by the event.
+	 */
+	private void updateTables( final ModelChangeEvent event )
+	{
+		final TrackModel trackModel = model.getTrackModel();
+		spotTable.updateObjects(
+				TableUtils.affectedSpots( event, trackModel ),
+				spot -> TableUtils.isInVisibleTrack( spot, trackModel ) );
+		edgeTable.updateObjects(
+				TableUtils.affectedEdges( event, trackModel ),
+				edge -> TableUtils.isInVisibleTrack( edge, trackModel ) );
+
+		// Tracks that disappeared, for instance after a merge.
+		final Set< Integer > visibleTrackIDs = trackModel.unsortedTrackIDs( true );
+		final Set< Integer > trackIDs = new HashSet<>( event.getTrackUpdated() );
+		for ( final Integer trackID : trackTable.getObjects() )
+			if ( !visibleTrackIDs.contains( trackID ) )
+				trackIDs.add( trackID );
+		trackTable.updateObjects( trackIDs, visibleTrackIDs::contains );
+	}
+
+	private void rebuildTables()
+	{
 		final List< Spot > spots = new ArrayList<>();
 		for ( final Integer trackID : model.getTrackModel().unsortedTrackIDs( true ) )
 			spots.addAll( model.getTrackModel().trackSpots( trackID ) );
@@ -442,8 +485,6 @@ public class TrackTableView extends JFrame implements TrackMateModelView, ModelC
 
 		final List< Integer > trackIDs = new ArrayList<>( model.getTrackModel().trackIDs( true ) );
 		trackTable.setObjects( trackIDs );
-
-		refresh();
 	}
 
 	/*
@@ -456,15 +497,7 @@ public class TrackTableView extends JFrame implements TrackMateModelView, ModelC
 			return;
 		ignoreSelectionChange.set( true );
 
-		// Vertices table.
-		final Set< Spot > selectedVertices = selectionModel.getSpotSelection();
-		final JTable vt = spotTable.getTable();
-		vt.getSelectionModel().clearSelection();
-		for ( final Spot spot : selectedVertices )
-		{
-			final int row = spotTable.getViewRowForObject( spot );
-			vt.getSelectionModel().addSelectionInterval( row, row );
-		}
+		copySelectionToTables();
 
 		// Center on selection if we added one spot exactly
 		final Map< Spot, Boolean > spotsAdded = event.getSpots();
@@ -478,16 +511,6 @@ public class TrackTableView extends JFrame implements TrackMateModelView, ModelC
 			}
 		}
 
-		// Edges table.
-		final Set< DefaultWeightedEdge > selectedEdges = selectionModel.getEdgeSelection();
-		final JTable et = edgeTable.getTable();
-		et.getSelectionModel().clearSelection();
-		for ( final DefaultWeightedEdge e : selectedEdges )
-		{
-			final int row = edgeTable.getViewRowForObject( e );
-			et.getSelectionModel().addSelectionInterval( row, row );
-		}
-
 		// Center on selection if we added one edge exactly
 		final Map< DefaultWeightedEdge, Boolean > edgesAdded = event.getEdges();
 		if ( edgesAdded != null && edgesAdded.size() == 1 )
@@ -504,6 +527,29 @@ public class TrackTableView extends JFrame implements TrackMateModelView, ModelC
 		ignoreSelectionChange.set( false );
 	}
 
+	private void copySelectionToTables()
+	{
+		// Vertices table.
+		final Set< Spot > selectedVertices = selectionModel.getSpotSelection();
+		final JTable vt = spotTable.getTable();
+		vt.getSelectionModel().clearSelection();
+		for ( final Spot spot : selectedVertices )
+		{
+			final int row = spotTable.getViewRowForObject( spot );
+			vt.getSelectionModel().addSelectionInterval( row, row );
+		}
+
+		// Edges table.
+		final Set< DefaultWeightedEdge > selectedEdges = selectionModel.getEdgeSelection();
+		final JTable et = edgeTable.getTable();
+		et.getSelectionModel().clearSelection();
+		for ( final DefaultWeightedEdge e : selectedEdges )
+		{
+			final int row = edgeTable.getViewRowForObject( e );
+			et.getSelectionModel().addSelectionInterval( row, row );
+		}
+	}
+
 	public void centerViewOn( final DefaultWeightedEdge edge )
 	{
 		edgeTable.scrollToObject( edge );
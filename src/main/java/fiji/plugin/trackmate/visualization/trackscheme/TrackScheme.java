@@ -58,9 +58,11 @@ import com.mxgraph.view.mxGraphSelectionModel;
 
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.ModelChangeEvent;
+import fiji.plugin.trackmate.ModelDelta;
 import fiji.plugin.trackmate.SelectionChangeEvent;
 import fiji.plugin.trackmate.SelectionModel;
 import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
 import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
 import fiji.plugin.trackmate.visualization.AbstractTrackMateModelView;
 import ij.ImagePlus;
@@ -143,6 +145,18 @@ public class TrackScheme extends AbstractTrackMateModelView
 	 */
 	private int unlaidSpotColumn = 2;
 
+	/**
+	 * The IDs of the tracks modified since the last layout, that the next
+	 * layout must re-position.
+	 */
+	private final Set< Integer > tracksToLayout = new HashSet<>();
+
+	/**
+	 * If <code>true</code>, the next layout cannot be incremental and must
+	 * re-position all the cells.
+	 */
+	private boolean fullLayoutNeeded = true;
+
 	/**
 	 * The instance in charge of generating the string image representation of
 	 * spots imported in this view. If <code>null</code>, nothing is done.
@@ -281,6 +295,9 @@ public class TrackScheme extends AbstractTrackMateModelView
 		// Cells removed from JGraphX
 		lGraph.addListener( mxEvent.CELLS_REMOVED, new CellRemovalListener() );
 
+		// Cells moved by hand: lanes are not where the layout put them
+		lGraph.addListener( mxEvent.CELLS_MOVED, ( sender, evt ) -> fullLayoutNeeded = true );
+
 		// Cell selection change
 		lGraph.getSelectionModel().addListener( mxEvent.CHANGE, new SelectionChangeListener() );
 
@@ -558,7 +575,12 @@ public class TrackScheme extends AbstractTrackMateModelView
 	{
 		// Only catch model changes
 		if ( event.getEventID() != ModelChangeEvent.MODEL_MODIFIED )
+		{
+			// Track visibility or whole model changed.
+			fullLayoutNeeded = true;
 			return;
+		}
+		markTracksToLayout( event.getDelta() );
 
 		graph.getModel().beginUpdate();
 		try
@@ -1138,10 +1160,17 @@ public class TrackScheme extends AbstractTrackMateModelView
 		}
 	}
 
+	/**
+	 * Positions the cells. Only the tracks modified since the last layout are
+	 * laid out again if possible, otherwise all the tracks are.
+	 */
 	public void doTrackLayout()
 	{
 		// Position cells
-		graphLayout.execute( null );
+		if ( fullLayoutNeeded || !graphLayout.executeIncremental( tracksToLayout ) )
+			graphLayout.execute( null );
+		fullLayoutNeeded = false;
+		tracksToLayout.clear();
 		rowLengths = graphLayout.getRowLengths();
 		int maxLength = 2;
 		for ( final int rowLength : rowLengths.values() )
@@ -1154,6 +1183,34 @@ public class TrackScheme extends AbstractTrackMateModelView
 		gui.graphComponent.repaint();
 	}
 
+	/**
+	 * Stores the IDs of the tracks affected by a model edit, so that the next
+	 * layout re-positions them.
+	 */
+	private void markTracksToLayout( final ModelDelta delta )
+	{
+		if ( delta.isStructureReset() )
+		{
+			fullLayoutNeeded = true;
+			return;
+		}
+
+		final TrackModel trackModel = model.getTrackModel();
+		tracksToLayout.addAll( delta.getTracksUpdated() );
+		for ( final Spot spot : delta.spotsNotRemoved() )
+		{
+			final Integer trackID = trackModel.trackIDOf( spot );
+			if ( null != trackID )
+				tracksToLayout.add( trackID );
+		}
+		for ( final DefaultWeightedEdge edge : delta.edgesNotRemoved() )
+		{
+			final Integer trackID = trackModel.trackIDOf( edge );
+			if ( null != trackID )
+				tracksToLayout.add( trackID );
+		}
+	}
+
 	public void captureUndecorated()
 	{
 		final BufferedImage image = mxCellRenderer.createBufferedImage( graph, null, 1, Color.WHITE, true, null, gui.graphComponent.getCanvas() );
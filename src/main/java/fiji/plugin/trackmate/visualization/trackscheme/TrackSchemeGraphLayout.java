@@ -26,7 +26,8 @@ import static fiji.plugin.trackmate.visualization.trackscheme.TrackScheme.DEFAUL
 import static fiji.plugin.trackmate.visualization.trackscheme.TrackScheme.X_COLUMN_SIZE;
 import static fiji.plugin.trackmate.visualization.trackscheme.TrackScheme.Y_COLUMN_SIZE;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,8 +46,7 @@ import com.mxgraph.model.mxICell;
 
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.Spot;
-import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
-import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
+import fiji.plugin.trackmate.TrackModel;
 import fiji.plugin.trackmate.graph.GraphUtils;
 import fiji.plugin.trackmate.graph.SortedDepthFirstIterator;
 import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
@@ -78,12 +78,24 @@ public class TrackSchemeGraphLayout extends mxGraphLayout implements Benchmark
 	 * Hold the current row length for each frame. That is, for frame
 	 * <code>i</code>, the number of cells on the row corresponding to frame
 	 * <code>i</code> is <code>rowLength.get(i)</code>. This field is
-	 * regenerated after each call to {@link #execute(Object)}.
+	 * regenerated after each layout.
 	 */
 	private Map< Integer, Integer > rowLengths;
 
 	private long processingTime;
 
+	/**
+	 * The first and last column of the lane of each track, as of the last
+	 * layout.
+	 */
+	private final Map< Integer, int[] > lanes = new HashMap<>();
+
+	/**
+	 * The last frame of the model at the last layout, <code>-1</code> if no
+	 * layout was done yet.
+	 */
+	private int laidOutMaxFrame = -1;
+
 	/*
 	 * CONSTRUCTOR
 	 */
@@ -100,32 +112,58 @@ public class TrackSchemeGraphLayout extends mxGraphLayout implements Benchmark
 	 * PUBLIC METHODS
 	 */
 
+	/**
+	 * Lays out all the cells of the graph from scratch.
+	 */
 	@Override
 	public void execute( final Object lParent )
 	{
+		layout( null );
+	}
 
+	/**
+	 * Lays out the cells of the graph after a model edit, re-positioning only
+	 * the cells of the specified tracks. The lanes of the other tracks are
+	 * shifted left or right to make room for them, without being laid out
+	 * again.
+	 * <p>
+	 * This is possible only if a layout has been done before and the last
+	 * frame of the model did not change. Otherwise, nothing is done and
+	 * {@link #execute(Object)} must be called instead.
+	 *
+	 * @param trackIDs
+	 *            the IDs of the tracks that were modified since the last
+	 *            layout. Tracks that did not exist at the last layout are laid
+	 *            out anyway.
+	 * @return <code>true</code> if the incremental layout was done,
+	 *         <code>false</code> if a full layout is required.
+	 */
+	public boolean executeIncremental( final Collection< Integer > trackIDs )
+	{
+		if ( laidOutMaxFrame < 0 || laidOutMaxFrame != model.getSpots().lastKey() )
+			return false;
+
+		layout( trackIDs );
+		return true;
+	}
+
+	/**
+	 * Lays out the cells.
+	 *
+	 * @param modifiedTrackIDs
+	 *            the tracks to lay out again, or <code>null</code> to lay out
+	 *            all tracks.
+	 */
+	private void layout( final Collection< Integer > modifiedTrackIDs )
+	{
 		final long start = System.currentTimeMillis();
 
-		/*
-		 * To be able to deal with lonely cells later (i.e. cells that are not
-		 * part of a track), we retrieve the list of all cells.
-		 */
-		final Object[] objs = graphAdapter.getChildVertices( graphAdapter.getDefaultParent() );
-		final ArrayList< mxCell > lonelyCells = new ArrayList<>( objs.length );
-		for ( final Object obj : objs )
-		{
-			lonelyCells.add( ( mxCell ) obj );
-		}
+		final TrackModel trackModel = model.getTrackModel();
 
 		/*
 		 * Get a neighbor cache
 		 */
-		final TimeDirectedNeighborIndex neighborCache = model.getTrackModel().getDirectedNeighborIndex();
-
-		/*
-		 * Compute column width from recursive cumsum
-		 */
-		final Map< Spot, Integer > cumulativeBranchWidth = GraphUtils.cumulativeBranchWidth( model.getTrackModel() );
+		final TimeDirectedNeighborIndex neighborCache = trackModel.getDirectedNeighborIndex();
 
 		/*
 		 * How many rows do we have to parse?
@@ -139,196 +177,242 @@ public class TrackSchemeGraphLayout extends mxGraphLayout implements Benchmark
 			/*
 			 * Pass n tracks info on component
 			 */
-			final int ntracks = model.getTrackModel().nTracks( true );
+			final Set< Integer > trackIDs = trackModel.trackIDs( true );
+			final int ntracks = trackIDs.size();
 			component.columnWidths = new int[ ntracks ];
 			component.columnTrackIDs = new Integer[ ntracks ];
 
-			/*
-			 * Initialize the column occupancy array
-			 */
 			final int[] columns = new int[ maxFrame + 1 ];
-			for ( int i = 0; i < columns.length; i++ )
-			{
-				columns[ i ] = START_COLUMN;
-			}
-
+			final Map< Integer, int[] > newLanes = new HashMap<>( ntracks * 4 / 3 + 1 );
+			int firstColumn = START_COLUMN;
 			int trackIndex = 0;
-			for ( final Integer trackID : model.getTrackModel().trackIDs( true ) )
+			for ( final Integer trackID : trackIDs )
 			{ // will be sorted by track name
 
-				// Get Tracks
-				final Set< Spot > track = model.getTrackModel().trackSpots( trackID );
-
 				// Pass name & trackID to component
 				component.columnTrackIDs[ trackIndex ] = trackID;
 
-				// Get first spot
-				final TreeSet< Spot > sortedTrack = new TreeSet<>( Spot.frameComparator );
-				sortedTrack.addAll( track );
-				final Spot first = sortedTrack.first();
+				final int[] lane = ( null == modifiedTrackIDs ) ? null : lanes.get( trackID );
+				final int maxCol;
+				if ( null != lane && !modifiedTrackIDs.contains( trackID ) )
+				{
+					// Unchanged track: move its lane in place.
+					final int shift = firstColumn - lane[ 0 ];
+					shiftTrack( trackID, shift );
+					maxCol = lane[ 1 ] + shift;
+				}
+				else
+				{
+					Arrays.fill( columns, firstColumn );
+					maxCol = layoutTrack( trackID, columns, neighborCache );
+				}
+				newLanes.put( trackID, new int[] { firstColumn, maxCol } );
+
+				// Store column widths for the panel background
+				component.columnWidths[ trackIndex ] = maxCol - ( trackIndex == 0 ? START_COLUMN : firstColumn - 1 );
 
-				/*
-				 * A special case: our quick layout below fails for graph that
-				 * are not trees. That is: if a track has at least a spot that
-				 * has more than one predecessor. If we have to deal with such a
-				 * case, we revert to the old, slow scheme.
-				 */
+				// When done with a track, move all columns to the next free
+				// column
+				firstColumn = maxCol + 1;
+				trackIndex++;
+			} // loop over tracks
 
-				final boolean isTree = GraphUtils.isTree( track, neighborCache );
+			// Deal with lonely cells, that are not part of a visible track
+			Arrays.fill( columns, firstColumn );
+			for ( final Object obj : graphAdapter.getChildVertices( graphAdapter.getDefaultParent() ) )
+			{
+				final mxCell cell = ( mxCell ) obj;
+				final Spot spot = graphAdapter.getSpotFor( cell );
+				if ( null == spot )
+					continue;
 
-				if ( isTree )
-				{
+				final Integer trackID = trackModel.trackIDOf( spot );
+				if ( null != trackID && newLanes.containsKey( trackID ) )
+					continue;
+
+				final int frame = spot.getFeature( Spot.FRAME ).intValue();
+				setCellGeometry( cell, frame, columns[ frame ]++ );
+			}
+
+			// Before we leave, we regenerate the row length, for our brothers
+			rowLengths = new HashMap<>( columns.length );
+			for ( int i = 0; i < columns.length; i++ )
+			{
+				rowLengths.put( i, columns[ i ] );
+			}
 
-					/*
-					 * Quick layout for a tree-like track
-					 */
+			lanes.clear();
+			lanes.putAll( newLanes );
+			laidOutMaxFrame = maxFrame;
 
-					// First loop: Loop over spots in good order
-					final SortedDepthFirstIterator< Spot, DefaultWeightedEdge > iterator = model.getTrackModel().getSortedDepthFirstIterator( first, Spot.nameComparator, false );
+			// Move vertices cells to front, to make them easily selectable.
+			final Object[] verticesCells = graphAdapter.getVertexCells().toArray();
+			graphAdapter.cellsOrdered( verticesCells, false );
 
-					while ( iterator.hasNext() )
-					{
+		}
+		finally
+		{
+			graphAdapter.getModel().endUpdate();
+		}
+
+		final long end = System.currentTimeMillis();
+		processingTime = end - start;
+	}
 
-						final Spot spot = iterator.next();
+	/**
+	 * Lays out the cells of one track.
+	 *
+	 * @param trackID
+	 *            the ID of the track.
+	 * @param columns
+	 *            the column occupancy array, one element per frame, all set
+	 *            to the first column of the track lane. Modified by this
+	 *            method.
+	 * @param neighborCache
+	 *            the neighbor index of the model.
+	 * @return the last column used by the track.
+	 */
+	private int layoutTrack( final Integer trackID, final int[] columns, final TimeDirectedNeighborIndex neighborCache )
+	{
+		final int maxFrame = columns.length - 1;
 
-						// Get corresponding JGraphX cell, add it if it does not
-						// exist in the JGraphX yet
-						final mxICell cell = graphAdapter.getCellFor( spot );
+		// Get Tracks
+		final Set< Spot > track = model.getTrackModel().trackSpots( trackID );
 
-						// This is cell is in a track, remove it from the list
-						// of lonely cells
-						lonelyCells.remove( cell );
+		// Get first spot
+		final TreeSet< Spot > sortedTrack = new TreeSet<>( Spot.frameComparator );
+		sortedTrack.addAll( track );
+		final Spot first = sortedTrack.first();
 
-						// Determine in what row to put the spot
-						final int frame = spot.getFeature( Spot.FRAME ).intValue();
+		/*
+		 * A special case: our quick layout below fails for graph that are not
+		 * trees. That is: if a track has at least a spot that has more than
+		 * one predecessor. If we have to deal with such a case, we revert to
+		 * the old, slow scheme.
+		 */
 
-						// Cell size, position and style
-						final int cellPos = columns[ frame ] + cumulativeBranchWidth.get( spot ) / 2;
-						setCellGeometry( cell, frame, cellPos );
-						columns[ frame ] += cumulativeBranchWidth.get( spot );
+		final boolean isTree = GraphUtils.isTree( track, neighborCache );
 
-						// If it is a leaf, we fill the remaining row below and
-						// above
-						if ( neighborCache.successorsOf( spot ).size() == 0 )
-						{
-							final int target = columns[ frame ];
-							for ( int i = 0; i <= maxFrame; i++ )
-							{
-								columns[ i ] = target;
-							}
-						}
+		if ( isTree )
+		{
 
-					}
+			/*
+			 * Quick layout for a tree-like track
+			 */
 
-				}
-				else
-				{
+			// Compute column width from recursive cumsum
+			final Map< Spot, Integer > cumulativeBranchWidth = GraphUtils.cumulativeBranchWidth( model.getTrackModel(), trackID, neighborCache );
+
+			// First loop: Loop over spots in good order
+			final SortedDepthFirstIterator< Spot, DefaultWeightedEdge > iterator = model.getTrackModel().getSortedDepthFirstIterator( first, Spot.nameComparator, false );
+
+			while ( iterator.hasNext() )
+			{
 
-					/*
-					 * Layout in branches for merging tracks
-					 */
+				final Spot spot = iterator.next();
 
-					final TrackBranchDecomposition branchDecomposition = ConvexBranchesDecomposition.processTrack( trackID, model.getTrackModel(), neighborCache, false, false );
-					final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = ConvexBranchesDecomposition.buildBranchGraph( branchDecomposition );
-					final DepthFirstIterator< List< Spot >, DefaultEdge > depthFirstIterator = new DepthFirstIterator<>( branchGraph );
+				// Get corresponding JGraphX cell
+				final mxICell cell = graphAdapter.getCellFor( spot );
 
-					while ( depthFirstIterator.hasNext() )
+				// Determine in what row to put the spot
+				final int frame = spot.getFeature( Spot.FRAME ).intValue();
+
+				// Cell size, position and style
+				final int cellPos = columns[ frame ] + cumulativeBranchWidth.get( spot ) / 2;
+				setCellGeometry( cell, frame, cellPos );
+				columns[ frame ] += cumulativeBranchWidth.get( spot );
+
+				// If it is a leaf, we fill the remaining row below and above
+				if ( neighborCache.successorsOf( spot ).size() == 0 )
+				{
+					final int target = columns[ frame ];
+					for ( int i = 0; i <= maxFrame; i++ )
 					{
-						final List< Spot > branch = depthFirstIterator.next();
-
-						final int firstFrame = branch.get( 0 ).getFeature( Spot.FRAME ).intValue();
-						final int lastFrame = branch.get( branch.size() - 1 ).getFeature( Spot.FRAME ).intValue();
-
-						// Determine target column.
-						int targetColumn = columns[ firstFrame ];
-						for ( final Spot spot : branch )
-						{
-							final int sFrame = spot.getFeature( Spot.FRAME ).intValue();
-							if ( columns[ sFrame ] > targetColumn )
-							{
-								targetColumn = columns[ sFrame ];
-							}
-						}
-
-						// Place spots.
-						for ( final Spot spot : branch )
-						{
-							// Get corresponding JGraphX cell, add it if it does
-							// not exist in the JGraphX yet
-							final mxICell cell = graphAdapter.getCellFor( spot );
-
-							// This is cell is in a track, remove it from the
-							// list of lonely cells
-							lonelyCells.remove( cell );
-
-							// Determine in what row to put the spot
-							final int frame = spot.getFeature( Spot.FRAME ).intValue();
-
-							// Cell position
-							setCellGeometry( cell, frame, targetColumn );
-						}
-
-						// Update column index.
-						for ( int frame = firstFrame; frame <= lastFrame; frame++ )
-						{
-							columns[ frame ] = targetColumn + 1;
-						}
+						columns[ i ] = target;
 					}
 				}
 
-				// When done with a track, move all columns to the next free
-				// column
-				int maxCol = 0;
-				for ( int j = 0; j < columns.length; j++ )
+			}
+
+		}
+		else
+		{
+
+			/*
+			 * Layout in branches for merging tracks
+			 */
+
+			final SimpleDirectedGraph< List< Spot >, DefaultEdge > branchGraph = model.getTrackModel().getBranchDecomposition( trackID, false, false ).getBranchGraph();
+			final DepthFirstIterator< List< Spot >, DefaultEdge > depthFirstIterator = new DepthFirstIterator<>( branchGraph );
+
+			while ( depthFirstIterator.hasNext() )
+			{
+				final List< Spot > branch = depthFirstIterator.next();
+
+				final int firstFrame = branch.get( 0 ).getFeature( Spot.FRAME ).intValue();
+				final int lastFrame = branch.get( branch.size() - 1 ).getFeature( Spot.FRAME ).intValue();
+
+				// Determine target column.
+				int targetColumn = columns[ firstFrame ];
+				for ( final Spot spot : branch )
 				{
-					if ( columns[ j ] > maxCol )
+					final int sFrame = spot.getFeature( Spot.FRAME ).intValue();
+					if ( columns[ sFrame ] > targetColumn )
 					{
-						maxCol = columns[ j ];
+						targetColumn = columns[ sFrame ];
 					}
 				}
-				for ( int i = 0; i < columns.length; i++ )
+
+				// Place spots.
+				for ( final Spot spot : branch )
 				{
-					columns[ i ] = maxCol + 1;
+					// Get corresponding JGraphX cell
+					final mxICell cell = graphAdapter.getCellFor( spot );
+
+					// Determine in what row to put the spot
+					final int frame = spot.getFeature( Spot.FRAME ).intValue();
+
+					// Cell position
+					setCellGeometry( cell, frame, targetColumn );
 				}
 
-				// Store column widths for the panel background
-				int sumWidth = START_COLUMN;
-				for ( int i = 0; i < trackIndex; i++ )
+				// Update column index.
+				for ( int frame = firstFrame; frame <= lastFrame; frame++ )
 				{
-					sumWidth += component.columnWidths[ i ];
+					columns[ frame ] = targetColumn + 1;
 				}
-				component.columnWidths[ trackIndex ] = maxCol - sumWidth;
-
-				trackIndex++;
-			} // loop over tracks
-
-			// Deal with lonely cells
-			for ( final mxCell cell : lonelyCells )
-			{
-				final Spot spot = graphAdapter.getSpotFor( cell );
-				final int frame = spot.getFeature( Spot.FRAME ).intValue();
-				setCellGeometry( cell, frame, columns[ frame ]++ );
 			}
+		}
 
-			// Before we leave, we regenerate the row length, for our brothers
-			rowLengths = new HashMap<>( columns.length );
-			for ( int i = 0; i < columns.length; i++ )
+		int maxCol = 0;
+		for ( int j = 0; j < columns.length; j++ )
+		{
+			if ( columns[ j ] > maxCol )
 			{
-				rowLengths.put( i, columns[ i ] );
+				maxCol = columns[ j ];
 			}
+		}
+		return maxCol;
+	}
 
-			// Move vertices cells to front, to make them easily selectable.
-			final Object[] verticesCells = graphAdapter.getVertexCells().toArray();
-			graphAdapter.cellsOrdered( verticesCells, false );
+	/**
+	 * Moves the cells of a track laid out before by the specified number of
+	 * columns.
+	 */
+	private void shiftTrack( final Integer trackID, final int shift )
+	{
+		if ( shift == 0 )
+			return;
 
-		}
-		finally
+		for ( final Spot spot : model.getTrackModel().trackSpots( trackID ) )
 		{
-			graphAdapter.getModel().endUpdate();
-		}
+			final mxICell cell = graphAdapter.getCellFor( spot );
+			if ( null == cell )
+				continue;
 
-		final long end = System.currentTimeMillis();
-		processingTime = end - start;
+			final mxGeometry geometry = cell.getGeometry();
+			geometry.setX( geometry.getX() + shift * X_COLUMN_SIZE );
+		}
 	}
 
 	private final void setCellGeometry( final mxICell cell, final int row, final int targetColumn )
@@ -345,7 +429,7 @@ public class TrackSchemeGraphLayout extends mxGraphLayout implements Benchmark
 	 * @return the current row length for each frame. That is, for frame
 	 *         <code>i</code>, the number of cells on the row corresponding to
 	 *         frame <code>i</code> is <code>rowLength.get(i)</code>. This field
-	 *         is regenerated after each call to {@link #execute(Object)}.
+	 *         is regenerated after each layout.
 	 */
 	public Map< Integer, Integer > getRowLengths()
 	{
@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.benchmark.SyntheticData;
+import fiji.plugin.trackmate.detection.DetectorKeys;
+import fiji.plugin.trackmate.detection.LogDetectorFactory;
+import fiji.plugin.trackmate.tracking.TrackerKeys;
+import fiji.plugin.trackmate.tracking.jaqaman.SparseLAPTrackerFactory;
+import ij.ImagePlus;
+
+public class DetectionPipelineTest
+{
+
+	private static TrackMate createTrackMate( final ImagePlus imp )
+	{
+		final Settings settings = new Settings( imp );
+		settings.detectorFactory = new LogDetectorFactory<>();
+		final Map< String, Object > ds = new HashMap<>();
+		ds.put( DetectorKeys.KEY_TARGET_CHANNEL, 1 );
+		ds.put( DetectorKeys.KEY_RADIUS, 2.5 );
+		ds.put( DetectorKeys.KEY_THRESHOLD, 0. );
+		ds.put( DetectorKeys.KEY_DO_MEDIAN_FILTERING, false );
+		ds.put( DetectorKeys.KEY_DO_SUBPIXEL_LOCALIZATION, true );
+		settings.detectorSettings = ds;
+		settings.initialSpotFilterValue = 20.;
+		settings.addAllAnalyzers();
+
+		final TrackMate trackmate = new TrackMate( settings );
+		trackmate.getModel().setLogger( Logger.VOID_LOGGER );
+		trackmate.setNumThreads( 4 );
+		return trackmate;
+	}
+
+	private static List< Spot > sorted( final SpotCollection spots )
+	{
+		final List< Spot > list = new ArrayList<>();
+		spots.iterable( false ).forEach( list::add );
+		list.sort( Comparator.comparingInt( ( Spot s ) -> s.getFeature( Spot.FRAME ).intValue() )
+				.thenComparingDouble( s -> s.getDoublePosition( 0 ) )
+				.thenComparingDouble( s -> s.getDoublePosition( 1 ) ) );
+		return list;
+	}
+
+	@Test
+	public void testSameAsSequential()
+	{
+		final Model source = SyntheticData.brownianModel( 50, 8, 199, 1., 1l );
+		source.setLogger( Logger.VOID_LOGGER );
+		final ImagePlus imp = SyntheticData.paint( source, 200, 200, 8, 1l );
+
+		final TrackMate sequential = createTrackMate( imp );
+		assertTrue( sequential.execDetection() );
+		assertTrue( sequential.execInitialSpotFiltering() );
+		assertTrue( sequential.computeSpotFeatures( false ) );
+
+		final TrackMate pipelined = createTrackMate( imp );
+		assertTrue( pipelined.getErrorMessage(), pipelined.execDetectionPipeline() );
+
+		final List< Spot > expected = sorted( sequential.getModel().getSpots() );
+		final List< Spot > actual = sorted( pipelined.getModel().getSpots() );
+		assertTrue( expected.size() > 0 );
+		assertEquals( expected.size(), actual.size() );
+		for ( int i = 0; i < expected.size(); i++ )
+		{
+			final Spot e = expected.get( i );
+			final Spot a = actual.get( i );
+			for ( final String feature : e.getFeatures().keySet() )
+				assertEquals( feature, e.getFeature( feature ), a.getFeature( feature ), 1e-9 );
+		}
+	}
+
+	private static List< Double > edgeWeights( final TrackMate trackmate )
+	{
+		final TrackModel trackModel = trackmate.getModel().getTrackModel();
+		final List< Double > weights = new ArrayList<>();
+		for ( final DefaultWeightedEdge edge : trackModel.edgeSet() )
+			weights.add( trackModel.getEdgeWeight( edge ) );
+		weights.sort( null );
+		return weights;
+	}
+
+	@Test
+	public void testStreamingTrackerSettingsEditedInPlace()
+	{
+		final Model source = SyntheticData.brownianModel( 50, 8, 199, 1., 1l );
+		source.setLogger( Logger.VOID_LOGGER );
+		final ImagePlus imp = SyntheticData.paint( source, 200, 200, 8, 1l );
+
+		final TrackMate reference = createTrackMate( imp );
+		reference.getSettings().trackerFactory = new SparseLAPTrackerFactory();
+		reference.getSettings().trackerSettings = reference.getSettings().trackerFactory.getDefaultSettings();
+		reference.getSettings().trackerSettings.put( TrackerKeys.KEY_LINKING_MAX_DISTANCE, 1.5 );
+		assertTrue( reference.execDetectionPipeline() );
+		assertTrue( reference.execSpotFiltering( false ) );
+		assertTrue( reference.execTracking() );
+
+		// Linked with a larger max distance during detection.
+		final TrackMate streamed = createTrackMate( imp );
+		streamed.setStreamingTracking( true );
+		streamed.getSettings().trackerFactory = new SparseLAPTrackerFactory();
+		streamed.getSettings().trackerSettings = streamed.getSettings().trackerFactory.getDefaultSettings();
+		streamed.getSettings().trackerSettings.put( TrackerKeys.KEY_LINKING_MAX_DISTANCE, 15. );
+		assertTrue( streamed.execDetectionPipeline() );
+		assertTrue( streamed.execSpotFiltering( false ) );
+
+		// Edited in place: the frames linked during detection are discarded.
+		streamed.getSettings().trackerSettings.put( TrackerKeys.KEY_LINKING_MAX_DISTANCE, 1.5 );
+		assertTrue( streamed.execTracking() );
+
+		final List< Double > expected = edgeWeights( reference );
+		assertTrue( expected.size() > 0 );
+		assertEquals( expected, edgeWeights( streamed ) );
+	}
+}
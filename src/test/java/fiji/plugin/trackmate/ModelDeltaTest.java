@@ -0,0 +1,183 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+public class ModelDeltaTest
+{
+
+	private static List< ModelChangeEvent > listen( final Model model )
+	{
+		final List< ModelChangeEvent > events = new ArrayList<>();
+		model.addModelChangeListener( e -> {
+			if ( e.getEventID() == ModelChangeEvent.MODEL_MODIFIED )
+				events.add( e );
+		} );
+		return events;
+	}
+
+	@Test
+	public void testFlagsMatchEvent()
+	{
+		final Model model = new Model();
+		final Spot s0 = model.addSpotTo( new Spot( 0., 0., 0., 1., -1. ), 0 );
+		final Spot s1 = model.addSpotTo( new Spot( 1., 0., 0., 1., -1. ), 1 );
+		final List< ModelChangeEvent > events = listen( model );
+
+		final Spot s2;
+		final DefaultWeightedEdge e01;
+		model.beginUpdate();
+		try
+		{
+			s2 = model.addSpotTo( new Spot( 2., 0., 0., 1., -1. ), 2 );
+			model.updateFeatures( s2 );
+			model.moveSpotFrom( s1, 1, 3 );
+			e01 = model.addEdge( s0, s1, 1. );
+			model.setEdgeWeight( e01, 2. );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		assertEquals( 1, events.size() );
+		final ModelChangeEvent event = events.get( 0 );
+		final ModelDelta delta = event.getDelta();
+		assertFalse( delta.isStructureReset() );
+
+		// Each object once, with the flag of the legacy event.
+		assertEquals( 2, delta.nSpots() );
+		final Set< Spot > spots = new HashSet<>();
+		for ( int i = 0; i < delta.nSpots(); i++ )
+		{
+			spots.add( delta.getSpot( i ) );
+			assertEquals( event.getSpotFlag( delta.getSpot( i ) ).intValue(), delta.getSpotFlag( i ) );
+		}
+		assertEquals( event.getSpots(), spots );
+		assertEquals( ModelChangeEvent.FLAG_SPOT_MODIFIED, event.getSpotFlag( s2 ).intValue() );
+		assertEquals( ModelChangeEvent.FLAG_SPOT_FRAME_CHANGED, event.getSpotFlag( s1 ).intValue() );
+
+		assertEquals( 1, delta.nEdges() );
+		assertEquals( e01, delta.getEdge( 0 ) );
+		assertEquals( ModelChangeEvent.FLAG_EDGE_MODIFIED, delta.getEdgeFlag( 0 ) );
+		assertEquals( event.getEdgeFlag( e01 ).intValue(), delta.getEdgeFlag( 0 ) );
+		assertEquals( event.getTrackUpdated(), delta.getTracksUpdated() );
+	}
+
+	@Test
+	public void testFilteredIterables()
+	{
+		final Model model = new Model();
+		final Spot s0 = model.addSpotTo( new Spot( 0., 0., 0., 1., -1. ), 0 );
+		final List< ModelChangeEvent > events = listen( model );
+
+		final Spot s1;
+		model.beginUpdate();
+		try
+		{
+			s1 = model.addSpotTo( new Spot( 1., 0., 0., 1., -1. ), 1 );
+			model.removeSpot( s0 );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		final ModelDelta delta = events.get( 0 ).getDelta();
+		final List< Spot > added = new ArrayList<>();
+		delta.spots( ModelChangeEvent.FLAG_SPOT_ADDED ).forEach( added::add );
+		final List< Spot > removed = new ArrayList<>();
+		delta.spots( ModelChangeEvent.FLAG_SPOT_REMOVED ).forEach( removed::add );
+		final List< Spot > notRemoved = new ArrayList<>();
+		delta.spotsNotRemoved().forEach( notRemoved::add );
+		assertEquals( List.of( s1 ), added );
+		assertEquals( List.of( s0 ), removed );
+		assertEquals( List.of( s1 ), notRemoved );
+	}
+
+	@Test
+	public void testStructureReset()
+	{
+		final Model model = new Model();
+		model.setStructureResetThreshold( 5 );
+		final List< ModelChangeEvent > events = listen( model );
+
+		model.addSpotTo( new Spot( 0., 0., 0., 1., -1. ), 0 );
+		assertFalse( events.get( 0 ).isStructureReset() );
+
+		model.beginUpdate();
+		try
+		{
+			for ( int i = 0; i < 10; i++ )
+				model.addSpotTo( new Spot( i, 0., 0., 1., -1. ), i );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertTrue( events.get( 1 ).isStructureReset() );
+		assertTrue( events.get( 1 ).getDelta().isStructureReset() );
+		assertEquals( 10, events.get( 1 ).getDelta().nSpots() );
+
+		// Bulk transactions always reset, and only once.
+		model.beginBulkUpdate();
+		try
+		{
+			model.addSpotTo( new Spot( 0., 1., 0., 1., -1. ), 0 );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertTrue( events.get( 2 ).isStructureReset() );
+
+		model.addSpotTo( new Spot( 0., 2., 0., 1., -1. ), 0 );
+		assertFalse( events.get( 3 ).isStructureReset() );
+	}
+
+	@Test
+	public void testDeltaOfLegacyEvent()
+	{
+		final Spot spot = new Spot( 0., 0., 0., 1., -1. );
+		final ModelChangeEvent event = new ModelChangeEvent( this, ModelChangeEvent.MODEL_MODIFIED );
+		event.addSpot( spot );
+		event.putSpotFlag( spot, ModelChangeEvent.FLAG_SPOT_REMOVED );
+
+		final ModelDelta delta = event.getDelta();
+		assertEquals( 1, delta.nSpots() );
+		assertEquals( spot, delta.getSpot( 0 ) );
+		assertEquals( ModelChangeEvent.FLAG_SPOT_REMOVED, delta.getSpotFlag( 0 ) );
+		assertEquals( 0, delta.nEdges() );
+		assertFalse( delta.isStructureReset() );
+	}
+}
@@ -0,0 +1,177 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ModelSnapshotTest
+{
+
+	/**
+	 * Builds a model with 3 tracks of 4 spots, over 4 frames.
+	 */
+	private static Spot[][] build( final Model model )
+	{
+		final Spot[][] spots = new Spot[ 3 ][ 4 ];
+		model.beginUpdate();
+		try
+		{
+			for ( int t = 0; t < 3; t++ )
+			{
+				for ( int f = 0; f < 4; f++ )
+				{
+					spots[ t ][ f ] = model.addSpotTo( new Spot( 10. * t, f, 0., 1., -1., "S" + t + "_" + f ), f );
+					if ( f > 0 )
+						model.addEdge( spots[ t ][ f - 1 ], spots[ t ][ f ], 1. );
+				}
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		return spots;
+	}
+
+	@Test
+	public void testContent()
+	{
+		final Model model = new Model();
+		final Spot[][] spots = build( model );
+		final ModelSnapshot snapshot = model.snapshot();
+
+		assertEquals( 12, snapshot.getNSpots( false ) );
+		assertEquals( 4, snapshot.frames().size() );
+		assertEquals( 3, snapshot.nTracks( false ) );
+		assertEquals( model.getTrackModel().trackIDs( true ), snapshot.trackIDs( true ) );
+		for ( final Integer trackID : snapshot.trackIDs( false ) )
+		{
+			assertEquals( model.getTrackModel().trackSpots( trackID ), snapshot.track( trackID ).spots() );
+			assertEquals( 3, snapshot.track( trackID ).edges().size() );
+		}
+		assertEquals( 20., snapshot.getSpotFeature( spots[ 2 ][ 3 ], Spot.POSITION_X ), 0. );
+		assertEquals( "S1_2", snapshot.getSpotName( spots[ 1 ][ 2 ] ) );
+		assertEquals( model.getTrackModel().trackIDOf( spots[ 1 ][ 2 ] ), snapshot.trackIDOf( spots[ 1 ][ 2 ] ) );
+
+		// Same version, same instance.
+		assertSame( snapshot, model.snapshot() );
+	}
+
+	@Test
+	public void testImmutableAfterEdits()
+	{
+		final Model model = new Model();
+		final Spot[][] spots = build( model );
+		final ModelSnapshot before = model.snapshot();
+		final Integer track0 = model.getTrackModel().trackIDOf( spots[ 0 ][ 0 ] );
+
+		model.beginUpdate();
+		try
+		{
+			model.removeSpot( spots[ 0 ][ 3 ] );
+			spots[ 0 ][ 2 ].putFeature( Spot.POSITION_X, 100. );
+			model.updateFeatures( spots[ 0 ][ 2 ] );
+			model.addSpotTo( new Spot( 50., 50., 0., 1., -1., "New" ), 5 );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		// The old snapshot did not change.
+		assertEquals( 12, before.getNSpots( false ) );
+		assertEquals( 4, before.frames().size() );
+		assertEquals( 0., before.getSpotFeature( spots[ 0 ][ 2 ], Spot.POSITION_X ), 0. );
+		assertTrue( before.frame( 3 ).indexOf( spots[ 0 ][ 3 ] ) >= 0 );
+		assertEquals( 4, before.track( track0 ).spots().size() );
+
+		// The new one sees the edits.
+		final ModelSnapshot after = model.snapshot();
+		assertTrue( after.version() > before.version() );
+		assertEquals( 12, after.getNSpots( false ) );
+		assertEquals( 5, after.frames().size() );
+		assertEquals( 100., after.getSpotFeature( spots[ 0 ][ 2 ], Spot.POSITION_X ), 0. );
+		assertNull( after.frameOf( spots[ 0 ][ 3 ] ) );
+		assertEquals( 3, after.track( after.trackIDOf( spots[ 0 ][ 0 ] ) ).spots().size() );
+	}
+
+	@Test
+	public void testStructuralSharing()
+	{
+		final Model model = new Model();
+		final Spot[][] spots = build( model );
+		final ModelSnapshot before = model.snapshot();
+		final Integer track0 = model.getTrackModel().trackIDOf( spots[ 0 ][ 0 ] );
+		final Integer track1 = model.getTrackModel().trackIDOf( spots[ 1 ][ 0 ] );
+
+		// Edit one spot in frame 1, that belongs to track 0.
+		model.beginUpdate();
+		try
+		{
+			spots[ 0 ][ 1 ].putFeature( Spot.POSITION_Y, 3. );
+			model.updateFeatures( spots[ 0 ][ 1 ] );
+			model.setEdgeWeight( model.getTrackModel().getEdge( spots[ 0 ][ 0 ], spots[ 0 ][ 1 ] ), 5. );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		final ModelSnapshot after = model.snapshot();
+		assertNotSame( before, after );
+
+		// Unchanged frames and tracks are shared.
+		assertNotSame( before.frame( 1 ), after.frame( 1 ) );
+		assertSame( before.frame( 0 ), after.frame( 0 ) );
+		assertSame( before.frame( 2 ), after.frame( 2 ) );
+		assertSame( before.frame( 3 ), after.frame( 3 ) );
+		assertNotSame( before.track( track0 ), after.track( track0 ) );
+		assertSame( before.track( track1 ), after.track( track1 ) );
+
+		// Track visibility changes are seen.
+		model.beginUpdate();
+		try
+		{
+			model.setTrackVisibility( track1, false );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		final ModelSnapshot hidden = model.snapshot();
+		assertFalse( hidden.isVisible( track1 ) );
+		assertTrue( after.isVisible( track1 ) );
+		assertSame( after.frame( 1 ), hidden.frame( 1 ) );
+
+		// Bulk changes invalidate everything.
+		model.notifyFeaturesComputed();
+		final ModelSnapshot all = model.snapshot();
+		assertNotSame( hidden.frame( 0 ), all.frame( 0 ) );
+		assertNotSame( hidden.track( track0 ), all.track( track0 ) );
+	}
+}
@@ -547,4 +547,110 @@ public class ModelTest {
 
 		}
 	}
+
+	/**
+	 * Test that importing tracks from another model gives the same tracks as
+	 * adding their spots and edges one by one.
+	 */
+	@Test
+	public void testImportTrack() {
+		// Source: 2 tracks, one of them branching.
+		final Model source = new Model();
+		final Spot a0 = new Spot(0d, 0d, 0d, 1d, -1d, "A0");
+		final Spot a1 = new Spot(1d, 0d, 0d, 1d, -1d, "A1");
+		final Spot a2 = new Spot(2d, 0d, 0d, 1d, -1d, "A2");
+		final Spot a3 = new Spot(3d, 0d, 0d, 1d, -1d, "A3");
+		final Spot b0 = new Spot(0d, 5d, 0d, 1d, -1d, "B0");
+		final Spot b1 = new Spot(0d, 6d, 0d, 1d, -1d, "B1");
+		source.beginUpdate();
+		try {
+			source.addSpotTo(a0, 0);
+			source.addSpotTo(a1, 1);
+			source.addSpotTo(a2, 2);
+			source.addSpotTo(a3, 2);
+			source.addSpotTo(b0, 0);
+			source.addSpotTo(b1, 1);
+			source.addEdge(a0, a1, 1d);
+			source.addEdge(a1, a2, 2d);
+			source.addEdge(a1, a3, 3d);
+			source.addEdge(b0, b1, 4d);
+		} finally {
+			source.endUpdate();
+		}
+		final Integer idA = source.getTrackModel().trackIDOf(a0);
+		source.getTrackModel().setName(idA, "Lineage A");
+
+		// Target: 1 existing track.
+		final Model model = new Model();
+		final Spot c0 = new Spot(0d, 9d, 0d, 1d, -1d, "C0");
+		final Spot c1 = new Spot(0d, 9d, 0d, 1d, -1d, "C1");
+		model.beginUpdate();
+		try {
+			model.addSpotTo(c0, 0);
+			model.addSpotTo(c1, 1);
+			model.addEdge(c0, c1, 1d);
+		} finally {
+			model.endUpdate();
+		}
+
+		final Set<ModelChangeEvent> events = new HashSet<>();
+		model.addModelChangeListener(e -> events.add(e));
+		final Set<Integer> newIds = new HashSet<>();
+		model.beginBulkUpdate();
+		try {
+			for (final Integer id : source.getTrackModel().trackIDs(true))
+				newIds.add(model.importTrack(source, id));
+		} finally {
+			model.endUpdate();
+		}
+
+		// Single structural event listing all the new objects.
+		assertEquals(1, events.size());
+		final ModelChangeEvent event = events.iterator().next();
+		assertTrue(event.isStructureReset());
+		assertEquals(6, event.getDelta().nSpots());
+		assertEquals(4, event.getDelta().nEdges());
+		assertEquals(newIds, event.getDelta().getTracksUpdated());
+
+		// Content.
+		assertEquals(8, model.getSpots().getNSpots(false));
+		assertEquals(3, model.getSpots().getNSpots(0, false));
+		assertEquals(2, model.getSpots().getNSpots(2, false));
+		assertEquals(3, model.getTrackModel().nTracks(true));
+		assertEquals(2, newIds.size());
+		for (final Integer id : newIds) {
+			final Set<Spot> spots = model.getTrackModel().trackSpots(id);
+			final Set<DefaultWeightedEdge> edges = model.getTrackModel().trackEdges(id);
+			for (final Spot spot : spots) {
+				assertEquals(id, model.getTrackModel().trackIDOf(spot));
+				assertTrue(spot != a0 && spot != b0);
+			}
+			double totalWeight = 0;
+			for (final DefaultWeightedEdge edge : edges) {
+				assertEquals(id, model.getTrackModel().trackIDOf(edge));
+				totalWeight += model.getTrackModel().getEdgeWeight(edge);
+			}
+			if (spots.size() == 4) {
+				assertEquals(3, edges.size());
+				assertEquals(6d, totalWeight, 0d);
+				assertEquals("Lineage A", model.getTrackModel().name(id));
+			} else {
+				assertEquals(1, edges.size());
+				assertEquals(4d, totalWeight, 0d);
+			}
+		}
+
+		// The imported tracks behave as regular tracks.
+		final Spot newA3 = model.getSpots().getSpotAt(a3, 2, false);
+		final Integer idNewA = model.getTrackModel().trackIDOf(newA3);
+		model.beginUpdate();
+		try {
+			model.removeSpot(newA3);
+		} finally {
+			model.endUpdate();
+		}
+		assertEquals(3, model.getTrackModel().nTracks(true));
+		assertEquals(3, model.getTrackModel().trackSpots(idNewA).size());
+		assertEquals(2, model.getTrackModel().trackEdges(idNewA).size());
+	}
 }
@@ -22,17 +22,25 @@
 package fiji.plugin.trackmate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.junit.Test;
 
+import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition;
+import fiji.plugin.trackmate.graph.ConvexBranchesDecomposition.TrackBranchDecomposition;
+import fiji.plugin.trackmate.graph.TimeDirectedNeighborIndex;
+
 public class TrackModelTest
 {
 
@@ -274,4 +282,92 @@ public class TrackModelTest
 		assertTrue( model.isVisible( id ) );
 	}
 
+
+	@Test
+	public void testBranchDecompositionCache()
+	{
+		final Model model = new Model();
+		final Spot a0 = new Spot( 0d, 0d, 0d, 1d, -1d );
+		final Spot a1 = new Spot( 0d, 0d, 0d, 1d, -1d );
+		final Spot a2 = new Spot( 0d, 0d, 0d, 1d, -1d );
+		final Spot a3 = new Spot( 0d, 0d, 0d, 1d, -1d );
+		final Spot[] b = new Spot[ DEPTH ];
+		model.beginUpdate();
+		try
+		{
+			model.addSpotTo( a0, 0 );
+			model.addSpotTo( a1, 1 );
+			model.addSpotTo( a2, 2 );
+			model.addSpotTo( a3, 2 );
+			model.addEdge( a0, a1, 1 );
+			model.addEdge( a1, a2, 1 );
+			model.addEdge( a1, a3, 1 );
+			for ( int j = 0; j < DEPTH; j++ )
+			{
+				b[ j ] = model.addSpotTo( new Spot( 5d, 0d, 0d, 1d, -1d ), j );
+				if ( j > 0 )
+					model.addEdge( b[ j - 1 ], b[ j ], 1 );
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		final TrackModel tm = model.getTrackModel();
+		final Integer idA = tm.trackIDOf( a0 );
+		final Integer idB = tm.trackIDOf( b[ 0 ] );
+		final Map< Integer, TrackBranchDecomposition > decompositions = tm.getBranchDecompositions( tm.trackIDs( true ), true, false );
+		assertEquals( 2, decompositions.size() );
+
+		// Same result as the sequential decomposition.
+		final TimeDirectedNeighborIndex neighborIndex = tm.getDirectedNeighborIndex();
+		for ( final Integer id : tm.trackIDs( true ) )
+		{
+			final TrackBranchDecomposition expected = ConvexBranchesDecomposition.processTrack( id, tm, neighborIndex, true, false );
+			assertEquals( new HashSet<>( expected.branches ), new HashSet<>( decompositions.get( id ).branches ) );
+			assertEquals( new HashSet<>( expected.links ), new HashSet<>( decompositions.get( id ).links ) );
+		}
+		assertEquals( 3, decompositions.get( idA ).branches.size() );
+		assertEquals( 1, decompositions.get( idB ).branches.size() );
+
+		// Cached and shared.
+		final TrackBranchDecomposition decompositionA = tm.getBranchDecomposition( idA, true, false );
+		assertSame( decompositions.get( idA ), decompositionA );
+		assertSame( decompositionA.getBranchGraph(), decompositionA.getBranchGraph() );
+		assertNotSame( decompositionA, tm.getBranchDecomposition( idA, true, true ) );
+
+		// Shared, hence read-only.
+		assertUnmodifiable( () -> decompositionA.branches.clear() );
+		assertUnmodifiable( () -> decompositionA.links.clear() );
+		assertUnmodifiable( () -> decompositionA.branches.iterator().next().clear() );
+		assertUnmodifiable( () -> decompositionA.links.iterator().next().clear() );
+
+		// Invalidated when the track is modified, not before.
+		model.beginUpdate();
+		try
+		{
+			model.removeEdge( a1, a3 );
+			assertEquals( 1, tm.getBranchDecomposition( idA, true, false ).branches.size() );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		final TrackBranchDecomposition modifiedA = tm.getBranchDecomposition( idA, true, false );
+		assertNotSame( decompositionA, modifiedA );
+		assertEquals( 1, modifiedA.branches.size() );
+		assertSame( decompositions.get( idB ), tm.getBranchDecomposition( idB, true, false ) );
+	}
+
+	private static void assertUnmodifiable( final Runnable modification )
+	{
+		try
+		{
+			modification.run();
+			fail( "Expected an UnsupportedOperationException." );
+		}
+		catch ( final UnsupportedOperationException e )
+		{}
+	}
 }
@@ -0,0 +1,150 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Settings;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackMate;
+import fiji.plugin.trackmate.TrackModel;
+import fiji.plugin.trackmate.action.closegaps.CloseGapsByDetection;
+import fiji.plugin.trackmate.detection.DetectorKeys;
+import fiji.plugin.trackmate.detection.LogDetectorFactory;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.FloatProcessor;
+
+public class CloseGapsByDetectionTest
+{
+
+	private static final int N_FRAMES = 6;
+
+	/** Frame with no object, where detection must fail. */
+	private static final int EMPTY_FRAME = 2;
+
+	private static double x( final int frame )
+	{
+		return 10. + 8. * frame;
+	}
+
+	private static double y( final int frame )
+	{
+		return 20. + 3. * frame;
+	}
+
+	private static ImagePlus createImage()
+	{
+		final ImageStack stack = new ImageStack( 64, 64 );
+		for ( int t = 0; t < N_FRAMES; t++ )
+		{
+			final FloatProcessor fp = new FloatProcessor( 64, 64 );
+			if ( t != EMPTY_FRAME )
+				for ( int yi = 0; yi < 64; yi++ )
+					for ( int xi = 0; xi < 64; xi++ )
+					{
+						final double dx = xi - x( t );
+						final double dy = yi - y( t );
+						fp.setf( xi, yi, ( float ) ( 1000. * Math.exp( -( dx * dx + dy * dy ) / 8. ) ) );
+					}
+			stack.addSlice( fp );
+		}
+		final ImagePlus imp = new ImagePlus( "blob", stack );
+		imp.setDimensions( 1, 1, N_FRAMES );
+		return imp;
+	}
+
+	private static Spot createSpot( final int frame )
+	{
+		final Spot spot = new Spot( x( frame ), y( frame ), 0., 3., 100. );
+		spot.putFeature( Spot.POSITION_T, Double.valueOf( frame ) );
+		return spot;
+	}
+
+	@Test
+	public void testGapsAreClosed()
+	{
+		final ImagePlus imp = createImage();
+		final Settings settings = new Settings( imp );
+		final LogDetectorFactory< ? > factory = new LogDetectorFactory<>();
+		final Map< String, Object > detectorSettings = factory.getDefaultSettings();
+		detectorSettings.put( DetectorKeys.KEY_RADIUS, 3. );
+		detectorSettings.put( DetectorKeys.KEY_THRESHOLD, 1. );
+		detectorSettings.put( DetectorKeys.KEY_DO_MEDIAN_FILTERING, false );
+		settings.detectorFactory = factory;
+		settings.detectorSettings = detectorSettings;
+
+		final TrackMate trackmate = new TrackMate( settings );
+		trackmate.setNumThreads( 4 );
+		final Model model = trackmate.getModel();
+
+		// Two tracks with the same gap, from frame 0 to the last frame.
+		final List< Spot > sources = new ArrayList<>();
+		model.beginUpdate();
+		try
+		{
+			for ( int i = 0; i < 2; i++ )
+			{
+				final Spot source = model.addSpotTo( createSpot( 0 ), 0 );
+				final Spot target = model.addSpotTo( createSpot( N_FRAMES - 1 ), N_FRAMES - 1 );
+				model.addEdge( source, target, 1. );
+				sources.add( source );
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		new CloseGapsByDetection().execute( trackmate, Logger.VOID_LOGGER );
+
+		/*
+		 * A spot is found in frame 1, then nothing in the empty frame, so the
+		 * next position is tried and a spot is found in frame 3. Gaps of one
+		 * frame are left open.
+		 */
+		final TrackModel trackModel = model.getTrackModel();
+		assertEquals( 2, trackModel.nTracks( false ) );
+		for ( final Spot source : sources )
+		{
+			final Integer trackID = trackModel.trackIDOf( source );
+			assertNotNull( trackID );
+			assertEquals( 4, trackModel.trackSpots( trackID ).size() );
+			assertEquals( 3, trackModel.trackEdges( trackID ).size() );
+			for ( final Spot spot : trackModel.trackSpots( trackID ) )
+			{
+				final int frame = spot.getFeature( Spot.FRAME ).intValue();
+				assertEquals( x( frame ), spot.getDoublePosition( 0 ), 0.5 );
+				assertEquals( y( frame ), spot.getDoublePosition( 1 ), 0.5 );
+			}
+		}
+	}
+}
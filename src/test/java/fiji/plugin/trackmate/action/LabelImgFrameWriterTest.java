@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.action.LabelImgExporter.LabelIdPainting;
+import ij.IJ;
+import ij.ImagePlus;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.FloatType;
+
+public class LabelImgFrameWriterTest
+{
+
+	private static Model createModel()
+	{
+		final Model model = new Model();
+		model.beginUpdate();
+		try
+		{
+			Spot previous = null;
+			for ( int frame = 0; frame < 4; frame++ )
+			{
+				final Spot spot = new Spot( 8. + 3 * frame, 10., 0., 3., 1. );
+				model.addSpotTo( spot, frame );
+				if ( previous != null )
+					model.addEdge( previous, spot, 1. );
+				previous = spot;
+
+				// Spots not in a track.
+				model.addSpotTo( new Spot( 30., 20. - 4 * frame, 0., 4., 1. ), frame );
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		return model;
+	}
+
+	@Test
+	public void testSameAsLabelImg() throws IOException
+	{
+		final Model model = createModel();
+		final long[] dims = new long[] { 40, 30, 1, 4 };
+		final double[] calibration = new double[] { 1., 1., 1., 1. };
+
+		for ( final LabelIdPainting painting : LabelIdPainting.values() )
+		{
+			for ( final boolean asDots : new boolean[] { false, true } )
+			{
+				final Img< FloatType > expected = LabelImgExporter.createLabelImg( model, dims, calibration, asDots, false, painting );
+
+				final Path folder = Files.createTempDirectory( "lblimg" );
+				try
+				{
+					LabelImgExporter.exportLabelImg( model, dims, calibration, asDots, false, painting, folder, 3, Logger.VOID_LOGGER );
+
+					final RandomAccess< FloatType > ra = expected.randomAccess();
+					for ( int frame = 0; frame < dims[ 3 ]; frame++ )
+					{
+						final File file = folder.resolve( String.format( "LblImg_t%03d.tif", frame ) ).toFile();
+						final ImagePlus imp = IJ.openImage( file.getAbsolutePath() );
+						assertNotNull( "Missing file " + file, imp );
+						assertEquals( dims[ 0 ], imp.getWidth() );
+						assertEquals( dims[ 1 ], imp.getHeight() );
+						for ( int y = 0; y < dims[ 1 ]; y++ )
+						{
+							for ( int x = 0; x < dims[ 0 ]; x++ )
+							{
+								ra.setPosition( new long[] { x, y, 0, frame } );
+								assertEquals( painting + ", frame " + frame + " at " + x + ", " + y,
+										ra.get().get(), imp.getProcessor().getf( x, y ), 0f );
+							}
+						}
+					}
+				}
+				finally
+				{
+					for ( final File file : folder.toFile().listFiles() )
+						file.delete();
+					Files.delete( folder );
+				}
+			}
+		}
+	}
+}
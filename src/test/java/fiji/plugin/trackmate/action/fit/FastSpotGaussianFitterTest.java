@@ -0,0 +1,151 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.action.fit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Spot;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.FloatProcessor;
+
+public class FastSpotGaussianFitterTest
+{
+
+	private static final double[][] CENTERS = new double[][] {
+			{ 12.3, 14.6, 6.2 },
+			{ 40.8, 15.1, 8.7 },
+			{ 25.4, 38.9, 7.4 } };
+
+	private static final double SIGMA_XY = 1.8;
+
+	private static final double SIGMA_Z = 2.2;
+
+	private static ImagePlus createImage( final int nz )
+	{
+		final int width = 56;
+		final int height = 52;
+		final Random ran = new Random( 42l );
+		final ImageStack stack = new ImageStack( width, height );
+		for ( int z = 0; z < nz; z++ )
+		{
+			final FloatProcessor fp = new FloatProcessor( width, height );
+			for ( int y = 0; y < height; y++ )
+			{
+				for ( int x = 0; x < width; x++ )
+				{
+					double val = 10. + ran.nextGaussian();
+					for ( final double[] c : CENTERS )
+					{
+						final double dxy = ( x - c[ 0 ] ) * ( x - c[ 0 ] ) + ( y - c[ 1 ] ) * ( y - c[ 1 ] );
+						final double dz = nz == 1 ? 0. : ( z - c[ 2 ] ) * ( z - c[ 2 ] );
+						val += 100. * Math.exp( -dxy / ( 2. * SIGMA_XY * SIGMA_XY ) - dz / ( 2. * SIGMA_Z * SIGMA_Z ) );
+					}
+					fp.setf( x, y, ( float ) val );
+				}
+			}
+			stack.addSlice( fp );
+		}
+		final ImagePlus imp = new ImagePlus( "gaussians", stack );
+		imp.setDimensions( 1, nz, 1 );
+		return imp;
+	}
+
+	private static List< Spot > createSpots( final boolean is2D )
+	{
+		final List< Spot > spots = new ArrayList<>();
+		for ( final double[] c : CENTERS )
+		{
+			// Start a bit away from the true center and radius.
+			final Spot spot = new Spot( c[ 0 ] - 0.4, c[ 1 ] + 0.3, is2D ? 0. : c[ 2 ] + 0.4, 1.1 * SIGMA_XY * Math.sqrt( 2. ), 1. );
+			spot.putFeature( Spot.FRAME, 0. );
+			spots.add( spot );
+		}
+		return spots;
+	}
+
+	private static void compare( final ImagePlus imp, final SpotFitter reference, final boolean fixedRadius )
+	{
+		final boolean is2D = imp.getNSlices() == 1;
+		final List< Spot > expected = createSpots( is2D );
+		final List< Spot > actual = createSpots( is2D );
+		reference.process( expected, Logger.VOID_LOGGER );
+		final FastSpotGaussianFitter fitter = new FastSpotGaussianFitter( imp, 0, fixedRadius );
+		fitter.setNumThreads( 2 );
+		fitter.process( actual, Logger.VOID_LOGGER );
+
+		for ( int i = 0; i < CENTERS.length; i++ )
+		{
+			final Spot e = expected.get( i );
+			final Spot a = actual.get( i );
+			// Both converged near the true center.
+			assertEquals( CENTERS[ i ][ 0 ], a.getDoublePosition( 0 ), 0.1 );
+			assertEquals( CENTERS[ i ][ 1 ], a.getDoublePosition( 1 ), 0.1 );
+			for ( int d = 0; d < 3; d++ )
+				assertEquals( "Spot " + i + ", dimension " + d, e.getDoublePosition( d ), a.getDoublePosition( d ), 1e-3 );
+			assertEquals( "Spot " + i + " radius", e.getFeature( Spot.RADIUS ), a.getFeature( Spot.RADIUS ), 1e-3 );
+		}
+	}
+
+	@Test
+	public void test2D()
+	{
+		final ImagePlus imp = createImage( 1 );
+		compare( imp, new SpotGaussianFitter2D( imp, 0 ), false );
+		compare( imp, new SpotGaussianFitter2DFixedRadius( imp, 0 ), true );
+	}
+
+	@Test
+	public void test3D()
+	{
+		final ImagePlus imp = createImage( 16 );
+		compare( imp, new SpotGaussianFitter3D( imp, 0 ), false );
+		compare( imp, new SpotGaussianFitter3DFixedRadius( imp, 0 ), true );
+	}
+
+	@Test
+	public void testSolve()
+	{
+		// Symmetric positive definite system.
+		final double[] m = new double[] {
+				4., 2., 0.6,
+				2., 5., 1.,
+				0.6, 1., 3. };
+		final double[] x = new double[] { 1., -2., 0.5 };
+		final double[] b = new double[ 3 ];
+		for ( int i = 0; i < 3; i++ )
+			for ( int j = 0; j < 3; j++ )
+				b[ i ] += m[ i * 3 + j ] * x[ j ];
+
+		assertTrue( FastSpotGaussianFitter.solve( m, b, 3 ) );
+		for ( int i = 0; i < 3; i++ )
+			assertEquals( x[ i ], b[ i ], 1e-12 );
+	}
+}
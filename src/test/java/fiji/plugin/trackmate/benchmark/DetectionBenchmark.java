@@ -0,0 +1,111 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.detection.DogDetector;
+import fiji.plugin.trackmate.detection.HessianDetector;
+import fiji.plugin.trackmate.detection.LogDetector;
+import fiji.plugin.trackmate.detection.SpotDetector;
+import net.imagej.ImgPlus;
+import net.imglib2.algorithm.MultiThreaded;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+
+/**
+ * Benchmarks the LoG, DoG and Hessian detectors on a single frame with
+ * Gaussian blobs.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class DetectionBenchmark
+{
+
+	@Param( { "2", "3" } )
+	public int nDims;
+
+	@Param( { "1", "4" } )
+	public int numThreads;
+
+	private static final double RADIUS = 3.;
+
+	private static final double THRESHOLD = 10.;
+
+	private ImgPlus< UnsignedShortType > img;
+
+	private double[] calibration;
+
+	@Setup
+	public void setup()
+	{
+		final long[] dims = nDims == 2
+				? new long[] { 1024, 1024 }
+				: new long[] { 128, 128, 64 };
+		img = SyntheticData.blobImage( dims, 500, RADIUS, 1l );
+		calibration = new double[] { 1., 1., 1. };
+	}
+
+	@Benchmark
+	public List< Spot > logDetector()
+	{
+		return run( new LogDetector<>( img, img, calibration, RADIUS, THRESHOLD, true, false ) );
+	}
+
+	@Benchmark
+	public List< Spot > dogDetector()
+	{
+		return run( new DogDetector<>( img, img, calibration, RADIUS, THRESHOLD, true, false ) );
+	}
+
+	@Benchmark
+	public List< Spot > hessianDetector()
+	{
+		return run( new HessianDetector<>( img, img, calibration, RADIUS, RADIUS, THRESHOLD, false, true ) );
+	}
+
+	private List< Spot > run( final SpotDetector< UnsignedShortType > detector )
+	{
+		if ( detector instanceof MultiThreaded )
+			( ( MultiThreaded ) detector ).setNumThreads( numThreads );
+		if ( !detector.checkInput() || !detector.process() )
+			throw new IllegalStateException( detector.getErrorMessage() );
+		return detector.getResult();
+	}
+}
@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.io.TmXmlReader;
+import fiji.plugin.trackmate.io.TmXmlWriter;
+
+/**
+ * Benchmarks writing and reading a model to and from a TrackMate XML file.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class IOBenchmark
+{
+
+	@Param( { "100", "1000" } )
+	public int nTracks;
+
+	@Param( { "100" } )
+	public int nFrames;
+
+	private Model model;
+
+	private File writeFile;
+
+	private File readFile;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		model = SyntheticData.brownianModel( nTracks, nFrames, 1000., 1., 1l );
+		writeFile = File.createTempFile( "TrackMateBenchmark-write-", ".xml" );
+		readFile = File.createTempFile( "TrackMateBenchmark-read-", ".xml" );
+		write( model, readFile );
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		writeFile.delete();
+		readFile.delete();
+	}
+
+	@Benchmark
+	public File writeXml() throws IOException
+	{
+		write( model, writeFile );
+		return writeFile;
+	}
+
+	@Benchmark
+	public Model readXml()
+	{
+		final TmXmlReader reader = new TmXmlReader( readFile );
+		if ( !reader.isReadingOk() )
+			throw new IllegalStateException( reader.getErrorMessage() );
+		return reader.getModel();
+	}
+
+	private static void write( final Model model, final File file ) throws IOException
+	{
+		final TmXmlWriter writer = new TmXmlWriter( file );
+		writer.appendModel( model );
+		writer.writeToFile();
+	}
+}
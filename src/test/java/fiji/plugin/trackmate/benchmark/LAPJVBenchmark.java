@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.LAPJV;
+import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.SparseCostMatrix;
+
+/**
+ * Benchmarks the sparse Jonker-Volgenant solver on banded random cost
+ * matrices.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class LAPJVBenchmark
+{
+
+	@Param( { "1000", "10000" } )
+	public int size;
+
+	@Param( { "10" } )
+	public int costsPerRow;
+
+	private SparseCostMatrix cm;
+
+	@Setup
+	public void setup()
+	{
+		cm = SyntheticData.sparseCostMatrix( size, costsPerRow, 1l );
+	}
+
+	@Benchmark
+	public int[] solve()
+	{
+		final LAPJV solver = new LAPJV( cm );
+		if ( !solver.checkInput() || !solver.process() )
+			throw new IllegalStateException( solver.getErrorMessage() );
+		return solver.getResult();
+	}
+}
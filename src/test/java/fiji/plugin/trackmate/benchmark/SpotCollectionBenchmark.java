@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.features.FeatureFilter;
+
+/**
+ * Benchmarks filtering a large spot collection.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SpotCollectionBenchmark
+{
+
+	@Param( { "10000", "1000000" } )
+	public int nSpots;
+
+	private SpotCollection spots;
+
+	private FeatureFilter filter;
+
+	private List< FeatureFilter > filters;
+
+	@Setup
+	public void setup()
+	{
+		final int nFrames = 100;
+		spots = SyntheticData.brownianSpots( nSpots / nFrames, nFrames, 1000., 1., 1l );
+		filter = new FeatureFilter( Spot.QUALITY, 50., true );
+		filters = Arrays.asList( filter, new FeatureFilter( Spot.POSITION_X, 500., false ) );
+	}
+
+	@Benchmark
+	public SpotCollection filterOne()
+	{
+		spots.filter( filter );
+		return spots;
+	}
+
+	@Benchmark
+	public SpotCollection filterMany()
+	{
+		spots.filter( filters );
+		return spots;
+	}
+}
@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Settings;
+import fiji.plugin.trackmate.features.SpotFeatureCalculator;
+import ij.ImagePlus;
+
+/**
+ * Benchmarks the computation of all the spot features on a synthetic 2D
+ * time-lapse.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SpotFeatureBenchmark
+{
+
+	@Param( { "100", "1000" } )
+	public int nSpotsPerFrame;
+
+	@Param( { "20" } )
+	public int nFrames;
+
+	private Model model;
+
+	private Settings settings;
+
+	@Setup
+	public void setup()
+	{
+		final int size = ( int ) ( 30. * Math.sqrt( nSpotsPerFrame ) );
+		model = SyntheticData.brownianModel( nSpotsPerFrame, nFrames, size - 1, 1., 1l );
+		model.setLogger( Logger.VOID_LOGGER );
+		final ImagePlus imp = SyntheticData.paint( model, size, size, nFrames, 1l );
+		settings = new Settings( imp );
+		settings.addAllAnalyzers();
+	}
+
+	@Benchmark
+	public Model computeSpotFeatures()
+	{
+		final SpotFeatureCalculator calculator = new SpotFeatureCalculator( model, settings, false );
+		if ( !calculator.checkInput() || !calculator.process() )
+			throw new IllegalStateException( calculator.getErrorMessage() );
+		return model;
+	}
+}
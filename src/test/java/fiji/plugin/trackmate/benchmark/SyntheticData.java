@@ -0,0 +1,251 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.tracking.jaqaman.costmatrix.SparseCostMatrix;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import net.imagej.ImgPlus;
+import net.imglib2.algorithm.gauss3.Gauss3;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.array.ArrayRandomAccess;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.view.Views;
+
+/**
+ * Generators of reproducible synthetic data for the benchmarks: spots, tracks,
+ * images and cost matrices. All the generators take a seed.
+ */
+public class SyntheticData
+{
+
+	/**
+	 * Creates an image of the specified size with Gaussian blobs of the
+	 * specified radius at random locations.
+	 *
+	 * @param dims
+	 *            the image size, 2D or 3D.
+	 * @param nBlobs
+	 *            the number of blobs.
+	 * @param radius
+	 *            the blob radius, in pixels.
+	 * @param seed
+	 *            the random seed.
+	 * @return a new image.
+	 */
+	public static ImgPlus< UnsignedShortType > blobImage( final long[] dims, final int nBlobs, final double radius, final long seed )
+	{
+		final ArrayImg< UnsignedShortType, ShortArray > img = ArrayImgs.unsignedShorts( dims );
+		final ArrayRandomAccess< UnsignedShortType > ra = img.randomAccess();
+		final Random ran = new Random( seed );
+		for ( int i = 0; i < nBlobs; i++ )
+		{
+			for ( int d = 0; d < img.numDimensions(); d++ )
+				ra.setPosition( ran.nextInt( ( int ) img.dimension( d ) ), d );
+			ra.get().set( 5000 );
+		}
+		Gauss3.gauss( radius / Math.sqrt( img.numDimensions() ), Views.extendMirrorSingle( img ), img );
+
+		// Add some background noise.
+		for ( final UnsignedShortType p : img )
+			p.set( p.get() + 100 + ran.nextInt( 20 ) );
+
+		return new ImgPlus<>( img );
+	}
+
+	/**
+	 * Creates a 2D time-lapse where each spot of the specified model is
+	 * painted as a disk of intensity 1000 over a noisy background.
+	 *
+	 * @param model
+	 *            the model whose spots to paint, in pixel coordinates.
+	 * @param width
+	 *            the image width.
+	 * @param height
+	 *            the image height.
+	 * @param nFrames
+	 *            the number of frames.
+	 * @param seed
+	 *            the random seed for the noise.
+	 * @return a new {@link ImagePlus}.
+	 */
+	public static ImagePlus paint( final Model model, final int width, final int height, final int nFrames, final long seed )
+	{
+		final ImagePlus imp = IJ.createImage( "Synthetic", "16-bit black", width, height, 1, 1, nFrames );
+		final Random ran = new Random( seed );
+		for ( int t = 0; t < nFrames; t++ )
+		{
+			final ImageProcessor ip = imp.getStack().getProcessor( t + 1 );
+			for ( int i = 0; i < width * height; i++ )
+				ip.set( i, 100 + ran.nextInt( 20 ) );
+
+			for ( final Spot spot : model.getSpots().iterable( t, false ) )
+			{
+				final double r = spot.getFeature( Spot.RADIUS );
+				final double x = spot.getDoublePosition( 0 );
+				final double y = spot.getDoublePosition( 1 );
+				for ( int j = ( int ) Math.max( 0, y - r ); j <= Math.min( height - 1, y + r ); j++ )
+					for ( int i = ( int ) Math.max( 0, x - r ); i <= Math.min( width - 1, x + r ); i++ )
+						if ( ( i - x ) * ( i - x ) + ( j - y ) * ( j - y ) <= r * r )
+							ip.set( i, j, 1000 + ran.nextInt( 20 ) );
+			}
+		}
+		return imp;
+	}
+
+	/**
+	 * Creates a collection of visible spots, made of tracks following
+	 * Brownian motion in a 2D square field.
+	 *
+	 * @param nTracks
+	 *            the number of tracks, that is the number of spots per frame.
+	 * @param nFrames
+	 *            the number of frames.
+	 * @param fieldSize
+	 *            the size of the field, in pixels.
+	 * @param diffusion
+	 *            the standard deviation of the displacement between 2 frames.
+	 * @param seed
+	 *            the random seed.
+	 * @return a new spot collection.
+	 */
+	public static SpotCollection brownianSpots( final int nTracks, final int nFrames, final double fieldSize, final double diffusion, final long seed )
+	{
+		final SpotCollection spots = new SpotCollection();
+		for ( final List< Spot > track : brownianTracks( nTracks, nFrames, fieldSize, diffusion, seed ) )
+			for ( int t = 0; t < track.size(); t++ )
+				spots.add( track.get( t ), Integer.valueOf( t ) );
+		spots.setVisible( true );
+		return spots;
+	}
+
+	/**
+	 * Creates a model with tracks following Brownian motion in a 2D square
+	 * field. Each track spans all the frames.
+	 *
+	 * @param nTracks
+	 *            the number of tracks.
+	 * @param nFrames
+	 *            the number of frames.
+	 * @param fieldSize
+	 *            the size of the field, in pixels.
+	 * @param diffusion
+	 *            the standard deviation of the displacement between 2 frames.
+	 * @param seed
+	 *            the random seed.
+	 * @return a new model.
+	 */
+	public static Model brownianModel( final int nTracks, final int nFrames, final double fieldSize, final double diffusion, final long seed )
+	{
+		final Model model = new Model();
+		model.beginUpdate();
+		try
+		{
+			for ( final List< Spot > track : brownianTracks( nTracks, nFrames, fieldSize, diffusion, seed ) )
+			{
+				Spot previous = null;
+				for ( int t = 0; t < track.size(); t++ )
+				{
+					final Spot spot = track.get( t );
+					model.addSpotTo( spot, Integer.valueOf( t ) );
+					if ( previous != null )
+						model.addEdge( previous, spot, 1. );
+					previous = spot;
+				}
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		model.getSpots().setVisible( true );
+		return model;
+	}
+
+	private static List< List< Spot > > brownianTracks( final int nTracks, final int nFrames, final double fieldSize, final double diffusion, final long seed )
+	{
+		final Random ran = new Random( seed );
+		final List< List< Spot > > tracks = new ArrayList<>( nTracks );
+		for ( int i = 0; i < nTracks; i++ )
+		{
+			final List< Spot > track = new ArrayList<>( nFrames );
+			double x = ran.nextDouble() * fieldSize;
+			double y = ran.nextDouble() * fieldSize;
+			for ( int t = 0; t < nFrames; t++ )
+			{
+				final Spot spot = new Spot( x, y, 0., 2., 10. + ran.nextDouble() * 90. );
+				spot.putFeature( Spot.POSITION_T, Double.valueOf( t ) );
+				track.add( spot );
+				x = Math.max( 0., Math.min( fieldSize, x + diffusion * ran.nextGaussian() ) );
+				y = Math.max( 0., Math.min( fieldSize, y + diffusion * ran.nextGaussian() ) );
+			}
+			tracks.add( track );
+		}
+		return tracks;
+	}
+
+	/**
+	 * Creates a square sparse cost matrix with the specified number of
+	 * non-zero costs per row. The diagonal is always present, so that the
+	 * assignment problem has a solution.
+	 *
+	 * @param n
+	 *            the number of rows and columns.
+	 * @param perRow
+	 *            the number of costs per row.
+	 * @param seed
+	 *            the random seed.
+	 * @return a new cost matrix.
+	 */
+	public static SparseCostMatrix sparseCostMatrix( final int n, final int perRow, final long seed )
+	{
+		final Random ran = new Random( seed );
+		final int k = Math.min( n, perRow );
+		final double[] cc = new double[ n * k ];
+		final int[] kk = new int[ n * k ];
+		final int[] number = new int[ n ];
+		int index = 0;
+		for ( int i = 0; i < n; i++ )
+		{
+			// Contiguous band of columns around the diagonal, sorted.
+			final int first = Math.max( 0, Math.min( n - k, i - k / 2 ) );
+			for ( int j = first; j < first + k; j++ )
+			{
+				kk[ index ] = j;
+				cc[ index ] = ran.nextDouble();
+				index++;
+			}
+			number[ i ] = k;
+		}
+		return new SparseCostMatrix( cc, kk, number, n );
+	}
+}
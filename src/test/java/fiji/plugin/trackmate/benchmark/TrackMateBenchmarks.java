@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the TrackMate benchmark suite and writes the results to a JSON file,
+ * that can be compared between releases.
+ * <p>
+ * Usage: <code>TrackMateBenchmarks [resultFile] [includeRegex]</code>. By
+ * default all the benchmarks of this package are run, and the results are
+ * written to <code>target/jmh-results.json</code>. The suite can also be run
+ * with <code>mvn verify -Pbenchmark</code>.
+ */
+public class TrackMateBenchmarks
+{
+
+	public static void main( final String[] args ) throws RunnerException
+	{
+		final String resultFile = args.length > 0 ? args[ 0 ] : "target/jmh-results.json";
+		final String include = args.length > 1 ? args[ 1 ] : TrackMateBenchmarks.class.getPackage().getName() + "\\..*Benchmark";
+
+		final File parent = new File( resultFile ).getAbsoluteFile().getParentFile();
+		if ( parent != null )
+			parent.mkdirs();
+
+		final Options options = new OptionsBuilder()
+				.include( include )
+				.resultFormat( ResultFormatType.JSON )
+				.result( resultFile )
+				.build();
+		new Runner( options ).run();
+	}
+}
@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.tracking.SpotTracker;
+import fiji.plugin.trackmate.tracking.TrackerKeys;
+import fiji.plugin.trackmate.tracking.jaqaman.SparseLAPTracker;
+import fiji.plugin.trackmate.tracking.jaqaman.SparseLAPTrackerFactory;
+import fiji.plugin.trackmate.tracking.kalman.KalmanTracker;
+import fiji.plugin.trackmate.tracking.overlap.OverlapTracker;
+import fiji.plugin.trackmate.tracking.overlap.OverlapTracker.IoUCalculation;
+
+/**
+ * Benchmarks the LAP, Kalman and overlap trackers on spots following Brownian
+ * motion.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TrackingBenchmark
+{
+
+	@Param( { "200", "2000" } )
+	public int nSpotsPerFrame;
+
+	@Param( { "50" } )
+	public int nFrames;
+
+	private static final double DIFFUSION = 1.;
+
+	private static final double MAX_DISTANCE = 5.;
+
+	private SpotCollection spots;
+
+	private Map< String, Object > lapSettings;
+
+	@Setup
+	public void setup()
+	{
+		// Keep the density constant.
+		final double fieldSize = 50. * Math.sqrt( nSpotsPerFrame );
+		spots = SyntheticData.brownianSpots( nSpotsPerFrame, nFrames, fieldSize, DIFFUSION, 1l );
+
+		lapSettings = new SparseLAPTrackerFactory().getDefaultSettings();
+		lapSettings.put( TrackerKeys.KEY_LINKING_MAX_DISTANCE, MAX_DISTANCE );
+		lapSettings.put( TrackerKeys.KEY_GAP_CLOSING_MAX_DISTANCE, MAX_DISTANCE );
+		lapSettings.put( TrackerKeys.KEY_ALLOW_TRACK_SPLITTING, true );
+		lapSettings.put( TrackerKeys.KEY_SPLITTING_MAX_DISTANCE, MAX_DISTANCE );
+	}
+
+	@Benchmark
+	public SimpleWeightedGraph< Spot, DefaultWeightedEdge > sparseLAPTracker()
+	{
+		return run( new SparseLAPTracker( spots, lapSettings ) );
+	}
+
+	@Benchmark
+	public SimpleWeightedGraph< Spot, DefaultWeightedEdge > kalmanTracker()
+	{
+		return run( new KalmanTracker( spots, MAX_DISTANCE, 2, MAX_DISTANCE, null ) );
+	}
+
+	@Benchmark
+	public SimpleWeightedGraph< Spot, DefaultWeightedEdge > overlapTracker()
+	{
+		return run( new OverlapTracker( spots, IoUCalculation.FAST, 0.3, 1. ) );
+	}
+
+	private static SimpleWeightedGraph< Spot, DefaultWeightedEdge > run( final SpotTracker tracker )
+	{
+		tracker.setLogger( Logger.VOID_LOGGER );
+		if ( !tracker.checkInput() || !tracker.process() )
+			throw new IllegalStateException( tracker.getErrorMessage() );
+		return tracker.getResult();
+	}
+}
@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+
+public class BlockDetectorTest
+{
+
+	@Test
+	public void testBlocksFitBudget()
+	{
+		final Interval interval = new FinalInterval( 2000, 1500 );
+		final long[] halo = new long[] { 10, 10 };
+		final long budget = 200 * 200 * BlockDetector.BYTES_PER_PIXEL * 4;
+		final List< Interval > blocks = BlockDetector.createBlocks( interval, halo, budget, 4 );
+		assertTrue( blocks.size() > 1 );
+		long total = 0;
+		for ( final Interval block : blocks )
+		{
+			total += Intervals.numElements( block );
+			assertTrue( Intervals.numElements( Intervals.expand( block, halo ) ) <= 200 * 200 );
+		}
+		assertEquals( Intervals.numElements( interval ), total );
+
+		assertEquals( 1, BlockDetector.createBlocks( interval, halo, Long.MAX_VALUE, 4 ).size() );
+	}
+
+	@Test
+	public void testMemoryNeeded()
+	{
+		final Interval interval = new FinalInterval( 2000, 1500 );
+		final long[] halo = new long[] { 10, 10 };
+		final long budget = 200 * 200 * BlockDetector.BYTES_PER_PIXEL * 4;
+		final List< Interval > blocks = BlockDetector.createBlocks( interval, halo, budget, 4 );
+		assertTrue( BlockDetector.memoryNeeded( blocks, halo, interval, 4 ) <= budget );
+
+		// A halo too large for the budget: blocks cannot fit.
+		final long[] largeHalo = new long[] { 150, 150 };
+		final List< Interval > largeBlocks = BlockDetector.createBlocks( interval, largeHalo, budget, 4 );
+		assertTrue( BlockDetector.memoryNeeded( largeBlocks, largeHalo, interval, 4 ) > budget );
+	}
+
+	@Test
+	public void testHaloForRadiusZ()
+	{
+		final Interval interval = new FinalInterval( 100, 100, 50 );
+		final double[] calibration = new double[] { 1., 1., 1. };
+		final Map< String, Object > settings = new HashMap<>();
+		settings.put( DetectorKeys.KEY_RADIUS, 2. );
+		assertArrayEquals( new long[] { 8, 8, 8 }, BlockDetector.haloFor( settings, interval, calibration ) );
+
+		settings.put( DetectorKeys.KEY_RADIUS_Z, 5. );
+		assertArrayEquals( new long[] { 8, 8, 17 }, BlockDetector.haloFor( settings, interval, calibration ) );
+
+		// The Z radius never makes the halo smaller.
+		settings.put( DetectorKeys.KEY_RADIUS_Z, 1. );
+		assertArrayEquals( new long[] { 8, 8, 8 }, BlockDetector.haloFor( settings, interval, calibration ) );
+	}
+
+	@Test
+	public void testNormalizingDetectorNotSupported()
+	{
+		final Map< String, Object > settings = new HashMap<>();
+		settings.put( DetectorKeys.KEY_RADIUS, 2. );
+		assertTrue( BlockDetector.supportsBlocks( settings ) );
+		settings.put( DetectorKeys.KEY_NORMALIZE, false );
+		assertTrue( BlockDetector.supportsBlocks( settings ) );
+		settings.put( DetectorKeys.KEY_NORMALIZE, true );
+		assertFalse( BlockDetector.supportsBlocks( settings ) );
+	}
+
+	@Test
+	public void testOwnership()
+	{
+		final Interval interval = new FinalInterval( new long[] { 0, 0, 0 }, new long[] { 99, 0, 49 } );
+		final Interval core = new FinalInterval( new long[] { 50, 0, 0 }, new long[] { 99, 0, 24 } );
+		final double[] calibration = new double[] { 0.5, 1., 2. };
+		// Singleton dimension is skipped: 2nd spot coordinate maps to dim 2.
+		assertTrue( BlockDetector.isOwnedBy( new Spot( 25.1, 20., 0., 1., 1. ), core, interval, calibration ) );
+		assertFalse( BlockDetector.isOwnedBy( new Spot( 24.7, 40., 0., 1., 1. ), core, interval, calibration ) );
+		assertFalse( BlockDetector.isOwnedBy( new Spot( 30., 50., 0., 1., 1. ), core, interval, calibration ) );
+		// Outside the interval: clamped to the closest block.
+		assertTrue( BlockDetector.isOwnedBy( new Spot( 60., -3., 0., 1., 1. ), core, interval, calibration ) );
+	}
+
+	@Test
+	public void testSameAsWholeFrame()
+	{
+		final Img< UnsignedShortType > img = blobs( new long[] { 300, 250 }, 60, 2., 1l );
+		final ImgPlus< UnsignedShortType > imgPlus = new ImgPlus<>( img, "blobs", new AxisType[] { Axes.X, Axes.Y } );
+
+		final LogDetectorFactory< UnsignedShortType > factory = new LogDetectorFactory<>();
+		final Map< String, Object > settings = new HashMap<>();
+		settings.put( DetectorKeys.KEY_TARGET_CHANNEL, 1 );
+		settings.put( DetectorKeys.KEY_DO_MEDIAN_FILTERING, false );
+		settings.put( DetectorKeys.KEY_RADIUS, 3. );
+		settings.put( DetectorKeys.KEY_THRESHOLD, 5. );
+		settings.put( DetectorKeys.KEY_DO_SUBPIXEL_LOCALIZATION, false );
+
+		final SpotDetector< UnsignedShortType > whole = factory.getDetector( imgPlus, settings, img, 0 );
+		assertTrue( whole.checkInput() && whole.process() );
+
+		final long[] halo = BlockDetector.haloFor( settings, img, new double[] { 1., 1., 1. } );
+		assertNotNull( halo );
+		final List< Interval > blocks = DetectionUtils.createTiles( img, 64 );
+		final BlockDetector< UnsignedShortType > blockDetector = new BlockDetector<>( factory, imgPlus, settings, img, 0, blocks, halo );
+		blockDetector.setNumThreads( 3 );
+		assertTrue( blockDetector.checkInput() && blockDetector.process() );
+
+		final List< Spot > expected = sorted( whole.getResult() );
+		final List< Spot > actual = sorted( blockDetector.getResult() );
+		assertTrue( expected.size() > 10 );
+		assertEquals( expected.size(), actual.size() );
+		for ( int i = 0; i < expected.size(); i++ )
+		{
+			assertEquals( expected.get( i ).getDoublePosition( 0 ), actual.get( i ).getDoublePosition( 0 ), 1e-9 );
+			assertEquals( expected.get( i ).getDoublePosition( 1 ), actual.get( i ).getDoublePosition( 1 ), 1e-9 );
+			final double q = expected.get( i ).getFeature( Spot.QUALITY );
+			assertEquals( q, actual.get( i ).getFeature( Spot.QUALITY ), 1e-3 * q );
+		}
+	}
+
+	private static List< Spot > sorted( final List< Spot > spots )
+	{
+		final List< Spot > list = new ArrayList<>( spots );
+		list.sort( Comparator.comparingDouble( ( Spot s ) -> s.getDoublePosition( 1 ) )
+				.thenComparingDouble( s -> s.getDoublePosition( 0 ) ) );
+		return list;
+	}
+
+	private static Img< UnsignedShortType > blobs( final long[] dims, final int nBlobs, final double sigma, final long seed )
+	{
+		final Random ran = new Random( seed );
+		final double[][] centers = new double[ nBlobs ][ dims.length ];
+		for ( final double[] center : centers )
+			for ( int d = 0; d < dims.length; d++ )
+				center[ d ] = ran.nextDouble() * dims[ d ];
+
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( dims );
+		final Cursor< UnsignedShortType > c = img.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			double val = 0.;
+			for ( final double[] center : centers )
+			{
+				double r2 = 0.;
+				for ( int d = 0; d < dims.length; d++ )
+				{
+					final double dx = c.getDoublePosition( d ) - center[ d ];
+					r2 += dx * dx;
+				}
+				val += 1000. * Math.exp( -r2 / ( 2 * sigma * sigma ) );
+			}
+			c.get().setReal( Math.min( 65535., val ) );
+		}
+		return img;
+	}
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.util.cli.CLIWorker;
+import fiji.plugin.trackmate.util.cli.StandInWorker;
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+
+public class CLIWorkerDetectorTest
+{
+
+	private static List< String > command()
+	{
+		final String java = Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString();
+		return Arrays.asList( java, "-cp", System.getProperty( "java.class.path" ), StandInWorker.class.getName() );
+	}
+
+	@After
+	public void tearDown()
+	{
+		CLIWorker.closeAll();
+	}
+
+	/**
+	 * Two frames: two squares in the first one, one in the second one. The
+	 * stand-in worker labels pixels with their value.
+	 */
+	private static ImgPlus< FloatType > createImage()
+	{
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 20, 16, 2 );
+		final RandomAccess< FloatType > ra = img.randomAccess();
+		for ( int x = 2; x < 6; x++ )
+			for ( int y = 2; y < 6; y++ )
+			{
+				ra.setPosition( new int[] { x, y, 0 } );
+				ra.get().set( 1f );
+				ra.setPosition( new int[] { x + 1, y + 1, 1 } );
+				ra.get().set( 1f );
+				ra.setPosition( new int[] { x + 8, y + 6, 0 } );
+				ra.get().set( 2f );
+			}
+		return new ImgPlus<>( img, "squares", new AxisType[] { Axes.X, Axes.Y, Axes.TIME } );
+	}
+
+	@Test
+	public void testDetection() throws IOException
+	{
+		final File logFile = File.createTempFile( "TrackMate-worker", ".log" );
+		logFile.deleteOnExit();
+
+		final ImgPlus< FloatType > img = createImage();
+		final CLIWorkerDetector< FloatType > detector = new CLIWorkerDetector<>(
+				command(), Collections.emptyMap(), img, new FinalInterval( img ), 0, false, logFile );
+		assertTrue( detector.getErrorMessage(), detector.checkInput() && detector.process() );
+
+		final SpotCollection spots = detector.getResult();
+		assertEquals( 2, spots.getNSpots( 0, false ) );
+		assertEquals( 1, spots.getNSpots( 1, false ) );
+		for ( final Spot spot : spots.iterable( 1, false ) )
+		{
+			assertEquals( 4.5, spot.getDoublePosition( 0 ), 1. );
+			assertEquals( 4.5, spot.getDoublePosition( 1 ), 1. );
+		}
+	}
+
+	@Test
+	public void testCroppedInterval() throws IOException
+	{
+		final File logFile = File.createTempFile( "TrackMate-worker", ".log" );
+		logFile.deleteOnExit();
+
+		// Only the second square of the first frame.
+		final ImgPlus< FloatType > img = createImage();
+		final FinalInterval interval = new FinalInterval( new long[] { 8, 0, 0 }, new long[] { 19, 15, 0 } );
+		final CLIWorkerDetector< FloatType > detector = new CLIWorkerDetector<>(
+				command(), Collections.emptyMap(), img, interval, 0, false, logFile );
+		assertTrue( detector.getErrorMessage(), detector.checkInput() && detector.process() );
+
+		final SpotCollection spots = detector.getResult();
+		assertEquals( 1, spots.getNSpots( 0, false ) );
+		assertEquals( 0, spots.getNSpots( 1, false ) );
+		final Spot spot = spots.iterable( 0, false ).iterator().next();
+		// In the coordinates of the whole image.
+		assertEquals( 11.5, spot.getDoublePosition( 0 ), 1. );
+		assertEquals( 9.5, spot.getDoublePosition( 1 ), 1. );
+	}
+
+	@Test
+	public void testUsePersistentWorker()
+	{
+		final Map< String, Object > settings = new HashMap<>();
+		assertFalse( CLIWorkerDetector.usePersistentWorker( settings ) );
+		settings.put( DetectorKeys.KEY_USE_PERSISTENT_WORKER, DetectorKeys.DEFAULT_USE_PERSISTENT_WORKER );
+		assertFalse( CLIWorkerDetector.usePersistentWorker( settings ) );
+		settings.put( DetectorKeys.KEY_USE_PERSISTENT_WORKER, true );
+		assertTrue( CLIWorkerDetector.usePersistentWorker( settings ) );
+	}
+}
@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+public class DetectionUtilsTest
+{
+
+	private static final double[] CALIBRATION = new double[] { 0.2, 0.2, 1. };
+
+	private static ArrayImg< FloatType, FloatArray > noise( final long seed, final long... dims )
+	{
+		final Random ran = new Random( seed );
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( dims );
+		img.forEach( p -> p.set( ran.nextFloat() ) );
+		return img;
+	}
+
+	@Test
+	public void testPushDownMatchesPostFiltering()
+	{
+		for ( final boolean doSubPixel : new boolean[] { false, true } )
+		{
+			final ArrayImg< FloatType, FloatArray > img = noise( 1l, 128, 96, 12 );
+
+			// Detect with a low threshold, then filter and cap.
+			final List< Spot > all = DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( img ), img, 0.1, CALIBRATION, 1., doSubPixel, -1, 2 );
+			final List< Spot > expected = new ArrayList<>();
+			for ( final Spot spot : all )
+				if ( spot.getFeature( Spot.QUALITY ) >= 0.7 )
+					expected.add( spot );
+			expected.sort( Comparator.comparingDouble( ( Spot s ) -> s.getFeature( Spot.QUALITY ) ).reversed() );
+			final List< Spot > top = expected.subList( 0, 200 );
+
+			// Push down the filter and the cap.
+			final List< Spot > actual = DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( img ), img, DetectionUtils.thresholdForMinQuality( 0.7 ), CALIBRATION, 1., doSubPixel, 200, 2 );
+			assertEquals( 200, actual.size() );
+			actual.sort( Comparator.comparingDouble( ( Spot s ) -> s.getFeature( Spot.QUALITY ) ).reversed() );
+			for ( int i = 0; i < top.size(); i++ )
+			{
+				final Spot e = top.get( i );
+				final Spot a = actual.get( i );
+				assertEquals( e.getFeature( Spot.QUALITY ), a.getFeature( Spot.QUALITY ), 0. );
+				for ( int d = 0; d < 3; d++ )
+					assertEquals( e.getDoublePosition( d ), a.getDoublePosition( d ), 1e-9 );
+			}
+		}
+	}
+
+	@Test
+	public void testKeepBrightest()
+	{
+		final List< Spot > spots = new ArrayList<>();
+		for ( final double q : new double[] { 3., 1., 5., 3., 3., 0., 4. } )
+			spots.add( new Spot( 0., 0., 0., 1., q ) );
+
+		assertSame( spots, DetectionUtils.keepBrightest( spots, -1 ) );
+		assertSame( spots, DetectionUtils.keepBrightest( spots, spots.size() ) );
+
+		// Ties are resolved by order, and the order is preserved.
+		final List< Spot > kept = DetectionUtils.keepBrightest( spots, 4 );
+		assertEquals( Arrays.asList( spots.get( 0 ), spots.get( 2 ), spots.get( 3 ), spots.get( 6 ) ), kept );
+	}
+	/**
+	 * A maximum with a quality exactly equal to the initial filter value is
+	 * kept by the filter, so it must be kept by the push-down too.
+	 */
+	@Test
+	public void testPushDownKeepsMaximaAtThreshold()
+	{
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 9, 9, 9 );
+		final RandomAccess< FloatType > ra = img.randomAccess();
+		ra.setPosition( new int[] { 2, 2, 2 } );
+		ra.get().set( 0.1f );
+		ra.setPosition( new int[] { 6, 6, 6 } );
+		ra.get().set( 0.3f );
+
+		// The quality of the first spot is the float value 0.1f, as a double.
+		final double atPeak = 0.1f;
+		for ( final double minQuality : new double[] { 0.1, atPeak } )
+		{
+			final List< Spot > spots = DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( img ), img,
+					DetectionUtils.thresholdForMinQuality( minQuality ), CALIBRATION, 1., false, -1, 1 );
+			assertEquals( "Filter value " + minQuality, 2, spots.size() );
+			for ( final Spot spot : spots )
+				assertTrue( spot.getFeature( Spot.QUALITY ) >= minQuality );
+		}
+
+		// Just above the quality of the first spot.
+		final List< Spot > spots = DetectionUtils.findLocalMaxima( Views.extendMirrorSingle( img ), img,
+				DetectionUtils.thresholdForMinQuality( Math.nextUp( atPeak ) ), CALIBRATION, 1., false, -1, 1 );
+		assertEquals( 1, spots.size() );
+		assertEquals( 0.3f, spots.get( 0 ).getFeature( Spot.QUALITY ), 0. );
+
+		// No filter.
+		assertEquals( Double.NEGATIVE_INFINITY, DetectionUtils.thresholdForMinQuality( Double.NEGATIVE_INFINITY ), 0. );
+	}
+}
@@ -0,0 +1,142 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+
+public class DogDetectorTest
+{
+
+	@Test
+	public void testTilesCoverInterval()
+	{
+		final Interval interval = new FinalInterval( new long[] { 3, -2, 5 }, new long[] { 102, 70, 40 } );
+		final List< Interval > tiles = DogDetector.createTiles( interval, 20 * 20 * 20 );
+		long total = 0;
+		for ( final Interval tile : tiles )
+		{
+			assertTrue( Intervals.contains( interval, tile ) );
+			total += Intervals.numElements( tile );
+			for ( final Interval other : tiles )
+				if ( other != tile )
+					assertTrue( Intervals.isEmpty( Intervals.intersect( tile, other ) ) );
+		}
+		assertEquals( Intervals.numElements( interval ), total );
+	}
+
+	@Test
+	public void testTiledSameAsSingleTile2D()
+	{
+		check( new long[] { 211, 157 } );
+	}
+
+	@Test
+	public void testTiledSameAsSingleTile3D()
+	{
+		check( new long[] { 67, 59, 31 } );
+	}
+
+	private static void check( final long[] dims )
+	{
+		final Img< UnsignedShortType > img = blobs( dims, 40, 2.5, 1l );
+		final double[] calibration = new double[] { 1., 1., 1. };
+		final double radius = 3.;
+
+		for ( final boolean subpixel : new boolean[] { false, true } )
+		{
+			final DogDetector< UnsignedShortType > single = new DogDetector<>( img, img, calibration, radius, 1., subpixel, false );
+			single.setTileSize( Intervals.numElements( img ) * 2 );
+			assertTrue( single.checkInput() && single.process() );
+
+			final DogDetector< UnsignedShortType > tiled = new DogDetector<>( img, img, calibration, radius, 1., subpixel, false );
+			tiled.setTileSize( 1 ); // Smallest tiles.
+			tiled.setNumThreads( 3 );
+			assertTrue( tiled.checkInput() && tiled.process() );
+
+			final List< Spot > expected = sorted( single.getResult() );
+			final List< Spot > actual = sorted( tiled.getResult() );
+			assertTrue( expected.size() > 10 );
+			assertEquals( expected.size(), actual.size() );
+			for ( int i = 0; i < expected.size(); i++ )
+			{
+				for ( int d = 0; d < 3; d++ )
+					assertEquals( expected.get( i ).getDoublePosition( d ), actual.get( i ).getDoublePosition( d ), 1e-9 );
+				assertEquals( expected.get( i ).getFeature( Spot.QUALITY ), actual.get( i ).getFeature( Spot.QUALITY ), 1e-9 );
+			}
+		}
+	}
+
+	private static List< Spot > sorted( final List< Spot > spots )
+	{
+		final List< Spot > list = new ArrayList<>( spots );
+		list.sort( Comparator.comparingDouble( ( Spot s ) -> s.getDoublePosition( 2 ) )
+				.thenComparingDouble( s -> s.getDoublePosition( 1 ) )
+				.thenComparingDouble( s -> s.getDoublePosition( 0 ) ) );
+		return list;
+	}
+
+	private static Img< UnsignedShortType > blobs( final long[] dims, final int nBlobs, final double sigma, final long seed )
+	{
+		final Random ran = new Random( seed );
+		final double[][] centers = new double[ nBlobs ][ dims.length ];
+		for ( final double[] center : centers )
+			for ( int d = 0; d < dims.length; d++ )
+				center[ d ] = ran.nextDouble() * dims[ d ];
+
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( dims );
+		final Cursor< UnsignedShortType > c = img.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			double val = 10. * ran.nextDouble();
+			for ( final double[] center : centers )
+			{
+				double r2 = 0.;
+				for ( int d = 0; d < dims.length; d++ )
+				{
+					final double dx = c.getDoublePosition( d ) - center[ d ];
+					r2 += dx * dx;
+				}
+				val += 1000. * Math.exp( -r2 / ( 2 * sigma * sigma ) );
+			}
+			c.get().setReal( Math.min( 65535., val ) );
+		}
+		return img;
+	}
+}
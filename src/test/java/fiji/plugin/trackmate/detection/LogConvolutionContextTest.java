@@ -0,0 +1,134 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.util.Threads;
+import net.imglib2.FinalDimensions;
+import net.imglib2.Interval;
+import net.imglib2.algorithm.fft2.FFTConvolution;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+public class LogConvolutionContextTest
+{
+
+	@Test
+	public void testSameAsFFTConvolution2D()
+	{
+		check( new long[] { 67, 50 }, 4., new double[] { 1., 1., 1. } );
+	}
+
+	@Test
+	public void testSameAsFFTConvolution3D()
+	{
+		check( new long[] { 32, 41, 17 }, 3., new double[] { 0.5, 0.5, 1.5 } );
+	}
+
+	@Test
+	public void testMatches()
+	{
+		final double[] calibration = new double[] { 1., 1., 1. };
+		final LogConvolutionContext context = new LogConvolutionContext( FinalDimensions.wrap( new long[] { 10, 20 } ), 2., calibration );
+		assertTrue( context.matches( FinalDimensions.wrap( new long[] { 10, 20 } ), 2., new double[] { 1., 1., 1. } ) );
+		assertFalse( context.matches( FinalDimensions.wrap( new long[] { 10, 21 } ), 2., calibration ) );
+		assertFalse( context.matches( FinalDimensions.wrap( new long[] { 10, 20 } ), 2.5, calibration ) );
+		assertFalse( context.matches( FinalDimensions.wrap( new long[] { 10, 20 } ), 2., new double[] { 1., 2., 1. } ) );
+	}
+
+	@Test
+	public void testFactoryCachePerDimensions()
+	{
+		final double[] calibration = new double[] { 1., 1., 1. };
+		final LogDetectorFactory< FloatType > factory = new LogDetectorFactory<>();
+		final Interval core = Intervals.createMinSize( 0, 0, 64, 64 );
+		final Interval edge = Intervals.createMinSize( 64, 0, 20, 64 );
+
+		// Blocks of different sizes alternate without evicting each other.
+		final LogConvolutionContext coreContext = factory.getConvolutionContext( core, 2., calibration );
+		final LogConvolutionContext edgeContext = factory.getConvolutionContext( edge, 2., calibration );
+		assertNotSame( coreContext, edgeContext );
+		assertSame( coreContext, factory.getConvolutionContext( core, 2., calibration ) );
+		assertSame( edgeContext, factory.getConvolutionContext( edge, 2., calibration ) );
+
+		// A new radius replaces the context.
+		final LogConvolutionContext other = factory.getConvolutionContext( core, 3., calibration );
+		assertNotSame( coreContext, other );
+
+		// Released at the end of detection.
+		factory.releaseConvolutionContexts();
+		assertNotSame( other, factory.getConvolutionContext( core, 3., calibration ) );
+	}
+
+	private static void check( final long[] dims, final double radius, final double[] calibration )
+	{
+		final LogConvolutionContext context = new LogConvolutionContext( FinalDimensions.wrap( dims ), radius, calibration );
+		final ExecutorService service = Threads.newFixedThreadPool( 2 );
+		final Random ran = new Random( 1l );
+		try
+		{
+			// Several frames through the same context, to exercise buffer reuse.
+			for ( int frame = 0; frame < 3; frame++ )
+			{
+				final Img< FloatType > img = ArrayImgs.floats( dims );
+				img.forEach( p -> p.set( 100f * ran.nextFloat() ) );
+				final Img< FloatType > expected = img.copy();
+
+				final Img< FloatType > kernel = DetectionUtils.createLoGKernel( radius, dims.length, calibration );
+				final FFTConvolution< FloatType > fftconv = new FFTConvolution<>( expected, kernel );
+				fftconv.setExecutorService( service );
+				fftconv.convolve();
+
+				context.convolve( img, service );
+
+				final float[] a = new float[ ( int ) expected.size() ];
+				final float[] b = new float[ a.length ];
+				int i = 0;
+				for ( final FloatType p : Views.flatIterable( expected ) )
+					a[ i++ ] = p.get();
+				i = 0;
+				for ( final FloatType p : Views.flatIterable( img ) )
+					b[ i++ ] = p.get();
+				assertEquals( a.length, b.length );
+				assertArrayEquals( a, b, 1e-3f );
+			}
+		}
+		finally
+		{
+			service.shutdown();
+		}
+	}
+}
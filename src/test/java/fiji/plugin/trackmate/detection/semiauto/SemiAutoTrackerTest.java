@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.detection.semiauto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.SelectionModel;
+import fiji.plugin.trackmate.Spot;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.FloatProcessor;
+import net.imglib2.type.numeric.real.FloatType;
+
+public class SemiAutoTrackerTest
+{
+
+	private static final int N_FRAMES = 8;
+
+	private static final int N_BLOBS = 4;
+
+	private static double x( final int blob, final int frame )
+	{
+		return 15. + 2. * frame;
+	}
+
+	private static double y( final int blob, final int frame )
+	{
+		return 12. + 20. * blob + 1.5 * frame;
+	}
+
+	private static ImagePlus createImage()
+	{
+		final ImageStack stack = new ImageStack( 64, 96 );
+		for ( int t = 0; t < N_FRAMES; t++ )
+		{
+			final FloatProcessor fp = new FloatProcessor( 64, 96 );
+			for ( int b = 0; b < N_BLOBS; b++ )
+				for ( int yi = 0; yi < 96; yi++ )
+					for ( int xi = 0; xi < 64; xi++ )
+					{
+						final double dx = xi - x( b, t );
+						final double dy = yi - y( b, t );
+						fp.setf( xi, yi, fp.getf( xi, yi ) + ( float ) ( 1000. * Math.exp( -( dx * dx + dy * dy ) / 8. ) ) );
+					}
+			stack.addSlice( fp );
+		}
+		final ImagePlus imp = new ImagePlus( "blobs", stack );
+		imp.setDimensions( 1, 1, N_FRAMES );
+		return imp;
+	}
+
+	@Test
+	public void testLockstepTracking()
+	{
+		final ImagePlus imp = createImage();
+		final Model model = new Model();
+		final SelectionModel selectionModel = new SelectionModel( model );
+
+		// Seeds in frame 0, except the last one that starts later.
+		final List< Spot > seeds = new ArrayList<>();
+		model.beginUpdate();
+		try
+		{
+			for ( int b = 0; b < N_BLOBS; b++ )
+			{
+				final int frame = ( b == N_BLOBS - 1 ) ? 3 : 0;
+				final Spot seed = new Spot( x( b, frame ), y( b, frame ), 0., 3., 1. );
+				seeds.add( model.addSpotTo( seed, frame ) );
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		selectionModel.addSpotToSelection( seeds );
+
+		final SemiAutoTracker< FloatType > tracker = new SemiAutoTracker<>( model, selectionModel, imp, Logger.VOID_LOGGER );
+		tracker.setParameters( 0.2, 1.1, 0 );
+		tracker.setNumThreads( 3 );
+		assertTrue( tracker.checkInput() );
+		assertTrue( tracker.getErrorMessage(), tracker.process() );
+
+		assertEquals( N_BLOBS, model.getTrackModel().nTracks( false ) );
+		for ( int b = 0; b < N_BLOBS; b++ )
+		{
+			final Spot seed = seeds.get( b );
+			final int firstFrame = seed.getFeature( Spot.FRAME ).intValue();
+			final Set< Spot > track = model.getTrackModel().trackSpots( model.getTrackModel().trackIDOf( seed ) );
+			assertEquals( N_FRAMES - firstFrame, track.size() );
+			for ( final Spot spot : track )
+			{
+				final int frame = spot.getFeature( Spot.FRAME ).intValue();
+				assertEquals( x( b, frame ), spot.getDoublePosition( 0 ), 0.5 );
+				assertEquals( y( b, frame ), spot.getDoublePosition( 1 ), 0.5 );
+			}
+		}
+	}
+
+	@Test
+	public void testFrameLimit()
+	{
+		final ImagePlus imp = createImage();
+		final Model model = new Model();
+		final SelectionModel selectionModel = new SelectionModel( model );
+		final List< Spot > seeds = new ArrayList<>();
+		model.beginUpdate();
+		try
+		{
+			for ( int b = 0; b < N_BLOBS; b++ )
+				seeds.add( model.addSpotTo( new Spot( x( b, 0 ), y( b, 0 ), 0., 3., 1. ), 0 ) );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		selectionModel.addSpotToSelection( seeds );
+
+		final SemiAutoTracker< FloatType > tracker = new SemiAutoTracker<>( model, selectionModel, imp, Logger.VOID_LOGGER );
+		tracker.setParameters( 0.2, 1.1, 3 );
+		tracker.setNumThreads( 2 );
+		assertTrue( tracker.process() );
+		for ( final Spot seed : seeds )
+			assertEquals( 4, model.getTrackModel().trackSpots( model.getTrackModel().trackIDOf( seed ) ).size() );
+	}
+}
@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
+
+public class GraphUtilsTest
+{
+
+	@Test
+	public void testCumulativeBranchWidthOfTrack()
+	{
+		final Model model = new Model();
+		model.beginUpdate();
+		try
+		{
+			// A track dividing twice: 3 leaves.
+			final Spot root = newSpot( model, 0 );
+			final Spot a = newSpot( model, 1 );
+			final Spot b = newSpot( model, 1 );
+			final Spot a1 = newSpot( model, 2 );
+			final Spot a2 = newSpot( model, 2 );
+			final Spot b1 = newSpot( model, 2 );
+			model.addEdge( root, a, 1. );
+			model.addEdge( root, b, 1. );
+			model.addEdge( a, a1, 1. );
+			model.addEdge( a, a2, 1. );
+			model.addEdge( b, b1, 1. );
+
+			// A linear track.
+			Spot previous = newSpot( model, 0 );
+			for ( int t = 1; t < 5; t++ )
+			{
+				final Spot spot = newSpot( model, t );
+				model.addEdge( previous, spot, 1. );
+				previous = spot;
+			}
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		final TrackModel trackModel = model.getTrackModel();
+		final TimeDirectedNeighborIndex cache = trackModel.getDirectedNeighborIndex();
+		final Map< Spot, Integer > expected = GraphUtils.cumulativeBranchWidth( trackModel );
+		int nSpots = 0;
+		for ( final Integer trackID : trackModel.trackIDs( false ) )
+		{
+			final Map< Spot, Integer > widths = GraphUtils.cumulativeBranchWidth( trackModel, trackID, cache );
+			assertEquals( trackModel.trackSpots( trackID ).size(), widths.size() );
+			for ( final Spot spot : widths.keySet() )
+				assertEquals( "Unexpected width for " + spot, expected.get( spot ), widths.get( spot ) );
+
+			nSpots += widths.size();
+		}
+		assertEquals( 11, nSpots );
+	}
+
+	private static Spot newSpot( final Model model, final int frame )
+	{
+		return model.addSpotTo( new Spot( 0d, 0d, 0d, 1d, -1d ), frame );
+	}
+}
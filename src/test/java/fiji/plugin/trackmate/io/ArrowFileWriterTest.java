@@ -0,0 +1,279 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.io.ArrowFileWriter.Column;
+import fiji.plugin.trackmate.io.ArrowFileWriter.Type;
+
+public class ArrowFileWriterTest
+{
+
+	@Test
+	public void testFileLayout() throws IOException
+	{
+		final File file = File.createTempFile( "TrackMate-", ArrowExporter.EXTENSION );
+		file.deleteOnExit();
+
+		final List< Column > columns = Arrays.asList(
+				Column.of( "ID", Type.INT32, null ),
+				Column.of( "LABEL", Type.UTF8, Collections.singletonMap( "name", "Label" ) ),
+				Column.dictionary( "TRACK_NAME", new String[] { "Track_0", "Track_1" }, null ),
+				Column.of( "VISIBLE", Type.BOOL, null ),
+				Column.of( "X", Type.FLOAT64, null ) );
+
+		try (final ArrowFileWriter writer = new ArrowFileWriter( file.toPath(), columns ))
+		{
+			writer.writeBatch( 3,
+					new Object[] {
+							new int[] { 1, 2, 3 },
+							new String[] { "a", null, "ccc" },
+							new int[] { 0, 1, 0 },
+							new boolean[] { true, false, true },
+							new double[] { 1.5, 2.5, 3.5 } },
+					new boolean[][] { null, null, { true, true, false }, null, { true, false, true } } );
+		}
+
+		final byte[] bytes = Files.readAllBytes( file.toPath() );
+		final byte[] magic = "ARROW1".getBytes( StandardCharsets.UTF_8 );
+		assertArrayEquals( "File should start with the Arrow magic.", magic, Arrays.copyOfRange( bytes, 0, 6 ) );
+		assertArrayEquals( "File should end with the Arrow magic.", magic, Arrays.copyOfRange( bytes, bytes.length - 6, bytes.length ) );
+
+		final ByteBuffer bb = ByteBuffer.wrap( bytes ).order( ByteOrder.LITTLE_ENDIAN );
+		// Schema message right after the magic.
+		assertEquals( "Schema message should start with a continuation marker.", 0xFFFFFFFF, bb.getInt( 8 ) );
+		assertEquals( "Message metadata should be padded to 8 bytes.", 0, bb.getInt( 12 ) % 8 );
+
+		// Footer.
+		final int footerLength = bb.getInt( bytes.length - 10 );
+		final int footerStart = bytes.length - 10 - footerLength;
+		assertTrue( "Footer should be in the file.", footerStart > 8 );
+		assertEquals( "Footer should be aligned to 8 bytes.", 0, footerStart % 8 );
+		// End-of-stream marker just before the footer.
+		assertEquals( 0xFFFFFFFF, bb.getInt( footerStart - 8 ) );
+		assertEquals( 0, bb.getInt( footerStart - 4 ) );
+	}
+	/**
+	 * Reads the file back with the Arrow library and checks the schema, the
+	 * dictionary and the values of each batch.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		final File file = File.createTempFile( "TrackMate-", ArrowExporter.EXTENSION );
+		file.deleteOnExit();
+
+		final List< Column > columns = Arrays.asList(
+				Column.of( "ID", Type.INT32, null ),
+				Column.of( "LABEL", Type.UTF8, Collections.singletonMap( "name", "Label" ) ),
+				Column.dictionary( "TRACK_NAME", new String[] { "Track_0", "Track_1" }, null ),
+				Column.of( "VISIBLE", Type.BOOL, null ),
+				Column.of( "X", Type.FLOAT64, null ) );
+
+		try (final ArrowFileWriter writer = new ArrowFileWriter( file.toPath(), columns ))
+		{
+			writer.writeBatch( 3,
+					new Object[] {
+							new int[] { 1, 2, 3 },
+							new String[] { "a", null, "ccc" },
+							new int[] { 0, 1, 0 },
+							new boolean[] { true, false, true },
+							new double[] { 1.5, 2.5, 3.5 } },
+					new boolean[][] { null, null, { true, true, false }, null, { true, false, true } } );
+			// Only the first elements of the arrays are written.
+			writer.writeBatch( 1,
+					new Object[] {
+							new int[] { 4, 99 },
+							new String[] { "éè", "unused" },
+							new int[] { 1, 0 },
+							new boolean[] { false, true },
+							new double[] { -0.25, 99. } },
+					null );
+		}
+
+		try (final BufferAllocator allocator = new RootAllocator();
+				final SeekableByteChannel ch = Files.newByteChannel( file.toPath() );
+				final ArrowFileReader reader = new ArrowFileReader( ch, allocator ))
+		{
+			final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+			final Schema schema = root.getSchema();
+			final List< Field > fields = schema.getFields();
+			assertEquals( 5, fields.size() );
+			assertEquals( "ID", fields.get( 0 ).getName() );
+			assertEquals( new ArrowType.Int( 32, true ), fields.get( 0 ).getType() );
+			assertEquals( "LABEL", fields.get( 1 ).getName() );
+			assertEquals( ArrowType.Utf8.INSTANCE, fields.get( 1 ).getType() );
+			assertEquals( "Label", fields.get( 1 ).getMetadata().get( "name" ) );
+			assertEquals( "TRACK_NAME", fields.get( 2 ).getName() );
+			assertEquals( ArrowType.Bool.INSTANCE, fields.get( 3 ).getType() );
+			assertEquals( new ArrowType.FloatingPoint( FloatingPointPrecision.DOUBLE ), fields.get( 4 ).getType() );
+
+			// Dictionary.
+			final DictionaryEncoding encoding = fields.get( 2 ).getDictionary();
+			assertNotNull( "TRACK_NAME should be dictionary-encoded.", encoding );
+			final Map< Long, Dictionary > dictionaries = reader.getDictionaryVectors();
+			final VarCharVector dictionary = ( VarCharVector ) dictionaries.get( encoding.getId() ).getVector();
+			assertEquals( 2, dictionary.getValueCount() );
+			assertEquals( "Track_0", dictionary.getObject( 0 ).toString() );
+			assertEquals( "Track_1", dictionary.getObject( 1 ).toString() );
+
+			assertEquals( 2, reader.getRecordBlocks().size() );
+
+			// First batch.
+			assertTrue( reader.loadNextBatch() );
+			assertEquals( 3, root.getRowCount() );
+			final IntVector ids = ( IntVector ) root.getVector( 0 );
+			final VarCharVector labels = ( VarCharVector ) root.getVector( 1 );
+			final IntVector names = ( IntVector ) root.getVector( 2 );
+			final BitVector visible = ( BitVector ) root.getVector( 3 );
+			final Float8Vector xs = ( Float8Vector ) root.getVector( 4 );
+			assertEquals( 1, ids.get( 0 ) );
+			assertEquals( 3, ids.get( 2 ) );
+			assertEquals( "a", labels.getObject( 0 ).toString() );
+			assertTrue( labels.isNull( 1 ) );
+			assertEquals( "ccc", labels.getObject( 2 ).toString() );
+			assertEquals( 0, names.get( 0 ) );
+			assertEquals( 1, names.get( 1 ) );
+			assertTrue( names.isNull( 2 ) );
+			assertEquals( 1, visible.get( 0 ) );
+			assertEquals( 0, visible.get( 1 ) );
+			assertEquals( 1.5, xs.get( 0 ), 0. );
+			assertTrue( xs.isNull( 1 ) );
+			assertEquals( 3.5, xs.get( 2 ), 0. );
+
+			// Second batch.
+			assertTrue( reader.loadNextBatch() );
+			assertEquals( 1, root.getRowCount() );
+			assertEquals( 4, ( ( IntVector ) root.getVector( 0 ) ).get( 0 ) );
+			assertEquals( "éè", root.getVector( 1 ).getObject( 0 ).toString() );
+			assertEquals( 1, ( ( IntVector ) root.getVector( 2 ) ).get( 0 ) );
+			assertEquals( 0, ( ( BitVector ) root.getVector( 3 ) ).get( 0 ) );
+			assertEquals( -0.25, ( ( Float8Vector ) root.getVector( 4 ) ).get( 0 ), 0. );
+
+			assertFalse( reader.loadNextBatch() );
+		}
+	}
+
+	/**
+	 * Exports the spots of a small model and reads them back with the Arrow
+	 * library.
+	 */
+	@Test
+	public void testExportSpotsRoundTrip() throws IOException
+	{
+		final Model model = new Model();
+		final Map< Integer, Spot > expected = new HashMap<>();
+		model.beginUpdate();
+		try
+		{
+			Spot previous = null;
+			for ( int t = 0; t < 3; t++ )
+			{
+				final Spot spot = new Spot( 10. + t, 20. - t, 0., 2., 1., "S" + t );
+				model.addSpotTo( spot, t );
+				expected.put( spot.ID(), spot );
+				if ( previous != null )
+					model.addEdge( previous, spot, 1. );
+				previous = spot;
+			}
+			// A lonely spot, in no track.
+			final Spot lonely = new Spot( 5., 5., 0., 2., 1., "lonely" );
+			model.addSpotTo( lonely, 1 );
+			expected.put( lonely.ID(), lonely );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		final File file = File.createTempFile( "TrackMate-spots-", ArrowExporter.EXTENSION );
+		file.deleteOnExit();
+		ArrowExporter.exportSpots( file, model, false );
+
+		try (final BufferAllocator allocator = new RootAllocator();
+				final SeekableByteChannel ch = Files.newByteChannel( file.toPath() );
+				final ArrowFileReader reader = new ArrowFileReader( ch, allocator ))
+		{
+			final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+			int nRows = 0;
+			while ( reader.loadNextBatch() )
+			{
+				final IntVector ids = ( IntVector ) root.getVector( "ID" );
+				final VarCharVector labels = ( VarCharVector ) root.getVector( "LABEL" );
+				final IntVector trackIDs = ( IntVector ) root.getVector( "TRACK_ID" );
+				final Float8Vector xs = ( Float8Vector ) root.getVector( Spot.POSITION_X );
+				final Float8Vector ys = ( Float8Vector ) root.getVector( Spot.POSITION_Y );
+				for ( int i = 0; i < root.getRowCount(); i++ )
+				{
+					final Spot spot = expected.get( ids.get( i ) );
+					assertNotNull( "Unexpected spot ID " + ids.get( i ), spot );
+					assertEquals( spot.getName(), labels.getObject( i ).toString() );
+					assertEquals( spot.getDoublePosition( 0 ), xs.get( i ), 0. );
+					assertEquals( spot.getDoublePosition( 1 ), ys.get( i ), 0. );
+					final Integer trackID = model.getTrackModel().trackIDOf( spot );
+					if ( trackID == null )
+						assertTrue( trackIDs.isNull( i ) );
+					else
+						assertEquals( trackID.intValue(), trackIDs.get( i ) );
+					nRows++;
+				}
+			}
+			assertEquals( expected.size(), nRows );
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Dimension;
+import fiji.plugin.trackmate.FeatureModel;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+import fiji.plugin.trackmate.visualization.table.TrackTableView;
+
+public class StreamingTableExporterTest
+{
+
+	private static String format( final double v )
+	{
+		final StringBuilder sb = new StringBuilder();
+		StreamingTableExporter.appendDouble( sb, v );
+		return sb.toString();
+	}
+
+	@Test
+	public void testSimpleValues()
+	{
+		assertEquals( "3.0", format( 3. ) );
+		assertEquals( "-0.25", format( -0.25 ) );
+		assertEquals( "12.5", format( 12.5 ) );
+		assertEquals( "0.005", format( 0.005 ) );
+		assertEquals( "1024.001", format( 1024.001 ) );
+		assertEquals( "0.0", format( 0. ) );
+		assertEquals( "NaN", format( Double.NaN ) );
+		assertEquals( Double.toString( 1e-5 ), format( 1e-5 ) );
+		assertEquals( Double.toString( 3e20 ), format( 3e20 ) );
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		final Random ran = new Random( 1l );
+		for ( int i = 0; i < 100000; i++ )
+		{
+			final double scale = Math.pow( 10., ran.nextInt( 24 ) - 6 );
+			final double v = ( ran.nextDouble() - 0.5 ) * scale;
+			assertEquals( "Round trip failed for " + v, v, Double.parseDouble( format( v ) ), 0. );
+
+			// Values with few decimals, as commonly found in features.
+			final double r = Math.round( v * 1000. ) / 1000.;
+			assertEquals( "Round trip failed for " + r, r, Double.parseDouble( format( r ) ), 0. );
+		}
+	}
+
+	@Test
+	public void testTextQuoting()
+	{
+		final StringBuilder sb = new StringBuilder();
+		StreamingTableExporter.appendText( sb, "Track_1", ',' );
+		assertEquals( "Track_1", sb.toString() );
+
+		sb.setLength( 0 );
+		StreamingTableExporter.appendText( sb, "a,b \"c\"", ',' );
+		assertEquals( "\"a,b \"\"c\"\"\"", sb.toString() );
+
+		sb.setLength( 0 );
+		StreamingTableExporter.appendText( sb, "a,b", '\t' );
+		assertEquals( "a,b", sb.toString() );
+	}
+	/**
+	 * Two tracks, one of them with a split, and a spot in no track. Each edge
+	 * and track has a feature value.
+	 */
+	private static Model createModel()
+	{
+		final Model model = new Model();
+		final FeatureModel fm = model.getFeatureModel();
+		fm.declareEdgeFeatures(
+				Collections.singletonList( "SPEED" ),
+				Collections.singletonMap( "SPEED", "Speed" ),
+				Collections.singletonMap( "SPEED", "Speed" ),
+				Collections.singletonMap( "SPEED", Dimension.VELOCITY ),
+				Collections.singletonMap( "SPEED", Boolean.FALSE ) );
+		fm.declareTrackFeatures(
+				Arrays.asList( "LENGTH", "N_SPLITS" ),
+				map( "LENGTH", "Track length", "N_SPLITS", "Number of splits" ),
+				map( "LENGTH", "Length", "N_SPLITS", "N splits" ),
+				map( "LENGTH", Dimension.LENGTH, "N_SPLITS", Dimension.NONE ),
+				map( "LENGTH", Boolean.FALSE, "N_SPLITS", Boolean.TRUE ) );
+
+		model.beginUpdate();
+		try
+		{
+			final Spot a0 = add( model, 1.5, 2., 0, "A0" );
+			final Spot a1 = add( model, 2.25, 2.5, 1, "A1" );
+			final Spot a2 = add( model, 3., 1e-5, 2, "A2" );
+			final Spot a2b = add( model, 2.5, 3.125, 2, "A2b" );
+			link( model, a0, a1, 0.5 );
+			link( model, a1, a2, 1. / 3. );
+			link( model, a1, a2b, 12.75 );
+			final Spot b0 = add( model, 10., 10., 0, "B0" );
+			final Spot b1 = add( model, 11., 10.5, 1, "B1" );
+			link( model, b0, b1, 1024.001 );
+			add( model, 20., 20., 1, "Lonely" );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		double length = 10.;
+		int nSplits = 1;
+		for ( final Integer trackID : model.getTrackModel().trackIDs( false ) )
+		{
+			fm.putTrackFeature( trackID, "LENGTH", Double.valueOf( length ) );
+			fm.putTrackFeature( trackID, "N_SPLITS", Double.valueOf( nSplits ) );
+			length = length / 3.;
+			nSplits--;
+		}
+		return model;
+	}
+
+	private static Spot add( final Model model, final double x, final double y, final int frame, final String name )
+	{
+		final Spot spot = new Spot( x, y, 0., 0.5, 1. + frame / 7., name );
+		model.addSpotTo( spot, frame );
+		return spot;
+	}
+
+	private static void link( final Model model, final Spot source, final Spot target, final double speed )
+	{
+		final DefaultWeightedEdge edge = model.addEdge( source, target, 1. );
+		model.getFeatureModel().putEdgeFeature( edge, "SPEED", Double.valueOf( speed ) );
+	}
+
+	private static < V > Map< String, V > map( final String k1, final V v1, final String k2, final V v2 )
+	{
+		final Map< String, V > map = new HashMap<>();
+		map.put( k1, v1 );
+		map.put( k2, v2 );
+		return map;
+	}
+
+	private static List< String > readLines( final File file ) throws IOException
+	{
+		return Files.readAllLines( file.toPath(), StandardCharsets.UTF_8 );
+	}
+
+	/**
+	 * Checks that two table lines are equal, numbers being compared on their
+	 * value rather than on their text.
+	 */
+	private static void assertSameLine( final String expected, final String actual )
+	{
+		final String[] e = expected.split( ",", -1 );
+		final String[] a = actual.split( ",", -1 );
+		assertEquals( "Number of columns in " + actual, e.length, a.length );
+		for ( int i = 0; i < e.length; i++ )
+		{
+			if ( e[ i ].equals( a[ i ] ) )
+				continue;
+			try
+			{
+				assertEquals( "Column " + i + " of " + actual, Double.parseDouble( e[ i ] ), Double.parseDouble( a[ i ] ), 0. );
+			}
+			catch ( final NumberFormatException ex )
+			{
+				assertEquals( "Column " + i + " of " + actual, e[ i ], a[ i ] );
+			}
+		}
+	}
+
+	/**
+	 * Checks that two tables have the same header and the same rows, in any
+	 * order. Rows are matched on their first column.
+	 */
+	private static void assertSameTable( final List< String > expected, final List< String > actual, final int nHeaderLines )
+	{
+		assertEquals( expected.size(), actual.size() );
+		for ( int i = 0; i < nHeaderLines; i++ )
+			assertEquals( expected.get( i ), actual.get( i ) );
+
+		final Map< String, String > rows = new LinkedHashMap<>();
+		for ( final String line : actual.subList( nHeaderLines, actual.size() ) )
+			rows.put( line.split( ",", -1 )[ 0 ], line );
+		for ( final String line : expected.subList( nHeaderLines, expected.size() ) )
+		{
+			final String row = rows.get( line.split( ",", -1 )[ 0 ] );
+			assertTrue( "Missing row " + line, row != null );
+			assertSameLine( line, row );
+		}
+	}
+
+	@Test
+	public void testSpotsMatchCSVExporter() throws IOException
+	{
+		final Model model = createModel();
+		for ( final boolean visibleOnly : new boolean[] { false, true } )
+		{
+			final File expected = File.createTempFile( "TrackMate-spots-csv", ".csv" );
+			expected.deleteOnExit();
+			final File actual = File.createTempFile( "TrackMate-spots-streaming", ".csv" );
+			actual.deleteOnExit();
+
+			CSVExporter.exportSpots( expected.getAbsolutePath(), model, visibleOnly );
+			StreamingTableExporter.exportSpots( actual.getAbsolutePath(), model, visibleOnly, ',', false, 2 );
+
+			// Same rows in the same order.
+			final List< String > e = readLines( expected );
+			final List< String > a = readLines( actual );
+			assertEquals( e.size(), a.size() );
+			for ( int i = 0; i < e.size(); i++ )
+				assertSameLine( e.get( i ), a.get( i ) );
+		}
+	}
+
+	@Test
+	public void testEdgesAndTracksMatchTableExport() throws IOException
+	{
+		final Model model = createModel();
+		final DisplaySettings ds = DisplaySettings.defaultStyle();
+
+		final File edgesExpected = File.createTempFile( "TrackMate-edges-table", ".csv" );
+		edgesExpected.deleteOnExit();
+		final File edgesActual = File.createTempFile( "TrackMate-edges-streaming", ".csv" );
+		edgesActual.deleteOnExit();
+		StreamingTableExporter.exportEdges( edgesActual.getAbsolutePath(), model, true, ',', false, 2 );
+		TrackTableView.createEdgeTable( model, ds ).exportToCsv( edgesExpected );
+		final List< String > edges = readLines( edgesActual );
+		assertEquals( 3 + 4, edges.size() );
+		assertSameTable( readLines( edgesExpected ), edges, 3 );
+
+		final File tracksExpected = File.createTempFile( "TrackMate-tracks-table", ".csv" );
+		tracksExpected.deleteOnExit();
+		final File tracksActual = File.createTempFile( "TrackMate-tracks-streaming", ".csv" );
+		tracksActual.deleteOnExit();
+		StreamingTableExporter.exportTracks( tracksActual.getAbsolutePath(), model, true, ',', false, 2 );
+		TrackTableView.createTrackTable( model, ds ).exportToCsv( tracksExpected );
+		final List< String > tracks = readLines( tracksActual );
+		assertEquals( 4 + 2, tracks.size() );
+		assertSameTable( readLines( tracksExpected ), tracks, 4 );
+	}
+}
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TrackMateMetricsTest
+{
+
+	@Test
+	public void testClearStage()
+	{
+		final TrackMateMetrics metrics = new TrackMateMetrics();
+		metrics.add( new StageMetrics( "detection/frame", 0, 10, 10, 100, 5, -1, 1 ) );
+		metrics.add( new StageMetrics( "detection", -1, 20, 20, 200, 5, -1, 2 ) );
+		metrics.add( new StageMetrics( "detection-bis", -1, 20, 20, 200, 5, -1, 2 ) );
+		metrics.add( new StageMetrics( "tracking", -1, 30, 30, 300, 5, 4, 2 ) );
+
+		assertEquals( 2, metrics.getStages( "detection" ).size() );
+		metrics.clear( "detection" );
+		assertEquals( 2, metrics.getStages().size() );
+		assertNull( metrics.get( "detection" ) );
+		assertEquals( 4, metrics.get( "tracking" ).getNEdges() );
+	}
+
+	@Test
+	public void testCumulate()
+	{
+		final StageMetrics sum = StageMetrics.cumulate( "lap-solve", 4, Arrays.asList(
+				new StageMetrics( "lap-solve", -1, 10, 5, 100, -1, -1, 1 ),
+				new StageMetrics( "lap-solve", -1, 20, -1, 200, -1, -1, 1 ) ) );
+		assertEquals( 30, sum.getWallTime() );
+		assertEquals( -1, sum.getCpuTime() );
+		assertEquals( 300, sum.getAllocatedBytes() );
+		assertEquals( 4, sum.getNThreads() );
+		assertEquals( "tracking/lap-solve", sum.withPrefix( "tracking" ).getStage() );
+	}
+
+	@Test
+	public void testProbe()
+	{
+		final MetricsProbe probe = MetricsProbe.startThread( "stage" ).frame( 3 );
+		final double[] arr = new double[ 10_000 ];
+		for ( int i = 0; i < arr.length; i++ )
+			arr[ i ] = Math.sqrt( i );
+		final StageMetrics m = probe.stop( arr.length, -1 );
+		assertEquals( "stage", m.getStage() );
+		assertEquals( 3, m.getFrame() );
+		assertEquals( 10_000, m.getNSpots() );
+		assertTrue( m.getWallTime() > 0 );
+	}
+
+	@Test
+	public void testJson()
+	{
+		final TrackMateMetrics metrics = new TrackMateMetrics();
+		metrics.add( new StageMetrics( "tracking/\"quoted\"", -1, 30, -1, 300, 5, 4, 2 ) );
+		final String json = metrics.toJson();
+		assertTrue( json.contains( "\"stage\": \"tracking/\\\"quoted\\\"\"" ) );
+		assertTrue( json.contains( "\"frame\": null" ) );
+		assertTrue( json.contains( "\"cpuTime\": null" ) );
+		assertTrue( json.contains( "\"wallTime\": 30" ) );
+		assertTrue( json.contains( "\"nEdges\": 4" ) );
+	}
+
+	@Test
+	public void testFileFor()
+	{
+		final File file = TrackMateMetrics.fileFor( new File( "/tmp/data/session.xml" ) );
+		assertEquals( "session.metrics.json", file.getName() );
+		assertEquals( new File( "/tmp/data" ).getAbsolutePath(), file.getParent() );
+	}
+}
@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.tracking.jaqaman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.benchmark.SyntheticData;
+import fiji.plugin.trackmate.tracking.TrackerKeys;
+
+public class StreamingLAPTrackerTest
+{
+
+	private static Map< String, Object > settings()
+	{
+		final Map< String, Object > settings = new SparseLAPTrackerFactory().getDefaultSettings();
+		settings.put( TrackerKeys.KEY_LINKING_MAX_DISTANCE, 5. );
+		settings.put( TrackerKeys.KEY_GAP_CLOSING_MAX_DISTANCE, 5. );
+		settings.put( TrackerKeys.KEY_ALLOW_TRACK_SPLITTING, true );
+		settings.put( TrackerKeys.KEY_SPLITTING_MAX_DISTANCE, 5. );
+		return settings;
+	}
+
+	private static Map< String, Double > edges( final SimpleWeightedGraph< Spot, DefaultWeightedEdge > graph )
+	{
+		final Map< String, Double > edges = new HashMap<>();
+		for ( final DefaultWeightedEdge edge : graph.edgeSet() )
+		{
+			final int a = graph.getEdgeSource( edge ).ID();
+			final int b = graph.getEdgeTarget( edge ).ID();
+			edges.put( Math.min( a, b ) + "-" + Math.max( a, b ), graph.getEdgeWeight( edge ) );
+		}
+		return edges;
+	}
+
+	@Test
+	public void testSameAsSparseLAPTracker() throws InterruptedException
+	{
+		final SpotCollection all = SyntheticData.brownianSpots( 60, 15, 200., 1.5, 1l );
+		// A missing frame, linked when all frames are received.
+		final SpotCollection spots = new SpotCollection();
+		for ( final int frame : all.keySet() )
+		{
+			if ( frame == 6 )
+				continue;
+			final List< Spot > list = new ArrayList<>();
+			all.iterable( frame, false ).forEach( list::add );
+			// Some spots disappear, for gap-closing.
+			if ( frame == 9 )
+				list.subList( 0, 10 ).clear();
+			spots.put( frame, list );
+		}
+		spots.setVisible( true );
+
+		final SparseLAPTracker reference = new SparseLAPTracker( spots, settings() );
+		assertTrue( reference.getErrorMessage(), reference.checkInput() && reference.process() );
+
+		// Feed frames in random order, from several threads.
+		final StreamingLAPTracker tracker = new StreamingLAPTracker( settings(), 3 );
+		assertTrue( tracker.getErrorMessage(), tracker.checkInput() );
+		final List< Integer > frames = new ArrayList<>( spots.keySet() );
+		Collections.shuffle( frames, new Random( 2l ) );
+		final ExecutorService feeders = Executors.newFixedThreadPool( 4 );
+		for ( final int frame : frames )
+		{
+			final List< Spot > list = new ArrayList<>();
+			spots.iterable( frame, true ).forEach( list::add );
+			feeders.submit( () -> tracker.addFrame( frame, list ) );
+		}
+		feeders.shutdown();
+		assertTrue( feeders.awaitTermination( 1, TimeUnit.MINUTES ) );
+		assertTrue( tracker.getErrorMessage(), tracker.process() );
+
+		final Map< String, Double > expected = edges( reference.getResult() );
+		assertFalse( expected.isEmpty() );
+		assertEquals( expected, edges( tracker.getResult() ) );
+		assertEquals( reference.getResult().vertexSet(), tracker.getResult().vertexSet() );
+	}
+
+	@Test
+	public void testInvalidSettings()
+	{
+		final Map< String, Object > settings = settings();
+		settings.remove( TrackerKeys.KEY_LINKING_MAX_DISTANCE );
+		final StreamingLAPTracker tracker = new StreamingLAPTracker( settings, 1 );
+		assertFalse( tracker.checkInput() );
+		assertFalse( tracker.process() );
+	}
+}
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.SpotCollection;
+import fiji.plugin.trackmate.detection.DetectorKeys;
+import fiji.plugin.trackmate.detection.DogDetectorFactory;
+import fiji.plugin.trackmate.detection.LogDetectorFactory;
+import ij.ImagePlus;
+import ij.gui.Roi;
+import ij.process.ByteProcessor;
+
+public class DetectionPreviewCacheTest
+{
+
+	private static Map< String, Object > settings( final double radius )
+	{
+		final Map< String, Object > settings = new HashMap<>();
+		settings.put( DetectorKeys.KEY_TARGET_CHANNEL, 1 );
+		settings.put( DetectorKeys.KEY_RADIUS, radius );
+		settings.put( DetectorKeys.KEY_THRESHOLD, 0. );
+		settings.put( DetectorKeys.KEY_DO_MEDIAN_FILTERING, false );
+		return settings;
+	}
+
+	@Test
+	public void testKeys()
+	{
+		final ImagePlus imp = new ImagePlus( "test", new ByteProcessor( 32, 32 ) );
+		final DetectionPreviewCache cache = new DetectionPreviewCache();
+		final List< Spot > spots = Collections.singletonList( new Spot( 1., 2., 0., 1., 10. ) );
+		cache.put( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ), spots );
+
+		assertNotNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 1, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 3. ) ) ) );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new DogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, new Roi( 2, 2, 10, 10 ), 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		final ImagePlus other = new ImagePlus( "other", new ByteProcessor( 32, 32 ) );
+		assertNull( cache.get( DetectionPreviewCache.key( other, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+	}
+
+	@Test
+	public void testBounded()
+	{
+		final ImagePlus imp = new ImagePlus( "test", new ByteProcessor( 32, 32 ) );
+		final DetectionPreviewCache cache = new DetectionPreviewCache( 3 );
+		for ( int frame = 0; frame < 5; frame++ )
+			cache.put( DetectionPreviewCache.key( imp, null, frame, new LogDetectorFactory<>(), settings( 2.5 ) ), Collections.emptyList() );
+		assertEquals( 3, cache.size() );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 1, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		assertNotNull( cache.get( DetectionPreviewCache.key( imp, null, 4, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+	}
+	@Test
+	public void testImageEdits()
+	{
+		final ImagePlus imp = new ImagePlus( "test", new ByteProcessor( 32, 32 ) );
+		final DetectionPreviewCache cache = new DetectionPreviewCache();
+		cache.put( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ), Collections.emptyList() );
+		assertNotNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+
+		// Same image, same ID, new pixel values.
+		imp.getProcessor().set( 5, 5, 200 );
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+		imp.getProcessor().set( 5, 5, 0 );
+		assertNotNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+
+		// New calibration.
+		imp.getCalibration().pixelWidth = 0.5;
+		assertNull( cache.get( DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) ) ) );
+	}
+
+	@Test
+	public void testSpotsAreCopied()
+	{
+		final ImagePlus imp = new ImagePlus( "test", new ByteProcessor( 32, 32 ) );
+		final DetectionPreviewCache cache = new DetectionPreviewCache();
+		final Spot spot = new Spot( 1., 2., 0., 1., 10. );
+		final DetectionPreviewCache.Key key = DetectionPreviewCache.key( imp, null, 0, new LogDetectorFactory<>(), settings( 2.5 ) );
+		cache.put( key, Collections.singletonList( spot ) );
+
+		// Filtering the spots of a preview marks them invisible.
+		spot.putFeature( SpotCollection.VISIBILITY, SpotCollection.ZERO );
+		final List< Spot > first = cache.get( key );
+		assertEquals( 1, first.size() );
+		assertNotSame( spot, first.get( 0 ) );
+		assertEquals( 10., first.get( 0 ).getFeature( Spot.QUALITY ), 0. );
+		assertEquals( 2., first.get( 0 ).getDoublePosition( 1 ), 0. );
+		assertNull( first.get( 0 ).getFeature( SpotCollection.VISIBILITY ) );
+
+		first.get( 0 ).putFeature( SpotCollection.VISIBILITY, SpotCollection.ZERO );
+		first.clear();
+		final List< Spot > second = cache.get( key );
+		assertEquals( 1, second.size() );
+		assertNull( second.get( 0 ).getFeature( SpotCollection.VISIBILITY ) );
+	}
+}
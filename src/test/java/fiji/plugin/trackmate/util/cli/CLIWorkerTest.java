@@ -0,0 +1,148 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util.cli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+public class CLIWorkerTest
+{
+
+	private static List< String > command()
+	{
+		final String java = Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString();
+		return Arrays.asList( java, "-cp", System.getProperty( "java.class.path" ), StandInWorker.class.getName() );
+	}
+
+	@After
+	public void tearDown()
+	{
+		CLIWorker.closeAll();
+	}
+
+	@Test
+	public void testWorkerIsReused() throws IOException
+	{
+		final File logFile = File.createTempFile( "TrackMate-worker", ".log" );
+		logFile.deleteOnExit();
+
+		final CLIWorker worker = CLIWorker.get( command(), Collections.emptyMap(), logFile );
+		assertTrue( worker.isAlive() );
+		final long pid = worker.pid();
+
+		for ( int frame = 0; frame < 3; frame++ )
+		{
+			final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 7, 5, 3 );
+			int i = 0;
+			for ( final FloatType p : img )
+				p.set( ( i++ + frame ) % 11 );
+
+			// A single plane, as a view: no copy before the handoff.
+			final ArrayImg< IntType, IntArray > labels = worker.process( Views.hyperSlice( img, 2, 1 ) );
+			assertArrayEquals( new long[] { 7, 5 }, Intervals.dimensionsAsLongArray( labels ) );
+			final Cursor< IntType > cursor = labels.localizingCursor();
+			final RandomAccess< FloatType > ra = img.randomAccess();
+			while ( cursor.hasNext() )
+			{
+				cursor.fwd();
+				ra.setPosition( cursor.getIntPosition( 0 ), 0 );
+				ra.setPosition( cursor.getIntPosition( 1 ), 1 );
+				ra.setPosition( 1, 2 );
+				assertEquals( Math.round( ra.get().get() ), cursor.get().get() );
+			}
+		}
+
+		// Same process for the next run.
+		final CLIWorker same = CLIWorker.get( command(), Collections.emptyMap(), logFile );
+		assertSame( worker, same );
+		assertEquals( pid, same.pid() );
+	}
+
+	@Test
+	public void testWorkerPerEnvironment() throws IOException
+	{
+		final File logFile = File.createTempFile( "TrackMate-worker", ".log" );
+		logFile.deleteOnExit();
+
+		final CLIWorker worker = CLIWorker.get( command(), Collections.emptyMap(), logFile );
+		final Map< String, String > env = Collections.singletonMap( "MAMBA_ROOT_PREFIX", "/tmp/other" );
+		final CLIWorker other = CLIWorker.get( command(), env, logFile );
+		assertNotSame( worker, other );
+		assertTrue( worker.isAlive() );
+		assertSame( other, CLIWorker.get( command(), Collections.singletonMap( "MAMBA_ROOT_PREFIX", "/tmp/other" ), logFile ) );
+	}
+
+	@Test
+	public void testWorkerError() throws IOException
+	{
+		final File logFile = File.createTempFile( "TrackMate-worker", ".log" );
+		logFile.deleteOnExit();
+		final CLIWorker worker = CLIWorker.get( command(), Collections.emptyMap(), logFile );
+
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 4, 4 );
+		img.firstElement().set( -1f );
+		try
+		{
+			worker.process( img );
+			fail( "Negative pixels should be rejected by the worker." );
+		}
+		catch ( final IOException e )
+		{
+			assertTrue( e.getMessage().contains( "Negative pixel values" ) );
+		}
+
+		// The worker survives errors.
+		assertTrue( worker.isAlive() );
+		img.firstElement().set( 2f );
+		assertEquals( 2, worker.process( img ).firstElement().get() );
+
+		worker.close();
+		assertFalse( worker.isAlive() );
+	}
+}
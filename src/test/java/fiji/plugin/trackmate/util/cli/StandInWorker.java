@@ -0,0 +1,88 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.util.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A stand-in for an external segmentation tool, that speaks the
+ * {@link CLIWorker} protocol. Each pixel value is rounded to give its label.
+ * Images with negative values are rejected with an error.
+ */
+public class StandInWorker
+{
+
+	public static void main( final String[] args ) throws IOException
+	{
+		final BufferedReader reader = new BufferedReader( new InputStreamReader( System.in, StandardCharsets.UTF_8 ) );
+		// Noise on the standard output must be ignored.
+		System.out.println( "Loading model..." );
+		System.out.println( CLIWorker.READY );
+		String line;
+		while ( ( line = reader.readLine() ) != null )
+		{
+			final String[] tokens = line.split( "\t" );
+			if ( tokens[ 0 ].equals( CLIWorker.QUIT ) )
+				break;
+			if ( !tokens[ 0 ].equals( CLIWorker.PROCESS ) )
+				continue;
+
+			final long[] dims = CLIWorker.parseDimensions( tokens[ 2 ] );
+			int n = 1;
+			for ( final long d : dims )
+				n *= d;
+			final float[] pixels = new float[ n ];
+			try (FileChannel in = FileChannel.open( Paths.get( tokens[ 1 ] ), StandardOpenOption.READ ))
+			{
+				final FloatBuffer buffer = in.map( MapMode.READ_ONLY, 0, 4L * n ).order( ByteOrder.LITTLE_ENDIAN ).asFloatBuffer();
+				buffer.get( pixels );
+			}
+			boolean negative = false;
+			for ( final float p : pixels )
+				negative |= p < 0;
+			if ( negative )
+			{
+				System.out.println( CLIWorker.ERROR + "\tNegative pixel values." );
+				continue;
+			}
+
+			try (FileChannel out = FileChannel.open( Paths.get( tokens[ 3 ] ), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE ))
+			{
+				final IntBuffer buffer = out.map( MapMode.READ_WRITE, 0, 4L * n ).order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer();
+				for ( final float p : pixels )
+					buffer.put( Math.round( p ) );
+			}
+			System.err.println( "Processed " + tokens[ 1 ] );
+			System.out.println( CLIWorker.OK + '\t' + tokens[ 2 ] );
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.hyperstack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Logger;
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+import fiji.plugin.trackmate.visualization.ViewUtils;
+import ij.ImagePlus;
+
+public class OffScreenOverlayRendererTest
+{
+
+	private static Model createModel()
+	{
+		final Model model = new Model();
+		model.beginUpdate();
+		try
+		{
+			// Spots in frames 0 and 2, none in frame 1.
+			model.addSpotTo( new Spot( 20., 15., 0., 5., 1. ), 0 );
+			model.addSpotTo( new Spot( 10., 10., 0., 4., 1. ), 2 );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		return model;
+	}
+
+	private static boolean isUniform( final BufferedImage bi )
+	{
+		final int ref = bi.getRGB( 0, 0 );
+		for ( int y = 0; y < bi.getHeight(); y++ )
+			for ( int x = 0; x < bi.getWidth(); x++ )
+				if ( bi.getRGB( x, y ) != ref )
+					return false;
+		return true;
+	}
+
+	@Test
+	public void testRender()
+	{
+		final ImagePlus imp = ViewUtils.makeEmptyImagePlus( 40, 30, 1, 3, new double[] { 1., 1., 1. } );
+		final DisplaySettings ds = DisplaySettings.defaultStyle().copy();
+		final OffScreenOverlayRenderer renderer = new OffScreenOverlayRenderer( createModel(), null, imp, ds );
+		renderer.setHideImage( true, false );
+		renderer.setNumThreads( 2 );
+
+		assertFalse( "Frame with a spot should have the overlay.", isUniform( renderer.renderFrame( 1 ) ) );
+		assertTrue( "Frame without spot should be empty.", isUniform( renderer.renderFrame( 2 ) ) );
+		assertFalse( "Frame with a spot should have the overlay.", isUniform( renderer.renderFrame( 3 ) ) );
+
+		renderer.setMagnification( 2. );
+		final ImagePlus capture = renderer.render( 1, 3, Logger.VOID_LOGGER );
+		assertEquals( 3, capture.getStackSize() );
+		assertEquals( 80, capture.getWidth() );
+		assertEquals( 60, capture.getHeight() );
+		assertEquals( 0.5, capture.getCalibration().pixelWidth, 1e-9 );
+	}
+
+	@Test
+	public void testImageSequence() throws IOException
+	{
+		final ImagePlus imp = ViewUtils.makeEmptyImagePlus( 40, 30, 1, 3, new double[] { 1., 1., 1. } );
+		final OffScreenOverlayRenderer renderer = new OffScreenOverlayRenderer( createModel(), null, imp, DisplaySettings.defaultStyle().copy() );
+		final Path folder = Files.createTempDirectory( "capture" );
+		try
+		{
+			renderer.render( 1, 3, folder, Logger.VOID_LOGGER );
+			for ( int frame = 1; frame <= 3; frame++ )
+				assertTrue( Files.exists( folder.resolve( String.format( "capture_t%04d.png", frame ) ) ) );
+		}
+		finally
+		{
+			for ( final File file : folder.toFile().listFiles() )
+				file.delete();
+			Files.delete( folder );
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+
+import org.junit.Test;
+
+public class ColumnSorterTest
+{
+
+	@Test
+	public void testNumericKeyOrder()
+	{
+		final Double[] values = new Double[] {
+				Double.NEGATIVE_INFINITY, -1e300, -1., -Double.MIN_VALUE, -0., 0., Double.MIN_VALUE, 1., 1e300, Double.POSITIVE_INFINITY, null };
+		for ( int i = 1; i < values.length; i++ )
+		{
+			assertTrue( Long.compareUnsigned( ColumnSorter.numericKey( values[ i - 1 ], false ), ColumnSorter.numericKey( values[ i ], false ) ) < 0 );
+			assertTrue( Long.compareUnsigned( ColumnSorter.numericKey( values[ i - 1 ], true ), ColumnSorter.numericKey( values[ i ], true ) ) > 0 );
+		}
+	}
+
+	@Test
+	public void testRadixSortIsStable()
+	{
+		final Random ran = new Random( 1l );
+		final int n = 100_000;
+		final double[] values = new double[ n ];
+		final long[] keys = new long[ n ];
+		final int[] rows = new int[ n ];
+		for ( int i = 0; i < n; i++ )
+		{
+			// Many ties.
+			values[ i ] = Math.round( ran.nextGaussian() * 100. ) / 10.;
+			keys[ i ] = ColumnSorter.numericKey( values[ i ], false );
+			rows[ i ] = i;
+		}
+		ColumnSorter.radixSort( keys, rows );
+
+		final Integer[] expected = new Integer[ n ];
+		for ( int i = 0; i < n; i++ )
+			expected[ i ] = i;
+		Arrays.sort( expected, ( r1, r2 ) -> Double.compare( values[ r1 ], values[ r2 ] ) );
+		for ( int i = 0; i < n; i++ )
+			assertEquals( expected[ i ].intValue(), rows[ i ] );
+	}
+
+	@Test
+	public void testSortAndFilterWithUpdates() throws InterruptedException
+	{
+		final Random ran = new Random( 2l );
+		final List< double[] > objects = new ArrayList<>();
+		for ( int i = 0; i < 1000; i++ )
+			objects.add( new double[] { ran.nextInt( 100 ) } );
+
+		final AbstractTableModel model = new AbstractTableModel()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public int getRowCount()
+			{
+				return objects.size();
+			}
+
+			@Override
+			public int getColumnCount()
+			{
+				return 1;
+			}
+
+			@Override
+			public Object getValueAt( final int row, final int column )
+			{
+				return objects.get( row )[ 0 ];
+			}
+		};
+		final ColumnSorter< double[] > sorter = new ColumnSorter<>( model, objects, null,
+				Collections.singletonList( "VALUE" ), ( o, feature ) -> o[ 0 ] );
+		model.addTableModelListener( e -> {
+			if ( e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE )
+				sorter.allRowsChanged();
+			else if ( e.getType() == TableModelEvent.INSERT )
+				sorter.rowsInserted( e.getFirstRow(), e.getLastRow() );
+			else if ( e.getType() == TableModelEvent.DELETE )
+				sorter.rowsDeleted( e.getFirstRow(), e.getLastRow() );
+			else
+				sorter.rowsUpdated( e.getFirstRow(), e.getLastRow() );
+		} );
+
+		sorter.setRowFilter( o -> o[ 0 ] >= 20. );
+		sorter.setSortKeys( Collections.singletonList( new RowSorter.SortKey( 0, SortOrder.DESCENDING ) ) );
+		waitFor( sorter );
+		check( sorter, objects );
+
+		for ( int i = 0; i < 500; i++ )
+		{
+			switch ( ran.nextInt( 3 ) )
+			{
+			case 0:
+			{
+				// Delete the last row.
+				final int last = objects.size() - 1;
+				objects.remove( last );
+				model.fireTableRowsDeleted( last, last );
+				break;
+			}
+			case 1:
+			{
+				final int row = ran.nextInt( objects.size() );
+				objects.get( row )[ 0 ] = ran.nextInt( 100 );
+				model.fireTableRowsUpdated( row, row );
+				break;
+			}
+			default:
+			{
+				objects.add( new double[] { ran.nextInt( 100 ) } );
+				model.fireTableRowsInserted( objects.size() - 1, objects.size() - 1 );
+				break;
+			}
+			}
+			check( sorter, objects );
+		}
+
+		model.fireTableDataChanged();
+		waitFor( sorter );
+		check( sorter, objects );
+	}
+
+	private static void waitFor( final ColumnSorter< ? > sorter ) throws InterruptedException
+	{
+		while ( sorter.isSorting() )
+			Thread.sleep( 5 );
+	}
+
+	private static void check( final ColumnSorter< double[] > sorter, final List< double[] > objects )
+	{
+		int expectedCount = 0;
+		for ( final double[] o : objects )
+			if ( o[ 0 ] >= 20. )
+				expectedCount++;
+		assertEquals( expectedCount, sorter.getViewRowCount() );
+
+		double previous = Double.POSITIVE_INFINITY;
+		for ( int viewRow = 0; viewRow < sorter.getViewRowCount(); viewRow++ )
+		{
+			final int row = sorter.convertRowIndexToModel( viewRow );
+			assertEquals( viewRow, sorter.convertRowIndexToView( row ) );
+			final double value = objects.get( row )[ 0 ];
+			assertTrue( value >= 20. );
+			assertTrue( value <= previous );
+			previous = value;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Before;
+import org.junit.Test;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.ModelChangeEvent;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+
+public class TablePanelUpdateTest
+{
+
+	/** Model column of the track ID in the spot table. */
+	private static final int SPOT_TRACK_ID_COLUMN = 2;
+
+	private Model model;
+
+	private TablePanel< Spot > spotTable;
+
+	private TablePanel< DefaultWeightedEdge > edgeTable;
+
+	private TablePanel< Spot > allSpotsTable;
+
+	private List< List< Spot > > tracks;
+
+	@Before
+	public void setUp() throws InterruptedException
+	{
+		model = new Model();
+		tracks = new ArrayList<>();
+		model.beginUpdate();
+		try
+		{
+			for ( int t = 0; t < 3; t++ )
+			{
+				final List< Spot > track = new ArrayList<>();
+				for ( int frame = 0; frame < 5; frame++ )
+				{
+					final Spot spot = model.addSpotTo( new Spot( 10. * t, frame, 0., 1., 1. ), frame );
+					if ( !track.isEmpty() )
+						model.addEdge( track.get( track.size() - 1 ), spot, 1. );
+					track.add( spot );
+				}
+				tracks.add( track );
+			}
+			// A spot in no track.
+			model.addSpotTo( new Spot( 50., 0., 0., 1., 1. ), 0 );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+
+		final DisplaySettings ds = DisplaySettings.defaultStyle().copy();
+		spotTable = TrackTableView.createSpotTable( model, ds );
+		edgeTable = TrackTableView.createEdgeTable( model, ds );
+		allSpotsTable = AllSpotsTableView.createSpotTable( model, ds );
+		spotTable.getTable().getRowSorter().setSortKeys( Collections.singletonList(
+				new RowSorter.SortKey( SPOT_TRACK_ID_COLUMN, SortOrder.ASCENDING ) ) );
+
+		final TrackModel trackModel = model.getTrackModel();
+		model.addModelChangeListener( event -> {
+			if ( event.getEventID() != ModelChangeEvent.MODEL_MODIFIED )
+				return;
+			spotTable.updateObjects( TableUtils.affectedSpots( event, trackModel ), s -> TableUtils.isInVisibleTrack( s, trackModel ) );
+			edgeTable.updateObjects( TableUtils.affectedEdges( event, trackModel ), e -> TableUtils.isInVisibleTrack( e, trackModel ) );
+			allSpotsTable.updateObjects( TableUtils.affectedSpots( event, trackModel ), s -> TableUtils.isVisible( s, event ) );
+		} );
+		checkTables();
+	}
+
+	@Test
+	public void testSplitTrack() throws InterruptedException
+	{
+		model.beginUpdate();
+		try
+		{
+			model.removeEdge( tracks.get( 0 ).get( 2 ), tracks.get( 0 ).get( 3 ) );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertEquals( 4, model.getTrackModel().nTracks( true ) );
+		checkTables();
+	}
+
+	@Test
+	public void testSolitarySpot() throws InterruptedException
+	{
+		model.beginUpdate();
+		try
+		{
+			model.removeEdge( tracks.get( 1 ).get( 3 ), tracks.get( 1 ).get( 4 ) );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertFalse( spotTable.contains( tracks.get( 1 ).get( 4 ) ) );
+		assertTrue( allSpotsTable.contains( tracks.get( 1 ).get( 4 ) ) );
+		checkTables();
+	}
+
+	@Test
+	public void testRemoveWholeTrack() throws InterruptedException
+	{
+		model.beginUpdate();
+		try
+		{
+			for ( int i = 0; i < 4; i++ )
+				model.removeEdge( tracks.get( 2 ).get( i ), tracks.get( 2 ).get( i + 1 ) );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertEquals( 2, model.getTrackModel().nTracks( true ) );
+		checkTables();
+	}
+
+	@Test
+	public void testMergeTracksAndRemoveSpot() throws InterruptedException
+	{
+		model.beginUpdate();
+		try
+		{
+			model.addEdge( tracks.get( 0 ).get( 4 ), tracks.get( 1 ).get( 0 ), 1. );
+			model.removeSpot( tracks.get( 2 ).get( 0 ) );
+			final Spot spot = model.addSpotTo( new Spot( 20., 5., 0., 1., 1. ), 5 );
+			model.addEdge( tracks.get( 2 ).get( 4 ), spot, 1. );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertEquals( 2, model.getTrackModel().nTracks( true ) );
+		assertFalse( allSpotsTable.contains( tracks.get( 2 ).get( 0 ) ) );
+		checkTables();
+	}
+
+	/**
+	 * Checks that the tables list the same objects as after a rebuild, and
+	 * that the spot table is still sorted by track ID.
+	 */
+	private void checkTables() throws InterruptedException
+	{
+		// Sorting happens on a background thread.
+		while ( spotTable.isSorting() )
+			Thread.sleep( 5 );
+
+		final TrackModel trackModel = model.getTrackModel();
+		final Set< Spot > expectedSpots = new HashSet<>();
+		final Set< DefaultWeightedEdge > expectedEdges = new HashSet<>();
+		for ( final Integer trackID : trackModel.unsortedTrackIDs( true ) )
+		{
+			expectedSpots.addAll( trackModel.trackSpots( trackID ) );
+			expectedEdges.addAll( trackModel.trackEdges( trackID ) );
+		}
+		assertEquals( expectedSpots, new HashSet<>( spotTable.getObjects() ) );
+		assertEquals( expectedSpots.size(), spotTable.getObjects().size() );
+		assertEquals( expectedEdges, new HashSet<>( edgeTable.getObjects() ) );
+		assertEquals( expectedEdges.size(), edgeTable.getObjects().size() );
+
+		final Set< Spot > expectedAllSpots = new HashSet<>();
+		model.getSpots().iterable( true ).forEach( expectedAllSpots::add );
+		assertEquals( expectedAllSpots, new HashSet<>( allSpotsTable.getObjects() ) );
+		assertEquals( expectedAllSpots.size(), allSpotsTable.getObjects().size() );
+
+		assertEquals( expectedSpots.size(), spotTable.getTable().getRowCount() );
+		int previous = Integer.MIN_VALUE;
+		for ( int row = 0; row < spotTable.getTable().getRowCount(); row++ )
+		{
+			final Spot spot = spotTable.getObjectForViewRow( row );
+			assertEquals( row, spotTable.getViewRowForObject( spot ) );
+			final int trackID = trackModel.trackIDOf( spot );
+			assertTrue( "Spot table is not sorted by track ID.", trackID >= previous );
+			previous = trackID;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/*-
+ * #%L
+ * TrackMate: your buddy for everyday tracking.
+ * %%
+ * Copyright (C) 2010 - 2026 TrackMate developers.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package fiji.plugin.trackmate.visualization.trackscheme;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+import com.mxgraph.model.mxCell;
+import com.mxgraph.model.mxGeometry;
+
+import fiji.plugin.trackmate.Model;
+import fiji.plugin.trackmate.ModelChangeEvent;
+import fiji.plugin.trackmate.ModelDelta;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
+import fiji.plugin.trackmate.gui.displaysettings.DisplaySettings;
+
+public class TrackSchemeGraphLayoutTest
+{
+
+	/**
+	 * Adds a spot at the end of a track, and a new track.
+	 */
+	@Test
+	public void testAdd()
+	{
+		checkIncrementalLayout( spots -> {
+			final Model model = spots.model;
+			final Spot a4 = spots.add( "a4", 4 );
+			model.addEdge( spots.get( "a3" ), a4, 1. );
+			final Spot c3 = spots.add( "c3", 3 );
+			model.addEdge( spots.get( "c2" ), c3, 1. );
+			final Spot d0 = spots.add( "d0", 0 );
+			final Spot d1 = spots.add( "d1", 1 );
+			model.addEdge( d0, d1, 1. );
+		} );
+	}
+
+	/**
+	 * Removes an edge in the middle of a track, splitting it in two, and a
+	 * spot of a branch.
+	 */
+	@Test
+	public void testRemove()
+	{
+		checkIncrementalLayout( spots -> {
+			final Model model = spots.model;
+			model.removeEdge( spots.get( "b2" ), spots.get( "b3" ) );
+			model.removeSpot( spots.get( "a2b" ) );
+			model.removeSpot( spots.get( "c1" ) );
+		} );
+	}
+
+	/**
+	 * Links two tracks so that a spot has two predecessors.
+	 */
+	@Test
+	public void testMerge()
+	{
+		checkIncrementalLayout( spots -> spots.model.addEdge( spots.get( "c1" ), spots.get( "b2" ), 1. ) );
+	}
+
+	/**
+	 * Lays out a model, applies the specified edit, and checks that the
+	 * incremental layout puts the cells at the same positions as a full
+	 * layout.
+	 */
+	private static void checkIncrementalLayout( final Consumer< Spots > edit )
+	{
+		final Spots spots = new Spots();
+		final Model model = spots.model;
+		final JGraphXAdapter graph = new JGraphXAdapter( model );
+		final TrackSchemeGraphComponent component = new TrackSchemeGraphComponent( graph, null, DisplaySettings.defaultStyle() );
+		final TrackSchemeGraphLayout layout = new TrackSchemeGraphLayout( graph, model, component );
+		layout.execute( null );
+
+		final List< ModelDelta > deltas = new ArrayList<>();
+		model.addModelChangeListener( e -> {
+			if ( e.getEventID() == ModelChangeEvent.MODEL_MODIFIED )
+				deltas.add( e.getDelta() );
+		} );
+		model.beginUpdate();
+		try
+		{
+			edit.accept( spots );
+		}
+		finally
+		{
+			model.endUpdate();
+		}
+		assertEquals( 1, deltas.size() );
+		final Set< Integer > trackIDs = update( graph, model, deltas.get( 0 ) );
+
+		assertTrue( layout.executeIncremental( trackIDs ) );
+		final Map< Spot, List< Double > > incrementalPositions = positions( graph );
+		final Map< Integer, Integer > incrementalRowLengths = layout.getRowLengths();
+		final int[] incrementalColumnWidths = component.columnWidths.clone();
+		final Integer[] incrementalColumnTrackIDs = component.columnTrackIDs.clone();
+
+		layout.execute( null );
+		assertEquals( positions( graph ), incrementalPositions );
+		assertEquals( layout.getRowLengths(), incrementalRowLengths );
+		assertArrayEquals( component.columnWidths, incrementalColumnWidths );
+		assertArrayEquals( component.columnTrackIDs, incrementalColumnTrackIDs );
+	}
+
+	/**
+	 * Mirrors a model edit in the graph, and returns the IDs of the tracks to
+	 * lay out again, the way {@link TrackScheme} does.
+	 */
+	private static Set< Integer > update( final JGraphXAdapter graph, final Model model, final ModelDelta delta )
+	{
+		final TrackModel trackModel = model.getTrackModel();
+		graph.getModel().beginUpdate();
+		try
+		{
+			for ( final DefaultWeightedEdge edge : delta.edges( ModelChangeEvent.FLAG_EDGE_REMOVED ) )
+			{
+				final mxCell cell = graph.getCellFor( edge );
+				if ( null != cell )
+					graph.removeCells( new Object[] { cell }, true );
+				graph.removeMapping( edge );
+			}
+			for ( final Spot spot : delta.spots( ModelChangeEvent.FLAG_SPOT_REMOVED ) )
+			{
+				graph.removeCells( new Object[] { graph.getCellFor( spot ) }, true );
+				graph.removeMapping( spot );
+			}
+			for ( final Spot spot : delta.spots( ModelChangeEvent.FLAG_SPOT_ADDED ) )
+				graph.addJGraphTVertex( spot );
+			for ( final DefaultWeightedEdge edge : delta.edges( ModelChangeEvent.FLAG_EDGE_ADDED ) )
+				graph.addJGraphTEdge( edge );
+		}
+		finally
+		{
+			graph.getModel().endUpdate();
+		}
+
+		final Set< Integer > trackIDs = new HashSet<>( delta.getTracksUpdated() );
+		for ( final Spot spot : delta.spotsNotRemoved() )
+		{
+			final Integer trackID = trackModel.trackIDOf( spot );
+			if ( null != trackID )
+				trackIDs.add( trackID );
+		}
+		for ( final DefaultWeightedEdge edge : delta.edgesNotRemoved() )
+		{
+			final Integer trackID = trackModel.trackIDOf( edge );
+			if ( null != trackID )
+				trackIDs.add( trackID );
+		}
+		return trackIDs;
+	}
+
+	private static Map< Spot, List< Double > > positions( final JGraphXAdapter graph )
+	{
+		final Map< Spot, List< Double > > positions = new HashMap<>();
+		for ( final mxCell cell : graph.getVertexCells() )
+		{
+			final mxGeometry geometry = cell.getGeometry();
+			final List< Double > position = new ArrayList<>();
+			position.add( geometry.getX() );
+			position.add( geometry.getY() );
+			positions.put( graph.getSpotFor( cell ), position );
+		}
+		return positions;
+	}
+
+	/**
+	 * A model with a branching track, a linear track spanning all frames, a
+	 * short track and two lonely spots, with its spots accessible by name.
+	 */
+	private static final class Spots
+	{
+
+		private final Model model = new Model();
+
+		private final Map< String, Spot > spots = new HashMap<>();
+
+		private Spots()
+		{
+			model.beginUpdate();
+			try
+			{
+				link( "a0", 0, "a1", 1 );
+				link( "a1", 1, "a2", 2 );
+				link( "a1", 1, "a2b", 2 );
+				link( "a2", 2, "a3", 3 );
+				link( "b0", 0, "b1", 1 );
+				link( "b1", 1, "b2", 2 );
+				link( "b2", 2, "b3", 3 );
+				link( "b3", 3, "b4", 4 );
+				link( "c1", 1, "c2", 2 );
+				add( "l2", 2 );
+				add( "l4", 4 );
+			}
+			finally
+			{
+				model.endUpdate();
+			}
+		}
+
+		private Spot get( final String name )
+		{
+			return spots.get( name );
+		}
+
+		private Spot add( final String name, final int frame )
+		{
+			final Spot spot = new Spot( frame, spots.size(), 0., 1., -1., name );
+			spots.put( name, spot );
+			return model.addSpotTo( spot, frame );
+		}
+
+		private void link( final String source, final int sourceFrame, final String target, final int targetFrame )
+		{
+			final Spot s = spots.containsKey( source ) ? get( source ) : add( source, sourceFrame );
+			final Spot t = spots.containsKey( target ) ? get( target ) : add( target, targetFrame );
+			model.addEdge( s, t, 1. );
+		}
+	}
+}